@@ -0,0 +1,110 @@
+
+package java.util;
+
+// Chunk geometry shared by the long-indexed big arrays. Chunk sizes follow
+// java.util.stream.SpinedBuffer: two chunks of 2^MIN_CHUNK_POWER, then
+// doubling up to 2^MAX_CHUNK_POWER, after which every chunk has the maximum
+// size. Because chunk k (k >= 1) of the doubling run starts at
+// 2^(MIN_CHUNK_POWER + k - 1), the chunk holding an index is found with a
+// leading-zero count rather than SpinedBuffer's search over element counts.
+// Growing never copies elements; only a trimmed last chunk is reallocated.
+abstract class AbstractBigArray {
+
+    static final int MIN_CHUNK_POWER = 4;
+
+    static final int MAX_CHUNK_POWER = 27;
+
+    static final long MAX_CHUNK_START = 1L << MAX_CHUNK_POWER;
+
+    // index of the first chunk of maximum size
+    static final int FIRST_MAX_CHUNK = MAX_CHUNK_POWER - MIN_CHUNK_POWER + 1;
+
+    static final long MAX_LENGTH =
+        (long)(Integer.MAX_VALUE - FIRST_MAX_CHUNK) << MAX_CHUNK_POWER;
+
+    static final int INSERTION_SORT_THRESHOLD = 47;
+
+    long length;
+
+    public final long length() {
+        return length;
+    }
+
+    static int chunkOf(long index) {
+        if (index < (1L << MIN_CHUNK_POWER))
+            return 0;
+        if (index < MAX_CHUNK_START)
+            return 64 - Long.numberOfLeadingZeros(index) - MIN_CHUNK_POWER;
+        return (int)(index >>> MAX_CHUNK_POWER) + FIRST_MAX_CHUNK - 1;
+    }
+
+    static long chunkStart(int k) {
+        if (k == 0)
+            return 0L;
+        if (k < FIRST_MAX_CHUNK)
+            return 1L << (MIN_CHUNK_POWER + k - 1);
+        return (long)(k - FIRST_MAX_CHUNK + 1) << MAX_CHUNK_POWER;
+    }
+
+    static int chunkSize(int k) {
+        return (k == 0) ? 1 << MIN_CHUNK_POWER :
+            (k < FIRST_MAX_CHUNK) ? 1 << (MIN_CHUNK_POWER + k - 1) :
+            1 << MAX_CHUNK_POWER;
+    }
+
+    static int chunkCount(long length) {
+        return (length == 0) ? 0 : chunkOf(length - 1) + 1;
+    }
+
+    // allocated length of chunk k when the array holds length elements;
+    // only the last chunk is trimmed
+    static int chunkLength(int k, long length) {
+        return (int)Math.min(chunkSize(k), length - chunkStart(k));
+    }
+
+    static long checkLength(long length) {
+        if (length < 0)
+            throw new IllegalArgumentException("Illegal length: " + length);
+        if (length > MAX_LENGTH)
+            throw new OutOfMemoryError("Length too large: " + length);
+        return length;
+    }
+
+    final void rangeCheck(long index) {
+        if (index < 0 || index >= length)
+            throw new ArrayIndexOutOfBoundsException(
+                "Index: " + index + ", Length: " + length);
+    }
+
+    static void rangeCheck(long length, long fromIndex, long toIndex) {
+        if (fromIndex > toIndex) {
+            throw new IllegalArgumentException(
+                    "fromIndex(" + fromIndex + ") > toIndex(" + toIndex + ")");
+        }
+        if (fromIndex < 0) {
+            throw new ArrayIndexOutOfBoundsException("Index: " + fromIndex);
+        }
+        if (toIndex > length) {
+            throw new ArrayIndexOutOfBoundsException("Index: " + toIndex);
+        }
+    }
+
+    // Split point for a spliterator over [lo, hi): the chunk boundary
+    // nearest the midpoint when the range spans chunks, else the midpoint.
+    static long splitPoint(long lo, long hi) {
+        long mid = (lo + hi) >>> 1;
+        int kl = chunkOf(lo), kh = chunkOf(hi - 1);
+        if (kl == kh)
+            return mid;
+        int km = chunkOf(mid);
+        long s = chunkStart(km);
+        if (s <= lo)
+            return chunkStart(km + 1);
+        if (km < kh) {
+            long t = chunkStart(km + 1);
+            if (t - mid < mid - s)
+                return t;
+        }
+        return s;
+    }
+}
@@ -938,4 +938,15 @@ public class ArrayList<E> extends AbstractList<E>
         }
         modCount++;
     }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void sort(Comparator<? super E> c, SortContext ctx) {
+        final int expectedModCount = modCount;
+        Arrays.sort((E[]) elementData, 0, size, c, ctx);
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        modCount++;
+    }
 }
@@ -20,16 +20,33 @@ class ArrayPrefixHelpers {
 
     static final class CumulateTask<T> extends CountedCompleter<Void> {
         final T[] array;
+        final T[] dest;          // == array unless out of place
+        final boolean[] starts;  // segment starts, or null
+        final boolean exclusive;
+        final T identity;        // written at exclusive segment starts
         final BinaryOperator<T> function;
         CumulateTask<T> left, right;
         T in, out;
+        boolean reset;  // out began at a segment start
         final int lo, hi, origin, fence, threshold;
 
         public CumulateTask(CumulateTask<T> parent,
                             BinaryOperator<T> function,
                             T[] array, int lo, int hi) {
+            this(parent, function, array, array, null, false, null, lo, hi);
+        }
+
+        // scans array[lo, hi) into dest[lo, hi), restarting at each i
+        // with starts[i] set; exclusive scans write identity there
+        public CumulateTask(CumulateTask<T> parent,
+                            BinaryOperator<T> function,
+                            T[] array, T[] dest,
+                            boolean[] starts, boolean exclusive, T identity,
+                            int lo, int hi) {
             super(parent);
             this.function = function; this.array = array;
+            this.dest = dest; this.starts = starts;
+            this.exclusive = exclusive; this.identity = identity;
             this.lo = this.origin = lo; this.hi = this.fence = hi;
             int p;
             this.threshold =
@@ -38,10 +55,14 @@ class ArrayPrefixHelpers {
         }
 
         CumulateTask(CumulateTask<T> parent, BinaryOperator<T> function,
-                     T[] array, int origin, int fence, int threshold,
+                     T[] array, T[] dest, boolean[] starts,
+                     boolean exclusive, T identity,
+                     int origin, int fence, int threshold,
                      int lo, int hi) {
             super(parent);
             this.function = function; this.array = array;
+            this.dest = dest; this.starts = starts;
+            this.exclusive = exclusive; this.identity = identity;
             this.origin = origin; this.fence = fence;
             this.threshold = threshold;
             this.lo = lo; this.hi = hi;
@@ -53,6 +74,10 @@ class ArrayPrefixHelpers {
             final T[] a;
             if ((fn = this.function) == null || (a = this.array) == null)
                 throw new NullPointerException();    // hoist checks
+            final T[] d = dest;
+            final boolean[] st = starts;
+            final boolean ex = exclusive;
+            final T id = identity;
             int th = threshold, org = origin, fnc = fence, l, h;
             CumulateTask<T> t = this;
             outer: while ((l = t.lo) >= 0 && (h = t.hi) <= a.length) {
@@ -61,9 +86,11 @@ class ArrayPrefixHelpers {
                     if (lt == null) {                // first pass
                         int mid = (l + h) >>> 1;
                         f = rt = t.right =
-                                new CumulateTask<T>(t, fn, a, org, fnc, th, mid, h);
+                                new CumulateTask<T>(t, fn, a, d, st, ex, id,
+                                        org, fnc, th, mid, h);
                         t = lt = t.left  =
-                                new CumulateTask<T>(t, fn, a, org, fnc, th, l, mid);
+                                new CumulateTask<T>(t, fn, a, d, st, ex, id,
+                                        org, fnc, th, l, mid);
                     }
                     else {                           // possibly refork
                         T pin = t.in;
@@ -71,7 +98,7 @@ class ArrayPrefixHelpers {
                         f = t = null;
                         if (rt != null) {
                             T lout = lt.out;
-                            rt.in = (l == org ? lout :
+                            rt.in = (l == org || lt.reset ? lout :
                                      fn.apply(pin, lout));
                             for (int c;;) {
                                 if (((c = rt.getPendingCount()) & CUMULATE) != 0)
@@ -110,27 +137,60 @@ class ArrayPrefixHelpers {
                     }
 
                     T sum;
+                    boolean reset = false;
                     if (state != SUMMED) {
                         int first;
                         if (l == org) {                       // leftmost; no in
                             sum = a[org];
+                            d[org] = ex ? id : sum;
                             first = org + 1;
                         }
                         else {
                             sum = t.in;
                             first = l;
                         }
-                        for (int i = first; i < h; ++i)       // cumulate
-                            a[i] = sum = fn.apply(sum, a[i]);
+                        if (st == null && !ex) {
+                            for (int i = first; i < h; ++i)   // cumulate
+                                d[i] = sum = fn.apply(sum, a[i]);
+                        }
+                        else {
+                            for (int i = first; i < h; ++i) { // segmented or exclusive
+                                T x = a[i];
+                                if (st != null && st[i]) {
+                                    d[i] = ex ? id : x;
+                                    sum = x;
+                                    reset = true;
+                                }
+                                else {
+                                    T s = fn.apply(sum, x);
+                                    d[i] = ex ? sum : s;
+                                    sum = s;
+                                }
+                            }
+                        }
                     }
                     else if (h < fnc) {                       // skip rightmost
                         sum = a[l];
-                        for (int i = l + 1; i < h; ++i)       // sum only
-                            sum = fn.apply(sum, a[i]);
+                        if (st == null) {
+                            for (int i = l + 1; i < h; ++i)   // sum only
+                                sum = fn.apply(sum, a[i]);
+                        }
+                        else {
+                            reset = st[l];
+                            for (int i = l + 1; i < h; ++i) {
+                                if (st[i]) {
+                                    sum = a[i];
+                                    reset = true;
+                                }
+                                else
+                                    sum = fn.apply(sum, a[i]);
+                            }
+                        }
                     }
                     else
                         sum = t.in;
                     t.out = sum;
+                    t.reset = reset;
                     for (CumulateTask<T> par;;) {             // propagate
                         if ((par = (CumulateTask<T>)t.getCompleter()) == null) {
                             if ((state & FINISHED) != 0)      // enable join
@@ -146,7 +206,9 @@ class ArrayPrefixHelpers {
                                 (rt = par.right) != null) {
                                 T lout = lt.out;
                                 par.out = (rt.hi == fnc ? lout :
+                                           rt.reset ? rt.out :
                                            fn.apply(lout, rt.out));
+                                par.reset = lt.reset | rt.reset;
                             }
                             int refork = (((b & CUMULATE) == 0 &&
                                            par.lo == org) ? CUMULATE : 0);
@@ -168,16 +230,33 @@ class ArrayPrefixHelpers {
 
     static final class LongCumulateTask extends CountedCompleter<Void> {
         final long[] array;
+        final long[] dest;       // == array unless out of place
+        final boolean[] starts;  // segment starts, or null
+        final boolean exclusive;
+        final long identity;     // written at exclusive segment starts
         final LongBinaryOperator function;
         LongCumulateTask left, right;
         long in, out;
+        boolean reset;  // out began at a segment start
         final int lo, hi, origin, fence, threshold;
 
         public LongCumulateTask(LongCumulateTask parent,
                                 LongBinaryOperator function,
                                 long[] array, int lo, int hi) {
+            this(parent, function, array, array, null, false, 0L, lo, hi);
+        }
+
+        // scans array[lo, hi) into dest[lo, hi), restarting at each i
+        // with starts[i] set; exclusive scans write identity there
+        public LongCumulateTask(LongCumulateTask parent,
+                                LongBinaryOperator function,
+                                long[] array, long[] dest,
+                                boolean[] starts, boolean exclusive, long identity,
+                                int lo, int hi) {
             super(parent);
             this.function = function; this.array = array;
+            this.dest = dest; this.starts = starts;
+            this.exclusive = exclusive; this.identity = identity;
             this.lo = this.origin = lo; this.hi = this.fence = hi;
             int p;
             this.threshold =
@@ -186,10 +265,14 @@ class ArrayPrefixHelpers {
         }
 
         LongCumulateTask(LongCumulateTask parent, LongBinaryOperator function,
-                         long[] array, int origin, int fence, int threshold,
+                         long[] array, long[] dest, boolean[] starts,
+                         boolean exclusive, long identity,
+                         int origin, int fence, int threshold,
                          int lo, int hi) {
             super(parent);
             this.function = function; this.array = array;
+            this.dest = dest; this.starts = starts;
+            this.exclusive = exclusive; this.identity = identity;
             this.origin = origin; this.fence = fence;
             this.threshold = threshold;
             this.lo = lo; this.hi = hi;
@@ -200,6 +283,10 @@ class ArrayPrefixHelpers {
             final long[] a;
             if ((fn = this.function) == null || (a = this.array) == null)
                 throw new NullPointerException();    // hoist checks
+            final long[] d = dest;
+            final boolean[] st = starts;
+            final boolean ex = exclusive;
+            final long id = identity;
             int th = threshold, org = origin, fnc = fence, l, h;
             LongCumulateTask t = this;
             outer: while ((l = t.lo) >= 0 && (h = t.hi) <= a.length) {
@@ -208,9 +295,11 @@ class ArrayPrefixHelpers {
                     if (lt == null) {                // first pass
                         int mid = (l + h) >>> 1;
                         f = rt = t.right =
-                                new LongCumulateTask(t, fn, a, org, fnc, th, mid, h);
+                                new LongCumulateTask(t, fn, a, d, st, ex, id,
+                                        org, fnc, th, mid, h);
                         t = lt = t.left  =
-                                new LongCumulateTask(t, fn, a, org, fnc, th, l, mid);
+                                new LongCumulateTask(t, fn, a, d, st, ex, id,
+                                        org, fnc, th, l, mid);
                     }
                     else {                           // possibly refork
                         long pin = t.in;
@@ -218,7 +307,7 @@ class ArrayPrefixHelpers {
                         f = t = null;
                         if (rt != null) {
                             long lout = lt.out;
-                            rt.in = (l == org ? lout :
+                            rt.in = (l == org || lt.reset ? lout :
                                      fn.applyAsLong(pin, lout));
                             for (int c;;) {
                                 if (((c = rt.getPendingCount()) & CUMULATE) != 0)
@@ -257,27 +346,60 @@ class ArrayPrefixHelpers {
                     }
 
                     long sum;
+                    boolean reset = false;
                     if (state != SUMMED) {
                         int first;
                         if (l == org) {                       // leftmost; no in
                             sum = a[org];
+                            d[org] = ex ? id : sum;
                             first = org + 1;
                         }
                         else {
                             sum = t.in;
                             first = l;
                         }
-                        for (int i = first; i < h; ++i)       // cumulate
-                            a[i] = sum = fn.applyAsLong(sum, a[i]);
+                        if (st == null && !ex) {
+                            for (int i = first; i < h; ++i)   // cumulate
+                                d[i] = sum = fn.applyAsLong(sum, a[i]);
+                        }
+                        else {
+                            for (int i = first; i < h; ++i) { // segmented or exclusive
+                                long x = a[i];
+                                if (st != null && st[i]) {
+                                    d[i] = ex ? id : x;
+                                    sum = x;
+                                    reset = true;
+                                }
+                                else {
+                                    long s = fn.applyAsLong(sum, x);
+                                    d[i] = ex ? sum : s;
+                                    sum = s;
+                                }
+                            }
+                        }
                     }
                     else if (h < fnc) {                       // skip rightmost
                         sum = a[l];
-                        for (int i = l + 1; i < h; ++i)       // sum only
-                            sum = fn.applyAsLong(sum, a[i]);
+                        if (st == null) {
+                            for (int i = l + 1; i < h; ++i)   // sum only
+                                sum = fn.applyAsLong(sum, a[i]);
+                        }
+                        else {
+                            reset = st[l];
+                            for (int i = l + 1; i < h; ++i) {
+                                if (st[i]) {
+                                    sum = a[i];
+                                    reset = true;
+                                }
+                                else
+                                    sum = fn.applyAsLong(sum, a[i]);
+                            }
+                        }
                     }
                     else
                         sum = t.in;
                     t.out = sum;
+                    t.reset = reset;
                     for (LongCumulateTask par;;) {            // propagate
                         if ((par = (LongCumulateTask)t.getCompleter()) == null) {
                             if ((state & FINISHED) != 0)      // enable join
@@ -293,7 +415,9 @@ class ArrayPrefixHelpers {
                                 (rt = par.right) != null) {
                                 long lout = lt.out;
                                 par.out = (rt.hi == fnc ? lout :
+                                           rt.reset ? rt.out :
                                            fn.applyAsLong(lout, rt.out));
+                                par.reset = lt.reset | rt.reset;
                             }
                             int refork = (((b & CUMULATE) == 0 &&
                                            par.lo == org) ? CUMULATE : 0);
@@ -315,16 +439,33 @@ class ArrayPrefixHelpers {
 
     static final class DoubleCumulateTask extends CountedCompleter<Void> {
         final double[] array;
+        final double[] dest;     // == array unless out of place
+        final boolean[] starts;  // segment starts, or null
+        final boolean exclusive;
+        final double identity;   // written at exclusive segment starts
         final DoubleBinaryOperator function;
         DoubleCumulateTask left, right;
         double in, out;
+        boolean reset;  // out began at a segment start
         final int lo, hi, origin, fence, threshold;
 
         public DoubleCumulateTask(DoubleCumulateTask parent,
                                   DoubleBinaryOperator function,
                                   double[] array, int lo, int hi) {
+            this(parent, function, array, array, null, false, 0.0, lo, hi);
+        }
+
+        // scans array[lo, hi) into dest[lo, hi), restarting at each i
+        // with starts[i] set; exclusive scans write identity there
+        public DoubleCumulateTask(DoubleCumulateTask parent,
+                                  DoubleBinaryOperator function,
+                                  double[] array, double[] dest,
+                                  boolean[] starts, boolean exclusive, double identity,
+                                  int lo, int hi) {
             super(parent);
             this.function = function; this.array = array;
+            this.dest = dest; this.starts = starts;
+            this.exclusive = exclusive; this.identity = identity;
             this.lo = this.origin = lo; this.hi = this.fence = hi;
             int p;
             this.threshold =
@@ -333,10 +474,14 @@ class ArrayPrefixHelpers {
         }
 
         DoubleCumulateTask(DoubleCumulateTask parent, DoubleBinaryOperator function,
-                           double[] array, int origin, int fence, int threshold,
+                           double[] array, double[] dest, boolean[] starts,
+                           boolean exclusive, double identity,
+                           int origin, int fence, int threshold,
                            int lo, int hi) {
             super(parent);
             this.function = function; this.array = array;
+            this.dest = dest; this.starts = starts;
+            this.exclusive = exclusive; this.identity = identity;
             this.origin = origin; this.fence = fence;
             this.threshold = threshold;
             this.lo = lo; this.hi = hi;
@@ -347,6 +492,10 @@ class ArrayPrefixHelpers {
             final double[] a;
             if ((fn = this.function) == null || (a = this.array) == null)
                 throw new NullPointerException();    // hoist checks
+            final double[] d = dest;
+            final boolean[] st = starts;
+            final boolean ex = exclusive;
+            final double id = identity;
             int th = threshold, org = origin, fnc = fence, l, h;
             DoubleCumulateTask t = this;
             outer: while ((l = t.lo) >= 0 && (h = t.hi) <= a.length) {
@@ -355,9 +504,11 @@ class ArrayPrefixHelpers {
                     if (lt == null) {                // first pass
                         int mid = (l + h) >>> 1;
                         f = rt = t.right =
-                                new DoubleCumulateTask(t, fn, a, org, fnc, th, mid, h);
+                                new DoubleCumulateTask(t, fn, a, d, st, ex, id,
+                                        org, fnc, th, mid, h);
                         t = lt = t.left  =
-                                new DoubleCumulateTask(t, fn, a, org, fnc, th, l, mid);
+                                new DoubleCumulateTask(t, fn, a, d, st, ex, id,
+                                        org, fnc, th, l, mid);
                     }
                     else {                           // possibly refork
                         double pin = t.in;
@@ -365,7 +516,7 @@ class ArrayPrefixHelpers {
                         f = t = null;
                         if (rt != null) {
                             double lout = lt.out;
-                            rt.in = (l == org ? lout :
+                            rt.in = (l == org || lt.reset ? lout :
                                      fn.applyAsDouble(pin, lout));
                             for (int c;;) {
                                 if (((c = rt.getPendingCount()) & CUMULATE) != 0)
@@ -404,27 +555,60 @@ class ArrayPrefixHelpers {
                     }
 
                     double sum;
+                    boolean reset = false;
                     if (state != SUMMED) {
                         int first;
                         if (l == org) {                       // leftmost; no in
                             sum = a[org];
+                            d[org] = ex ? id : sum;
                             first = org + 1;
                         }
                         else {
                             sum = t.in;
                             first = l;
                         }
-                        for (int i = first; i < h; ++i)       // cumulate
-                            a[i] = sum = fn.applyAsDouble(sum, a[i]);
+                        if (st == null && !ex) {
+                            for (int i = first; i < h; ++i)   // cumulate
+                                d[i] = sum = fn.applyAsDouble(sum, a[i]);
+                        }
+                        else {
+                            for (int i = first; i < h; ++i) { // segmented or exclusive
+                                double x = a[i];
+                                if (st != null && st[i]) {
+                                    d[i] = ex ? id : x;
+                                    sum = x;
+                                    reset = true;
+                                }
+                                else {
+                                    double s = fn.applyAsDouble(sum, x);
+                                    d[i] = ex ? sum : s;
+                                    sum = s;
+                                }
+                            }
+                        }
                     }
                     else if (h < fnc) {                       // skip rightmost
                         sum = a[l];
-                        for (int i = l + 1; i < h; ++i)       // sum only
-                            sum = fn.applyAsDouble(sum, a[i]);
+                        if (st == null) {
+                            for (int i = l + 1; i < h; ++i)   // sum only
+                                sum = fn.applyAsDouble(sum, a[i]);
+                        }
+                        else {
+                            reset = st[l];
+                            for (int i = l + 1; i < h; ++i) {
+                                if (st[i]) {
+                                    sum = a[i];
+                                    reset = true;
+                                }
+                                else
+                                    sum = fn.applyAsDouble(sum, a[i]);
+                            }
+                        }
                     }
                     else
                         sum = t.in;
                     t.out = sum;
+                    t.reset = reset;
                     for (DoubleCumulateTask par;;) {            // propagate
                         if ((par = (DoubleCumulateTask)t.getCompleter()) == null) {
                             if ((state & FINISHED) != 0)      // enable join
@@ -440,7 +624,9 @@ class ArrayPrefixHelpers {
                                 (rt = par.right) != null) {
                                 double lout = lt.out;
                                 par.out = (rt.hi == fnc ? lout :
+                                           rt.reset ? rt.out :
                                            fn.applyAsDouble(lout, rt.out));
+                                par.reset = lt.reset | rt.reset;
                             }
                             int refork = (((b & CUMULATE) == 0 &&
                                            par.lo == org) ? CUMULATE : 0);
@@ -462,16 +648,33 @@ class ArrayPrefixHelpers {
 
     static final class IntCumulateTask extends CountedCompleter<Void> {
         final int[] array;
+        final int[] dest;        // == array unless out of place
+        final boolean[] starts;  // segment starts, or null
+        final boolean exclusive;
+        final int identity;      // written at exclusive segment starts
         final IntBinaryOperator function;
         IntCumulateTask left, right;
         int in, out;
+        boolean reset;  // out began at a segment start
         final int lo, hi, origin, fence, threshold;
 
         public IntCumulateTask(IntCumulateTask parent,
                                IntBinaryOperator function,
                                int[] array, int lo, int hi) {
+            this(parent, function, array, array, null, false, 0, lo, hi);
+        }
+
+        // scans array[lo, hi) into dest[lo, hi), restarting at each i
+        // with starts[i] set; exclusive scans write identity there
+        public IntCumulateTask(IntCumulateTask parent,
+                               IntBinaryOperator function,
+                               int[] array, int[] dest,
+                               boolean[] starts, boolean exclusive, int identity,
+                               int lo, int hi) {
             super(parent);
             this.function = function; this.array = array;
+            this.dest = dest; this.starts = starts;
+            this.exclusive = exclusive; this.identity = identity;
             this.lo = this.origin = lo; this.hi = this.fence = hi;
             int p;
             this.threshold =
@@ -480,10 +683,14 @@ class ArrayPrefixHelpers {
         }
 
         IntCumulateTask(IntCumulateTask parent, IntBinaryOperator function,
-                        int[] array, int origin, int fence, int threshold,
+                        int[] array, int[] dest, boolean[] starts,
+                        boolean exclusive, int identity,
+                        int origin, int fence, int threshold,
                         int lo, int hi) {
             super(parent);
             this.function = function; this.array = array;
+            this.dest = dest; this.starts = starts;
+            this.exclusive = exclusive; this.identity = identity;
             this.origin = origin; this.fence = fence;
             this.threshold = threshold;
             this.lo = lo; this.hi = hi;
@@ -494,6 +701,10 @@ class ArrayPrefixHelpers {
             final int[] a;
             if ((fn = this.function) == null || (a = this.array) == null)
                 throw new NullPointerException();    // hoist checks
+            final int[] d = dest;
+            final boolean[] st = starts;
+            final boolean ex = exclusive;
+            final int id = identity;
             int th = threshold, org = origin, fnc = fence, l, h;
             IntCumulateTask t = this;
             outer: while ((l = t.lo) >= 0 && (h = t.hi) <= a.length) {
@@ -502,9 +713,11 @@ class ArrayPrefixHelpers {
                     if (lt == null) {                // first pass
                         int mid = (l + h) >>> 1;
                         f = rt = t.right =
-                                new IntCumulateTask(t, fn, a, org, fnc, th, mid, h);
+                                new IntCumulateTask(t, fn, a, d, st, ex, id,
+                                        org, fnc, th, mid, h);
                         t = lt = t.left  =
-                                new IntCumulateTask(t, fn, a, org, fnc, th, l, mid);
+                                new IntCumulateTask(t, fn, a, d, st, ex, id,
+                                        org, fnc, th, l, mid);
                     }
                     else {                           // possibly refork
                         int pin = t.in;
@@ -512,7 +725,7 @@ class ArrayPrefixHelpers {
                         f = t = null;
                         if (rt != null) {
                             int lout = lt.out;
-                            rt.in = (l == org ? lout :
+                            rt.in = (l == org || lt.reset ? lout :
                                      fn.applyAsInt(pin, lout));
                             for (int c;;) {
                                 if (((c = rt.getPendingCount()) & CUMULATE) != 0)
@@ -551,27 +764,60 @@ class ArrayPrefixHelpers {
                     }
 
                     int sum;
+                    boolean reset = false;
                     if (state != SUMMED) {
                         int first;
                         if (l == org) {                       // leftmost; no in
                             sum = a[org];
+                            d[org] = ex ? id : sum;
                             first = org + 1;
                         }
                         else {
                             sum = t.in;
                             first = l;
                         }
-                        for (int i = first; i < h; ++i)       // cumulate
-                            a[i] = sum = fn.applyAsInt(sum, a[i]);
+                        if (st == null && !ex) {
+                            for (int i = first; i < h; ++i)   // cumulate
+                                d[i] = sum = fn.applyAsInt(sum, a[i]);
+                        }
+                        else {
+                            for (int i = first; i < h; ++i) { // segmented or exclusive
+                                int x = a[i];
+                                if (st != null && st[i]) {
+                                    d[i] = ex ? id : x;
+                                    sum = x;
+                                    reset = true;
+                                }
+                                else {
+                                    int s = fn.applyAsInt(sum, x);
+                                    d[i] = ex ? sum : s;
+                                    sum = s;
+                                }
+                            }
+                        }
                     }
                     else if (h < fnc) {                       // skip rightmost
                         sum = a[l];
-                        for (int i = l + 1; i < h; ++i)       // sum only
-                            sum = fn.applyAsInt(sum, a[i]);
+                        if (st == null) {
+                            for (int i = l + 1; i < h; ++i)   // sum only
+                                sum = fn.applyAsInt(sum, a[i]);
+                        }
+                        else {
+                            reset = st[l];
+                            for (int i = l + 1; i < h; ++i) {
+                                if (st[i]) {
+                                    sum = a[i];
+                                    reset = true;
+                                }
+                                else
+                                    sum = fn.applyAsInt(sum, a[i]);
+                            }
+                        }
                     }
                     else
                         sum = t.in;
                     t.out = sum;
+                    t.reset = reset;
                     for (IntCumulateTask par;;) {            // propagate
                         if ((par = (IntCumulateTask)t.getCompleter()) == null) {
                             if ((state & FINISHED) != 0)      // enable join
@@ -587,7 +833,9 @@ class ArrayPrefixHelpers {
                                 (rt = par.right) != null) {
                                 int lout = lt.out;
                                 par.out = (rt.hi == fnc ? lout :
+                                           rt.reset ? rt.out :
                                            fn.applyAsInt(lout, rt.out));
+                                par.reset = lt.reset | rt.reset;
                             }
                             int refork = (((b & CUMULATE) == 0 &&
                                            par.lo == org) ? CUMULATE : 0);
@@ -33,7 +33,7 @@ public class Arrays {
         static final NaturalOrder INSTANCE = new NaturalOrder();
     }
 
-    private static void rangeCheck(int arrayLength, int fromIndex, int toIndex) {
+    static void rangeCheck(int arrayLength, int fromIndex, int toIndex) {
         if (fromIndex > toIndex) {
             throw new IllegalArgumentException(
                     "fromIndex(" + fromIndex + ") > toIndex(" + toIndex + ")");
@@ -56,6 +56,15 @@ public class Arrays {
         DualPivotQuicksort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
     }
 
+    // As sort(a, fromIndex, toIndex), using work as scratch space when it
+    // has room for toIndex - fromIndex elements, so that repeated sorts of
+    // large arrays need not allocate.
+    public static void sort(int[] a, int fromIndex, int toIndex, int[] work) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        DualPivotQuicksort.sort(a, fromIndex, toIndex - 1, work, 0,
+                                (work == null) ? 0 : work.length);
+    }
+
     public static void sort(long[] a) {
         DualPivotQuicksort.sort(a, 0, a.length - 1, null, 0, 0);
     }
@@ -65,6 +74,12 @@ public class Arrays {
         DualPivotQuicksort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
     }
 
+    public static void sort(long[] a, int fromIndex, int toIndex, long[] work) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        DualPivotQuicksort.sort(a, fromIndex, toIndex - 1, work, 0,
+                                (work == null) ? 0 : work.length);
+    }
+
     public static void sort(short[] a) {
         DualPivotQuicksort.sort(a, 0, a.length - 1, null, 0, 0);
     }
@@ -101,6 +116,12 @@ public class Arrays {
         DualPivotQuicksort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
     }
 
+    public static void sort(float[] a, int fromIndex, int toIndex, float[] work) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        DualPivotQuicksort.sort(a, fromIndex, toIndex - 1, work, 0,
+                                (work == null) ? 0 : work.length);
+    }
+
     public static void sort(double[] a) {
         DualPivotQuicksort.sort(a, 0, a.length - 1, null, 0, 0);
     }
@@ -110,6 +131,12 @@ public class Arrays {
         DualPivotQuicksort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
     }
 
+    public static void sort(double[] a, int fromIndex, int toIndex, double[] work) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        DualPivotQuicksort.sort(a, fromIndex, toIndex - 1, work, 0,
+                                (work == null) ? 0 : work.length);
+    }
+
     public static void parallelSort(byte[] a) {
         int n = a.length, p, g;
         if (n <= MIN_ARRAY_SORT_GRAN ||
@@ -210,6 +237,23 @@ public class Arrays {
                  MIN_ARRAY_SORT_GRAN : g).invoke();
     }
 
+    // As parallelSort, but sorting in place: the extra space is O(p)
+    // rather than a work array as large as the range being sorted.
+    public static void parallelSortInPlace(int[] a) {
+        parallelSortInPlace(a, 0, a.length);
+    }
+
+    public static void parallelSortInPlace(int[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        int n = toIndex - fromIndex, p, g;
+        if (n <= MIN_ARRAY_SORT_GRAN ||
+            (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
+            g = Math.max(n, 1);
+        else if ((g = n / (p << 2)) <= MIN_ARRAY_SORT_GRAN)
+            g = MIN_ARRAY_SORT_GRAN;
+        ArraysParallelSortHelpers.FJInt.InPlaceSorter.sort(a, fromIndex, toIndex, g);
+    }
+
     public static void parallelSort(long[] a) {
         int n = a.length, p, g;
         if (n <= MIN_ARRAY_SORT_GRAN ||
@@ -235,6 +279,21 @@ public class Arrays {
                  MIN_ARRAY_SORT_GRAN : g).invoke();
     }
 
+    public static void parallelSortInPlace(long[] a) {
+        parallelSortInPlace(a, 0, a.length);
+    }
+
+    public static void parallelSortInPlace(long[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        int n = toIndex - fromIndex, p, g;
+        if (n <= MIN_ARRAY_SORT_GRAN ||
+            (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
+            g = Math.max(n, 1);
+        else if ((g = n / (p << 2)) <= MIN_ARRAY_SORT_GRAN)
+            g = MIN_ARRAY_SORT_GRAN;
+        ArraysParallelSortHelpers.FJLong.InPlaceSorter.sort(a, fromIndex, toIndex, g);
+    }
+
     public static void parallelSort(float[] a) {
         int n = a.length, p, g;
         if (n <= MIN_ARRAY_SORT_GRAN ||
@@ -260,6 +319,21 @@ public class Arrays {
                  MIN_ARRAY_SORT_GRAN : g).invoke();
     }
 
+    public static void parallelSortInPlace(float[] a) {
+        parallelSortInPlace(a, 0, a.length);
+    }
+
+    public static void parallelSortInPlace(float[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        int n = toIndex - fromIndex, p, g;
+        if (n <= MIN_ARRAY_SORT_GRAN ||
+            (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
+            g = Math.max(n, 1);
+        else if ((g = n / (p << 2)) <= MIN_ARRAY_SORT_GRAN)
+            g = MIN_ARRAY_SORT_GRAN;
+        ArraysParallelSortHelpers.FJFloat.InPlaceSorter.sort(a, fromIndex, toIndex, g);
+    }
+
     public static void parallelSort(double[] a) {
         int n = a.length, p, g;
         if (n <= MIN_ARRAY_SORT_GRAN ||
@@ -285,6 +359,21 @@ public class Arrays {
                  MIN_ARRAY_SORT_GRAN : g).invoke();
     }
 
+    public static void parallelSortInPlace(double[] a) {
+        parallelSortInPlace(a, 0, a.length);
+    }
+
+    public static void parallelSortInPlace(double[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        int n = toIndex - fromIndex, p, g;
+        if (n <= MIN_ARRAY_SORT_GRAN ||
+            (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
+            g = Math.max(n, 1);
+        else if ((g = n / (p << 2)) <= MIN_ARRAY_SORT_GRAN)
+            g = MIN_ARRAY_SORT_GRAN;
+        ArraysParallelSortHelpers.FJDouble.InPlaceSorter.sort(a, fromIndex, toIndex, g);
+    }
+
     @SuppressWarnings("unchecked")
     public static <T extends Comparable<? super T>> void parallelSort(T[] a) {
         int n = a.length, p, g;
@@ -469,6 +558,41 @@ public class Arrays {
             mergeSort(aux, a, fromIndex, toIndex, -fromIndex, c);
     }
 
+    // As the sorts above, with the merge buffer and run stack taken from
+    // ctx instead of allocated per call; see SortContext.
+    public static void sort(Object[] a, SortContext ctx) {
+        sort(a, 0, a.length, ctx);
+    }
+
+    public static void sort(Object[] a, int fromIndex, int toIndex,
+                            SortContext ctx) {
+        Objects.requireNonNull(ctx);
+        rangeCheck(a.length, fromIndex, toIndex);
+        if (LegacyMergeSort.userRequested)
+            legacyMergeSort(a, fromIndex, toIndex);
+        else
+            ComparableTimSort.sort(a, fromIndex, toIndex, ctx);
+    }
+
+    public static <T> void sort(T[] a, Comparator<? super T> c,
+                                SortContext ctx) {
+        sort(a, 0, a.length, c, ctx);
+    }
+
+    public static <T> void sort(T[] a, int fromIndex, int toIndex,
+                                Comparator<? super T> c, SortContext ctx) {
+        if (c == null) {
+            sort(a, fromIndex, toIndex, ctx);
+        } else {
+            Objects.requireNonNull(ctx);
+            rangeCheck(a.length, fromIndex, toIndex);
+            if (LegacyMergeSort.userRequested)
+                legacyMergeSort(a, fromIndex, toIndex, c);
+            else
+                TimSort.sort(a, fromIndex, toIndex, c, ctx);
+        }
+    }
+
     @SuppressWarnings({"rawtypes", "unchecked"})
     private static void mergeSort(Object[] src,
                                   Object[] dest,
@@ -569,6 +693,158 @@ public class Arrays {
                     (null, op, array, fromIndex, toIndex).invoke();
     }
 
+    // Scans of array into result, which may be array itself. Exclusive
+    // scans put at each position the combination of the elements before
+    // it, identity for the first; segmented scans start over at each i
+    // with segmentStarts[i] set.
+    public static <T> void parallelPrefix(T[] array, T[] result,
+                                          BinaryOperator<T> op) {
+        parallelScan(array, result, null, false, null, op);
+    }
+
+    public static <T> void parallelExclusivePrefix(T[] array, T[] result,
+                                                   T identity, BinaryOperator<T> op) {
+        parallelScan(array, result, null, true, identity, op);
+    }
+
+    public static <T> void parallelSegmentedPrefix(T[] array, T[] result,
+                                                   boolean[] segmentStarts, BinaryOperator<T> op) {
+        Objects.requireNonNull(segmentStarts);
+        parallelScan(array, result, segmentStarts, false, null, op);
+    }
+
+    public static <T> void parallelSegmentedExclusivePrefix(T[] array, T[] result,
+                                                            boolean[] segmentStarts, T identity,
+                                                            BinaryOperator<T> op) {
+        Objects.requireNonNull(segmentStarts);
+        parallelScan(array, result, segmentStarts, true, identity, op);
+    }
+
+    private static <T> void parallelScan(T[] array, T[] result,
+                                         boolean[] starts, boolean exclusive,
+                                         T identity, BinaryOperator<T> op) {
+        Objects.requireNonNull(op);
+        int n = array.length;
+        if (result.length < n || (starts != null && starts.length < n))
+            throw new IllegalArgumentException(
+                "result or segmentStarts shorter than array");
+        if (n > 0)
+            new ArrayPrefixHelpers.CumulateTask<>
+                    (null, op, array, result, starts, exclusive, identity,
+                     0, n).invoke();
+    }
+
+    public static void parallelPrefix(long[] array, long[] result,
+                                      LongBinaryOperator op) {
+        parallelScan(array, result, null, false, 0, op);
+    }
+
+    public static void parallelExclusivePrefix(long[] array, long[] result,
+                                               long identity, LongBinaryOperator op) {
+        parallelScan(array, result, null, true, identity, op);
+    }
+
+    public static void parallelSegmentedPrefix(long[] array, long[] result,
+                                               boolean[] segmentStarts, LongBinaryOperator op) {
+        Objects.requireNonNull(segmentStarts);
+        parallelScan(array, result, segmentStarts, false, 0, op);
+    }
+
+    public static void parallelSegmentedExclusivePrefix(long[] array, long[] result,
+                                                        boolean[] segmentStarts, long identity,
+                                                        LongBinaryOperator op) {
+        Objects.requireNonNull(segmentStarts);
+        parallelScan(array, result, segmentStarts, true, identity, op);
+    }
+
+    private static void parallelScan(long[] array, long[] result,
+                                     boolean[] starts, boolean exclusive,
+                                     long identity, LongBinaryOperator op) {
+        Objects.requireNonNull(op);
+        int n = array.length;
+        if (result.length < n || (starts != null && starts.length < n))
+            throw new IllegalArgumentException(
+                "result or segmentStarts shorter than array");
+        if (n > 0)
+            new ArrayPrefixHelpers.LongCumulateTask
+                    (null, op, array, result, starts, exclusive, identity,
+                     0, n).invoke();
+    }
+
+    public static void parallelPrefix(double[] array, double[] result,
+                                      DoubleBinaryOperator op) {
+        parallelScan(array, result, null, false, 0, op);
+    }
+
+    public static void parallelExclusivePrefix(double[] array, double[] result,
+                                               double identity, DoubleBinaryOperator op) {
+        parallelScan(array, result, null, true, identity, op);
+    }
+
+    public static void parallelSegmentedPrefix(double[] array, double[] result,
+                                               boolean[] segmentStarts, DoubleBinaryOperator op) {
+        Objects.requireNonNull(segmentStarts);
+        parallelScan(array, result, segmentStarts, false, 0, op);
+    }
+
+    public static void parallelSegmentedExclusivePrefix(double[] array, double[] result,
+                                                        boolean[] segmentStarts, double identity,
+                                                        DoubleBinaryOperator op) {
+        Objects.requireNonNull(segmentStarts);
+        parallelScan(array, result, segmentStarts, true, identity, op);
+    }
+
+    private static void parallelScan(double[] array, double[] result,
+                                     boolean[] starts, boolean exclusive,
+                                     double identity, DoubleBinaryOperator op) {
+        Objects.requireNonNull(op);
+        int n = array.length;
+        if (result.length < n || (starts != null && starts.length < n))
+            throw new IllegalArgumentException(
+                "result or segmentStarts shorter than array");
+        if (n > 0)
+            new ArrayPrefixHelpers.DoubleCumulateTask
+                    (null, op, array, result, starts, exclusive, identity,
+                     0, n).invoke();
+    }
+
+    public static void parallelPrefix(int[] array, int[] result,
+                                      IntBinaryOperator op) {
+        parallelScan(array, result, null, false, 0, op);
+    }
+
+    public static void parallelExclusivePrefix(int[] array, int[] result,
+                                               int identity, IntBinaryOperator op) {
+        parallelScan(array, result, null, true, identity, op);
+    }
+
+    public static void parallelSegmentedPrefix(int[] array, int[] result,
+                                               boolean[] segmentStarts, IntBinaryOperator op) {
+        Objects.requireNonNull(segmentStarts);
+        parallelScan(array, result, segmentStarts, false, 0, op);
+    }
+
+    public static void parallelSegmentedExclusivePrefix(int[] array, int[] result,
+                                                        boolean[] segmentStarts, int identity,
+                                                        IntBinaryOperator op) {
+        Objects.requireNonNull(segmentStarts);
+        parallelScan(array, result, segmentStarts, true, identity, op);
+    }
+
+    private static void parallelScan(int[] array, int[] result,
+                                     boolean[] starts, boolean exclusive,
+                                     int identity, IntBinaryOperator op) {
+        Objects.requireNonNull(op);
+        int n = array.length;
+        if (result.length < n || (starts != null && starts.length < n))
+            throw new IllegalArgumentException(
+                "result or segmentStarts shorter than array");
+        if (n > 0)
+            new ArrayPrefixHelpers.IntCumulateTask
+                    (null, op, array, result, starts, exclusive, identity,
+                     0, n).invoke();
+    }
+
 
     public static int binarySearch(long[] a, long key) {
         return binarySearch0(a, 0, a.length, key);
@@ -915,11 +1191,7 @@ public class Arrays {
         if (a2.length != length)
             return false;
 
-        for (int i=0; i<length; i++)
-            if (a[i] != a2[i])
-                return false;
-
-        return true;
+        return ArraysParallelBulkHelpers.mismatch(a, a2, 0, length) < 0;
     }
 
     public static boolean equals(byte[] a, byte[] a2) {
@@ -932,11 +1204,7 @@ public class Arrays {
         if (a2.length != length)
             return false;
 
-        for (int i=0; i<length; i++)
-            if (a[i] != a2[i])
-                return false;
-
-        return true;
+        return ArraysParallelBulkHelpers.mismatch(a, a2, 0, length) < 0;
     }
 
     public static boolean equals(boolean[] a, boolean[] a2) {
@@ -1010,6 +1278,194 @@ public class Arrays {
         return true;
     }
 
+    public static boolean parallelEquals(long[] a, long[] a2) {
+        if (a==a2)
+            return true;
+        if (a==null || a2==null)
+            return false;
+
+        if (a2.length != a.length)
+            return false;
+
+        return parallelMismatch(a, a2) < 0;
+    }
+
+    // Index of the first element at which a and b differ; the length of the
+    // shorter if it is a prefix of the longer, -1 if they are equal.
+    public static int mismatch(long[] a, long[] b) {
+        if (a == b)
+            return -1;
+        int length = Math.min(a.length, b.length);
+        int i = ArraysParallelBulkHelpers.mismatch(a, b, 0, length);
+        return (i < 0 && a.length != b.length) ? length : i;
+    }
+
+    public static int parallelMismatch(long[] a, long[] b) {
+        if (a == b)
+            return -1;
+        int length = Math.min(a.length, b.length), g = bulkGranularity(length);
+        int i = (g == 0) ? ArraysParallelBulkHelpers.mismatch(a, b, 0, length) :
+            new ArraysParallelBulkHelpers.RangeTask
+            (null, (lo, hi) -> ArraysParallelBulkHelpers.mismatch(a, b, lo, hi),
+             0, length, g, ArraysParallelBulkHelpers.RangeTask.FIRST, null).invoke();
+        return (i < 0 && a.length != b.length) ? length : i;
+    }
+
+    public static boolean parallelEquals(int[] a, int[] a2) {
+        if (a==a2)
+            return true;
+        if (a==null || a2==null)
+            return false;
+
+        if (a2.length != a.length)
+            return false;
+
+        return parallelMismatch(a, a2) < 0;
+    }
+
+    public static int mismatch(int[] a, int[] b) {
+        if (a == b)
+            return -1;
+        int length = Math.min(a.length, b.length);
+        int i = ArraysParallelBulkHelpers.mismatch(a, b, 0, length);
+        return (i < 0 && a.length != b.length) ? length : i;
+    }
+
+    public static int parallelMismatch(int[] a, int[] b) {
+        if (a == b)
+            return -1;
+        int length = Math.min(a.length, b.length), g = bulkGranularity(length);
+        int i = (g == 0) ? ArraysParallelBulkHelpers.mismatch(a, b, 0, length) :
+            new ArraysParallelBulkHelpers.RangeTask
+            (null, (lo, hi) -> ArraysParallelBulkHelpers.mismatch(a, b, lo, hi),
+             0, length, g, ArraysParallelBulkHelpers.RangeTask.FIRST, null).invoke();
+        return (i < 0 && a.length != b.length) ? length : i;
+    }
+
+    public static boolean parallelEquals(char[] a, char[] a2) {
+        if (a==a2)
+            return true;
+        if (a==null || a2==null)
+            return false;
+
+        if (a2.length != a.length)
+            return false;
+
+        return parallelMismatch(a, a2) < 0;
+    }
+
+    public static int mismatch(char[] a, char[] b) {
+        if (a == b)
+            return -1;
+        int length = Math.min(a.length, b.length);
+        int i = ArraysParallelBulkHelpers.mismatch(a, b, 0, length);
+        return (i < 0 && a.length != b.length) ? length : i;
+    }
+
+    public static int parallelMismatch(char[] a, char[] b) {
+        if (a == b)
+            return -1;
+        int length = Math.min(a.length, b.length), g = bulkGranularity(length);
+        int i = (g == 0) ? ArraysParallelBulkHelpers.mismatch(a, b, 0, length) :
+            new ArraysParallelBulkHelpers.RangeTask
+            (null, (lo, hi) -> ArraysParallelBulkHelpers.mismatch(a, b, lo, hi),
+             0, length, g, ArraysParallelBulkHelpers.RangeTask.FIRST, null).invoke();
+        return (i < 0 && a.length != b.length) ? length : i;
+    }
+
+    public static boolean parallelEquals(byte[] a, byte[] a2) {
+        if (a==a2)
+            return true;
+        if (a==null || a2==null)
+            return false;
+
+        if (a2.length != a.length)
+            return false;
+
+        return parallelMismatch(a, a2) < 0;
+    }
+
+    public static int mismatch(byte[] a, byte[] b) {
+        if (a == b)
+            return -1;
+        int length = Math.min(a.length, b.length);
+        int i = ArraysParallelBulkHelpers.mismatch(a, b, 0, length);
+        return (i < 0 && a.length != b.length) ? length : i;
+    }
+
+    public static int parallelMismatch(byte[] a, byte[] b) {
+        if (a == b)
+            return -1;
+        int length = Math.min(a.length, b.length), g = bulkGranularity(length);
+        int i = (g == 0) ? ArraysParallelBulkHelpers.mismatch(a, b, 0, length) :
+            new ArraysParallelBulkHelpers.RangeTask
+            (null, (lo, hi) -> ArraysParallelBulkHelpers.mismatch(a, b, lo, hi),
+             0, length, g, ArraysParallelBulkHelpers.RangeTask.FIRST, null).invoke();
+        return (i < 0 && a.length != b.length) ? length : i;
+    }
+
+    public static boolean parallelEquals(double[] a, double[] a2) {
+        if (a==a2)
+            return true;
+        if (a==null || a2==null)
+            return false;
+
+        if (a2.length != a.length)
+            return false;
+
+        return parallelMismatch(a, a2) < 0;
+    }
+
+    public static int mismatch(double[] a, double[] b) {
+        if (a == b)
+            return -1;
+        int length = Math.min(a.length, b.length);
+        int i = ArraysParallelBulkHelpers.mismatch(a, b, 0, length);
+        return (i < 0 && a.length != b.length) ? length : i;
+    }
+
+    public static int parallelMismatch(double[] a, double[] b) {
+        if (a == b)
+            return -1;
+        int length = Math.min(a.length, b.length), g = bulkGranularity(length);
+        int i = (g == 0) ? ArraysParallelBulkHelpers.mismatch(a, b, 0, length) :
+            new ArraysParallelBulkHelpers.RangeTask
+            (null, (lo, hi) -> ArraysParallelBulkHelpers.mismatch(a, b, lo, hi),
+             0, length, g, ArraysParallelBulkHelpers.RangeTask.FIRST, null).invoke();
+        return (i < 0 && a.length != b.length) ? length : i;
+    }
+
+    public static boolean parallelEquals(Object[] a, Object[] a2) {
+        if (a==a2)
+            return true;
+        if (a==null || a2==null)
+            return false;
+
+        if (a2.length != a.length)
+            return false;
+
+        return parallelMismatch(a, a2) < 0;
+    }
+
+    public static int mismatch(Object[] a, Object[] b) {
+        if (a == b)
+            return -1;
+        int length = Math.min(a.length, b.length);
+        int i = ArraysParallelBulkHelpers.mismatch(a, b, 0, length);
+        return (i < 0 && a.length != b.length) ? length : i;
+    }
+
+    public static int parallelMismatch(Object[] a, Object[] b) {
+        if (a == b)
+            return -1;
+        int length = Math.min(a.length, b.length), g = bulkGranularity(length);
+        int i = (g == 0) ? ArraysParallelBulkHelpers.mismatch(a, b, 0, length) :
+            new ArraysParallelBulkHelpers.RangeTask
+            (null, (lo, hi) -> ArraysParallelBulkHelpers.mismatch(a, b, lo, hi),
+             0, length, g, ArraysParallelBulkHelpers.RangeTask.FIRST, null).invoke();
+        return (i < 0 && a.length != b.length) ? length : i;
+    }
+
 
     public static void fill(long[] a, long val) {
         for (int i = 0, len = a.length; i < len; i++)
@@ -1111,6 +1567,108 @@ public class Arrays {
             a[i] = val;
     }
 
+    // Granularity of the parallel bulk operations (parallelFill and the
+    // like); 0 if n is too small to be worth splitting or there is no
+    // parallelism.
+    private static int bulkGranularity(int n) {
+        int p, g;
+        if (n <= MIN_ARRAY_SORT_GRAN ||
+            (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
+            return 0;
+        return ((g = n / (p << 2)) <= MIN_ARRAY_SORT_GRAN) ?
+            MIN_ARRAY_SORT_GRAN : g;
+    }
+
+    public static void parallelFill(long[] a, long val) {
+        parallelFill(a, 0, a.length, val);
+    }
+
+    public static void parallelFill(long[] a, int fromIndex, int toIndex, long val) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        int g = bulkGranularity(toIndex - fromIndex);
+        if (g == 0)
+            fill(a, fromIndex, toIndex, val);
+        else
+            new ArraysParallelBulkHelpers.RangeTask
+                (null, (lo, hi) -> { fill(a, lo, hi, val); return 0; },
+                 fromIndex, toIndex, g, ArraysParallelBulkHelpers.RangeTask.EACH, null).invoke();
+    }
+
+    public static void parallelFill(int[] a, int val) {
+        parallelFill(a, 0, a.length, val);
+    }
+
+    public static void parallelFill(int[] a, int fromIndex, int toIndex, int val) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        int g = bulkGranularity(toIndex - fromIndex);
+        if (g == 0)
+            fill(a, fromIndex, toIndex, val);
+        else
+            new ArraysParallelBulkHelpers.RangeTask
+                (null, (lo, hi) -> { fill(a, lo, hi, val); return 0; },
+                 fromIndex, toIndex, g, ArraysParallelBulkHelpers.RangeTask.EACH, null).invoke();
+    }
+
+    public static void parallelFill(char[] a, char val) {
+        parallelFill(a, 0, a.length, val);
+    }
+
+    public static void parallelFill(char[] a, int fromIndex, int toIndex, char val) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        int g = bulkGranularity(toIndex - fromIndex);
+        if (g == 0)
+            fill(a, fromIndex, toIndex, val);
+        else
+            new ArraysParallelBulkHelpers.RangeTask
+                (null, (lo, hi) -> { fill(a, lo, hi, val); return 0; },
+                 fromIndex, toIndex, g, ArraysParallelBulkHelpers.RangeTask.EACH, null).invoke();
+    }
+
+    public static void parallelFill(byte[] a, byte val) {
+        parallelFill(a, 0, a.length, val);
+    }
+
+    public static void parallelFill(byte[] a, int fromIndex, int toIndex, byte val) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        int g = bulkGranularity(toIndex - fromIndex);
+        if (g == 0)
+            fill(a, fromIndex, toIndex, val);
+        else
+            new ArraysParallelBulkHelpers.RangeTask
+                (null, (lo, hi) -> { fill(a, lo, hi, val); return 0; },
+                 fromIndex, toIndex, g, ArraysParallelBulkHelpers.RangeTask.EACH, null).invoke();
+    }
+
+    public static void parallelFill(double[] a, double val) {
+        parallelFill(a, 0, a.length, val);
+    }
+
+    public static void parallelFill(double[] a, int fromIndex, int toIndex, double val) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        int g = bulkGranularity(toIndex - fromIndex);
+        if (g == 0)
+            fill(a, fromIndex, toIndex, val);
+        else
+            new ArraysParallelBulkHelpers.RangeTask
+                (null, (lo, hi) -> { fill(a, lo, hi, val); return 0; },
+                 fromIndex, toIndex, g, ArraysParallelBulkHelpers.RangeTask.EACH, null).invoke();
+    }
+
+    public static void parallelFill(Object[] a, Object val) {
+        parallelFill(a, 0, a.length, val);
+    }
+
+    public static void parallelFill(Object[] a, int fromIndex, int toIndex, Object val) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        int g = bulkGranularity(toIndex - fromIndex);
+        if (g == 0)
+            fill(a, fromIndex, toIndex, val);
+        else
+            new ArraysParallelBulkHelpers.RangeTask
+                (null, (lo, hi) -> { fill(a, lo, hi, val); return 0; },
+                 fromIndex, toIndex, g, ArraysParallelBulkHelpers.RangeTask.EACH, null).invoke();
+    }
+
 
     @SuppressWarnings("unchecked")
     public static <T> T[] copyOf(T[] original, int newLength) {
@@ -1183,6 +1741,56 @@ public class Arrays {
         return copy;
     }
 
+    public static long[] parallelCopyOf(long[] original, int newLength) {
+        long[] copy = new long[newLength];
+        parallelCopy(original, copy, Math.min(original.length, newLength));
+        return copy;
+    }
+
+    public static int[] parallelCopyOf(int[] original, int newLength) {
+        int[] copy = new int[newLength];
+        parallelCopy(original, copy, Math.min(original.length, newLength));
+        return copy;
+    }
+
+    public static char[] parallelCopyOf(char[] original, int newLength) {
+        char[] copy = new char[newLength];
+        parallelCopy(original, copy, Math.min(original.length, newLength));
+        return copy;
+    }
+
+    public static byte[] parallelCopyOf(byte[] original, int newLength) {
+        byte[] copy = new byte[newLength];
+        parallelCopy(original, copy, Math.min(original.length, newLength));
+        return copy;
+    }
+
+    public static double[] parallelCopyOf(double[] original, int newLength) {
+        double[] copy = new double[newLength];
+        parallelCopy(original, copy, Math.min(original.length, newLength));
+        return copy;
+    }
+
+    public static <T> T[] parallelCopyOf(T[] original, int newLength) {
+        @SuppressWarnings("unchecked")
+        T[] copy = ((Object)original.getClass() == (Object)Object[].class)
+            ? (T[]) new Object[newLength]
+            : (T[]) Array.newInstance(original.getClass().getComponentType(), newLength);
+        parallelCopy(original, copy, Math.min(original.length, newLength));
+        return copy;
+    }
+
+    // arraycopy of [0, n) in slices, for the parallelCopyOf methods
+    private static void parallelCopy(Object src, Object dest, int n) {
+        int g = bulkGranularity(n);
+        if (g == 0)
+            System.arraycopy(src, 0, dest, 0, n);
+        else
+            new ArraysParallelBulkHelpers.RangeTask
+                (null, (lo, hi) -> { System.arraycopy(src, lo, dest, lo, hi - lo); return 0; },
+                 0, n, g, ArraysParallelBulkHelpers.RangeTask.EACH, null).invoke();
+    }
+
     @SuppressWarnings("unchecked")
     public static <T> T[] copyOfRange(T[] original, int from, int to) {
         return copyOfRange(original, from, to, (Class<? extends T[]>) original.getClass());
@@ -1484,6 +2092,78 @@ public class Arrays {
         return result;
     }
 
+    public static int parallelHashCode(long a[]) {
+        if (a == null)
+            return 0;
+
+        int n = a.length, g = bulkGranularity(n);
+        if (g == 0)
+            return hashCode(a);
+        return ArraysParallelBulkHelpers.pow31(n) + new ArraysParallelBulkHelpers.RangeTask
+            (null, (lo, hi) -> ArraysParallelBulkHelpers.hash(a, lo, hi),
+             0, n, g, ArraysParallelBulkHelpers.RangeTask.HASH, null).invoke();
+    }
+
+    public static int parallelHashCode(int a[]) {
+        if (a == null)
+            return 0;
+
+        int n = a.length, g = bulkGranularity(n);
+        if (g == 0)
+            return hashCode(a);
+        return ArraysParallelBulkHelpers.pow31(n) + new ArraysParallelBulkHelpers.RangeTask
+            (null, (lo, hi) -> ArraysParallelBulkHelpers.hash(a, lo, hi),
+             0, n, g, ArraysParallelBulkHelpers.RangeTask.HASH, null).invoke();
+    }
+
+    public static int parallelHashCode(char a[]) {
+        if (a == null)
+            return 0;
+
+        int n = a.length, g = bulkGranularity(n);
+        if (g == 0)
+            return hashCode(a);
+        return ArraysParallelBulkHelpers.pow31(n) + new ArraysParallelBulkHelpers.RangeTask
+            (null, (lo, hi) -> ArraysParallelBulkHelpers.hash(a, lo, hi),
+             0, n, g, ArraysParallelBulkHelpers.RangeTask.HASH, null).invoke();
+    }
+
+    public static int parallelHashCode(byte a[]) {
+        if (a == null)
+            return 0;
+
+        int n = a.length, g = bulkGranularity(n);
+        if (g == 0)
+            return hashCode(a);
+        return ArraysParallelBulkHelpers.pow31(n) + new ArraysParallelBulkHelpers.RangeTask
+            (null, (lo, hi) -> ArraysParallelBulkHelpers.hash(a, lo, hi),
+             0, n, g, ArraysParallelBulkHelpers.RangeTask.HASH, null).invoke();
+    }
+
+    public static int parallelHashCode(double a[]) {
+        if (a == null)
+            return 0;
+
+        int n = a.length, g = bulkGranularity(n);
+        if (g == 0)
+            return hashCode(a);
+        return ArraysParallelBulkHelpers.pow31(n) + new ArraysParallelBulkHelpers.RangeTask
+            (null, (lo, hi) -> ArraysParallelBulkHelpers.hash(a, lo, hi),
+             0, n, g, ArraysParallelBulkHelpers.RangeTask.HASH, null).invoke();
+    }
+
+    public static int parallelHashCode(Object a[]) {
+        if (a == null)
+            return 0;
+
+        int n = a.length, g = bulkGranularity(n);
+        if (g == 0)
+            return hashCode(a);
+        return ArraysParallelBulkHelpers.pow31(n) + new ArraysParallelBulkHelpers.RangeTask
+            (null, (lo, hi) -> ArraysParallelBulkHelpers.hash(a, lo, hi),
+             0, n, g, ArraysParallelBulkHelpers.RangeTask.HASH, null).invoke();
+    }
+
     public static int deepHashCode(Object a[]) {
         if (a == null)
             return 0;
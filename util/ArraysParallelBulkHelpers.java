@@ -0,0 +1,215 @@
+package java.util;
+
+import java.nio.ByteOrder;
+import java.util.concurrent.CountedCompleter;
+import java.util.function.IntBinaryOperator;
+import sun.misc.Unsafe;
+
+// Slice loops and the fork/join task behind the parallel bulk operations
+// of Arrays: parallelFill, parallelCopyOf, parallelEquals, parallelHashCode
+// and parallelMismatch. The mismatch loops for byte and char arrays compare
+// a long at a time; since both arrays have the same base offset, the words
+// read from a and from b are aligned alike, and are aligned once the index
+// is a multiple of the elements per word.
+class ArraysParallelBulkHelpers {
+    private ArraysParallelBulkHelpers() {}; // non-instantiable
+
+    private static final Unsafe U = Unsafe.getUnsafe();
+    private static final long BYTE_BASE = Unsafe.ARRAY_BYTE_BASE_OFFSET;
+    private static final long CHAR_BASE = Unsafe.ARRAY_CHAR_BASE_OFFSET;
+    private static final boolean BIG_ENDIAN =
+        ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN;
+
+    // false where array data is not 8-byte aligned; the loops then go an
+    // element at a time
+    private static final boolean WORDS =
+        (BYTE_BASE & 7) == 0 && (CHAR_BASE & 7) == 0 &&
+        Unsafe.ARRAY_CHAR_INDEX_SCALE == 2;
+
+    // Index of the first differing element of a and b in [lo, hi), or -1.
+
+    static int mismatch(byte[] a, byte[] b, int lo, int hi) {
+        int i = lo;
+        if (WORDS) {
+            for (; i < hi && (i & 7) != 0; i++)
+                if (a[i] != b[i])
+                    return i;
+            for (; i <= hi - 8; i += 8) {
+                long off = BYTE_BASE + i;
+                long x = U.getLong(a, off) ^ U.getLong(b, off);
+                if (x != 0)
+                    return i + ((BIG_ENDIAN ? Long.numberOfLeadingZeros(x) :
+                                 Long.numberOfTrailingZeros(x)) >>> 3);
+            }
+        }
+        for (; i < hi; i++)
+            if (a[i] != b[i])
+                return i;
+        return -1;
+    }
+
+    static int mismatch(char[] a, char[] b, int lo, int hi) {
+        int i = lo;
+        if (WORDS) {
+            for (; i < hi && (i & 3) != 0; i++)
+                if (a[i] != b[i])
+                    return i;
+            for (; i <= hi - 4; i += 4) {
+                long off = CHAR_BASE + ((long)i << 1);
+                long x = U.getLong(a, off) ^ U.getLong(b, off);
+                if (x != 0)
+                    return i + ((BIG_ENDIAN ? Long.numberOfLeadingZeros(x) :
+                                 Long.numberOfTrailingZeros(x)) >>> 4);
+            }
+        }
+        for (; i < hi; i++)
+            if (a[i] != b[i])
+                return i;
+        return -1;
+    }
+
+    static int mismatch(long[] a, long[] b, int lo, int hi) {
+        for (int i = lo; i < hi; i++)
+            if (a[i] != b[i])
+                return i;
+        return -1;
+    }
+
+    static int mismatch(int[] a, int[] b, int lo, int hi) {
+        for (int i = lo; i < hi; i++)
+            if (a[i] != b[i])
+                return i;
+        return -1;
+    }
+
+    static int mismatch(double[] a, double[] b, int lo, int hi) {
+        for (int i = lo; i < hi; i++)
+            if (Double.doubleToLongBits(a[i]) != Double.doubleToLongBits(b[i]))
+                return i;
+        return -1;
+    }
+
+    static int mismatch(Object[] a, Object[] b, int lo, int hi) {
+        for (int i = lo; i < hi; i++)
+            if (!Objects.equals(a[i], b[i]))
+                return i;
+        return -1;
+    }
+
+    // Hash of a[lo, hi) as Arrays.hashCode computes it but starting from 0,
+    // so that hash(a, lo, hi) * pow31(n - hi) + hash(a, hi, n) ==
+    // hash(a, lo, n), and Arrays.hashCode(a) == pow31(n) + hash(a, 0, n).
+
+    static int hash(long[] a, int lo, int hi) {
+        int result = 0;
+        for (int i = lo; i < hi; i++) {
+            long element = a[i];
+            result = 31 * result + (int)(element ^ (element >>> 32));
+        }
+        return result;
+    }
+
+    static int hash(int[] a, int lo, int hi) {
+        int result = 0;
+        for (int i = lo; i < hi; i++) {
+            result = 31 * result + a[i];
+        }
+        return result;
+    }
+
+    static int hash(char[] a, int lo, int hi) {
+        int result = 0;
+        for (int i = lo; i < hi; i++) {
+            result = 31 * result + a[i];
+        }
+        return result;
+    }
+
+    static int hash(byte[] a, int lo, int hi) {
+        int result = 0;
+        for (int i = lo; i < hi; i++) {
+            result = 31 * result + a[i];
+        }
+        return result;
+    }
+
+    static int hash(double[] a, int lo, int hi) {
+        int result = 0;
+        for (int i = lo; i < hi; i++) {
+            long bits = Double.doubleToLongBits(a[i]);
+            result = 31 * result + (int)(bits ^ (bits >>> 32));
+        }
+        return result;
+    }
+
+    static int hash(Object[] a, int lo, int hi) {
+        int result = 0;
+        for (int i = lo; i < hi; i++) {
+            Object element = a[i];
+            result = 31 * result + (element == null ? 0 : element.hashCode());
+        }
+        return result;
+    }
+
+    // 31^n, wrapping as the hash loops do
+    static int pow31(int n) {
+        int result = 1, p = 31;
+        for (; n != 0; n >>>= 1, p *= p)
+            if ((n & 1) != 0)
+                result *= p;
+        return result;
+    }
+
+    // Applies slice to consecutive slices of [lo, hi), forking right halves
+    // down to the granularity, and combines the slice results in index
+    // order on completion: EACH ignores them, FIRST keeps the first that is
+    // not negative, HASH chains them as partial hashes.
+    static final class RangeTask extends CountedCompleter<Integer> {
+        private static final long serialVersionUID = -6129380275467183542L;
+
+        static final int EACH = 0, FIRST = 1, HASH = 2;
+
+        final IntBinaryOperator slice;
+        final int lo, hi, gran, mode;
+        final RangeTask next;
+        RangeTask forks;
+        int result;
+
+        RangeTask(RangeTask parent, IntBinaryOperator slice, int lo, int hi,
+                  int gran, int mode, RangeTask next) {
+            super(parent);
+            this.slice = slice; this.lo = lo; this.hi = hi;
+            this.gran = gran; this.mode = mode; this.next = next;
+        }
+
+        public final void compute() {
+            int l = lo, h = hi;
+            while (h - l > gran) {
+                int mid = (l + h) >>> 1;
+                addToPendingCount(1);
+                (forks = new RangeTask(this, slice, mid, h, gran, mode, forks)).fork();
+                h = mid;
+            }
+            result = slice.applyAsInt(l, h);
+            tryComplete();
+        }
+
+        // forks are linked leftmost first, each covering the range just
+        // after the one before
+        public final void onCompletion(CountedCompleter<?> caller) {
+            if (mode == FIRST) {
+                for (RangeTask t = forks; result < 0 && t != null; t = t.next)
+                    result = t.result;
+            } else if (mode == HASH) {
+                int h = result;
+                for (RangeTask t = forks; t != null; t = t.next)
+                    h = h * pow31(t.hi - t.lo) + t.result;
+                result = h;
+            }
+        }
+
+        public final Integer getRawResult() {
+            return result;
+        }
+    }
+}
@@ -4,6 +4,9 @@ import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.CountedCompleter;
 
 
+    // partition modes for the in-place sorters: which elements go first
+    static final int LESS = 0, LESS_EQUAL = 1, NOT_NAN = 2;
+
     static final class EmptyCompleter extends CountedCompleter<Void> {
         static final long serialVersionUID = 2446542900576103244L;
         EmptyCompleter(CountedCompleter<?> p) { super(p); }
@@ -582,6 +585,184 @@ import java.util.concurrent.CountedCompleter;
                 tryComplete();
             }
         }
+
+        // Quicksort for parallelSortInPlace, needing O(p) extra space
+        // instead of a work array as large as the input. Each step
+        // partitions its range in parallel: chunks of the range are
+        // partitioned independently, then the elements left on the wrong
+        // side of the overall split point are swapped pairwise, spread
+        // over tasks. The halves are sorted by forked tasks; ranges of at
+        // most gran elements, or past a depth limit, use the sequential
+        // quicksort.
+        static final class InPlaceSorter extends RecursiveAction {
+            static final long serialVersionUID = 2446542900576103244L;
+            final int[] a;
+            final int lo, hi, gran, depth;
+            InPlaceSorter(int[] a, int lo, int hi, int gran, int depth) {
+                this.a = a; this.lo = lo; this.hi = hi;
+                this.gran = gran; this.depth = depth;
+            }
+
+            // sorts a[lo..hi)
+            static void sort(int[] a, int lo, int hi, int gran) {
+                int n = hi - lo;
+                int depth = 2 * (32 - Integer.numberOfLeadingZeros(n));
+                new InPlaceSorter(a, lo, hi, gran, depth).invoke();
+            }
+
+            protected final void compute() {
+                int[] a = this.a;
+                int lo = this.lo, hi = this.hi, g = this.gran, d = this.depth;
+                while (hi - lo > g && --d >= 0) {
+                    int p = pivot(a, lo, hi);
+                    int m = partition(a, lo, hi, p, LESS, g);
+                    if (m == lo) { // p is the minimum: skip the run equal to it
+                        lo = partition(a, lo, hi, p, LESS_EQUAL, g);
+                        continue;
+                    }
+                    invokeAll(new InPlaceSorter(a, lo, m, g, d),
+                              new InPlaceSorter(a, m, hi, g, d));
+                    return;
+                }
+                if (hi - lo > 1)
+                    DualPivotQuicksort.sort(a, lo, hi - 1, true);
+            }
+
+            // median of three medians of three, spread over the range
+            static int pivot(int[] a, int lo, int hi) {
+                int s = (hi - lo) >>> 3, m = (lo + hi) >>> 1;
+                return median(median(a[lo], a[lo + s], a[lo + 2 * s]),
+                              median(a[m - s], a[m], a[m + s]),
+                              median(a[hi - 1 - 2 * s], a[hi - 1 - s], a[hi - 1]));
+            }
+
+            static int median(int x, int y, int z) {
+                return (x < y) ? ((y < z) ? y : (x < z) ? z : x)
+                               : ((x < z) ? x : (y < z) ? z : y);
+            }
+
+            static boolean before(int x, int p, int mode) {
+                return (mode == LESS) ? x < p : x <= p;
+            }
+
+            static void swap(int[] a, int i, int j) {
+                int t = a[i]; a[i] = a[j]; a[j] = t;
+            }
+
+            // sequential partition of a[lo..hi); returns the first index
+            // whose element is not before p
+            static int partition(int[] a, int lo, int hi, int p, int mode) {
+                for (int i = lo, j = hi; ; ++i, --j) {
+                    while (i < j && before(a[i], p, mode))
+                        ++i;
+                    while (i < j && !before(a[j - 1], p, mode))
+                        --j;
+                    if (i >= j)
+                        return i;
+                    swap(a, i, j - 1);
+                }
+            }
+
+            static int partition(int[] a, int lo, int hi, int p, int mode,
+                                 int gran) {
+                int k = (hi - lo) / gran;
+                if (k < 2)
+                    return partition(a, lo, hi, p, mode);
+                int[] bounds = new int[k + 1], mids = new int[k];
+                for (int i = 0; i <= k; ++i)
+                    bounds[i] = lo + (int)((long)(hi - lo) * i / k);
+                new ChunkPartitioner(a, bounds, mids, 0, k, p, mode).invoke();
+                int split = lo;
+                for (int i = 0; i < k; ++i)
+                    split += mids[i] - bounds[i];
+                // wrong-side runs: x* hold elements not before p left of
+                // split, y* elements before p right of it; equal in total
+                int[] xs = new int[k], xe = new int[k];
+                int[] ys = new int[k], ye = new int[k];
+                int nx = 0, ny = 0, total = 0;
+                for (int i = 0; i < k; ++i) {
+                    int e = Math.min(bounds[i + 1], split);
+                    if (mids[i] < e) {
+                        xs[nx] = mids[i]; xe[nx++] = e;
+                        total += e - mids[i];
+                    }
+                    int s = Math.max(bounds[i], split);
+                    if (s < mids[i]) {
+                        ys[ny] = s; ye[ny++] = mids[i];
+                    }
+                }
+                if (total > 0)
+                    new Swapper(a, xs, xe, nx, ys, ye, ny, 0, total,
+                                Math.max(gran, total / k)).invoke();
+                return split;
+            }
+        }
+
+        static final class ChunkPartitioner extends RecursiveAction {
+            static final long serialVersionUID = 2446542900576103244L;
+            final int[] a;
+            final int[] bounds, mids;
+            final int from, to, mode;
+            final int p;
+            ChunkPartitioner(int[] a, int[] bounds, int[] mids,
+                             int from, int to, int p, int mode) {
+                this.a = a; this.bounds = bounds; this.mids = mids;
+                this.from = from; this.to = to; this.p = p; this.mode = mode;
+            }
+            protected final void compute() {
+                int from = this.from, to = this.to;
+                if (to - from > 1) {
+                    int h = (from + to) >>> 1;
+                    invokeAll(new ChunkPartitioner(a, bounds, mids, from, h, p, mode),
+                              new ChunkPartitioner(a, bounds, mids, h, to, p, mode));
+                } else {
+                    mids[from] = InPlaceSorter.partition(a, bounds[from],
+                                                         bounds[from + 1], p, mode);
+                }
+            }
+        }
+
+        // swaps the t-th element of the x runs with the t-th of the y runs
+        // for t in [from, to)
+        static final class Swapper extends RecursiveAction {
+            static final long serialVersionUID = 2446542900576103244L;
+            final int[] a;
+            final int[] xs, xe, ys, ye;
+            final int nx, ny, from, to, gran;
+            Swapper(int[] a, int[] xs, int[] xe, int nx,
+                    int[] ys, int[] ye, int ny, int from, int to, int gran) {
+                this.a = a; this.xs = xs; this.xe = xe; this.nx = nx;
+                this.ys = ys; this.ye = ye; this.ny = ny;
+                this.from = from; this.to = to; this.gran = gran;
+            }
+            protected final void compute() {
+                int from = this.from, to = this.to;
+                if (to - from > gran) {
+                    int h = (from + to) >>> 1;
+                    invokeAll(new Swapper(a, xs, xe, nx, ys, ye, ny, from, h, gran),
+                              new Swapper(a, xs, xe, nx, ys, ye, ny, h, to, gran));
+                    return;
+                }
+                int[] a = this.a;
+                int xr = 0, x = from, yr = 0, y = from;
+                while (x >= xe[xr] - xs[xr])
+                    x -= xe[xr] - xs[xr++];
+                while (y >= ye[yr] - ys[yr])
+                    y -= ye[yr] - ys[yr++];
+                x += xs[xr];
+                y += ys[yr];
+                for (int n = to - from; n > 0; ) {
+                    int c = Math.min(n, Math.min(xe[xr] - x, ye[yr] - y));
+                    for (int i = 0; i < c; ++i)
+                        InPlaceSorter.swap(a, x + i, y + i);
+                    n -= c;
+                    if ((x += c) == xe[xr] && n > 0)
+                        x = xs[++xr];
+                    if ((y += c) == ye[yr] && n > 0)
+                        y = ys[++yr];
+                }
+            }
+        }
     } // FJInt
 
     static final class FJLong {
@@ -692,6 +873,184 @@ import java.util.concurrent.CountedCompleter;
                 tryComplete();
             }
         }
+
+        // Quicksort for parallelSortInPlace, needing O(p) extra space
+        // instead of a work array as large as the input. Each step
+        // partitions its range in parallel: chunks of the range are
+        // partitioned independently, then the elements left on the wrong
+        // side of the overall split point are swapped pairwise, spread
+        // over tasks. The halves are sorted by forked tasks; ranges of at
+        // most gran elements, or past a depth limit, use the sequential
+        // quicksort.
+        static final class InPlaceSorter extends RecursiveAction {
+            static final long serialVersionUID = 2446542900576103244L;
+            final long[] a;
+            final int lo, hi, gran, depth;
+            InPlaceSorter(long[] a, int lo, int hi, int gran, int depth) {
+                this.a = a; this.lo = lo; this.hi = hi;
+                this.gran = gran; this.depth = depth;
+            }
+
+            // sorts a[lo..hi)
+            static void sort(long[] a, int lo, int hi, int gran) {
+                int n = hi - lo;
+                int depth = 2 * (32 - Integer.numberOfLeadingZeros(n));
+                new InPlaceSorter(a, lo, hi, gran, depth).invoke();
+            }
+
+            protected final void compute() {
+                long[] a = this.a;
+                int lo = this.lo, hi = this.hi, g = this.gran, d = this.depth;
+                while (hi - lo > g && --d >= 0) {
+                    long p = pivot(a, lo, hi);
+                    int m = partition(a, lo, hi, p, LESS, g);
+                    if (m == lo) { // p is the minimum: skip the run equal to it
+                        lo = partition(a, lo, hi, p, LESS_EQUAL, g);
+                        continue;
+                    }
+                    invokeAll(new InPlaceSorter(a, lo, m, g, d),
+                              new InPlaceSorter(a, m, hi, g, d));
+                    return;
+                }
+                if (hi - lo > 1)
+                    DualPivotQuicksort.sort(a, lo, hi - 1, true);
+            }
+
+            // median of three medians of three, spread over the range
+            static long pivot(long[] a, int lo, int hi) {
+                int s = (hi - lo) >>> 3, m = (lo + hi) >>> 1;
+                return median(median(a[lo], a[lo + s], a[lo + 2 * s]),
+                              median(a[m - s], a[m], a[m + s]),
+                              median(a[hi - 1 - 2 * s], a[hi - 1 - s], a[hi - 1]));
+            }
+
+            static long median(long x, long y, long z) {
+                return (x < y) ? ((y < z) ? y : (x < z) ? z : x)
+                               : ((x < z) ? x : (y < z) ? z : y);
+            }
+
+            static boolean before(long x, long p, int mode) {
+                return (mode == LESS) ? x < p : x <= p;
+            }
+
+            static void swap(long[] a, int i, int j) {
+                long t = a[i]; a[i] = a[j]; a[j] = t;
+            }
+
+            // sequential partition of a[lo..hi); returns the first index
+            // whose element is not before p
+            static int partition(long[] a, int lo, int hi, long p, int mode) {
+                for (int i = lo, j = hi; ; ++i, --j) {
+                    while (i < j && before(a[i], p, mode))
+                        ++i;
+                    while (i < j && !before(a[j - 1], p, mode))
+                        --j;
+                    if (i >= j)
+                        return i;
+                    swap(a, i, j - 1);
+                }
+            }
+
+            static int partition(long[] a, int lo, int hi, long p, int mode,
+                                 int gran) {
+                int k = (hi - lo) / gran;
+                if (k < 2)
+                    return partition(a, lo, hi, p, mode);
+                int[] bounds = new int[k + 1], mids = new int[k];
+                for (int i = 0; i <= k; ++i)
+                    bounds[i] = lo + (int)((long)(hi - lo) * i / k);
+                new ChunkPartitioner(a, bounds, mids, 0, k, p, mode).invoke();
+                int split = lo;
+                for (int i = 0; i < k; ++i)
+                    split += mids[i] - bounds[i];
+                // wrong-side runs: x* hold elements not before p left of
+                // split, y* elements before p right of it; equal in total
+                int[] xs = new int[k], xe = new int[k];
+                int[] ys = new int[k], ye = new int[k];
+                int nx = 0, ny = 0, total = 0;
+                for (int i = 0; i < k; ++i) {
+                    int e = Math.min(bounds[i + 1], split);
+                    if (mids[i] < e) {
+                        xs[nx] = mids[i]; xe[nx++] = e;
+                        total += e - mids[i];
+                    }
+                    int s = Math.max(bounds[i], split);
+                    if (s < mids[i]) {
+                        ys[ny] = s; ye[ny++] = mids[i];
+                    }
+                }
+                if (total > 0)
+                    new Swapper(a, xs, xe, nx, ys, ye, ny, 0, total,
+                                Math.max(gran, total / k)).invoke();
+                return split;
+            }
+        }
+
+        static final class ChunkPartitioner extends RecursiveAction {
+            static final long serialVersionUID = 2446542900576103244L;
+            final long[] a;
+            final int[] bounds, mids;
+            final int from, to, mode;
+            final long p;
+            ChunkPartitioner(long[] a, int[] bounds, int[] mids,
+                             int from, int to, long p, int mode) {
+                this.a = a; this.bounds = bounds; this.mids = mids;
+                this.from = from; this.to = to; this.p = p; this.mode = mode;
+            }
+            protected final void compute() {
+                int from = this.from, to = this.to;
+                if (to - from > 1) {
+                    int h = (from + to) >>> 1;
+                    invokeAll(new ChunkPartitioner(a, bounds, mids, from, h, p, mode),
+                              new ChunkPartitioner(a, bounds, mids, h, to, p, mode));
+                } else {
+                    mids[from] = InPlaceSorter.partition(a, bounds[from],
+                                                         bounds[from + 1], p, mode);
+                }
+            }
+        }
+
+        // swaps the t-th element of the x runs with the t-th of the y runs
+        // for t in [from, to)
+        static final class Swapper extends RecursiveAction {
+            static final long serialVersionUID = 2446542900576103244L;
+            final long[] a;
+            final int[] xs, xe, ys, ye;
+            final int nx, ny, from, to, gran;
+            Swapper(long[] a, int[] xs, int[] xe, int nx,
+                    int[] ys, int[] ye, int ny, int from, int to, int gran) {
+                this.a = a; this.xs = xs; this.xe = xe; this.nx = nx;
+                this.ys = ys; this.ye = ye; this.ny = ny;
+                this.from = from; this.to = to; this.gran = gran;
+            }
+            protected final void compute() {
+                int from = this.from, to = this.to;
+                if (to - from > gran) {
+                    int h = (from + to) >>> 1;
+                    invokeAll(new Swapper(a, xs, xe, nx, ys, ye, ny, from, h, gran),
+                              new Swapper(a, xs, xe, nx, ys, ye, ny, h, to, gran));
+                    return;
+                }
+                long[] a = this.a;
+                int xr = 0, x = from, yr = 0, y = from;
+                while (x >= xe[xr] - xs[xr])
+                    x -= xe[xr] - xs[xr++];
+                while (y >= ye[yr] - ys[yr])
+                    y -= ye[yr] - ys[yr++];
+                x += xs[xr];
+                y += ys[yr];
+                for (int n = to - from; n > 0; ) {
+                    int c = Math.min(n, Math.min(xe[xr] - x, ye[yr] - y));
+                    for (int i = 0; i < c; ++i)
+                        InPlaceSorter.swap(a, x + i, y + i);
+                    n -= c;
+                    if ((x += c) == xe[xr] && n > 0)
+                        x = xs[++xr];
+                    if ((y += c) == ye[yr] && n > 0)
+                        y = ys[++yr];
+                }
+            }
+        }
     } // FJLong
 
     static final class FJFloat {
@@ -802,6 +1161,202 @@ import java.util.concurrent.CountedCompleter;
                 tryComplete();
             }
         }
+
+        // Quicksort for parallelSortInPlace, needing O(p) extra space
+        // instead of a work array as large as the input. Each step
+        // partitions its range in parallel: chunks of the range are
+        // partitioned independently, then the elements left on the wrong
+        // side of the overall split point are swapped pairwise, spread
+        // over tasks. The halves are sorted by forked tasks; ranges of at
+        // most gran elements, or past a depth limit, use the sequential
+        // quicksort.
+        static final class InPlaceSorter extends RecursiveAction {
+            static final long serialVersionUID = 2446542900576103244L;
+            final float[] a;
+            final int lo, hi, gran, depth;
+            InPlaceSorter(float[] a, int lo, int hi, int gran, int depth) {
+                this.a = a; this.lo = lo; this.hi = hi;
+                this.gran = gran; this.depth = depth;
+            }
+
+            // sorts a[lo..hi)
+            static void sort(float[] a, int lo, int hi, int gran) {
+                // NaNs go last; -0.0f and 0.0f compare equal while sorting
+                // and are put in order afterwards, as in DualPivotQuicksort
+                int n = hi - lo;
+                int depth = 2 * (32 - Integer.numberOfLeadingZeros(n));
+                hi = partition(a, lo, hi, 0.0f, NOT_NAN, gran);
+                new InPlaceSorter(a, lo, hi, gran, depth).invoke();
+                int z = lo, e = hi;
+                while (z < e) {
+                    int m = (z + e) >>> 1;
+                    if (a[m] < 0.0f)
+                        z = m + 1;
+                    else
+                        e = m;
+                }
+                int negatives = 0;
+                for (e = z; e < hi && a[e] == 0.0f; ++e)
+                    if (Float.floatToRawIntBits(a[e]) < 0)
+                        ++negatives;
+                for (int i = z; i < e; ++i)
+                    a[i] = (i < z + negatives) ? -0.0f : 0.0f;
+            }
+
+            protected final void compute() {
+                float[] a = this.a;
+                int lo = this.lo, hi = this.hi, g = this.gran, d = this.depth;
+                while (hi - lo > g && --d >= 0) {
+                    float p = pivot(a, lo, hi);
+                    int m = partition(a, lo, hi, p, LESS, g);
+                    if (m == lo) { // p is the minimum: skip the run equal to it
+                        lo = partition(a, lo, hi, p, LESS_EQUAL, g);
+                        continue;
+                    }
+                    invokeAll(new InPlaceSorter(a, lo, m, g, d),
+                              new InPlaceSorter(a, m, hi, g, d));
+                    return;
+                }
+                if (hi - lo > 1)
+                    DualPivotQuicksort.sort(a, lo, hi - 1, true);
+            }
+
+            // median of three medians of three, spread over the range
+            static float pivot(float[] a, int lo, int hi) {
+                int s = (hi - lo) >>> 3, m = (lo + hi) >>> 1;
+                return median(median(a[lo], a[lo + s], a[lo + 2 * s]),
+                              median(a[m - s], a[m], a[m + s]),
+                              median(a[hi - 1 - 2 * s], a[hi - 1 - s], a[hi - 1]));
+            }
+
+            static float median(float x, float y, float z) {
+                return (x < y) ? ((y < z) ? y : (x < z) ? z : x)
+                               : ((x < z) ? x : (y < z) ? z : y);
+            }
+
+            static boolean before(float x, float p, int mode) {
+                return (mode == LESS) ? x < p :
+                    (mode == LESS_EQUAL) ? x <= p : x == x;
+            }
+
+            static void swap(float[] a, int i, int j) {
+                float t = a[i]; a[i] = a[j]; a[j] = t;
+            }
+
+            // sequential partition of a[lo..hi); returns the first index
+            // whose element is not before p
+            static int partition(float[] a, int lo, int hi, float p, int mode) {
+                for (int i = lo, j = hi; ; ++i, --j) {
+                    while (i < j && before(a[i], p, mode))
+                        ++i;
+                    while (i < j && !before(a[j - 1], p, mode))
+                        --j;
+                    if (i >= j)
+                        return i;
+                    swap(a, i, j - 1);
+                }
+            }
+
+            static int partition(float[] a, int lo, int hi, float p, int mode,
+                                 int gran) {
+                int k = (hi - lo) / gran;
+                if (k < 2)
+                    return partition(a, lo, hi, p, mode);
+                int[] bounds = new int[k + 1], mids = new int[k];
+                for (int i = 0; i <= k; ++i)
+                    bounds[i] = lo + (int)((long)(hi - lo) * i / k);
+                new ChunkPartitioner(a, bounds, mids, 0, k, p, mode).invoke();
+                int split = lo;
+                for (int i = 0; i < k; ++i)
+                    split += mids[i] - bounds[i];
+                // wrong-side runs: x* hold elements not before p left of
+                // split, y* elements before p right of it; equal in total
+                int[] xs = new int[k], xe = new int[k];
+                int[] ys = new int[k], ye = new int[k];
+                int nx = 0, ny = 0, total = 0;
+                for (int i = 0; i < k; ++i) {
+                    int e = Math.min(bounds[i + 1], split);
+                    if (mids[i] < e) {
+                        xs[nx] = mids[i]; xe[nx++] = e;
+                        total += e - mids[i];
+                    }
+                    int s = Math.max(bounds[i], split);
+                    if (s < mids[i]) {
+                        ys[ny] = s; ye[ny++] = mids[i];
+                    }
+                }
+                if (total > 0)
+                    new Swapper(a, xs, xe, nx, ys, ye, ny, 0, total,
+                                Math.max(gran, total / k)).invoke();
+                return split;
+            }
+        }
+
+        static final class ChunkPartitioner extends RecursiveAction {
+            static final long serialVersionUID = 2446542900576103244L;
+            final float[] a;
+            final int[] bounds, mids;
+            final int from, to, mode;
+            final float p;
+            ChunkPartitioner(float[] a, int[] bounds, int[] mids,
+                             int from, int to, float p, int mode) {
+                this.a = a; this.bounds = bounds; this.mids = mids;
+                this.from = from; this.to = to; this.p = p; this.mode = mode;
+            }
+            protected final void compute() {
+                int from = this.from, to = this.to;
+                if (to - from > 1) {
+                    int h = (from + to) >>> 1;
+                    invokeAll(new ChunkPartitioner(a, bounds, mids, from, h, p, mode),
+                              new ChunkPartitioner(a, bounds, mids, h, to, p, mode));
+                } else {
+                    mids[from] = InPlaceSorter.partition(a, bounds[from],
+                                                         bounds[from + 1], p, mode);
+                }
+            }
+        }
+
+        // swaps the t-th element of the x runs with the t-th of the y runs
+        // for t in [from, to)
+        static final class Swapper extends RecursiveAction {
+            static final long serialVersionUID = 2446542900576103244L;
+            final float[] a;
+            final int[] xs, xe, ys, ye;
+            final int nx, ny, from, to, gran;
+            Swapper(float[] a, int[] xs, int[] xe, int nx,
+                    int[] ys, int[] ye, int ny, int from, int to, int gran) {
+                this.a = a; this.xs = xs; this.xe = xe; this.nx = nx;
+                this.ys = ys; this.ye = ye; this.ny = ny;
+                this.from = from; this.to = to; this.gran = gran;
+            }
+            protected final void compute() {
+                int from = this.from, to = this.to;
+                if (to - from > gran) {
+                    int h = (from + to) >>> 1;
+                    invokeAll(new Swapper(a, xs, xe, nx, ys, ye, ny, from, h, gran),
+                              new Swapper(a, xs, xe, nx, ys, ye, ny, h, to, gran));
+                    return;
+                }
+                float[] a = this.a;
+                int xr = 0, x = from, yr = 0, y = from;
+                while (x >= xe[xr] - xs[xr])
+                    x -= xe[xr] - xs[xr++];
+                while (y >= ye[yr] - ys[yr])
+                    y -= ye[yr] - ys[yr++];
+                x += xs[xr];
+                y += ys[yr];
+                for (int n = to - from; n > 0; ) {
+                    int c = Math.min(n, Math.min(xe[xr] - x, ye[yr] - y));
+                    for (int i = 0; i < c; ++i)
+                        InPlaceSorter.swap(a, x + i, y + i);
+                    n -= c;
+                    if ((x += c) == xe[xr] && n > 0)
+                        x = xs[++xr];
+                    if ((y += c) == ye[yr] && n > 0)
+                        y = ys[++yr];
+                }
+            }
+        }
     } // FJFloat
 
     static final class FJDouble {
@@ -912,6 +1467,202 @@ import java.util.concurrent.CountedCompleter;
                 tryComplete();
             }
         }
+
+        // Quicksort for parallelSortInPlace, needing O(p) extra space
+        // instead of a work array as large as the input. Each step
+        // partitions its range in parallel: chunks of the range are
+        // partitioned independently, then the elements left on the wrong
+        // side of the overall split point are swapped pairwise, spread
+        // over tasks. The halves are sorted by forked tasks; ranges of at
+        // most gran elements, or past a depth limit, use the sequential
+        // quicksort.
+        static final class InPlaceSorter extends RecursiveAction {
+            static final long serialVersionUID = 2446542900576103244L;
+            final double[] a;
+            final int lo, hi, gran, depth;
+            InPlaceSorter(double[] a, int lo, int hi, int gran, int depth) {
+                this.a = a; this.lo = lo; this.hi = hi;
+                this.gran = gran; this.depth = depth;
+            }
+
+            // sorts a[lo..hi)
+            static void sort(double[] a, int lo, int hi, int gran) {
+                // NaNs go last; -0.0d and 0.0d compare equal while sorting
+                // and are put in order afterwards, as in DualPivotQuicksort
+                int n = hi - lo;
+                int depth = 2 * (32 - Integer.numberOfLeadingZeros(n));
+                hi = partition(a, lo, hi, 0.0d, NOT_NAN, gran);
+                new InPlaceSorter(a, lo, hi, gran, depth).invoke();
+                int z = lo, e = hi;
+                while (z < e) {
+                    int m = (z + e) >>> 1;
+                    if (a[m] < 0.0d)
+                        z = m + 1;
+                    else
+                        e = m;
+                }
+                int negatives = 0;
+                for (e = z; e < hi && a[e] == 0.0d; ++e)
+                    if (Double.doubleToRawLongBits(a[e]) < 0)
+                        ++negatives;
+                for (int i = z; i < e; ++i)
+                    a[i] = (i < z + negatives) ? -0.0d : 0.0d;
+            }
+
+            protected final void compute() {
+                double[] a = this.a;
+                int lo = this.lo, hi = this.hi, g = this.gran, d = this.depth;
+                while (hi - lo > g && --d >= 0) {
+                    double p = pivot(a, lo, hi);
+                    int m = partition(a, lo, hi, p, LESS, g);
+                    if (m == lo) { // p is the minimum: skip the run equal to it
+                        lo = partition(a, lo, hi, p, LESS_EQUAL, g);
+                        continue;
+                    }
+                    invokeAll(new InPlaceSorter(a, lo, m, g, d),
+                              new InPlaceSorter(a, m, hi, g, d));
+                    return;
+                }
+                if (hi - lo > 1)
+                    DualPivotQuicksort.sort(a, lo, hi - 1, true);
+            }
+
+            // median of three medians of three, spread over the range
+            static double pivot(double[] a, int lo, int hi) {
+                int s = (hi - lo) >>> 3, m = (lo + hi) >>> 1;
+                return median(median(a[lo], a[lo + s], a[lo + 2 * s]),
+                              median(a[m - s], a[m], a[m + s]),
+                              median(a[hi - 1 - 2 * s], a[hi - 1 - s], a[hi - 1]));
+            }
+
+            static double median(double x, double y, double z) {
+                return (x < y) ? ((y < z) ? y : (x < z) ? z : x)
+                               : ((x < z) ? x : (y < z) ? z : y);
+            }
+
+            static boolean before(double x, double p, int mode) {
+                return (mode == LESS) ? x < p :
+                    (mode == LESS_EQUAL) ? x <= p : x == x;
+            }
+
+            static void swap(double[] a, int i, int j) {
+                double t = a[i]; a[i] = a[j]; a[j] = t;
+            }
+
+            // sequential partition of a[lo..hi); returns the first index
+            // whose element is not before p
+            static int partition(double[] a, int lo, int hi, double p, int mode) {
+                for (int i = lo, j = hi; ; ++i, --j) {
+                    while (i < j && before(a[i], p, mode))
+                        ++i;
+                    while (i < j && !before(a[j - 1], p, mode))
+                        --j;
+                    if (i >= j)
+                        return i;
+                    swap(a, i, j - 1);
+                }
+            }
+
+            static int partition(double[] a, int lo, int hi, double p, int mode,
+                                 int gran) {
+                int k = (hi - lo) / gran;
+                if (k < 2)
+                    return partition(a, lo, hi, p, mode);
+                int[] bounds = new int[k + 1], mids = new int[k];
+                for (int i = 0; i <= k; ++i)
+                    bounds[i] = lo + (int)((long)(hi - lo) * i / k);
+                new ChunkPartitioner(a, bounds, mids, 0, k, p, mode).invoke();
+                int split = lo;
+                for (int i = 0; i < k; ++i)
+                    split += mids[i] - bounds[i];
+                // wrong-side runs: x* hold elements not before p left of
+                // split, y* elements before p right of it; equal in total
+                int[] xs = new int[k], xe = new int[k];
+                int[] ys = new int[k], ye = new int[k];
+                int nx = 0, ny = 0, total = 0;
+                for (int i = 0; i < k; ++i) {
+                    int e = Math.min(bounds[i + 1], split);
+                    if (mids[i] < e) {
+                        xs[nx] = mids[i]; xe[nx++] = e;
+                        total += e - mids[i];
+                    }
+                    int s = Math.max(bounds[i], split);
+                    if (s < mids[i]) {
+                        ys[ny] = s; ye[ny++] = mids[i];
+                    }
+                }
+                if (total > 0)
+                    new Swapper(a, xs, xe, nx, ys, ye, ny, 0, total,
+                                Math.max(gran, total / k)).invoke();
+                return split;
+            }
+        }
+
+        static final class ChunkPartitioner extends RecursiveAction {
+            static final long serialVersionUID = 2446542900576103244L;
+            final double[] a;
+            final int[] bounds, mids;
+            final int from, to, mode;
+            final double p;
+            ChunkPartitioner(double[] a, int[] bounds, int[] mids,
+                             int from, int to, double p, int mode) {
+                this.a = a; this.bounds = bounds; this.mids = mids;
+                this.from = from; this.to = to; this.p = p; this.mode = mode;
+            }
+            protected final void compute() {
+                int from = this.from, to = this.to;
+                if (to - from > 1) {
+                    int h = (from + to) >>> 1;
+                    invokeAll(new ChunkPartitioner(a, bounds, mids, from, h, p, mode),
+                              new ChunkPartitioner(a, bounds, mids, h, to, p, mode));
+                } else {
+                    mids[from] = InPlaceSorter.partition(a, bounds[from],
+                                                         bounds[from + 1], p, mode);
+                }
+            }
+        }
+
+        // swaps the t-th element of the x runs with the t-th of the y runs
+        // for t in [from, to)
+        static final class Swapper extends RecursiveAction {
+            static final long serialVersionUID = 2446542900576103244L;
+            final double[] a;
+            final int[] xs, xe, ys, ye;
+            final int nx, ny, from, to, gran;
+            Swapper(double[] a, int[] xs, int[] xe, int nx,
+                    int[] ys, int[] ye, int ny, int from, int to, int gran) {
+                this.a = a; this.xs = xs; this.xe = xe; this.nx = nx;
+                this.ys = ys; this.ye = ye; this.ny = ny;
+                this.from = from; this.to = to; this.gran = gran;
+            }
+            protected final void compute() {
+                int from = this.from, to = this.to;
+                if (to - from > gran) {
+                    int h = (from + to) >>> 1;
+                    invokeAll(new Swapper(a, xs, xe, nx, ys, ye, ny, from, h, gran),
+                              new Swapper(a, xs, xe, nx, ys, ye, ny, h, to, gran));
+                    return;
+                }
+                double[] a = this.a;
+                int xr = 0, x = from, yr = 0, y = from;
+                while (x >= xe[xr] - xs[xr])
+                    x -= xe[xr] - xs[xr++];
+                while (y >= ye[yr] - ys[yr])
+                    y -= ye[yr] - ys[yr++];
+                x += xs[xr];
+                y += ys[yr];
+                for (int n = to - from; n > 0; ) {
+                    int c = Math.min(n, Math.min(xe[xr] - x, ye[yr] - y));
+                    for (int i = 0; i < c; ++i)
+                        InPlaceSorter.swap(a, x + i, y + i);
+                    n -= c;
+                    if ((x += c) == xe[xr] && n > 0)
+                        x = xs[++xr];
+                    if ((y += c) == ye[yr] && n > 0)
+                        y = ys[++yr];
+                }
+            }
+        }
     } // FJDouble
 
 }
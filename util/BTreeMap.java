@@ -0,0 +1,1683 @@
+
+package java.util;
+
+import java.io.Serializable;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+// A NavigableMap stored as a B+-tree. Keys and values sit in sorted arrays
+// in the leaves, which are linked in both directions; inner nodes hold only
+// separator keys and children. A lookup touches one array per level instead
+// of one node per comparison, and iteration, including over sub-map views,
+// walks the leaf arrays in order without going back up the tree.
+//
+// Every node except the root holds between MIN_KEYS and its capacity in
+// keys. Node arrays have one spare slot so an insertion can overflow a node
+// before it is split. Positions inside leaves move on every structural
+// modification, so iterators are fail-fast and re-seek by key after their
+// own remove().
+public class BTreeMap<K,V>
+    extends AbstractMap<K,V>
+    implements NavigableMap<K,V>, Cloneable, java.io.Serializable
+{
+    static final int LEAF_CAPACITY = 64;
+
+    static final int INNER_CAPACITY = 64;
+
+    static final int MIN_KEYS = 32;
+
+    private final Comparator<? super K> comparator;
+
+    private transient Node root;
+
+    private transient Leaf<K,V> head, tail;
+
+    private transient int size = 0;
+
+    private transient int modCount = 0;
+
+    // inner nodes and child slots on the path of the current put/remove
+    private transient Inner[] path;
+    private transient int[] pathIndex;
+
+    public BTreeMap() {
+        comparator = null;
+    }
+
+    public BTreeMap(Comparator<? super K> comparator) {
+        this.comparator = comparator;
+    }
+
+    public BTreeMap(Map<? extends K, ? extends V> m) {
+        comparator = null;
+        putAll(m);
+    }
+
+    public BTreeMap(SortedMap<K, ? extends V> m) {
+        comparator = m.comparator();
+        try {
+            buildFromSorted(m.size(), m.entrySet().iterator(), null, null);
+        } catch (java.io.IOException cannotHappen) {
+        } catch (ClassNotFoundException cannotHappen) {
+        }
+    }
+
+
+    static abstract class Node {
+        final Object[] keys;
+        int n;
+
+        Node(int capacity) {
+            keys = new Object[capacity + 1];
+        }
+    }
+
+    static final class Leaf<K,V> extends Node {
+        final Object[] vals;
+        Leaf<K,V> prev, next;
+
+        Leaf() {
+            super(LEAF_CAPACITY);
+            vals = new Object[LEAF_CAPACITY + 1];
+        }
+    }
+
+    static final class Inner extends Node {
+        final Node[] children;
+
+        Inner() {
+            super(INNER_CAPACITY);
+            children = new Node[INNER_CAPACITY + 2];
+        }
+    }
+
+    // A position in a leaf. Only valid until the next structural
+    // modification of the map.
+    static final class Cursor<K,V> {
+        final Leaf<K,V> leaf;
+        final int index;
+
+        Cursor(Leaf<K,V> leaf, int index) {
+            this.leaf = leaf;
+            this.index = index;
+        }
+
+        @SuppressWarnings("unchecked")
+        K key() {
+            return (K) leaf.keys[index];
+        }
+
+        @SuppressWarnings("unchecked")
+        V value() {
+            return (V) leaf.vals[index];
+        }
+    }
+
+
+    public int size() {
+        return size;
+    }
+
+    public boolean containsKey(Object key) {
+        return getCursor(key) != null;
+    }
+
+    public boolean containsValue(Object value) {
+        for (Leaf<K,V> l = head; l != null; l = l.next)
+            for (int i = 0; i < l.n; i++)
+                if (valEquals(value, l.vals[i]))
+                    return true;
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        Leaf<K,V> l = findLeaf(key);
+        if (l == null)
+            return null;
+        int i = search(l.keys, l.n, key);
+        return (i >= 0) ? (V) l.vals[i] : null;
+    }
+
+    public Comparator<? super K> comparator() {
+        return comparator;
+    }
+
+    public K firstKey() {
+        return key(firstCursor());
+    }
+
+    public K lastKey() {
+        return key(lastCursor());
+    }
+
+    public void putAll(Map<? extends K, ? extends V> map) {
+        int mapSize = map.size();
+        if (size==0 && mapSize!=0 && map instanceof SortedMap) {
+            Comparator<?> c = ((SortedMap<?,?>)map).comparator();
+            if (c == comparator || (c != null && c.equals(comparator))) {
+                ++modCount;
+                try {
+                    buildFromSorted(mapSize, map.entrySet().iterator(),
+                                    null, null);
+                } catch (java.io.IOException cannotHappen) {
+                } catch (ClassNotFoundException cannotHappen) {
+                }
+                return;
+            }
+        }
+        super.putAll(map);
+    }
+
+    // Binary search over a[0, n), with the Arrays.binarySearch result
+    // convention.
+    @SuppressWarnings("unchecked")
+    final int search(Object[] a, int n, Object key) {
+        int lo = 0, hi = n - 1;
+        Comparator<? super K> cpr = comparator;
+        if (cpr != null) {
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                int cmp = cpr.compare((K) key, (K) a[mid]);
+                if (cmp < 0)
+                    hi = mid - 1;
+                else if (cmp > 0)
+                    lo = mid + 1;
+                else
+                    return mid;
+            }
+        } else {
+            Comparable<? super K> k = (Comparable<? super K>) key;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                int cmp = k.compareTo((K) a[mid]);
+                if (cmp < 0)
+                    hi = mid - 1;
+                else if (cmp > 0)
+                    lo = mid + 1;
+                else
+                    return mid;
+            }
+        }
+        return -(lo + 1);
+    }
+
+    // keys equal to a separator live in the right subtree
+    final int childIndex(Inner p, Object key) {
+        int i = search(p.keys, p.n, key);
+        return (i >= 0) ? i + 1 : -i - 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    final Leaf<K,V> findLeaf(Object key) {
+        if (comparator == null && key == null)
+            throw new NullPointerException();
+        Node t = root;
+        while (t instanceof Inner) {
+            Inner p = (Inner) t;
+            t = p.children[childIndex(p, key)];
+        }
+        return (Leaf<K,V>) t;
+    }
+
+    final Cursor<K,V> getCursor(Object key) {
+        Leaf<K,V> l = findLeaf(key);
+        if (l == null)
+            return null;
+        int i = search(l.keys, l.n, key);
+        return (i >= 0) ? new Cursor<>(l, i) : null;
+    }
+
+    final Cursor<K,V> firstCursor() {
+        return (head == null) ? null : new Cursor<>(head, 0);
+    }
+
+    final Cursor<K,V> lastCursor() {
+        return (tail == null) ? null : new Cursor<>(tail, tail.n - 1);
+    }
+
+    // first position at or after index i of l
+    static <K,V> Cursor<K,V> forward(Leaf<K,V> l, int i) {
+        if (i == l.n) {
+            l = l.next;
+            i = 0;
+        }
+        return (l == null) ? null : new Cursor<>(l, i);
+    }
+
+    // last position at or before index i of l
+    static <K,V> Cursor<K,V> backward(Leaf<K,V> l, int i) {
+        if (i < 0) {
+            l = l.prev;
+            if (l == null)
+                return null;
+            i = l.n - 1;
+        }
+        return new Cursor<>(l, i);
+    }
+
+    final Cursor<K,V> getCeilingCursor(K key) {
+        Leaf<K,V> l = findLeaf(key);
+        if (l == null)
+            return null;
+        int i = search(l.keys, l.n, key);
+        return forward(l, (i >= 0) ? i : -i - 1);
+    }
+
+    final Cursor<K,V> getHigherCursor(K key) {
+        Leaf<K,V> l = findLeaf(key);
+        if (l == null)
+            return null;
+        int i = search(l.keys, l.n, key);
+        return forward(l, (i >= 0) ? i + 1 : -i - 1);
+    }
+
+    final Cursor<K,V> getFloorCursor(K key) {
+        Leaf<K,V> l = findLeaf(key);
+        if (l == null)
+            return null;
+        int i = search(l.keys, l.n, key);
+        return backward(l, (i >= 0) ? i : -i - 2);
+    }
+
+    final Cursor<K,V> getLowerCursor(K key) {
+        Leaf<K,V> l = findLeaf(key);
+        if (l == null)
+            return null;
+        int i = search(l.keys, l.n, key);
+        return backward(l, (i >= 0) ? i - 1 : -i - 2);
+    }
+
+    private void pushPath(int depth, Inner p, int i) {
+        if (path == null) {
+            path = new Inner[8];
+            pathIndex = new int[8];
+        } else if (depth == path.length) {
+            path = Arrays.copyOf(path, depth * 2);
+            pathIndex = Arrays.copyOf(pathIndex, depth * 2);
+        }
+        path[depth] = p;
+        pathIndex[depth] = i;
+    }
+
+    private void clearPath(int depth) {
+        while (depth > 0)
+            path[--depth] = null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(K key, V value) {
+        Node t = root;
+        if (t == null) {
+            compare(key, key); // type (and possibly null) check
+
+            Leaf<K,V> l = new Leaf<>();
+            l.keys[0] = key;
+            l.vals[0] = value;
+            l.n = 1;
+            root = head = tail = l;
+            size = 1;
+            modCount++;
+            return null;
+        }
+        if (comparator == null && key == null)
+            throw new NullPointerException();
+        int depth = 0;
+        while (t instanceof Inner) {
+            Inner p = (Inner) t;
+            int i = childIndex(p, key);
+            pushPath(depth++, p, i);
+            t = p.children[i];
+        }
+        Leaf<K,V> l = (Leaf<K,V>) t;
+        int i = search(l.keys, l.n, key);
+        if (i >= 0) {
+            clearPath(depth);
+            V oldValue = (V) l.vals[i];
+            l.vals[i] = value;
+            return oldValue;
+        }
+        i = -i - 1;
+        System.arraycopy(l.keys, i, l.keys, i + 1, l.n - i);
+        System.arraycopy(l.vals, i, l.vals, i + 1, l.n - i);
+        l.keys[i] = key;
+        l.vals[i] = value;
+        l.n++;
+        size++;
+        modCount++;
+        if (l.n > LEAF_CAPACITY)
+            splitLeaf(l, depth);
+        else
+            clearPath(depth);
+        return null;
+    }
+
+    private void splitLeaf(Leaf<K,V> l, int depth) {
+        Leaf<K,V> r = new Leaf<>();
+        int mid = l.n >>> 1, rn = l.n - mid;
+        System.arraycopy(l.keys, mid, r.keys, 0, rn);
+        System.arraycopy(l.vals, mid, r.vals, 0, rn);
+        Arrays.fill(l.keys, mid, l.n, null);
+        Arrays.fill(l.vals, mid, l.n, null);
+        l.n = mid;
+        r.n = rn;
+        r.prev = l;
+        r.next = l.next;
+        if (l.next != null)
+            l.next.prev = r;
+        else
+            tail = r;
+        l.next = r;
+        insertChild(depth, r.keys[0], r);
+    }
+
+    // Adds child as the right neighbour of the child on the path at depth,
+    // splitting inner nodes upwards as needed.
+    private void insertChild(int depth, Object sep, Node child) {
+        while (depth > 0) {
+            Inner p = path[--depth];
+            int ci = pathIndex[depth];
+            path[depth] = null;
+            System.arraycopy(p.keys, ci, p.keys, ci + 1, p.n - ci);
+            System.arraycopy(p.children, ci + 1, p.children, ci + 2, p.n - ci);
+            p.keys[ci] = sep;
+            p.children[ci + 1] = child;
+            if (++p.n <= INNER_CAPACITY) {
+                clearPath(depth);
+                return;
+            }
+            Inner r = new Inner();
+            int mid = p.n >>> 1, rn = p.n - mid - 1;
+            sep = p.keys[mid];
+            System.arraycopy(p.keys, mid + 1, r.keys, 0, rn);
+            System.arraycopy(p.children, mid + 1, r.children, 0, rn + 1);
+            Arrays.fill(p.keys, mid, p.n, null);
+            Arrays.fill(p.children, mid + 1, p.n + 1, null);
+            p.n = mid;
+            r.n = rn;
+            child = r;
+        }
+        Inner nr = new Inner();
+        nr.keys[0] = sep;
+        nr.children[0] = root;
+        nr.children[1] = child;
+        nr.n = 1;
+        root = nr;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        Node t = root;
+        if (comparator == null && key == null)
+            throw new NullPointerException();
+        int depth = 0;
+        while (t instanceof Inner) {
+            Inner p = (Inner) t;
+            int i = childIndex(p, key);
+            pushPath(depth++, p, i);
+            t = p.children[i];
+        }
+        Leaf<K,V> l = (Leaf<K,V>) t;
+        int i = (l == null) ? -1 : search(l.keys, l.n, key);
+        if (i < 0) {
+            clearPath(depth);
+            return null;
+        }
+        V oldValue = (V) l.vals[i];
+        deleteAt(l, i, depth);
+        return oldValue;
+    }
+
+    // Removes slot i of leaf l, reached through the first depth entries
+    // of the path, and restores the minimum fill bottom-up.
+    private void deleteAt(Leaf<K,V> l, int i, int depth) {
+        modCount++;
+        size--;
+        int n = l.n - 1;
+        System.arraycopy(l.keys, i + 1, l.keys, i, n - i);
+        System.arraycopy(l.vals, i + 1, l.vals, i, n - i);
+        l.keys[n] = null;
+        l.vals[n] = null;
+        l.n = n;
+
+        Node x = l;
+        while (depth > 0 && x.n < MIN_KEYS) {
+            Inner p = path[--depth];
+            int ci = pathIndex[depth];
+            path[depth] = null;
+            rebalance(p, ci);
+            x = p;
+        }
+        clearPath(depth);
+
+        Node r = root;
+        if (r.n == 0) {
+            if (r instanceof Inner)
+                root = ((Inner) r).children[0];
+            else
+                root = head = tail = null;
+        }
+    }
+
+    // Refills the underfull child ci of p from a sibling, or merges it
+    // with one.
+    private void rebalance(Inner p, int ci) {
+        Node c = p.children[ci];
+        Node left = (ci > 0) ? p.children[ci - 1] : null;
+        Node right = (ci < p.n) ? p.children[ci + 1] : null;
+        if (left != null && left.n > MIN_KEYS) {
+            int ln = left.n - 1;
+            System.arraycopy(c.keys, 0, c.keys, 1, c.n);
+            if (c instanceof Leaf) {
+                Leaf<?,?> lc = (Leaf<?,?>) c, ll = (Leaf<?,?>) left;
+                System.arraycopy(lc.vals, 0, lc.vals, 1, lc.n);
+                lc.keys[0] = ll.keys[ln];
+                lc.vals[0] = ll.vals[ln];
+                ll.vals[ln] = null;
+                p.keys[ci - 1] = lc.keys[0];
+            } else {
+                Inner ic = (Inner) c, il = (Inner) left;
+                System.arraycopy(ic.children, 0, ic.children, 1, ic.n + 1);
+                ic.keys[0] = p.keys[ci - 1];
+                ic.children[0] = il.children[ln + 1];
+                il.children[ln + 1] = null;
+                p.keys[ci - 1] = il.keys[ln];
+            }
+            left.keys[ln] = null;
+            left.n = ln;
+            c.n++;
+        } else if (right != null && right.n > MIN_KEYS) {
+            int rn = right.n - 1;
+            if (c instanceof Leaf) {
+                Leaf<?,?> lc = (Leaf<?,?>) c, lr = (Leaf<?,?>) right;
+                lc.keys[lc.n] = lr.keys[0];
+                lc.vals[lc.n] = lr.vals[0];
+                System.arraycopy(lr.keys, 1, lr.keys, 0, rn);
+                System.arraycopy(lr.vals, 1, lr.vals, 0, rn);
+                lr.vals[rn] = null;
+                p.keys[ci] = lr.keys[0];
+            } else {
+                Inner ic = (Inner) c, ir = (Inner) right;
+                ic.keys[ic.n] = p.keys[ci];
+                ic.children[ic.n + 1] = ir.children[0];
+                p.keys[ci] = ir.keys[0];
+                System.arraycopy(ir.keys, 1, ir.keys, 0, rn);
+                System.arraycopy(ir.children, 1, ir.children, 0, rn + 1);
+                ir.children[rn + 1] = null;
+            }
+            right.keys[rn] = null;
+            right.n = rn;
+            c.n++;
+        } else if (left != null) {
+            merge(p, ci - 1);
+        } else {
+            merge(p, ci);
+        }
+    }
+
+    // Merges child i + 1 of p into child i. The emptied leaf is cleared
+    // so stale positions into it never match a key.
+    @SuppressWarnings("unchecked")
+    private void merge(Inner p, int i) {
+        Node a = p.children[i], b = p.children[i + 1];
+        if (a instanceof Leaf) {
+            Leaf<K,V> la = (Leaf<K,V>) a, lb = (Leaf<K,V>) b;
+            System.arraycopy(lb.keys, 0, la.keys, la.n, lb.n);
+            System.arraycopy(lb.vals, 0, la.vals, la.n, lb.n);
+            la.n += lb.n;
+            la.next = lb.next;
+            if (lb.next != null)
+                lb.next.prev = la;
+            else
+                tail = la;
+            Arrays.fill(lb.keys, 0, lb.n, null);
+            Arrays.fill(lb.vals, 0, lb.n, null);
+            lb.n = 0;
+            lb.prev = lb.next = null;
+        } else {
+            Inner ia = (Inner) a, ib = (Inner) b;
+            ia.keys[ia.n] = p.keys[i];
+            System.arraycopy(ib.keys, 0, ia.keys, ia.n + 1, ib.n);
+            System.arraycopy(ib.children, 0, ia.children, ia.n + 1, ib.n + 1);
+            ia.n += ib.n + 1;
+        }
+        int n = p.n - 1;
+        System.arraycopy(p.keys, i + 1, p.keys, i, n - i);
+        System.arraycopy(p.children, i + 2, p.children, i + 1, n - i);
+        p.keys[n] = null;
+        p.children[n + 1] = null;
+        p.n = n;
+    }
+
+    public void clear() {
+        modCount++;
+        size = 0;
+        root = head = tail = null;
+    }
+
+    public Object clone() {
+        BTreeMap<?,?> clone;
+        try {
+            clone = (BTreeMap<?,?>) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+
+        clone.root = null;
+        clone.head = null;
+        clone.tail = null;
+        clone.size = 0;
+        clone.modCount = 0;
+        clone.path = null;
+        clone.pathIndex = null;
+        clone.entrySet = null;
+        clone.navigableKeySet = null;
+        clone.descendingMap = null;
+
+        try {
+            clone.buildFromSorted(size, entrySet().iterator(), null, null);
+        } catch (java.io.IOException cannotHappen) {
+        } catch (ClassNotFoundException cannotHappen) {
+        }
+
+        return clone;
+    }
+
+
+    public Map.Entry<K,V> firstEntry() {
+        return exportEntry(firstCursor());
+    }
+
+    public Map.Entry<K,V> lastEntry() {
+        return exportEntry(lastCursor());
+    }
+
+    public Map.Entry<K,V> pollFirstEntry() {
+        Cursor<K,V> p = firstCursor();
+        Map.Entry<K,V> result = exportEntry(p);
+        if (p != null)
+            remove(p.key());
+        return result;
+    }
+
+    public Map.Entry<K,V> pollLastEntry() {
+        Cursor<K,V> p = lastCursor();
+        Map.Entry<K,V> result = exportEntry(p);
+        if (p != null)
+            remove(p.key());
+        return result;
+    }
+
+    public Map.Entry<K,V> lowerEntry(K key) {
+        return exportEntry(getLowerCursor(key));
+    }
+
+    public K lowerKey(K key) {
+        return keyOrNull(getLowerCursor(key));
+    }
+
+    public Map.Entry<K,V> floorEntry(K key) {
+        return exportEntry(getFloorCursor(key));
+    }
+
+    public K floorKey(K key) {
+        return keyOrNull(getFloorCursor(key));
+    }
+
+    public Map.Entry<K,V> ceilingEntry(K key) {
+        return exportEntry(getCeilingCursor(key));
+    }
+
+    public K ceilingKey(K key) {
+        return keyOrNull(getCeilingCursor(key));
+    }
+
+    public Map.Entry<K,V> higherEntry(K key) {
+        return exportEntry(getHigherCursor(key));
+    }
+
+    public K higherKey(K key) {
+        return keyOrNull(getHigherCursor(key));
+    }
+
+
+    private transient EntrySet entrySet;
+    private transient KeySet<K> navigableKeySet;
+    private transient NavigableMap<K,V> descendingMap;
+
+    public Set<K> keySet() {
+        return navigableKeySet();
+    }
+
+    public NavigableSet<K> navigableKeySet() {
+        KeySet<K> nks = navigableKeySet;
+        return (nks != null) ? nks : (navigableKeySet = new KeySet<>(this));
+    }
+
+    public NavigableSet<K> descendingKeySet() {
+        return descendingMap().navigableKeySet();
+    }
+
+    public Collection<V> values() {
+        Collection<V> vs = values;
+        return (vs != null) ? vs : (values = new Values());
+    }
+
+    public Set<Map.Entry<K,V>> entrySet() {
+        EntrySet es = entrySet;
+        return (es != null) ? es : (entrySet = new EntrySet());
+    }
+
+    public NavigableMap<K, V> descendingMap() {
+        NavigableMap<K, V> km = descendingMap;
+        return (km != null) ? km :
+            (descendingMap = new DescendingSubMap<>(this,
+                                                    true, null, true,
+                                                    true, null, true));
+    }
+
+    public NavigableMap<K,V> subMap(K fromKey, boolean fromInclusive,
+                                    K toKey,   boolean toInclusive) {
+        return new AscendingSubMap<>(this,
+                                     false, fromKey, fromInclusive,
+                                     false, toKey,   toInclusive);
+    }
+
+    public NavigableMap<K,V> headMap(K toKey, boolean inclusive) {
+        return new AscendingSubMap<>(this,
+                                     true,  null,  true,
+                                     false, toKey, inclusive);
+    }
+
+    public NavigableMap<K,V> tailMap(K fromKey, boolean inclusive) {
+        return new AscendingSubMap<>(this,
+                                     false, fromKey, inclusive,
+                                     true,  null,    true);
+    }
+
+    public SortedMap<K,V> subMap(K fromKey, K toKey) {
+        return subMap(fromKey, true, toKey, false);
+    }
+
+    public SortedMap<K,V> headMap(K toKey) {
+        return headMap(toKey, false);
+    }
+
+    public SortedMap<K,V> tailMap(K fromKey) {
+        return tailMap(fromKey, true);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean replace(K key, V oldValue, V newValue) {
+        Cursor<K,V> p = getCursor(key);
+        if (p!=null && Objects.equals(oldValue, p.value())) {
+            p.leaf.vals[p.index] = newValue;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        Cursor<K,V> p = getCursor(key);
+        if (p!=null) {
+            V oldValue = p.value();
+            p.leaf.vals[p.index] = value;
+            return oldValue;
+        }
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(action);
+        int expectedModCount = modCount;
+        for (Leaf<K,V> l = head; l != null; l = l.next) {
+            for (int i = 0; i < l.n; i++) {
+                action.accept((K) l.keys[i], (V) l.vals[i]);
+
+                if (expectedModCount != modCount) {
+                    throw new ConcurrentModificationException();
+                }
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+        Objects.requireNonNull(function);
+        int expectedModCount = modCount;
+
+        for (Leaf<K,V> l = head; l != null; l = l.next) {
+            for (int i = 0; i < l.n; i++) {
+                l.vals[i] = function.apply((K) l.keys[i], (V) l.vals[i]);
+
+                if (expectedModCount != modCount) {
+                    throw new ConcurrentModificationException();
+                }
+            }
+        }
+    }
+
+
+    class Values extends AbstractCollection<V> {
+        public Iterator<V> iterator() {
+            return new ValueIterator(firstCursor(), null, false);
+        }
+
+        public int size() {
+            return BTreeMap.this.size();
+        }
+
+        public boolean contains(Object o) {
+            return BTreeMap.this.containsValue(o);
+        }
+
+        public boolean remove(Object o) {
+            for (Leaf<K,V> l = head; l != null; l = l.next) {
+                for (int i = 0; i < l.n; i++) {
+                    if (valEquals(l.vals[i], o)) {
+                        BTreeMap.this.remove(l.keys[i]);
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        public void clear() {
+            BTreeMap.this.clear();
+        }
+
+        public Spliterator<V> spliterator() {
+            return Spliterators.spliterator(this, Spliterator.ORDERED);
+        }
+    }
+
+    class EntrySet extends AbstractSet<Map.Entry<K,V>> {
+        public Iterator<Map.Entry<K,V>> iterator() {
+            return new EntryIterator(firstCursor(), null, false);
+        }
+
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> entry = (Map.Entry<?,?>) o;
+            Object value = entry.getValue();
+            Cursor<K,V> p = getCursor(entry.getKey());
+            return p != null && valEquals(p.value(), value);
+        }
+
+        public boolean remove(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> entry = (Map.Entry<?,?>) o;
+            Object value = entry.getValue();
+            Cursor<K,V> p = getCursor(entry.getKey());
+            if (p != null && valEquals(p.value(), value)) {
+                BTreeMap.this.remove(p.key());
+                return true;
+            }
+            return false;
+        }
+
+        public int size() {
+            return BTreeMap.this.size();
+        }
+
+        public void clear() {
+            BTreeMap.this.clear();
+        }
+
+        public Spliterator<Map.Entry<K,V>> spliterator() {
+            return Spliterators.spliterator(this,
+                Spliterator.ORDERED | Spliterator.DISTINCT);
+        }
+    }
+
+
+    Iterator<K> keyIterator() {
+        return new KeyIterator(firstCursor(), null, false);
+    }
+
+    Iterator<K> descendingKeyIterator() {
+        return new KeyIterator(lastCursor(), null, true);
+    }
+
+    static final class KeySet<E> extends AbstractSet<E> implements NavigableSet<E> {
+        private final NavigableMap<E, ?> m;
+        KeySet(NavigableMap<E,?> map) { m = map; }
+
+        public Iterator<E> iterator() {
+            if (m instanceof BTreeMap)
+                return ((BTreeMap<E,?>)m).keyIterator();
+            else
+                return ((BTreeMap.NavigableSubMap<E,?>)m).keyIterator();
+        }
+
+        public Iterator<E> descendingIterator() {
+            if (m instanceof BTreeMap)
+                return ((BTreeMap<E,?>)m).descendingKeyIterator();
+            else
+                return ((BTreeMap.NavigableSubMap<E,?>)m).descendingKeyIterator();
+        }
+
+        public int size() { return m.size(); }
+        public boolean isEmpty() { return m.isEmpty(); }
+        public boolean contains(Object o) { return m.containsKey(o); }
+        public void clear() { m.clear(); }
+        public E lower(E e) { return m.lowerKey(e); }
+        public E floor(E e) { return m.floorKey(e); }
+        public E ceiling(E e) { return m.ceilingKey(e); }
+        public E higher(E e) { return m.higherKey(e); }
+        public E first() { return m.firstKey(); }
+        public E last() { return m.lastKey(); }
+        public Comparator<? super E> comparator() { return m.comparator(); }
+        public E pollFirst() {
+            Map.Entry<E,?> e = m.pollFirstEntry();
+            return (e == null) ? null : e.getKey();
+        }
+        public E pollLast() {
+            Map.Entry<E,?> e = m.pollLastEntry();
+            return (e == null) ? null : e.getKey();
+        }
+        public boolean remove(Object o) {
+            int oldSize = size();
+            m.remove(o);
+            return size() != oldSize;
+        }
+        public NavigableSet<E> subSet(E fromElement, boolean fromInclusive,
+                                      E toElement,   boolean toInclusive) {
+            return new KeySet<>(m.subMap(fromElement, fromInclusive,
+                                          toElement,   toInclusive));
+        }
+        public NavigableSet<E> headSet(E toElement, boolean inclusive) {
+            return new KeySet<>(m.headMap(toElement, inclusive));
+        }
+        public NavigableSet<E> tailSet(E fromElement, boolean inclusive) {
+            return new KeySet<>(m.tailMap(fromElement, inclusive));
+        }
+        public SortedSet<E> subSet(E fromElement, E toElement) {
+            return subSet(fromElement, true, toElement, false);
+        }
+        public SortedSet<E> headSet(E toElement) {
+            return headSet(toElement, false);
+        }
+        public SortedSet<E> tailSet(E fromElement) {
+            return tailSet(fromElement, true);
+        }
+        public NavigableSet<E> descendingSet() {
+            return new KeySet<>(m.descendingMap());
+        }
+    }
+
+    private static final Object UNBOUNDED = new Object();
+
+    // Walks leaf slots from first towards fence (exclusive, matched by key
+    // identity), forwards or backwards. Also used by the sub-map views.
+    abstract class PrivateEntryIterator<T> implements Iterator<T> {
+        Leaf<K,V> leaf;
+        int index;
+        Leaf<K,V> lastLeaf;
+        int lastIndex;
+        final Object fenceKey;
+        final boolean descending;
+        int expectedModCount;
+
+        PrivateEntryIterator(Cursor<K,V> first, Cursor<K,V> fence,
+                             boolean descending) {
+            expectedModCount = modCount;
+            if (first != null) {
+                leaf = first.leaf;
+                index = first.index;
+            }
+            fenceKey = (fence == null) ? UNBOUNDED : fence.key();
+            this.descending = descending;
+        }
+
+        public final boolean hasNext() {
+            return leaf != null && leaf.keys[index] != fenceKey;
+        }
+
+        final void advance() {
+            Leaf<K,V> l = leaf;
+            if (l == null || l.keys[index] == fenceKey)
+                throw new NoSuchElementException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            lastLeaf = l;
+            lastIndex = index;
+            if (descending) {
+                if (--index < 0 && (leaf = l.prev) != null)
+                    index = leaf.n - 1;
+            } else {
+                if (++index == l.n) {
+                    leaf = l.next;
+                    index = 0;
+                }
+            }
+        }
+
+        public void remove() {
+            if (lastLeaf == null)
+                throw new IllegalStateException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            Object nextKey = (leaf == null) ? null : leaf.keys[index];
+            BTreeMap.this.remove(lastLeaf.keys[lastIndex]);
+            if (leaf != null) {
+                Cursor<K,V> c = getCursor(nextKey);
+                leaf = c.leaf;
+                index = c.index;
+            }
+            lastLeaf = null;
+            expectedModCount = modCount;
+        }
+    }
+
+    final class EntryIterator extends PrivateEntryIterator<Map.Entry<K,V>> {
+        EntryIterator(Cursor<K,V> first, Cursor<K,V> fence, boolean descending) {
+            super(first, fence, descending);
+        }
+        public Map.Entry<K,V> next() {
+            advance();
+            return new LeafEntry(lastLeaf, lastIndex);
+        }
+    }
+
+    final class ValueIterator extends PrivateEntryIterator<V> {
+        ValueIterator(Cursor<K,V> first, Cursor<K,V> fence, boolean descending) {
+            super(first, fence, descending);
+        }
+        @SuppressWarnings("unchecked")
+        public V next() {
+            advance();
+            return (V) lastLeaf.vals[lastIndex];
+        }
+    }
+
+    final class KeyIterator extends PrivateEntryIterator<K> {
+        KeyIterator(Cursor<K,V> first, Cursor<K,V> fence, boolean descending) {
+            super(first, fence, descending);
+        }
+        @SuppressWarnings("unchecked")
+        public K next() {
+            advance();
+            return (K) lastLeaf.keys[lastIndex];
+        }
+    }
+
+    // Entry returned by entry iterators. Reads and writes go to the leaf
+    // slot while it still holds the key, and otherwise look the key up.
+    final class LeafEntry implements Map.Entry<K,V> {
+        final K key;
+        Leaf<K,V> leaf;
+        int index;
+
+        @SuppressWarnings("unchecked")
+        LeafEntry(Leaf<K,V> leaf, int index) {
+            this.key = (K) leaf.keys[index];
+            this.leaf = leaf;
+            this.index = index;
+        }
+
+        private boolean locate() {
+            if (leaf.keys[index] == key)
+                return true;
+            Cursor<K,V> c = getCursor(key);
+            if (c == null)
+                return false;
+            leaf = c.leaf;
+            index = c.index;
+            return true;
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        @SuppressWarnings("unchecked")
+        public V getValue() {
+            return locate() ? (V) leaf.vals[index] : null;
+        }
+
+        @SuppressWarnings("unchecked")
+        public V setValue(V value) {
+            if (!locate())
+                throw new IllegalStateException("entry no longer in map");
+            V oldValue = (V) leaf.vals[index];
+            leaf.vals[index] = value;
+            return oldValue;
+        }
+
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>)o;
+
+            return valEquals(key,e.getKey()) && valEquals(getValue(),e.getValue());
+        }
+
+        public int hashCode() {
+            V value = getValue();
+            int keyHash = (key==null ? 0 : key.hashCode());
+            int valueHash = (value==null ? 0 : value.hashCode());
+            return keyHash ^ valueHash;
+        }
+
+        public String toString() {
+            return key + "=" + getValue();
+        }
+    }
+
+
+    @SuppressWarnings("unchecked")
+    final int compare(Object k1, Object k2) {
+        return comparator==null ? ((Comparable<? super K>)k1).compareTo((K)k2)
+            : comparator.compare((K)k1, (K)k2);
+    }
+
+    static final boolean valEquals(Object o1, Object o2) {
+        return (o1==null ? o2==null : o1.equals(o2));
+    }
+
+    static <K,V> Map.Entry<K,V> exportEntry(Cursor<K,V> e) {
+        return (e == null) ? null :
+            new AbstractMap.SimpleImmutableEntry<>(e.key(), e.value());
+    }
+
+    static <K,V> K keyOrNull(Cursor<K,V> e) {
+        return (e == null) ? null : e.key();
+    }
+
+    static <K> K key(Cursor<K,?> e) {
+        if (e==null)
+            throw new NoSuchElementException();
+        return e.key();
+    }
+
+
+    abstract static class NavigableSubMap<K,V> extends AbstractMap<K,V>
+        implements NavigableMap<K,V>, java.io.Serializable {
+        private static final long serialVersionUID = 5823456201746113725L;
+        final BTreeMap<K,V> m;
+
+        final K lo, hi;
+        final boolean fromStart, toEnd;
+        final boolean loInclusive, hiInclusive;
+
+        NavigableSubMap(BTreeMap<K,V> m,
+                        boolean fromStart, K lo, boolean loInclusive,
+                        boolean toEnd,     K hi, boolean hiInclusive) {
+            if (!fromStart && !toEnd) {
+                if (m.compare(lo, hi) > 0)
+                    throw new IllegalArgumentException("fromKey > toKey");
+            } else {
+                if (!fromStart) // type check
+                    m.compare(lo, lo);
+                if (!toEnd)
+                    m.compare(hi, hi);
+            }
+
+            this.m = m;
+            this.fromStart = fromStart;
+            this.lo = lo;
+            this.loInclusive = loInclusive;
+            this.toEnd = toEnd;
+            this.hi = hi;
+            this.hiInclusive = hiInclusive;
+        }
+
+
+        final boolean tooLow(Object key) {
+            if (!fromStart) {
+                int c = m.compare(key, lo);
+                if (c < 0 || (c == 0 && !loInclusive))
+                    return true;
+            }
+            return false;
+        }
+
+        final boolean tooHigh(Object key) {
+            if (!toEnd) {
+                int c = m.compare(key, hi);
+                if (c > 0 || (c == 0 && !hiInclusive))
+                    return true;
+            }
+            return false;
+        }
+
+        final boolean inRange(Object key) {
+            return !tooLow(key) && !tooHigh(key);
+        }
+
+        final boolean inClosedRange(Object key) {
+            return (fromStart || m.compare(key, lo) >= 0)
+                && (toEnd || m.compare(hi, key) >= 0);
+        }
+
+        final boolean inRange(Object key, boolean inclusive) {
+            return inclusive ? inRange(key) : inClosedRange(key);
+        }
+
+
+        final Cursor<K,V> absLowest() {
+            Cursor<K,V> e =
+                (fromStart ?  m.firstCursor() :
+                 (loInclusive ? m.getCeilingCursor(lo) :
+                                m.getHigherCursor(lo)));
+            return (e == null || tooHigh(e.key())) ? null : e;
+        }
+
+        final Cursor<K,V> absHighest() {
+            Cursor<K,V> e =
+                (toEnd ?  m.lastCursor() :
+                 (hiInclusive ?  m.getFloorCursor(hi) :
+                                 m.getLowerCursor(hi)));
+            return (e == null || tooLow(e.key())) ? null : e;
+        }
+
+        final Cursor<K,V> absCeiling(K key) {
+            if (tooLow(key))
+                return absLowest();
+            Cursor<K,V> e = m.getCeilingCursor(key);
+            return (e == null || tooHigh(e.key())) ? null : e;
+        }
+
+        final Cursor<K,V> absHigher(K key) {
+            if (tooLow(key))
+                return absLowest();
+            Cursor<K,V> e = m.getHigherCursor(key);
+            return (e == null || tooHigh(e.key())) ? null : e;
+        }
+
+        final Cursor<K,V> absFloor(K key) {
+            if (tooHigh(key))
+                return absHighest();
+            Cursor<K,V> e = m.getFloorCursor(key);
+            return (e == null || tooLow(e.key())) ? null : e;
+        }
+
+        final Cursor<K,V> absLower(K key) {
+            if (tooHigh(key))
+                return absHighest();
+            Cursor<K,V> e = m.getLowerCursor(key);
+            return (e == null || tooLow(e.key())) ? null : e;
+        }
+
+        final Cursor<K,V> absHighFence() {
+            return (toEnd ? null : (hiInclusive ?
+                                    m.getHigherCursor(hi) :
+                                    m.getCeilingCursor(hi)));
+        }
+
+        final Cursor<K,V> absLowFence() {
+            return (fromStart ? null : (loInclusive ?
+                                        m.getLowerCursor(lo) :
+                                        m.getFloorCursor(lo)));
+        }
+
+
+        abstract Cursor<K,V> subLowest();
+        abstract Cursor<K,V> subHighest();
+        abstract Cursor<K,V> subCeiling(K key);
+        abstract Cursor<K,V> subHigher(K key);
+        abstract Cursor<K,V> subFloor(K key);
+        abstract Cursor<K,V> subLower(K key);
+
+        abstract Iterator<K> keyIterator();
+
+        abstract Iterator<K> descendingKeyIterator();
+
+
+        public boolean isEmpty() {
+            return (fromStart && toEnd) ? m.isEmpty() : entrySet().isEmpty();
+        }
+
+        public int size() {
+            return (fromStart && toEnd) ? m.size() : entrySet().size();
+        }
+
+        public final boolean containsKey(Object key) {
+            return inRange(key) && m.containsKey(key);
+        }
+
+        public final V put(K key, V value) {
+            if (!inRange(key))
+                throw new IllegalArgumentException("key out of range");
+            return m.put(key, value);
+        }
+
+        public final V get(Object key) {
+            return !inRange(key) ? null :  m.get(key);
+        }
+
+        public final V remove(Object key) {
+            return !inRange(key) ? null : m.remove(key);
+        }
+
+        public final Map.Entry<K,V> ceilingEntry(K key) {
+            return exportEntry(subCeiling(key));
+        }
+
+        public final K ceilingKey(K key) {
+            return keyOrNull(subCeiling(key));
+        }
+
+        public final Map.Entry<K,V> higherEntry(K key) {
+            return exportEntry(subHigher(key));
+        }
+
+        public final K higherKey(K key) {
+            return keyOrNull(subHigher(key));
+        }
+
+        public final Map.Entry<K,V> floorEntry(K key) {
+            return exportEntry(subFloor(key));
+        }
+
+        public final K floorKey(K key) {
+            return keyOrNull(subFloor(key));
+        }
+
+        public final Map.Entry<K,V> lowerEntry(K key) {
+            return exportEntry(subLower(key));
+        }
+
+        public final K lowerKey(K key) {
+            return keyOrNull(subLower(key));
+        }
+
+        public final K firstKey() {
+            return key(subLowest());
+        }
+
+        public final K lastKey() {
+            return key(subHighest());
+        }
+
+        public final Map.Entry<K,V> firstEntry() {
+            return exportEntry(subLowest());
+        }
+
+        public final Map.Entry<K,V> lastEntry() {
+            return exportEntry(subHighest());
+        }
+
+        public final Map.Entry<K,V> pollFirstEntry() {
+            Cursor<K,V> e = subLowest();
+            Map.Entry<K,V> result = exportEntry(e);
+            if (e != null)
+                m.remove(e.key());
+            return result;
+        }
+
+        public final Map.Entry<K,V> pollLastEntry() {
+            Cursor<K,V> e = subHighest();
+            Map.Entry<K,V> result = exportEntry(e);
+            if (e != null)
+                m.remove(e.key());
+            return result;
+        }
+
+        transient NavigableMap<K,V> descendingMapView;
+        transient EntrySetView entrySetView;
+        transient KeySet<K> navigableKeySetView;
+
+        public final NavigableSet<K> navigableKeySet() {
+            KeySet<K> nksv = navigableKeySetView;
+            return (nksv != null) ? nksv :
+                (navigableKeySetView = new BTreeMap.KeySet<>(this));
+        }
+
+        public final Set<K> keySet() {
+            return navigableKeySet();
+        }
+
+        public NavigableSet<K> descendingKeySet() {
+            return descendingMap().navigableKeySet();
+        }
+
+        public final SortedMap<K,V> subMap(K fromKey, K toKey) {
+            return subMap(fromKey, true, toKey, false);
+        }
+
+        public final SortedMap<K,V> headMap(K toKey) {
+            return headMap(toKey, false);
+        }
+
+        public final SortedMap<K,V> tailMap(K fromKey) {
+            return tailMap(fromKey, true);
+        }
+
+
+        abstract class EntrySetView extends AbstractSet<Map.Entry<K,V>> {
+            private transient int size = -1, sizeModCount;
+
+            public int size() {
+                if (fromStart && toEnd)
+                    return m.size();
+                if (size == -1 || sizeModCount != m.modCount) {
+                    sizeModCount = m.modCount;
+                    size = 0;
+                    Iterator<?> i = iterator();
+                    while (i.hasNext()) {
+                        size++;
+                        i.next();
+                    }
+                }
+                return size;
+            }
+
+            public boolean isEmpty() {
+                Cursor<K,V> n = absLowest();
+                return n == null || tooHigh(n.key());
+            }
+
+            public boolean contains(Object o) {
+                if (!(o instanceof Map.Entry))
+                    return false;
+                Map.Entry<?,?> entry = (Map.Entry<?,?>) o;
+                Object key = entry.getKey();
+                if (!inRange(key))
+                    return false;
+                Cursor<K,V> node = m.getCursor(key);
+                return node != null &&
+                    valEquals(node.value(), entry.getValue());
+            }
+
+            public boolean remove(Object o) {
+                if (!(o instanceof Map.Entry))
+                    return false;
+                Map.Entry<?,?> entry = (Map.Entry<?,?>) o;
+                Object key = entry.getKey();
+                if (!inRange(key))
+                    return false;
+                Cursor<K,V> node = m.getCursor(key);
+                if (node!=null && valEquals(node.value(),
+                                            entry.getValue())) {
+                    m.remove(node.key());
+                    return true;
+                }
+                return false;
+            }
+
+            public Spliterator<Map.Entry<K,V>> spliterator() {
+                return Spliterators.spliterator(this,
+                    Spliterator.ORDERED | Spliterator.DISTINCT);
+            }
+        }
+    }
+
+    static final class AscendingSubMap<K,V> extends NavigableSubMap<K,V> {
+        private static final long serialVersionUID = 3305371929842063112L;
+
+        AscendingSubMap(BTreeMap<K,V> m,
+                        boolean fromStart, K lo, boolean loInclusive,
+                        boolean toEnd,     K hi, boolean hiInclusive) {
+            super(m, fromStart, lo, loInclusive, toEnd, hi, hiInclusive);
+        }
+
+        public Comparator<? super K> comparator() {
+            return m.comparator();
+        }
+
+        public NavigableMap<K,V> subMap(K fromKey, boolean fromInclusive,
+                                        K toKey,   boolean toInclusive) {
+            if (!inRange(fromKey, fromInclusive))
+                throw new IllegalArgumentException("fromKey out of range");
+            if (!inRange(toKey, toInclusive))
+                throw new IllegalArgumentException("toKey out of range");
+            return new AscendingSubMap<>(m,
+                                         false, fromKey, fromInclusive,
+                                         false, toKey,   toInclusive);
+        }
+
+        public NavigableMap<K,V> headMap(K toKey, boolean inclusive) {
+            if (!inRange(toKey, inclusive))
+                throw new IllegalArgumentException("toKey out of range");
+            return new AscendingSubMap<>(m,
+                                         fromStart, lo,    loInclusive,
+                                         false,     toKey, inclusive);
+        }
+
+        public NavigableMap<K,V> tailMap(K fromKey, boolean inclusive) {
+            if (!inRange(fromKey, inclusive))
+                throw new IllegalArgumentException("fromKey out of range");
+            return new AscendingSubMap<>(m,
+                                         false, fromKey, inclusive,
+                                         toEnd, hi,      hiInclusive);
+        }
+
+        public NavigableMap<K,V> descendingMap() {
+            NavigableMap<K,V> mv = descendingMapView;
+            return (mv != null) ? mv :
+                (descendingMapView =
+                 new DescendingSubMap<>(m,
+                                        fromStart, lo, loInclusive,
+                                        toEnd,     hi, hiInclusive));
+        }
+
+        Iterator<K> keyIterator() {
+            return m.new KeyIterator(absLowest(), absHighFence(), false);
+        }
+
+        Iterator<K> descendingKeyIterator() {
+            return m.new KeyIterator(absHighest(), absLowFence(), true);
+        }
+
+        final class AscendingEntrySetView extends EntrySetView {
+            public Iterator<Map.Entry<K,V>> iterator() {
+                return m.new EntryIterator(absLowest(), absHighFence(), false);
+            }
+        }
+
+        public Set<Map.Entry<K,V>> entrySet() {
+            EntrySetView es = entrySetView;
+            return (es != null) ? es : (entrySetView = new AscendingEntrySetView());
+        }
+
+        Cursor<K,V> subLowest()       { return absLowest(); }
+        Cursor<K,V> subHighest()      { return absHighest(); }
+        Cursor<K,V> subCeiling(K key) { return absCeiling(key); }
+        Cursor<K,V> subHigher(K key)  { return absHigher(key); }
+        Cursor<K,V> subFloor(K key)   { return absFloor(key); }
+        Cursor<K,V> subLower(K key)   { return absLower(key); }
+    }
+
+    static final class DescendingSubMap<K,V>  extends NavigableSubMap<K,V> {
+        private static final long serialVersionUID = -1871466133093227427L;
+        DescendingSubMap(BTreeMap<K,V> m,
+                        boolean fromStart, K lo, boolean loInclusive,
+                        boolean toEnd,     K hi, boolean hiInclusive) {
+            super(m, fromStart, lo, loInclusive, toEnd, hi, hiInclusive);
+        }
+
+        private final Comparator<? super K> reverseComparator =
+            Collections.reverseOrder(m.comparator);
+
+        public Comparator<? super K> comparator() {
+            return reverseComparator;
+        }
+
+        public NavigableMap<K,V> subMap(K fromKey, boolean fromInclusive,
+                                        K toKey,   boolean toInclusive) {
+            if (!inRange(fromKey, fromInclusive))
+                throw new IllegalArgumentException("fromKey out of range");
+            if (!inRange(toKey, toInclusive))
+                throw new IllegalArgumentException("toKey out of range");
+            return new DescendingSubMap<>(m,
+                                          false, toKey,   toInclusive,
+                                          false, fromKey, fromInclusive);
+        }
+
+        public NavigableMap<K,V> headMap(K toKey, boolean inclusive) {
+            if (!inRange(toKey, inclusive))
+                throw new IllegalArgumentException("toKey out of range");
+            return new DescendingSubMap<>(m,
+                                          false, toKey, inclusive,
+                                          toEnd, hi,    hiInclusive);
+        }
+
+        public NavigableMap<K,V> tailMap(K fromKey, boolean inclusive) {
+            if (!inRange(fromKey, inclusive))
+                throw new IllegalArgumentException("fromKey out of range");
+            return new DescendingSubMap<>(m,
+                                          fromStart, lo, loInclusive,
+                                          false, fromKey, inclusive);
+        }
+
+        public NavigableMap<K,V> descendingMap() {
+            NavigableMap<K,V> mv = descendingMapView;
+            return (mv != null) ? mv :
+                (descendingMapView =
+                 new AscendingSubMap<>(m,
+                                       fromStart, lo, loInclusive,
+                                       toEnd,     hi, hiInclusive));
+        }
+
+        Iterator<K> keyIterator() {
+            return m.new KeyIterator(absHighest(), absLowFence(), true);
+        }
+
+        Iterator<K> descendingKeyIterator() {
+            return m.new KeyIterator(absLowest(), absHighFence(), false);
+        }
+
+        final class DescendingEntrySetView extends EntrySetView {
+            public Iterator<Map.Entry<K,V>> iterator() {
+                return m.new EntryIterator(absHighest(), absLowFence(), true);
+            }
+        }
+
+        public Set<Map.Entry<K,V>> entrySet() {
+            EntrySetView es = entrySetView;
+            return (es != null) ? es : (entrySetView = new DescendingEntrySetView());
+        }
+
+        Cursor<K,V> subLowest()       { return absHighest(); }
+        Cursor<K,V> subHighest()      { return absLowest(); }
+        Cursor<K,V> subCeiling(K key) { return absFloor(key); }
+        Cursor<K,V> subHigher(K key)  { return absLower(key); }
+        Cursor<K,V> subFloor(K key)   { return absCeiling(key); }
+        Cursor<K,V> subLower(K key)   { return absHigher(key); }
+    }
+
+
+    private static final long serialVersionUID = -4204185062545207541L;
+
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws java.io.IOException {
+        s.defaultWriteObject();
+
+        s.writeInt(size);
+
+        for (Leaf<K,V> l = head; l != null; l = l.next) {
+            for (int i = 0; i < l.n; i++) {
+                s.writeObject(l.keys[i]);
+                s.writeObject(l.vals[i]);
+            }
+        }
+    }
+
+    private void readObject(final java.io.ObjectInputStream s)
+        throws java.io.IOException, ClassNotFoundException {
+        s.defaultReadObject();
+
+        int size = s.readInt();
+
+        buildFromSorted(size, null, s, null);
+    }
+
+    void readTreeSet(int size, java.io.ObjectInputStream s, V defaultVal)
+        throws java.io.IOException, ClassNotFoundException {
+        buildFromSorted(size, null, s, defaultVal);
+    }
+
+    void addAllForTreeSet(SortedSet<? extends K> set, V defaultVal) {
+        try {
+            buildFromSorted(set.size(), set.iterator(), null, defaultVal);
+        } catch (java.io.IOException cannotHappen) {
+        } catch (ClassNotFoundException cannotHappen) {
+        }
+    }
+
+
+    // Bulk load from sorted input, as TreeMap.buildFromSorted: entries come
+    // from it (Map.Entry, or keys paired with defaultVal) or from the stream.
+    // Leaves are filled bottom-up with the entries spread evenly, so every
+    // node holds at least MIN_KEYS keys, then each inner level is built
+    // over the one below.
+    @SuppressWarnings("unchecked")
+    private void buildFromSorted(int size, Iterator<?> it,
+                                 java.io.ObjectInputStream str,
+                                 V defaultVal)
+        throws  java.io.IOException, ClassNotFoundException {
+        this.size = size;
+        if (size == 0) {
+            root = head = tail = null;
+            return;
+        }
+
+        int count = (size + LEAF_CAPACITY - 1) / LEAF_CAPACITY;
+        Node[] level = new Node[count];
+        Object[] mins = new Object[count];
+        Leaf<K,V> prev = null;
+        for (int j = 0, remaining = size; j < count; j++) {
+            int n = remaining / (count - j);
+            remaining -= n;
+            Leaf<K,V> l = new Leaf<>();
+            for (int i = 0; i < n; i++) {
+                Object key;
+                Object value;
+                if (it != null) {
+                    if (defaultVal==null) {
+                        Map.Entry<?,?> entry = (Map.Entry<?,?>)it.next();
+                        key = entry.getKey();
+                        value = entry.getValue();
+                    } else {
+                        key = it.next();
+                        value = defaultVal;
+                    }
+                } else { // use stream
+                    key = str.readObject();
+                    value = (defaultVal != null ? defaultVal : str.readObject());
+                }
+                l.keys[i] = key;
+                l.vals[i] = value;
+            }
+            l.n = n;
+            l.prev = prev;
+            if (prev != null)
+                prev.next = l;
+            prev = l;
+            level[j] = l;
+            mins[j] = l.keys[0];
+        }
+        head = (Leaf<K,V>) level[0];
+        tail = prev;
+
+        while (count > 1) {
+            int parents = (count + INNER_CAPACITY) / (INNER_CAPACITY + 1);
+            for (int j = 0, c = 0, remaining = count; j < parents; j++) {
+                int n = remaining / (parents - j);
+                remaining -= n;
+                Inner p = new Inner();
+                for (int i = 0; i < n; i++, c++) {
+                    p.children[i] = level[c];
+                    if (i > 0)
+                        p.keys[i - 1] = mins[c];
+                }
+                p.n = n - 1;
+                mins[j] = mins[c - n];
+                level[j] = p;
+            }
+            Arrays.fill(level, parents, count, null);
+            count = parents;
+        }
+        root = level[0];
+    }
+}
@@ -0,0 +1,192 @@
+
+package java.util;
+
+// A NavigableSet backed by a BTreeMap, as TreeSet is backed by a TreeMap.
+public class BTreeSet<E> extends AbstractSet<E>
+    implements NavigableSet<E>, Cloneable, java.io.Serializable
+{
+    private transient NavigableMap<E,Object> m;
+
+    private static final Object PRESENT = new Object();
+
+    BTreeSet(NavigableMap<E,Object> m) {
+        this.m = m;
+    }
+
+    public BTreeSet() {
+        this(new BTreeMap<E,Object>());
+    }
+
+    public BTreeSet(Comparator<? super E> comparator) {
+        this(new BTreeMap<>(comparator));
+    }
+
+    public BTreeSet(Collection<? extends E> c) {
+        this();
+        addAll(c);
+    }
+
+    public BTreeSet(SortedSet<E> s) {
+        this(s.comparator());
+        addAll(s);
+    }
+
+    public Iterator<E> iterator() {
+        return m.navigableKeySet().iterator();
+    }
+
+    public Iterator<E> descendingIterator() {
+        return m.descendingKeySet().iterator();
+    }
+
+    public NavigableSet<E> descendingSet() {
+        return new BTreeSet<>(m.descendingMap());
+    }
+
+    public int size() {
+        return m.size();
+    }
+
+    public boolean isEmpty() {
+        return m.isEmpty();
+    }
+
+    public boolean contains(Object o) {
+        return m.containsKey(o);
+    }
+
+    public boolean add(E e) {
+        return m.put(e, PRESENT)==null;
+    }
+
+    public boolean remove(Object o) {
+        return m.remove(o)==PRESENT;
+    }
+
+    public void clear() {
+        m.clear();
+    }
+
+    public  boolean addAll(Collection<? extends E> c) {
+        if (m.size()==0 && c.size() > 0 &&
+            c instanceof SortedSet &&
+            m instanceof BTreeMap) {
+            SortedSet<? extends E> set = (SortedSet<? extends E>) c;
+            BTreeMap<E,Object> map = (BTreeMap<E, Object>) m;
+            Comparator<?> cc = set.comparator();
+            Comparator<? super E> mc = map.comparator();
+            if (cc==mc || (cc != null && cc.equals(mc))) {
+                map.addAllForTreeSet(set, PRESENT);
+                return true;
+            }
+        }
+        return super.addAll(c);
+    }
+
+    public NavigableSet<E> subSet(E fromElement, boolean fromInclusive,
+                                  E toElement,   boolean toInclusive) {
+        return new BTreeSet<>(m.subMap(fromElement, fromInclusive,
+                                        toElement,   toInclusive));
+    }
+
+    public NavigableSet<E> headSet(E toElement, boolean inclusive) {
+        return new BTreeSet<>(m.headMap(toElement, inclusive));
+    }
+
+    public NavigableSet<E> tailSet(E fromElement, boolean inclusive) {
+        return new BTreeSet<>(m.tailMap(fromElement, inclusive));
+    }
+
+    public SortedSet<E> subSet(E fromElement, E toElement) {
+        return subSet(fromElement, true, toElement, false);
+    }
+
+    public SortedSet<E> headSet(E toElement) {
+        return headSet(toElement, false);
+    }
+
+    public SortedSet<E> tailSet(E fromElement) {
+        return tailSet(fromElement, true);
+    }
+
+    public Comparator<? super E> comparator() {
+        return m.comparator();
+    }
+
+    public E first() {
+        return m.firstKey();
+    }
+
+    public E last() {
+        return m.lastKey();
+    }
+
+
+    public E lower(E e) {
+        return m.lowerKey(e);
+    }
+
+    public E floor(E e) {
+        return m.floorKey(e);
+    }
+
+    public E ceiling(E e) {
+        return m.ceilingKey(e);
+    }
+
+    public E higher(E e) {
+        return m.higherKey(e);
+    }
+
+    public E pollFirst() {
+        Map.Entry<E,?> e = m.pollFirstEntry();
+        return (e == null) ? null : e.getKey();
+    }
+
+    public E pollLast() {
+        Map.Entry<E,?> e = m.pollLastEntry();
+        return (e == null) ? null : e.getKey();
+    }
+
+    @SuppressWarnings("unchecked")
+    public Object clone() {
+        BTreeSet<E> clone;
+        try {
+            clone = (BTreeSet<E>) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+
+        clone.m = new BTreeMap<>(m);
+        return clone;
+    }
+
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws java.io.IOException {
+        s.defaultWriteObject();
+
+        s.writeObject(m.comparator());
+
+        s.writeInt(m.size());
+
+        for (E e : m.keySet())
+            s.writeObject(e);
+    }
+
+    private void readObject(java.io.ObjectInputStream s)
+        throws java.io.IOException, ClassNotFoundException {
+        s.defaultReadObject();
+
+        @SuppressWarnings("unchecked")
+            Comparator<? super E> c = (Comparator<? super E>) s.readObject();
+
+        BTreeMap<E,Object> tm = new BTreeMap<>(c);
+        m = tm;
+
+        int size = s.readInt();
+
+        tm.readTreeSet(size, s, PRESENT);
+    }
+
+    private static final long serialVersionUID = -6150617287146216917L;
+}
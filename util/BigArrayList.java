@@ -0,0 +1,376 @@
+
+package java.util;
+
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+// A list indexed by long. Storage is a BigObjectArray whose capacity grows
+// one chunk at a time, so adding elements never copies existing ones.
+// size() saturates at Integer.MAX_VALUE; longSize() is exact.
+public class BigArrayList<E> extends AbstractCollection<E>
+        implements Cloneable {
+
+    transient BigObjectArray<E> elementData;
+
+    private long size;
+
+    protected transient int modCount = 0;
+
+    public BigArrayList(long initialCapacity) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal Capacity: "+
+                                               initialCapacity);
+        elementData = new BigObjectArray<>(initialCapacity);
+    }
+
+    public BigArrayList() {
+        elementData = new BigObjectArray<>(0L);
+    }
+
+    public BigArrayList(Collection<? extends E> c) {
+        this(c.size());
+        addAll(c);
+    }
+
+    public void trimToSize() {
+        modCount++;
+        if (size < elementData.length())
+            elementData.resize(size);
+    }
+
+    public void ensureCapacity(long minCapacity) {
+        modCount++;
+        if (minCapacity > elementData.length())
+            grow(minCapacity);
+    }
+
+    // extends the capacity to the end of the chunk holding minCapacity - 1
+    private void grow(long minCapacity) {
+        int k = AbstractBigArray.chunkOf(minCapacity - 1);
+        long newCapacity = AbstractBigArray.chunkStart(k + 1);
+        if (newCapacity > AbstractBigArray.MAX_LENGTH) {
+            if (minCapacity > AbstractBigArray.MAX_LENGTH)
+                throw new OutOfMemoryError();
+            newCapacity = AbstractBigArray.MAX_LENGTH;
+        }
+        elementData.resize(newCapacity);
+    }
+
+    public int size() {
+        return (size > Integer.MAX_VALUE) ? Integer.MAX_VALUE : (int)size;
+    }
+
+    public long longSize() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    public long indexOf(Object o) {
+        BigObjectArray<E> a = elementData;
+        if (o == null) {
+            for (long i = 0; i < size; i++)
+                if (a.at(i) == null)
+                    return i;
+        } else {
+            for (long i = 0; i < size; i++)
+                if (o.equals(a.at(i)))
+                    return i;
+        }
+        return -1;
+    }
+
+    public long lastIndexOf(Object o) {
+        BigObjectArray<E> a = elementData;
+        if (o == null) {
+            for (long i = size-1; i >= 0; i--)
+                if (a.at(i) == null)
+                    return i;
+        } else {
+            for (long i = size-1; i >= 0; i--)
+                if (o.equals(a.at(i)))
+                    return i;
+        }
+        return -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    public BigArrayList<E> clone() {
+        try {
+            BigArrayList<E> v = (BigArrayList<E>) super.clone();
+            v.elementData = elementData.clone();
+            v.modCount = 0;
+            return v;
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+    }
+
+    public E get(long index) {
+        rangeCheck(index);
+        return elementData.at(index);
+    }
+
+    public E set(long index, E element) {
+        rangeCheck(index);
+        E oldValue = elementData.at(index);
+        elementData.put(index, element);
+        return oldValue;
+    }
+
+    public boolean add(E e) {
+        modCount++;
+        if (size == elementData.length())
+            grow(size + 1);
+        elementData.put(size++, e);
+        return true;
+    }
+
+    public void add(long index, E element) {
+        rangeCheckForAdd(index);
+        modCount++;
+        if (size == elementData.length())
+            grow(size + 1);
+        BigObjectArray.copy(elementData, index, elementData, index + 1,
+                            size - index);
+        elementData.put(index, element);
+        size++;
+    }
+
+    // Copies a snapshot of c, so adding a list to itself is safe.
+    public boolean addAll(Collection<? extends E> c) {
+        @SuppressWarnings("unchecked")
+        E[] a = (E[]) c.toArray();
+        int numNew = a.length;
+        modCount++;
+        long n = size + numNew;
+        if (n > elementData.length())
+            grow(n);
+        elementData.copyFrom(a, 0, size, numNew);
+        size = n;
+        return numNew != 0;
+    }
+
+    public E remove(long index) {
+        rangeCheck(index);
+        modCount++;
+        E oldValue = elementData.at(index);
+        long numMoved = size - index - 1;
+        if (numMoved > 0)
+            BigObjectArray.copy(elementData, index+1, elementData, index,
+                                numMoved);
+        elementData.put(--size, null); // clear to let GC do its work
+        return oldValue;
+    }
+
+    public boolean remove(Object o) {
+        long index = indexOf(o);
+        if (index < 0)
+            return false;
+        remove(index);
+        return true;
+    }
+
+    public void clear() {
+        modCount++;
+        elementData.fill(0L, size, null);
+        size = 0;
+    }
+
+    // Compacts survivors in a single pass. If the filter throws, the
+    // unvisited tail is still moved down so the list stays consistent.
+    public boolean removeIf(Predicate<? super E> filter) {
+        Objects.requireNonNull(filter);
+        final int expectedModCount = modCount;
+        final BigObjectArray<E> a = elementData;
+        final long size = this.size;
+        long i = 0, j = 0;
+        try {
+            for (; modCount == expectedModCount && i < size; i++) {
+                E e = a.at(i);
+                if (!filter.test(e))
+                    a.put(j++, e);
+            }
+        } finally {
+            if (i < size) {
+                BigObjectArray.copy(a, i, a, j, size - i);
+                j += size - i;
+            }
+            if (j < size) {
+                a.fill(j, size, null);
+                this.size = j;
+            }
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        if (j == size)
+            return false;
+        modCount++;
+        return true;
+    }
+
+    public void sort(Comparator<? super E> c) {
+        final int expectedModCount = modCount;
+        elementData.sort(0L, size, c);
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        modCount++;
+    }
+
+    public void forEach(Consumer<? super E> action) {
+        Objects.requireNonNull(action);
+        final int expectedModCount = modCount;
+        final BigObjectArray<E> a = elementData;
+        final long size = this.size;
+        for (long i=0; modCount == expectedModCount && i < size; i++) {
+            action.accept(a.at(i));
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    public Iterator<E> iterator() {
+        return new Itr();
+    }
+
+    private class Itr implements Iterator<E> {
+        long cursor;       // index of next element to return
+        long lastRet = -1; // index of last element returned; -1 if no such
+        int expectedModCount = modCount;
+
+        public boolean hasNext() {
+            return cursor != size;
+        }
+
+        public E next() {
+            checkForComodification();
+            long i = cursor;
+            if (i >= size)
+                throw new NoSuchElementException();
+            cursor = i + 1;
+            return elementData.at(lastRet = i);
+        }
+
+        public void remove() {
+            if (lastRet < 0)
+                throw new IllegalStateException();
+            checkForComodification();
+
+            BigArrayList.this.remove(lastRet);
+            cursor = lastRet;
+            lastRet = -1;
+            expectedModCount = modCount;
+        }
+
+        final void checkForComodification() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+        }
+    }
+
+    public Spliterator<E> spliterator() {
+        return new BigArrayListSpliterator<>(this, 0L, -1L, 0);
+    }
+
+    // As ArrayList.ArrayListSpliterator, splitting on chunk boundaries of
+    // the backing array.
+    static final class BigArrayListSpliterator<E> implements Spliterator<E> {
+        private final BigArrayList<E> list;
+        private long index; // current index, modified on advance/split
+        private long fence; // -1 until used; then one past last index
+        private int expectedModCount; // initialized when fence set
+
+        BigArrayListSpliterator(BigArrayList<E> list, long origin, long fence,
+                                int expectedModCount) {
+            this.list = list;
+            this.index = origin;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        private long getFence() { // initialize fence to size on first use
+            long hi;
+            if ((hi = fence) < 0) {
+                expectedModCount = list.modCount;
+                hi = fence = list.size;
+            }
+            return hi;
+        }
+
+        public BigArrayListSpliterator<E> trySplit() {
+            long hi = getFence(), lo = index;
+            return (hi - lo < 2) ? null :
+                new BigArrayListSpliterator<>(list, lo,
+                                              index = AbstractBigArray.splitPoint(lo, hi),
+                                              expectedModCount);
+        }
+
+        public boolean tryAdvance(Consumer<? super E> action) {
+            if (action == null)
+                throw new NullPointerException();
+            long hi = getFence(), i = index;
+            if (i < hi) {
+                index = i + 1;
+                E e = list.elementData.at(i);
+                action.accept(e);
+                if (list.modCount != expectedModCount)
+                    throw new ConcurrentModificationException();
+                return true;
+            }
+            return false;
+        }
+
+        public void forEachRemaining(Consumer<? super E> action) {
+            if (action == null)
+                throw new NullPointerException();
+            long hi = getFence(), i = index;
+            int mc = expectedModCount;
+            Object[][] spine = list.elementData.spine;
+            index = hi;
+            while (i < hi) {
+                int k = AbstractBigArray.chunkOf(i);
+                long base = AbstractBigArray.chunkStart(k);
+                Object[] c = spine[k];
+                int end = (int)Math.min(c.length, hi - base);
+                for (int o = (int)(i - base); o < end; o++) {
+                    @SuppressWarnings("unchecked") E e = (E) c[o];
+                    action.accept(e);
+                }
+                i = base + end;
+            }
+            if (list.modCount != mc)
+                throw new ConcurrentModificationException();
+        }
+
+        public long estimateSize() {
+            return getFence() - index;
+        }
+
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+    }
+
+    private void rangeCheck(long index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException(outOfBoundsMsg(index));
+    }
+
+    private void rangeCheckForAdd(long index) {
+        if (index > size || index < 0)
+            throw new IndexOutOfBoundsException(outOfBoundsMsg(index));
+    }
+
+    private String outOfBoundsMsg(long index) {
+        return "Index: "+index+", Size: "+size;
+    }
+}
@@ -0,0 +1,318 @@
+
+package java.util;
+
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+public class BigLongArray extends AbstractBigArray implements Cloneable {
+
+    transient long[][] spine;
+
+    public BigLongArray(long length) {
+        this.length = checkLength(length);
+        int n = chunkCount(length);
+        long[][] s = new long[n][];
+        for (int k = 0; k < n; k++)
+            s[k] = new long[chunkLength(k, length)];
+        spine = s;
+    }
+
+    public BigLongArray(long[] a) {
+        this(a.length);
+        copyFrom(a, 0, 0L, a.length);
+    }
+
+    public long get(long index) {
+        rangeCheck(index);
+        int k = chunkOf(index);
+        return spine[k][(int)(index - chunkStart(k))];
+    }
+
+    public void set(long index, long value) {
+        rangeCheck(index);
+        int k = chunkOf(index);
+        spine[k][(int)(index - chunkStart(k))] = value;
+    }
+
+    final long at(long index) {
+        int k = chunkOf(index);
+        return spine[k][(int)(index - chunkStart(k))];
+    }
+
+    final void put(long index, long value) {
+        int k = chunkOf(index);
+        spine[k][(int)(index - chunkStart(k))] = value;
+    }
+
+    // Grows or shrinks the array; new elements are zero. Growing only
+    // allocates new chunks (and widens a trimmed last chunk).
+    public void resize(long newLength) {
+        checkLength(newLength);
+        int oldN = chunkCount(length), n = chunkCount(newLength);
+        long[][] s = spine;
+        if (newLength > length) {
+            if (n > s.length)
+                spine = s = Arrays.copyOf(s, Math.max(n, s.length + (s.length >> 1)));
+            if (oldN > 0) {
+                int last = oldN - 1, need = chunkLength(last, newLength);
+                if (s[last].length < need)
+                    s[last] = Arrays.copyOf(s[last], need);
+            }
+            for (int k = oldN; k < n; k++)
+                s[k] = new long[chunkLength(k, newLength)];
+        } else {
+            for (int k = n; k < oldN; k++)
+                s[k] = null;
+            if (n > 0) {
+                long[] c = s[n - 1];
+                Arrays.fill(c, (int)(newLength - chunkStart(n - 1)), c.length, 0L);
+            }
+        }
+        length = newLength;
+    }
+
+    public void fill(long val) {
+        fill(0L, length, val);
+    }
+
+    public void fill(long fromIndex, long toIndex, long val) {
+        rangeCheck(length, fromIndex, toIndex);
+        while (fromIndex < toIndex) {
+            int k = chunkOf(fromIndex);
+            long base = chunkStart(k);
+            long[] c = spine[k];
+            int end = (int)Math.min(c.length, toIndex - base);
+            Arrays.fill(c, (int)(fromIndex - base), end, val);
+            fromIndex = base + end;
+        }
+    }
+
+    // Same contract as System.arraycopy, including overlapping ranges
+    // within one array.
+    public static void copy(BigLongArray src, long srcPos,
+                            BigLongArray dest, long destPos, long length) {
+        if (length < 0)
+            throw new ArrayIndexOutOfBoundsException("Length: " + length);
+        rangeCheck(src.length, srcPos, srcPos + length);
+        rangeCheck(dest.length, destPos, destPos + length);
+        long[][] ss = src.spine, ds = dest.spine;
+        if (src == dest && srcPos < destPos && destPos < srcPos + length) {
+            long s = srcPos + length, d = destPos + length;
+            while (length > 0) {
+                int ks = chunkOf(s - 1), kd = chunkOf(d - 1);
+                long os = s - chunkStart(ks), od = d - chunkStart(kd);
+                int n = (int)Math.min(length, Math.min(os, od));
+                s -= n;
+                d -= n;
+                length -= n;
+                System.arraycopy(ss[ks], (int)(os - n), ds[kd], (int)(od - n), n);
+            }
+        } else {
+            while (length > 0) {
+                int ks = chunkOf(srcPos), kd = chunkOf(destPos);
+                int os = (int)(srcPos - chunkStart(ks));
+                int od = (int)(destPos - chunkStart(kd));
+                int n = (int)Math.min(length, Math.min(ss[ks].length - os,
+                                                       ds[kd].length - od));
+                System.arraycopy(ss[ks], os, ds[kd], od, n);
+                srcPos += n;
+                destPos += n;
+                length -= n;
+            }
+        }
+    }
+
+    public void copyFrom(long[] src, int srcPos, long destPos, int length) {
+        rangeCheck(this.length, destPos, destPos + length);
+        while (length > 0) {
+            int k = chunkOf(destPos);
+            long[] c = spine[k];
+            int o = (int)(destPos - chunkStart(k));
+            int n = Math.min(length, c.length - o);
+            System.arraycopy(src, srcPos, c, o, n);
+            srcPos += n;
+            destPos += n;
+            length -= n;
+        }
+    }
+
+    public void copyTo(long srcPos, long[] dest, int destPos, int length) {
+        rangeCheck(this.length, srcPos, srcPos + length);
+        while (length > 0) {
+            int k = chunkOf(srcPos);
+            long[] c = spine[k];
+            int o = (int)(srcPos - chunkStart(k));
+            int n = Math.min(length, c.length - o);
+            System.arraycopy(c, o, dest, destPos, n);
+            srcPos += n;
+            destPos += n;
+            length -= n;
+        }
+    }
+
+    public void sort() {
+        sort0(0L, length - 1);
+    }
+
+    public void sort(long fromIndex, long toIndex) {
+        rangeCheck(length, fromIndex, toIndex);
+        sort0(fromIndex, toIndex - 1);
+    }
+
+    // Quicksort over long indices until a range falls inside one chunk,
+    // which is then handed to DualPivotQuicksort.
+    private void sort0(long left, long right) {
+        while (left < right) {
+            int k = chunkOf(left);
+            if (k == chunkOf(right)) {
+                long base = chunkStart(k);
+                DualPivotQuicksort.sort(spine[k], (int)(left - base),
+                                        (int)(right - base), null, 0, 0);
+                return;
+            }
+            if (right - left < INSERTION_SORT_THRESHOLD) {
+                for (long i = left + 1; i <= right; i++) {
+                    long ai = at(i);
+                    long j = i - 1;
+                    for (; j >= left && at(j) > ai; j--)
+                        put(j + 1, at(j));
+                    put(j + 1, ai);
+                }
+                return;
+            }
+            long a = at(left), b = at((left + right) >>> 1), c = at(right);
+            long pivot = (a < b) ? ((b < c) ? b : (a < c) ? c : a)
+                               : ((a < c) ? a : (b < c) ? c : b);
+            long i = left, j = right;
+            while (i <= j) {
+                while (at(i) < pivot)
+                    i++;
+                while (at(j) > pivot)
+                    j--;
+                if (i <= j) {
+                    long t = at(i);
+                    put(i++, at(j));
+                    put(j--, t);
+                }
+            }
+            if (j - left < right - i) {
+                sort0(left, j);
+                left = i;
+            } else {
+                sort0(i, right);
+                right = j;
+            }
+        }
+    }
+
+    public long binarySearch(long key) {
+        return binarySearch0(0L, length, key);
+    }
+
+    public long binarySearch(long fromIndex, long toIndex, long key) {
+        rangeCheck(length, fromIndex, toIndex);
+        return binarySearch0(fromIndex, toIndex, key);
+    }
+
+    private long binarySearch0(long fromIndex, long toIndex, long key) {
+        long low = fromIndex;
+        long high = toIndex - 1;
+
+        while (low <= high) {
+            long mid = (low + high) >>> 1;
+            long midVal = at(mid);
+
+            if (midVal < key)
+                low = mid + 1;
+            else if (midVal > key)
+                high = mid - 1;
+            else
+                return mid; // key found
+        }
+        return -(low + 1);  // key not found.
+    }
+
+    public Spliterator.OfLong spliterator() {
+        return new BigLongArraySpliterator(this, 0L, length);
+    }
+
+    public Spliterator.OfLong spliterator(long fromIndex, long toIndex) {
+        rangeCheck(length, fromIndex, toIndex);
+        return new BigLongArraySpliterator(this, fromIndex, toIndex);
+    }
+
+    public LongStream stream() {
+        return StreamSupport.longStream(spliterator(), false);
+    }
+
+    public LongStream parallelStream() {
+        return StreamSupport.longStream(spliterator(), true);
+    }
+
+    static final class BigLongArraySpliterator implements Spliterator.OfLong {
+        private final BigLongArray array;
+        private long index;        // current index, modified on advance/split
+        private final long fence;  // one past last index
+
+        BigLongArraySpliterator(BigLongArray array, long origin, long fence) {
+            this.array = array;
+            this.index = origin;
+            this.fence = fence;
+        }
+
+        public BigLongArraySpliterator trySplit() {
+            long lo = index, hi = fence;
+            return (hi - lo < 2) ? null :
+                new BigLongArraySpliterator(array, lo, index = splitPoint(lo, hi));
+        }
+
+        public boolean tryAdvance(LongConsumer action) {
+            if (action == null)
+                throw new NullPointerException();
+            if (index < fence) {
+                action.accept(array.at(index++));
+                return true;
+            }
+            return false;
+        }
+
+        public void forEachRemaining(LongConsumer action) {
+            if (action == null)
+                throw new NullPointerException();
+            long i = index, hi = fence;
+            index = hi;
+            while (i < hi) {
+                int k = chunkOf(i);
+                long base = chunkStart(k);
+                long[] c = array.spine[k];
+                int end = (int)Math.min(c.length, hi - base);
+                for (int o = (int)(i - base); o < end; o++)
+                    action.accept(c[o]);
+                i = base + end;
+            }
+        }
+
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+    }
+
+    public BigLongArray clone() {
+        try {
+            BigLongArray v = (BigLongArray) super.clone();
+            long[][] s = spine.clone();
+            for (int k = 0; k < s.length; k++)
+                if (s[k] != null)
+                    s[k] = s[k].clone();
+            v.spine = s;
+            return v;
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+    }
+}
@@ -0,0 +1,335 @@
+
+package java.util;
+
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class BigObjectArray<E> extends AbstractBigArray implements Cloneable {
+
+    transient Object[][] spine;
+
+    public BigObjectArray(long length) {
+        this.length = checkLength(length);
+        int n = chunkCount(length);
+        Object[][] s = new Object[n][];
+        for (int k = 0; k < n; k++)
+            s[k] = new Object[chunkLength(k, length)];
+        spine = s;
+    }
+
+    public BigObjectArray(E[] a) {
+        this(a.length);
+        copyFrom(a, 0, 0L, a.length);
+    }
+
+    @SuppressWarnings("unchecked")
+    public E get(long index) {
+        rangeCheck(index);
+        int k = chunkOf(index);
+        return (E) spine[k][(int)(index - chunkStart(k))];
+    }
+
+    public void set(long index, E value) {
+        rangeCheck(index);
+        int k = chunkOf(index);
+        spine[k][(int)(index - chunkStart(k))] = value;
+    }
+
+    @SuppressWarnings("unchecked")
+    final E at(long index) {
+        int k = chunkOf(index);
+        return (E) spine[k][(int)(index - chunkStart(k))];
+    }
+
+    final void put(long index, Object value) {
+        int k = chunkOf(index);
+        spine[k][(int)(index - chunkStart(k))] = value;
+    }
+
+    // Grows or shrinks the array; new elements are null. Growing only
+    // allocates new chunks (and widens a trimmed last chunk).
+    public void resize(long newLength) {
+        checkLength(newLength);
+        int oldN = chunkCount(length), n = chunkCount(newLength);
+        Object[][] s = spine;
+        if (newLength > length) {
+            if (n > s.length)
+                spine = s = Arrays.copyOf(s, Math.max(n, s.length + (s.length >> 1)));
+            if (oldN > 0) {
+                int last = oldN - 1, need = chunkLength(last, newLength);
+                if (s[last].length < need)
+                    s[last] = Arrays.copyOf(s[last], need);
+            }
+            for (int k = oldN; k < n; k++)
+                s[k] = new Object[chunkLength(k, newLength)];
+        } else {
+            for (int k = n; k < oldN; k++)
+                s[k] = null;
+            if (n > 0) {
+                Object[] c = s[n - 1];
+                Arrays.fill(c, (int)(newLength - chunkStart(n - 1)), c.length, null);
+            }
+        }
+        length = newLength;
+    }
+
+    public void fill(E val) {
+        fill(0L, length, val);
+    }
+
+    public void fill(long fromIndex, long toIndex, E val) {
+        rangeCheck(length, fromIndex, toIndex);
+        while (fromIndex < toIndex) {
+            int k = chunkOf(fromIndex);
+            long base = chunkStart(k);
+            Object[] c = spine[k];
+            int end = (int)Math.min(c.length, toIndex - base);
+            Arrays.fill(c, (int)(fromIndex - base), end, val);
+            fromIndex = base + end;
+        }
+    }
+
+    // Same contract as System.arraycopy, including overlapping ranges
+    // within one array.
+    public static <T> void copy(BigObjectArray<? extends T> src, long srcPos,
+                                BigObjectArray<? super T> dest, long destPos,
+                                long length) {
+        if (length < 0)
+            throw new ArrayIndexOutOfBoundsException("Length: " + length);
+        rangeCheck(src.length, srcPos, srcPos + length);
+        rangeCheck(dest.length, destPos, destPos + length);
+        Object[][] ss = src.spine, ds = dest.spine;
+        if (src == dest && srcPos < destPos && destPos < srcPos + length) {
+            long s = srcPos + length, d = destPos + length;
+            while (length > 0) {
+                int ks = chunkOf(s - 1), kd = chunkOf(d - 1);
+                long os = s - chunkStart(ks), od = d - chunkStart(kd);
+                int n = (int)Math.min(length, Math.min(os, od));
+                s -= n;
+                d -= n;
+                length -= n;
+                System.arraycopy(ss[ks], (int)(os - n), ds[kd], (int)(od - n), n);
+            }
+        } else {
+            while (length > 0) {
+                int ks = chunkOf(srcPos), kd = chunkOf(destPos);
+                int os = (int)(srcPos - chunkStart(ks));
+                int od = (int)(destPos - chunkStart(kd));
+                int n = (int)Math.min(length, Math.min(ss[ks].length - os,
+                                                       ds[kd].length - od));
+                System.arraycopy(ss[ks], os, ds[kd], od, n);
+                srcPos += n;
+                destPos += n;
+                length -= n;
+            }
+        }
+    }
+
+    public void copyFrom(E[] src, int srcPos, long destPos, int length) {
+        rangeCheck(this.length, destPos, destPos + length);
+        while (length > 0) {
+            int k = chunkOf(destPos);
+            Object[] c = spine[k];
+            int o = (int)(destPos - chunkStart(k));
+            int n = Math.min(length, c.length - o);
+            System.arraycopy(src, srcPos, c, o, n);
+            srcPos += n;
+            destPos += n;
+            length -= n;
+        }
+    }
+
+    public void copyTo(long srcPos, Object[] dest, int destPos, int length) {
+        rangeCheck(this.length, srcPos, srcPos + length);
+        while (length > 0) {
+            int k = chunkOf(srcPos);
+            Object[] c = spine[k];
+            int o = (int)(srcPos - chunkStart(k));
+            int n = Math.min(length, c.length - o);
+            System.arraycopy(c, o, dest, destPos, n);
+            srcPos += n;
+            destPos += n;
+            length -= n;
+        }
+    }
+
+    // Sorts by the given comparator, or by natural ordering when c is null.
+    // Unlike Arrays.sort this is not stable once the range spans chunks.
+    public void sort(Comparator<? super E> c) {
+        sort0(0L, length - 1, c);
+    }
+
+    public void sort(long fromIndex, long toIndex, Comparator<? super E> c) {
+        rangeCheck(length, fromIndex, toIndex);
+        sort0(fromIndex, toIndex - 1, c);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static <E> int compare(Comparator<? super E> c, E a, E b) {
+        return (c != null) ? c.compare(a, b) : ((Comparable)a).compareTo(b);
+    }
+
+    // Quicksort over long indices until a range falls inside one chunk,
+    // which is then handed to Arrays.sort.
+    @SuppressWarnings("unchecked")
+    private void sort0(long left, long right, Comparator<? super E> cmp) {
+        while (left < right) {
+            int k = chunkOf(left);
+            if (k == chunkOf(right)) {
+                long base = chunkStart(k);
+                Arrays.sort((E[]) spine[k], (int)(left - base),
+                            (int)(right - base) + 1, cmp);
+                return;
+            }
+            if (right - left < INSERTION_SORT_THRESHOLD) {
+                for (long i = left + 1; i <= right; i++) {
+                    E ai = at(i);
+                    long j = i - 1;
+                    for (; j >= left && compare(cmp, at(j), ai) > 0; j--)
+                        put(j + 1, at(j));
+                    put(j + 1, ai);
+                }
+                return;
+            }
+            E a = at(left), b = at((left + right) >>> 1), c = at(right);
+            E pivot = (compare(cmp, a, b) < 0) ?
+                ((compare(cmp, b, c) < 0) ? b : (compare(cmp, a, c) < 0) ? c : a) :
+                ((compare(cmp, a, c) < 0) ? a : (compare(cmp, b, c) < 0) ? c : b);
+            long i = left, j = right;
+            while (i <= j) {
+                while (compare(cmp, at(i), pivot) < 0)
+                    i++;
+                while (compare(cmp, at(j), pivot) > 0)
+                    j--;
+                if (i <= j) {
+                    E t = at(i);
+                    put(i++, at(j));
+                    put(j--, t);
+                }
+            }
+            if (j - left < right - i) {
+                sort0(left, j, cmp);
+                left = i;
+            } else {
+                sort0(i, right, cmp);
+                right = j;
+            }
+        }
+    }
+
+    public long binarySearch(E key, Comparator<? super E> c) {
+        return binarySearch0(0L, length, key, c);
+    }
+
+    public long binarySearch(long fromIndex, long toIndex, E key,
+                             Comparator<? super E> c) {
+        rangeCheck(length, fromIndex, toIndex);
+        return binarySearch0(fromIndex, toIndex, key, c);
+    }
+
+    private long binarySearch0(long fromIndex, long toIndex, E key,
+                               Comparator<? super E> c) {
+        long low = fromIndex;
+        long high = toIndex - 1;
+
+        while (low <= high) {
+            long mid = (low + high) >>> 1;
+            int cmp = compare(c, at(mid), key);
+
+            if (cmp < 0)
+                low = mid + 1;
+            else if (cmp > 0)
+                high = mid - 1;
+            else
+                return mid; // key found
+        }
+        return -(low + 1);  // key not found.
+    }
+
+    public Spliterator<E> spliterator() {
+        return new BigObjectArraySpliterator<>(this, 0L, length);
+    }
+
+    public Spliterator<E> spliterator(long fromIndex, long toIndex) {
+        rangeCheck(length, fromIndex, toIndex);
+        return new BigObjectArraySpliterator<>(this, fromIndex, toIndex);
+    }
+
+    public Stream<E> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    public Stream<E> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    static final class BigObjectArraySpliterator<E> implements Spliterator<E> {
+        private final BigObjectArray<E> array;
+        private long index;        // current index, modified on advance/split
+        private final long fence;  // one past last index
+
+        BigObjectArraySpliterator(BigObjectArray<E> array, long origin, long fence) {
+            this.array = array;
+            this.index = origin;
+            this.fence = fence;
+        }
+
+        public BigObjectArraySpliterator<E> trySplit() {
+            long lo = index, hi = fence;
+            return (hi - lo < 2) ? null :
+                new BigObjectArraySpliterator<>(array, lo, index = splitPoint(lo, hi));
+        }
+
+        public boolean tryAdvance(Consumer<? super E> action) {
+            if (action == null)
+                throw new NullPointerException();
+            if (index < fence) {
+                action.accept(array.at(index++));
+                return true;
+            }
+            return false;
+        }
+
+        public void forEachRemaining(Consumer<? super E> action) {
+            if (action == null)
+                throw new NullPointerException();
+            long i = index, hi = fence;
+            index = hi;
+            while (i < hi) {
+                int k = chunkOf(i);
+                long base = chunkStart(k);
+                Object[] c = array.spine[k];
+                int end = (int)Math.min(c.length, hi - base);
+                for (int o = (int)(i - base); o < end; o++) {
+                    @SuppressWarnings("unchecked") E e = (E) c[o];
+                    action.accept(e);
+                }
+                i = base + end;
+            }
+        }
+
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public BigObjectArray<E> clone() {
+        try {
+            BigObjectArray<E> v = (BigObjectArray<E>) super.clone();
+            Object[][] s = spine.clone();
+            for (int k = 0; k < s.length; k++)
+                if (s[k] != null)
+                    s[k] = s[k].clone();
+            v.spine = s;
+            return v;
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+    }
+}
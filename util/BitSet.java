@@ -5,6 +5,9 @@ import java.io.*;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.LongBuffer;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
 import java.util.stream.IntStream;
 import java.util.stream.StreamSupport;
 
@@ -15,6 +18,8 @@ public class BitSet implements Cloneable, java.io.Serializable {
 
     private static final long WORD_MASK = 0xffffffffffffffffL;
 
+    private static final int MIN_PARALLEL_WORDS = 1 << 13;
+
     private static final ObjectStreamField[] serialPersistentFields = {
         new ObjectStreamField("bits", long[].class),
     };
@@ -526,6 +531,163 @@ public class BitSet implements Cloneable, java.io.Serializable {
         checkInvariants();
     }
 
+    // Granularity of the parallel operations below, in words; 0 if the
+    // range is too small to be worth splitting or there is no parallelism.
+    private static int parallelGranularity(int n) {
+        int p, g;
+        if (n <= MIN_PARALLEL_WORDS ||
+            (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
+            return 0;
+        return ((g = n / (p << 2)) <= MIN_PARALLEL_WORDS) ?
+            MIN_PARALLEL_WORDS : g;
+    }
+
+    public void parallelAnd(BitSet set) {
+        if (this == set)
+            return;
+
+        if (wordsInUse > set.wordsInUse) {
+            Arrays.fill(words, set.wordsInUse, wordsInUse, 0);
+            wordsInUse = set.wordsInUse;
+        }
+
+        int g = parallelGranularity(wordsInUse);
+        if (g == 0) {
+            for (int i = 0; i < wordsInUse; i++)
+                words[i] &= set.words[i];
+        } else {
+            new WordTask(null, words, set.words, 0, wordsInUse, g,
+                         WordTask.AND, null).invoke();
+        }
+
+        recalculateWordsInUse();
+        checkInvariants();
+    }
+
+    public void parallelOr(BitSet set) {
+        if (this == set)
+            return;
+
+        int wordsInCommon = Math.min(wordsInUse, set.wordsInUse);
+
+        if (wordsInUse < set.wordsInUse) {
+            ensureCapacity(set.wordsInUse);
+            wordsInUse = set.wordsInUse;
+        }
+
+        int g = parallelGranularity(wordsInCommon);
+        if (g == 0) {
+            for (int i = 0; i < wordsInCommon; i++)
+                words[i] |= set.words[i];
+        } else {
+            new WordTask(null, words, set.words, 0, wordsInCommon, g,
+                         WordTask.OR, null).invoke();
+        }
+
+        if (wordsInCommon < set.wordsInUse)
+            System.arraycopy(set.words, wordsInCommon,
+                             words, wordsInCommon,
+                             wordsInUse - wordsInCommon);
+
+        checkInvariants();
+    }
+
+    public void parallelXor(BitSet set) {
+        int wordsInCommon = Math.min(wordsInUse, set.wordsInUse);
+
+        if (wordsInUse < set.wordsInUse) {
+            ensureCapacity(set.wordsInUse);
+            wordsInUse = set.wordsInUse;
+        }
+
+        int g = parallelGranularity(wordsInCommon);
+        if (g == 0) {
+            for (int i = 0; i < wordsInCommon; i++)
+                words[i] ^= set.words[i];
+        } else {
+            new WordTask(null, words, set.words, 0, wordsInCommon, g,
+                         WordTask.XOR, null).invoke();
+        }
+
+        if (wordsInCommon < set.wordsInUse)
+            System.arraycopy(set.words, wordsInCommon,
+                             words, wordsInCommon,
+                             set.wordsInUse - wordsInCommon);
+
+        recalculateWordsInUse();
+        checkInvariants();
+    }
+
+    public int parallelCardinality() {
+        int g = parallelGranularity(wordsInUse);
+        if (g == 0)
+            return cardinality();
+        return new WordTask(null, words, null, 0, wordsInUse, g,
+                            WordTask.COUNT, null).invoke();
+    }
+
+    // Applies op to words[lo, hi), forking right halves down to the
+    // granularity. For COUNT the bit counts of the forks are summed on
+    // completion.
+    static final class WordTask extends CountedCompleter<Integer> {
+        private static final long serialVersionUID = 3842690418561147209L;
+
+        static final int AND = 0, OR = 1, XOR = 2, COUNT = 3;
+
+        final long[] a, b;
+        final int lo, hi, gran, op;
+        final WordTask next;
+        WordTask forks;
+        int result;
+
+        WordTask(WordTask parent, long[] a, long[] b, int lo, int hi,
+                 int gran, int op, WordTask next) {
+            super(parent);
+            this.a = a; this.b = b; this.lo = lo; this.hi = hi;
+            this.gran = gran; this.op = op; this.next = next;
+        }
+
+        public final void compute() {
+            final long[] a = this.a, b = this.b;
+            int l = lo, h = hi;
+            while (h - l > gran) {
+                int mid = (l + h) >>> 1;
+                addToPendingCount(1);
+                (forks = new WordTask(this, a, b, mid, h, gran, op, forks)).fork();
+                h = mid;
+            }
+            switch (op) {
+            case AND:
+                for (int i = l; i < h; i++)
+                    a[i] &= b[i];
+                break;
+            case OR:
+                for (int i = l; i < h; i++)
+                    a[i] |= b[i];
+                break;
+            case XOR:
+                for (int i = l; i < h; i++)
+                    a[i] ^= b[i];
+                break;
+            default:
+                int sum = 0;
+                for (int i = l; i < h; i++)
+                    sum += Long.bitCount(a[i]);
+                result = sum;
+            }
+            tryComplete();
+        }
+
+        public final void onCompletion(CountedCompleter<?> caller) {
+            for (WordTask t = forks; t != null; t = t.next)
+                result += t.result;
+        }
+
+        public final Integer getRawResult() {
+            return result;
+        }
+    }
+
     public int hashCode() {
         long h = 1234;
         for (int i = wordsInUse; --i >= 0; )
@@ -627,33 +789,108 @@ public class BitSet implements Cloneable, java.io.Serializable {
         return b.toString();
     }
 
+    // The spliterator binds to wordsInUse on first use and splits on word
+    // boundaries. It reports SIZED (the cardinality at binding, less the
+    // bits traversed) until it has been split; halves then carry an
+    // estimate of half their parent.
     public IntStream stream() {
-        class BitSetIterator implements PrimitiveIterator.OfInt {
-            int next = nextSetBit(0);
+        class BitSetSpliterator implements Spliterator.OfInt {
+            private int index; // index of the word holding word
+            private int fence; // one past the last word; -1 until bound
+            private long word; // bits of words[index] not yet traversed
+            private int est;
+            private boolean root;
+
+            BitSetSpliterator(int index, long word, int fence, int est,
+                              boolean root) {
+                this.index = index;
+                this.word = word;
+                this.fence = fence;
+                this.est = est;
+                this.root = root;
+            }
+
+            private int getFence() {
+                int hi;
+                if ((hi = fence) < 0) {
+                    hi = fence = wordsInUse;
+                    est = cardinality();
+                    index = 0;
+                    word = (hi > 0) ? words[0] : 0L;
+                }
+                return hi;
+            }
 
-            @Override
-            public boolean hasNext() {
-                return next != -1;
+            public boolean tryAdvance(IntConsumer action) {
+                if (action == null)
+                    throw new NullPointerException();
+                int hi = getFence();
+                while (word == 0) {
+                    if (index + 1 >= hi)
+                        return false;
+                    word = words[++index];
+                }
+                int bit = (index << ADDRESS_BITS_PER_WORD) +
+                    Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                if (root)
+                    est--;
+                action.accept(bit);
+                return true;
             }
 
-            @Override
-            public int nextInt() {
-                if (next != -1) {
-                    int ret = next;
-                    next = nextSetBit(next+1);
-                    return ret;
-                } else {
-                    throw new NoSuchElementException();
+            public void forEachRemaining(IntConsumer action) {
+                if (action == null)
+                    throw new NullPointerException();
+                int hi = getFence();
+                int u = index;
+                long w = word;
+                word = 0L;
+                est = 0;
+                if (u >= hi)
+                    return;
+                index = hi - 1;
+                final long[] a = words;
+                while (true) {
+                    int base = u << ADDRESS_BITS_PER_WORD;
+                    for (; w != 0; w &= w - 1)
+                        action.accept(base + Long.numberOfTrailingZeros(w));
+                    if (++u >= hi)
+                        break;
+                    w = a[u];
                 }
             }
+
+            public Spliterator.OfInt trySplit() {
+                int hi = getFence();
+                int lo = index, mid = (lo + hi) >>> 1;
+                if (mid <= lo)
+                    return null;
+                BitSetSpliterator prefix =
+                    new BitSetSpliterator(lo, word, mid, est >>>= 1, false);
+                index = mid;
+                word = words[mid];
+                root = false;
+                return prefix;
+            }
+
+            public long estimateSize() {
+                getFence();
+                return est;
+            }
+
+            public int characteristics() {
+                return (root ? Spliterator.SIZED : 0) |
+                    Spliterator.ORDERED | Spliterator.DISTINCT |
+                    Spliterator.SORTED;
+            }
+
+            public Comparator<? super Integer> getComparator() {
+                return null;
+            }
         }
 
         return StreamSupport.intStream(
-                () -> Spliterators.spliterator(
-                        new BitSetIterator(), cardinality(),
-                        Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED),
-                Spliterator.SIZED | Spliterator.SUBSIZED |
-                        Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED,
-                false);
+                new BitSetSpliterator(0, 0L, -1, 0, true), false);
     }
 }
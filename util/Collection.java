@@ -45,7 +45,8 @@ public interface Collection<E> extends Iterable<E> {
     int hashCode();
     @Override
     default Spliterator<E> spliterator() {
-        return Spliterators.spliterator(this, 0);
+        return Spliterators.spliterator(this, 0,
+                                        Spliterators.SplitPolicy.adaptive());
     }
     default Stream<E> stream() {
         return StreamSupport.stream(spliterator(), false);
@@ -0,0 +1,668 @@
+
+package java.util;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.Serializable;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// Insertion-ordered map in the compact dict layout: entries are appended
+// to dense parallel arrays (hashes, keys, values) in insertion order, and
+// a separate open-addressing index table maps hash slots to entry numbers.
+// The index holds entry number + 1, 0 meaning empty, in a byte[], short[]
+// or int[] according to the entry capacity, so for most maps it costs one
+// or two bytes per slot. Iteration is a walk over the entry arrays, and an
+// entry takes a hash and two references where LinkedHashMap.Entry takes
+// an object with five fields plus its table slot.
+//
+// Removal leaves a hole: the key becomes REMOVED and the index slot keeps
+// pointing at it, so probe sequences stay intact and no marker is needed
+// in the index. Holes are squeezed out when the entry arrays fill up.
+public class CompactLinkedHashMap<K,V> extends AbstractMap<K,V>
+    implements Map<K,V>, Cloneable, Serializable {
+
+    private static final long serialVersionUID = 3169254803458472139L;
+
+    static final int MAXIMUM_CAPACITY = 1 << 29;
+
+    static final int DEFAULT_INITIAL_CAPACITY = 8;
+
+    // the key of an entry that has been removed
+    static final Object REMOVED = new Object();
+
+    // one of these is non-null: the index table at its narrowest width
+    transient byte[] index8;
+    transient short[] index16;
+    transient int[] index32;
+
+    transient int indexMask;
+
+    transient int[] hashes;
+
+    transient Object[] keys;
+
+    transient Object[] vals;
+
+    // entries appended so far, live or removed
+    transient int used;
+
+    transient int size;
+
+    transient int modCount;
+
+    transient Set<Map.Entry<K,V>> entrySet;
+
+    public CompactLinkedHashMap(int initialCapacity) {
+        allocate(capacityFor(OpenHashing.checkCapacity(initialCapacity)));
+    }
+
+    public CompactLinkedHashMap() {
+        allocate(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public CompactLinkedHashMap(Map<? extends K, ? extends V> m) {
+        allocate(capacityFor(m.size()));
+        putAll(m);
+    }
+
+    static int capacityFor(int n) {
+        return (n >= MAXIMUM_CAPACITY) ? MAXIMUM_CAPACITY :
+            Math.max(n, DEFAULT_INITIAL_CAPACITY);
+    }
+
+    // Entry arrays of the given capacity and an index table at most two
+    // thirds full when they are.
+    private void allocate(int capacity) {
+        hashes = new int[capacity];
+        keys = new Object[capacity];
+        vals = new Object[capacity];
+        newIndex(capacity);
+    }
+
+    private void newIndex(int capacity) {
+        int n = OpenHashing.tableSizeFor(capacity + (capacity >>> 1) + 1);
+        index8 = null;
+        index16 = null;
+        index32 = null;
+        if (capacity < 0xFF)
+            index8 = new byte[n];
+        else if (capacity < 0xFFFF)
+            index16 = new short[n];
+        else
+            index32 = new int[n];
+        indexMask = n - 1;
+    }
+
+    static int hash(Object key) {
+        return (key == null) ? 0 : OpenHashing.mix(key.hashCode());
+    }
+
+    // entry number + 1 at index slot i, 0 if the slot is empty
+    final int indexAt(int i) {
+        byte[] b; short[] s;
+        if ((b = index8) != null)
+            return b[i] & 0xFF;
+        if ((s = index16) != null)
+            return s[i] & 0xFFFF;
+        return index32[i];
+    }
+
+    final void setIndex(int i, int e) {
+        byte[] b; short[] s;
+        if ((b = index8) != null)
+            b[i] = (byte)(e + 1);
+        else if ((s = index16) != null)
+            s[i] = (short)(e + 1);
+        else
+            index32[i] = e + 1;
+    }
+
+    // entry holding key, or -1
+    final int findEntry(Object key, int h) {
+        int[] hs = hashes;
+        Object[] ks = keys;
+        int mask = indexMask;
+        for (int i = h & mask; ; i = (i + 1) & mask) {
+            int e = indexAt(i) - 1;
+            if (e < 0)
+                return -1;
+            Object k;
+            if (hs[e] == h &&
+                ((k = ks[e]) == key || (key != null && key.equals(k))))
+                return e;
+        }
+    }
+
+    final void indexEntry(int e, int h) {
+        int mask = indexMask, i = h & mask;
+        while (indexAt(i) != 0)
+            i = (i + 1) & mask;
+        setIndex(i, e);
+    }
+
+    // appends a key known to be absent and returns its entry
+    final int insertNew(int h, K key, V value) {
+        if (used == keys.length)
+            compact();
+        int e = used++;
+        hashes[e] = h;
+        keys[e] = key;
+        vals[e] = value;
+        indexEntry(e, h);
+        ++size;
+        ++modCount;
+        return e;
+    }
+
+    final void removeEntry(int e) {
+        keys[e] = REMOVED;
+        vals[e] = null;
+        --size;
+        ++modCount;
+    }
+
+    private void clearIndex() {
+        if (index8 != null)
+            Arrays.fill(index8, (byte)0);
+        else if (index16 != null)
+            Arrays.fill(index16, (short)0);
+        else
+            Arrays.fill(index32, 0);
+    }
+
+    // Called with the entry arrays full: squeezes out removed entries,
+    // doubling the capacity unless at least half of them were removed,
+    // and rebuilds the index.
+    final void compact() {
+        int cap = keys.length;
+        int newCap = (size < (cap >>> 1) || cap == MAXIMUM_CAPACITY) ?
+            cap : cap << 1;
+        if (newCap == cap && size == cap)
+            throw new IllegalStateException("Map full");
+        resize(newCap);
+    }
+
+    final void resize(int newCap) {
+        int[] oldHashes = hashes;
+        Object[] oldKeys = keys, oldVals = vals;
+        int n = used;
+        if (newCap != oldKeys.length) {
+            hashes = new int[newCap];
+            keys = new Object[newCap];
+            vals = new Object[newCap];
+            newIndex(newCap);
+        }
+        else
+            clearIndex();
+        int[] hs = hashes;
+        Object[] ks = keys, vs = vals;
+        int j = 0;
+        for (int e = 0; e < n; e++) {
+            Object k = oldKeys[e];
+            if (k != REMOVED) {
+                hs[j] = oldHashes[e];
+                ks[j] = k;
+                vs[j] = oldVals[e];
+                indexEntry(j, hs[j]);
+                j++;
+            }
+        }
+        if (ks == oldKeys) {
+            Arrays.fill(ks, j, n, null);
+            Arrays.fill(vs, j, n, null);
+        }
+        used = j;
+    }
+
+    /* ------------------------------------------------------------ */
+    // Map operations
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        int e = findEntry(key, hash(key));
+        return (e < 0) ? null : (V)vals[e];
+    }
+
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(Object key, V defaultValue) {
+        int e = findEntry(key, hash(key));
+        return (e < 0) ? defaultValue : (V)vals[e];
+    }
+
+    public boolean containsKey(Object key) {
+        return findEntry(key, hash(key)) >= 0;
+    }
+
+    public boolean containsValue(Object value) {
+        Object[] ks = keys, vs = vals;
+        for (int e = 0, n = used; e < n; e++) {
+            if (ks[e] != REMOVED && Objects.equals(vs[e], value))
+                return true;
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(K key, V value) {
+        int h = hash(key), e = findEntry(key, h);
+        if (e >= 0) {
+            V oldValue = (V)vals[e];
+            vals[e] = value;
+            return oldValue;
+        }
+        insertNew(h, key, value);
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V putIfAbsent(K key, V value) {
+        int h = hash(key), e = findEntry(key, h);
+        if (e >= 0) {
+            V oldValue = (V)vals[e];
+            if (oldValue == null)
+                vals[e] = value;
+            return oldValue;
+        }
+        insertNew(h, key, value);
+        return null;
+    }
+
+    public void putAll(Map<? extends K, ? extends V> m) {
+        int s = m.size();
+        if (s > keys.length - used)
+            resize(capacityFor(Math.max(s + size, keys.length)));
+        for (Map.Entry<? extends K, ? extends V> e : m.entrySet())
+            put(e.getKey(), e.getValue());
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        int e = findEntry(key, hash(key));
+        if (e < 0)
+            return null;
+        V oldValue = (V)vals[e];
+        removeEntry(e);
+        return oldValue;
+    }
+
+    public boolean remove(Object key, Object value) {
+        int e = findEntry(key, hash(key));
+        if (e >= 0 && Objects.equals(vals[e], value)) {
+            removeEntry(e);
+            return true;
+        }
+        return false;
+    }
+
+    public boolean replace(K key, V oldValue, V newValue) {
+        int e = findEntry(key, hash(key));
+        if (e >= 0 && Objects.equals(vals[e], oldValue)) {
+            vals[e] = newValue;
+            return true;
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V replace(K key, V value) {
+        int e = findEntry(key, hash(key));
+        if (e >= 0) {
+            V oldValue = (V)vals[e];
+            vals[e] = value;
+            return oldValue;
+        }
+        return null;
+    }
+
+    public void clear() {
+        if (used > 0) {
+            ++modCount;
+            Arrays.fill(keys, 0, used, null);
+            Arrays.fill(vals, 0, used, null);
+            size = 0;
+            used = 0;
+            clearIndex();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public V computeIfAbsent(K key,
+                             Function<? super K, ? extends V> mappingFunction) {
+        if (mappingFunction == null)
+            throw new NullPointerException();
+        int h = hash(key), e = findEntry(key, h);
+        V oldValue;
+        if (e >= 0 && (oldValue = (V)vals[e]) != null)
+            return oldValue;
+        int mc = modCount;
+        V v = mappingFunction.apply(key);
+        if (mc != modCount)
+            throw new ConcurrentModificationException();
+        if (v == null)
+            return null;
+        if (e >= 0)
+            vals[e] = v;
+        else
+            insertNew(h, key, v);
+        return v;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V computeIfPresent(K key,
+                              BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        if (remappingFunction == null)
+            throw new NullPointerException();
+        int e = findEntry(key, hash(key));
+        V oldValue;
+        if (e >= 0 && (oldValue = (V)vals[e]) != null) {
+            int mc = modCount;
+            V v = remappingFunction.apply(key, oldValue);
+            if (mc != modCount)
+                throw new ConcurrentModificationException();
+            if (v != null) {
+                vals[e] = v;
+                return v;
+            }
+            removeEntry(e);
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V compute(K key,
+                     BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        if (remappingFunction == null)
+            throw new NullPointerException();
+        int h = hash(key), e = findEntry(key, h);
+        V oldValue = (e >= 0) ? (V)vals[e] : null;
+        int mc = modCount;
+        V v = remappingFunction.apply(key, oldValue);
+        if (mc != modCount)
+            throw new ConcurrentModificationException();
+        if (e >= 0) {
+            if (v != null)
+                vals[e] = v;
+            else
+                removeEntry(e);
+        }
+        else if (v != null)
+            insertNew(h, key, v);
+        return v;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V merge(K key, V value,
+                   BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        if (value == null)
+            throw new NullPointerException();
+        if (remappingFunction == null)
+            throw new NullPointerException();
+        int h = hash(key), e = findEntry(key, h);
+        if (e < 0) {
+            insertNew(h, key, value);
+            return value;
+        }
+        V oldValue = (V)vals[e], v;
+        if (oldValue == null)
+            v = value;
+        else {
+            int mc = modCount;
+            v = remappingFunction.apply(oldValue, value);
+            if (mc != modCount)
+                throw new ConcurrentModificationException();
+        }
+        if (v != null)
+            vals[e] = v;
+        else
+            removeEntry(e);
+        return v;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        if (action == null)
+            throw new NullPointerException();
+        Object[] ks = keys, vs = vals;
+        int mc = modCount;
+        for (int e = 0, n = used; e < n && mc == modCount; e++) {
+            Object k = ks[e];
+            if (k != REMOVED)
+                action.accept((K)k, (V)vs[e]);
+        }
+        if (mc != modCount)
+            throw new ConcurrentModificationException();
+    }
+
+    @SuppressWarnings("unchecked")
+    public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+        if (function == null)
+            throw new NullPointerException();
+        Object[] ks = keys, vs = vals;
+        int mc = modCount;
+        for (int e = 0, n = used; e < n && mc == modCount; e++) {
+            Object k = ks[e];
+            if (k != REMOVED)
+                vs[e] = function.apply((K)k, (V)vs[e]);
+        }
+        if (mc != modCount)
+            throw new ConcurrentModificationException();
+    }
+
+    public Set<K> keySet() {
+        Set<K> ks;
+        return (ks = keySet) == null ? (keySet = new KeySet()) : ks;
+    }
+
+    public Collection<V> values() {
+        Collection<V> vs;
+        return (vs = values) == null ? (values = new Values()) : vs;
+    }
+
+    public Set<Map.Entry<K,V>> entrySet() {
+        Set<Map.Entry<K,V>> es;
+        return (es = entrySet) == null ? (entrySet = new EntrySet()) : es;
+    }
+
+    final class KeySet extends AbstractSet<K> {
+        public final int size()                 { return size; }
+        public final void clear()               { CompactLinkedHashMap.this.clear(); }
+        public final Iterator<K> iterator()     { return new KeyIterator(); }
+        public final boolean contains(Object o) { return containsKey(o); }
+        public final boolean remove(Object key) {
+            int e = findEntry(key, hash(key));
+            if (e < 0)
+                return false;
+            removeEntry(e);
+            return true;
+        }
+        public final Spliterator<K> spliterator() {
+            return Spliterators.spliterator(this, Spliterator.SIZED |
+                                            Spliterator.ORDERED |
+                                            Spliterator.DISTINCT);
+        }
+        public final void forEach(Consumer<? super K> action) {
+            if (action == null)
+                throw new NullPointerException();
+            CompactLinkedHashMap.this.forEach((k, v) -> action.accept(k));
+        }
+    }
+
+    final class Values extends AbstractCollection<V> {
+        public final int size()                 { return size; }
+        public final void clear()               { CompactLinkedHashMap.this.clear(); }
+        public final Iterator<V> iterator()     { return new ValueIterator(); }
+        public final boolean contains(Object o) { return containsValue(o); }
+        public final Spliterator<V> spliterator() {
+            return Spliterators.spliterator(this, Spliterator.SIZED |
+                                            Spliterator.ORDERED);
+        }
+        public final void forEach(Consumer<? super V> action) {
+            if (action == null)
+                throw new NullPointerException();
+            CompactLinkedHashMap.this.forEach((k, v) -> action.accept(v));
+        }
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<K,V>> {
+        public final int size()                 { return size; }
+        public final void clear()               { CompactLinkedHashMap.this.clear(); }
+        public final Iterator<Map.Entry<K,V>> iterator() {
+            return new EntryIterator();
+        }
+        public final boolean contains(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+            Object key = e.getKey();
+            int i = findEntry(key, hash(key));
+            return i >= 0 && Objects.equals(vals[i], e.getValue());
+        }
+        public final boolean remove(Object o) {
+            if (o instanceof Map.Entry) {
+                Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+                return CompactLinkedHashMap.this.remove(e.getKey(), e.getValue());
+            }
+            return false;
+        }
+        public final Spliterator<Map.Entry<K,V>> spliterator() {
+            return Spliterators.spliterator(this, Spliterator.SIZED |
+                                            Spliterator.ORDERED |
+                                            Spliterator.DISTINCT);
+        }
+    }
+
+    // Entries never move while iterating (removal only leaves a hole), so
+    // iterators walk the entry arrays skipping holes.
+    abstract class EntryWalker {
+        int next;              // next entry to look at
+        int current = -1;      // last returned entry
+        int expectedModCount = modCount;
+
+        EntryWalker() {
+            advance();
+        }
+
+        private void advance() {
+            Object[] ks = keys;
+            int n = used;
+            while (next < n && ks[next] == REMOVED)
+                next++;
+        }
+
+        public final boolean hasNext() {
+            return next < used;
+        }
+
+        final int nextEntry() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (next >= used)
+                throw new NoSuchElementException();
+            current = next++;
+            advance();
+            return current;
+        }
+
+        public final void remove() {
+            if (current < 0)
+                throw new IllegalStateException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            removeEntry(current);
+            current = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    final class KeyIterator extends EntryWalker implements Iterator<K> {
+        @SuppressWarnings("unchecked")
+        public final K next() { return (K)keys[nextEntry()]; }
+    }
+
+    final class ValueIterator extends EntryWalker implements Iterator<V> {
+        @SuppressWarnings("unchecked")
+        public final V next() { return (V)vals[nextEntry()]; }
+    }
+
+    final class EntryIterator extends EntryWalker
+        implements Iterator<Map.Entry<K,V>> {
+        @SuppressWarnings("unchecked")
+        public final Map.Entry<K,V> next() {
+            int e = nextEntry();
+            return new MapEntry((K)keys[e], (V)vals[e]);
+        }
+    }
+
+    final class MapEntry extends AbstractMap.SimpleEntry<K,V> {
+        private static final long serialVersionUID = -2781629405163720358L;
+
+        MapEntry(K key, V value) {
+            super(key, value);
+        }
+
+        public V setValue(V value) {
+            put(getKey(), value);
+            return super.setValue(value);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public Object clone() {
+        CompactLinkedHashMap<K,V> result;
+        try {
+            result = (CompactLinkedHashMap<K,V>)super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+        result.hashes = hashes.clone();
+        result.keys = keys.clone();
+        result.vals = vals.clone();
+        result.index8 = (index8 == null) ? null : index8.clone();
+        result.index16 = (index16 == null) ? null : index16.clone();
+        result.index32 = (index32 == null) ? null : index32.clone();
+        result.entrySet = null;
+        result.modCount = 0;
+        return result;
+    }
+
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws IOException {
+        s.defaultWriteObject();
+        s.writeInt(size);
+        Object[] ks = keys;
+        for (int e = 0, n = used; e < n; e++) {
+            if (ks[e] != REMOVED) {
+                s.writeObject(ks[e]);
+                s.writeObject(vals[e]);
+            }
+        }
+    }
+
+    private void readObject(java.io.ObjectInputStream s)
+        throws IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        int mappings = s.readInt();
+        if (mappings < 0)
+            throw new InvalidObjectException("Illegal mappings count: " +
+                                             mappings);
+        allocate(capacityFor(mappings));
+        for (int i = 0; i < mappings; i++) {
+            @SuppressWarnings("unchecked")
+                K key = (K) s.readObject();
+            @SuppressWarnings("unchecked")
+                V value = (V) s.readObject();
+            put(key, value);
+        }
+    }
+}
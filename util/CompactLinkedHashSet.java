@@ -0,0 +1,390 @@
+package java.util;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.Serializable;
+import java.util.function.Consumer;
+
+// Insertion-ordered set in the layout of CompactLinkedHashMap, minus the
+// value array: elements and their cached hashes are appended to dense
+// arrays, and a byte[], short[] or int[] index table maps hash slots to
+// entry number + 1. An element costs a hash, a reference and one index
+// slot, where LinkedHashSet pays for a LinkedHashMap.Entry pointing at
+// PRESENT. Removal leaves a REMOVED hole that is squeezed out when the
+// entry arrays fill up.
+public class CompactLinkedHashSet<E> extends AbstractSet<E>
+    implements Set<E>, Cloneable, Serializable {
+
+    private static final long serialVersionUID = -4721587206399638572L;
+
+    static final int MAXIMUM_CAPACITY = 1 << 29;
+
+    static final int DEFAULT_INITIAL_CAPACITY = 8;
+
+    // an element that has been removed
+    static final Object REMOVED = new Object();
+
+    // one of these is non-null: the index table at its narrowest width
+    transient byte[] index8;
+    transient short[] index16;
+    transient int[] index32;
+
+    transient int indexMask;
+
+    transient int[] hashes;
+
+    transient Object[] elems;
+
+    // entries appended so far, live or removed
+    transient int used;
+
+    transient int size;
+
+    transient int modCount;
+
+    public CompactLinkedHashSet(int initialCapacity) {
+        allocate(capacityFor(OpenHashing.checkCapacity(initialCapacity)));
+    }
+
+    public CompactLinkedHashSet() {
+        allocate(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public CompactLinkedHashSet(Collection<? extends E> c) {
+        allocate(capacityFor(c.size()));
+        addAll(c);
+    }
+
+    static int capacityFor(int n) {
+        return (n >= MAXIMUM_CAPACITY) ? MAXIMUM_CAPACITY :
+            Math.max(n, DEFAULT_INITIAL_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        hashes = new int[capacity];
+        elems = new Object[capacity];
+        newIndex(capacity);
+    }
+
+    private void newIndex(int capacity) {
+        int n = OpenHashing.tableSizeFor(capacity + (capacity >>> 1) + 1);
+        index8 = null;
+        index16 = null;
+        index32 = null;
+        if (capacity < 0xFF)
+            index8 = new byte[n];
+        else if (capacity < 0xFFFF)
+            index16 = new short[n];
+        else
+            index32 = new int[n];
+        indexMask = n - 1;
+    }
+
+    static int hash(Object o) {
+        return (o == null) ? 0 : OpenHashing.mix(o.hashCode());
+    }
+
+    final int indexAt(int i) {
+        byte[] b; short[] s;
+        if ((b = index8) != null)
+            return b[i] & 0xFF;
+        if ((s = index16) != null)
+            return s[i] & 0xFFFF;
+        return index32[i];
+    }
+
+    final void setIndex(int i, int e) {
+        byte[] b; short[] s;
+        if ((b = index8) != null)
+            b[i] = (byte)(e + 1);
+        else if ((s = index16) != null)
+            s[i] = (short)(e + 1);
+        else
+            index32[i] = e + 1;
+    }
+
+    // entry holding o, or -1
+    final int findEntry(Object o, int h) {
+        int[] hs = hashes;
+        Object[] es = elems;
+        int mask = indexMask;
+        for (int i = h & mask; ; i = (i + 1) & mask) {
+            int e = indexAt(i) - 1;
+            if (e < 0)
+                return -1;
+            Object x;
+            if (hs[e] == h &&
+                ((x = es[e]) == o || (o != null && o.equals(x))))
+                return e;
+        }
+    }
+
+    final void indexEntry(int e, int h) {
+        int mask = indexMask, i = h & mask;
+        while (indexAt(i) != 0)
+            i = (i + 1) & mask;
+        setIndex(i, e);
+    }
+
+    // appends an element known to be absent
+    final void insertNew(int h, Object o) {
+        if (used == elems.length)
+            compact();
+        int e = used++;
+        hashes[e] = h;
+        elems[e] = o;
+        indexEntry(e, h);
+        ++size;
+        ++modCount;
+    }
+
+    final void removeEntry(int e) {
+        elems[e] = REMOVED;
+        --size;
+        ++modCount;
+    }
+
+    private void clearIndex() {
+        if (index8 != null)
+            Arrays.fill(index8, (byte)0);
+        else if (index16 != null)
+            Arrays.fill(index16, (short)0);
+        else
+            Arrays.fill(index32, 0);
+    }
+
+    // As CompactLinkedHashMap.compact: squeeze out holes in place unless
+    // fewer than half of the entries were removed, else double.
+    final void compact() {
+        int cap = elems.length;
+        int newCap = (size < (cap >>> 1) || cap == MAXIMUM_CAPACITY) ?
+            cap : cap << 1;
+        if (newCap == cap && size == cap)
+            throw new IllegalStateException("Set full");
+        resize(newCap);
+    }
+
+    final void resize(int newCap) {
+        int[] oldHashes = hashes;
+        Object[] oldElems = elems;
+        int n = used;
+        if (newCap != oldElems.length) {
+            hashes = new int[newCap];
+            elems = new Object[newCap];
+            newIndex(newCap);
+        }
+        else
+            clearIndex();
+        int[] hs = hashes;
+        Object[] es = elems;
+        int j = 0;
+        for (int e = 0; e < n; e++) {
+            Object o = oldElems[e];
+            if (o != REMOVED) {
+                hs[j] = oldHashes[e];
+                es[j] = o;
+                indexEntry(j, hs[j]);
+                j++;
+            }
+        }
+        if (es == oldElems)
+            Arrays.fill(es, j, n, null);
+        used = j;
+    }
+
+    /* ------------------------------------------------------------ */
+    // Set operations
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(Object o) {
+        return findEntry(o, hash(o)) >= 0;
+    }
+
+    public boolean add(E e) {
+        int h = hash(e);
+        if (findEntry(e, h) >= 0)
+            return false;
+        insertNew(h, e);
+        return true;
+    }
+
+    // Makes room for all of c up front, so a large batch costs at most one
+    // resize. Elements of another CompactLinkedHashSet are appended in its
+    // order with their cached hashes.
+    public boolean addAll(Collection<? extends E> c) {
+        int s = c.size();
+        if (s == 0)
+            return false;
+        if (s > elems.length - used)
+            resize(capacityFor((int)Math.min(Math.max((long)s + size,
+                                                      elems.length),
+                                             MAXIMUM_CAPACITY)));
+        if (!(c instanceof CompactLinkedHashSet))
+            return super.addAll(c);
+        CompactLinkedHashSet<?> src = (CompactLinkedHashSet<?>)c;
+        Object[] es = src.elems;
+        int[] hs = src.hashes;
+        boolean modified = false;
+        for (int e = 0, n = src.used; e < n; e++) {
+            Object o = es[e];
+            if (o != REMOVED && findEntry(o, hs[e]) < 0) {
+                insertNew(hs[e], o);
+                modified = true;
+            }
+        }
+        return modified;
+    }
+
+    public boolean remove(Object o) {
+        int e = findEntry(o, hash(o));
+        if (e < 0)
+            return false;
+        removeEntry(e);
+        return true;
+    }
+
+    public void clear() {
+        if (used > 0) {
+            ++modCount;
+            Arrays.fill(elems, 0, used, null);
+            size = 0;
+            used = 0;
+            clearIndex();
+        }
+    }
+
+    public void trimToSize() {
+        int cap = capacityFor(size);
+        if (cap < elems.length)
+            resize(cap);
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(Consumer<? super E> action) {
+        if (action == null)
+            throw new NullPointerException();
+        Object[] es = elems;
+        int mc = modCount;
+        for (int e = 0, n = used; e < n && mc == modCount; e++) {
+            Object o = es[e];
+            if (o != REMOVED)
+                action.accept((E)o);
+        }
+        if (mc != modCount)
+            throw new ConcurrentModificationException();
+    }
+
+    public Object[] toArray() {
+        Object[] a = new Object[size];
+        Object[] es = elems;
+        int j = 0;
+        for (int e = 0, n = used; e < n; e++) {
+            if (es[e] != REMOVED)
+                a[j++] = es[e];
+        }
+        return a;
+    }
+
+    public Iterator<E> iterator() {
+        return new Itr();
+    }
+
+    public Spliterator<E> spliterator() {
+        return Spliterators.spliterator(this, Spliterator.SIZED |
+                                        Spliterator.ORDERED |
+                                        Spliterator.DISTINCT);
+    }
+
+    // Entries never move while iterating (removal only leaves a hole), so
+    // the iterator walks the entry arrays skipping holes.
+    final class Itr implements Iterator<E> {
+        int next;              // next entry to look at
+        int current = -1;      // last returned entry
+        int expectedModCount = modCount;
+
+        Itr() {
+            advance();
+        }
+
+        private void advance() {
+            Object[] es = elems;
+            int n = used;
+            while (next < n && es[next] == REMOVED)
+                next++;
+        }
+
+        public boolean hasNext() {
+            return next < used;
+        }
+
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (next >= used)
+                throw new NoSuchElementException();
+            current = next++;
+            advance();
+            return (E)elems[current];
+        }
+
+        public void remove() {
+            if (current < 0)
+                throw new IllegalStateException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            removeEntry(current);
+            current = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public CompactLinkedHashSet<E> clone() {
+        CompactLinkedHashSet<E> result;
+        try {
+            result = (CompactLinkedHashSet<E>)super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+        result.hashes = hashes.clone();
+        result.elems = elems.clone();
+        result.index8 = (index8 == null) ? null : index8.clone();
+        result.index16 = (index16 == null) ? null : index16.clone();
+        result.index32 = (index32 == null) ? null : index32.clone();
+        result.modCount = 0;
+        return result;
+    }
+
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws IOException {
+        s.defaultWriteObject();
+        s.writeInt(size);
+        Object[] es = elems;
+        for (int e = 0, n = used; e < n; e++) {
+            if (es[e] != REMOVED)
+                s.writeObject(es[e]);
+        }
+    }
+
+    private void readObject(java.io.ObjectInputStream s)
+        throws IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        int count = s.readInt();
+        if (count < 0)
+            throw new InvalidObjectException("Illegal size: " + count);
+        allocate(capacityFor(count));
+        for (int i = 0; i < count; i++) {
+            @SuppressWarnings("unchecked")
+                E e = (E) s.readObject();
+            add(e);
+        }
+    }
+}
@@ -4,7 +4,7 @@ package java.util;
 class ComparableTimSort {
     private static final int MIN_MERGE = 32;
 
-    private final Object[] a;
+    private Object[] a;
 
     private static final int  MIN_GALLOP = 7;
 
@@ -15,6 +15,11 @@ class ComparableTimSort {
     private Object[] tmp;
     private int tmpBase; // base of tmp array slice
     private int tmpLen;  // length of tmp array slice
+    private int tmpUsed; // high-water mark of tmp, for release
+
+    // set when owned by a SortContext: tmp is then an Object[] whatever
+    // the type of the arrays sorted
+    private final boolean reusable;
 
     private int stackSize = 0;  // Number of pending runs on stack
     private final int[] runBase;
@@ -22,6 +27,7 @@ class ComparableTimSort {
 
     private ComparableTimSort(Object[] a, Object[] work, int workBase, int workLen) {
         this.a = a;
+        this.reusable = false;
 
         int len = a.length;
         int tlen = (len < 2 * INITIAL_TMP_STORAGE_LENGTH) ?
@@ -44,6 +50,16 @@ class ComparableTimSort {
         runLen = new int[stackLen];
     }
 
+    // The instance kept by a SortContext, with a run stack deep enough for
+    // any array length.
+    private ComparableTimSort() {
+        this.reusable = true;
+        tmp = new Object[INITIAL_TMP_STORAGE_LENGTH];
+        tmpLen = INITIAL_TMP_STORAGE_LENGTH;
+        runBase = new int[40];
+        runLen = new int[40];
+    }
+
 
     static void sort(Object[] a, int lo, int hi, Object[] work, int workBase, int workLen) {
         assert a != null && lo >= 0 && lo <= hi && hi <= a.length;
@@ -59,6 +75,47 @@ class ComparableTimSort {
         }
 
         ComparableTimSort ts = new ComparableTimSort(a, work, workBase, workLen);
+        ts.sortRuns(lo, hi);
+    }
+
+    // As sort above, with the merge buffer and run stack kept in ctx. A
+    // context still busy with an enclosing sort, as when a comparator sorts
+    // with it, is left alone and this sort allocates its own.
+    static void sort(Object[] a, int lo, int hi, SortContext ctx) {
+        assert a != null && lo >= 0 && lo <= hi && hi <= a.length;
+
+        int nRemaining  = hi - lo;
+        if (nRemaining < 2)
+            return;
+
+        if (nRemaining < MIN_MERGE) {
+            int initRunLen = countRunAndMakeAscending(a, lo, hi);
+            binarySort(a, lo, hi, lo + initRunLen);
+            return;
+        }
+
+        if (ctx.inUse) {
+            sort(a, lo, hi, null, 0, 0);
+            return;
+        }
+        ComparableTimSort ts = ctx.comparableTimSort;
+        if (ts == null)
+            ctx.comparableTimSort = ts = new ComparableTimSort();
+        ctx.inUse = true;
+        ts.a = a;
+        ts.minGallop = MIN_GALLOP;
+        try {
+            ts.sortRuns(lo, hi);
+        } finally {
+            ts.release(ctx.maxRetainedLength);
+            ctx.inUse = false;
+        }
+    }
+
+    private void sortRuns(int lo, int hi) {
+        Object[] a = this.a;
+        int nRemaining = hi - lo;
+        stackSize = 0;
         int minRun = minRunLength(nRemaining);
         do {
             int runLen = countRunAndMakeAscending(a, lo, hi);
@@ -69,16 +126,30 @@ class ComparableTimSort {
                 runLen = force;
             }
 
-            ts.pushRun(lo, runLen);
-            ts.mergeCollapse();
+            pushRun(lo, runLen);
+            mergeCollapse();
 
             lo += runLen;
             nRemaining -= runLen;
         } while (nRemaining != 0);
 
         assert lo == hi;
-        ts.mergeForceCollapse();
-        assert ts.stackSize == 1;
+        mergeForceCollapse();
+        assert stackSize == 1;
+    }
+
+    // Drops what a reused instance would otherwise keep reachable: the
+    // array, and the elements left in the merge buffer. A
+    // buffer grown past maxRetainedLength is not kept at all.
+    private void release(int maxRetainedLength) {
+        a = null;
+        if (tmpLen > maxRetainedLength) {
+            tmp = new Object[INITIAL_TMP_STORAGE_LENGTH];
+            tmpLen = INITIAL_TMP_STORAGE_LENGTH;
+        } else {
+            Arrays.fill(tmp, 0, tmpUsed, null);
+        }
+        tmpUsed = 0;
     }
 
     @SuppressWarnings({"fallthrough", "rawtypes", "unchecked"})
@@ -513,6 +584,8 @@ class ComparableTimSort {
     }
 
     private Object[]  ensureCapacity(int minCapacity) {
+        if (minCapacity > tmpUsed)
+            tmpUsed = minCapacity;
         if (tmpLen < minCapacity) {
             int newSize = minCapacity;
             newSize |= newSize >> 1;
@@ -0,0 +1,551 @@
+
+package java.util;
+
+import java.util.function.DoubleConsumer;
+import java.util.function.DoublePredicate;
+import java.util.function.DoubleUnaryOperator;
+import java.util.stream.DoubleStream;
+import java.util.stream.StreamSupport;
+
+public class DoubleArrayList implements RandomAccess, Cloneable, java.io.Serializable {
+
+    private static final long serialVersionUID = -892534416729038455L;
+
+    private static final int DEFAULT_CAPACITY = 10;
+
+    private static final double[] EMPTY_ELEMENTDATA = {};
+
+    private static final double[] DEFAULTCAPACITY_EMPTY_ELEMENTDATA = {};
+
+    transient double[] elementData;
+
+    private int size;
+
+    protected transient int modCount = 0;
+
+    public DoubleArrayList(int initialCapacity) {
+        if (initialCapacity > 0) {
+            this.elementData = new double[initialCapacity];
+        } else if (initialCapacity == 0) {
+            this.elementData = EMPTY_ELEMENTDATA;
+        } else {
+            throw new IllegalArgumentException("Illegal Capacity: "+
+                                               initialCapacity);
+        }
+    }
+
+    public DoubleArrayList() {
+        this.elementData = DEFAULTCAPACITY_EMPTY_ELEMENTDATA;
+    }
+
+    public DoubleArrayList(double[] a) {
+        this(a, 0, a.length);
+    }
+
+    public DoubleArrayList(double[] a, int off, int len) {
+        rangeCheckForArray(a.length, off, len);
+        elementData = (len == 0) ? EMPTY_ELEMENTDATA
+                                 : Arrays.copyOfRange(a, off, off + len);
+        size = len;
+    }
+
+    public void trimToSize() {
+        modCount++;
+        if (size < elementData.length) {
+            elementData = (size == 0)
+              ? EMPTY_ELEMENTDATA
+              : Arrays.copyOf(elementData, size);
+        }
+    }
+
+    public void ensureCapacity(int minCapacity) {
+        int minExpand = (elementData != DEFAULTCAPACITY_EMPTY_ELEMENTDATA)
+            ? 0
+            : DEFAULT_CAPACITY;
+
+        if (minCapacity > minExpand) {
+            ensureExplicitCapacity(minCapacity);
+        }
+    }
+
+    private void ensureCapacityInternal(int minCapacity) {
+        if (elementData == DEFAULTCAPACITY_EMPTY_ELEMENTDATA) {
+            minCapacity = Math.max(DEFAULT_CAPACITY, minCapacity);
+        }
+        ensureExplicitCapacity(minCapacity);
+    }
+
+    private void ensureExplicitCapacity(int minCapacity) {
+        modCount++;
+        if (minCapacity - elementData.length > 0)
+            grow(minCapacity);
+    }
+
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private void grow(int minCapacity) {
+        int oldCapacity = elementData.length;
+        int newCapacity = oldCapacity + (oldCapacity >> 1);
+        if (newCapacity - minCapacity < 0)
+            newCapacity = minCapacity;
+        if (newCapacity - MAX_ARRAY_SIZE > 0)
+            newCapacity = hugeCapacity(minCapacity);
+        elementData = Arrays.copyOf(elementData, newCapacity);
+    }
+
+    private static int hugeCapacity(int minCapacity) {
+        if (minCapacity < 0) // overflow
+            throw new OutOfMemoryError();
+        return (minCapacity > MAX_ARRAY_SIZE) ?
+            Integer.MAX_VALUE :
+            MAX_ARRAY_SIZE;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(double e) {
+        return indexOf(e) >= 0;
+    }
+
+    // element comparison follows Double.equals
+    public int indexOf(double e) {
+        long bits = Double.doubleToLongBits(e);
+        double[] a = elementData;
+        for (int i = 0; i < size; i++)
+            if (Double.doubleToLongBits(a[i]) == bits)
+                return i;
+        return -1;
+    }
+
+    public int lastIndexOf(double e) {
+        long bits = Double.doubleToLongBits(e);
+        double[] a = elementData;
+        for (int i = size-1; i >= 0; i--)
+            if (Double.doubleToLongBits(a[i]) == bits)
+                return i;
+        return -1;
+    }
+
+    public DoubleArrayList clone() {
+        try {
+            DoubleArrayList v = (DoubleArrayList) super.clone();
+            v.elementData = Arrays.copyOf(elementData, size);
+            v.modCount = 0;
+            return v;
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+    }
+
+    public double[] toArray() {
+        return Arrays.copyOf(elementData, size);
+    }
+
+    public double[] toArray(double[] a) {
+        if (a.length < size)
+            return Arrays.copyOf(elementData, size);
+        System.arraycopy(elementData, 0, a, 0, size);
+        return a;
+    }
+
+    public double get(int index) {
+        rangeCheck(index);
+        return elementData[index];
+    }
+
+    public double set(int index, double element) {
+        rangeCheck(index);
+        double oldValue = elementData[index];
+        elementData[index] = element;
+        return oldValue;
+    }
+
+    public boolean add(double e) {
+        ensureCapacityInternal(size + 1);
+        elementData[size++] = e;
+        return true;
+    }
+
+    public void add(int index, double element) {
+        rangeCheckForAdd(index);
+        ensureCapacityInternal(size + 1);
+        System.arraycopy(elementData, index, elementData, index + 1,
+                         size - index);
+        elementData[index] = element;
+        size++;
+    }
+
+    public boolean addAll(double[] a) {
+        return addAll(a, 0, a.length);
+    }
+
+    public boolean addAll(double[] a, int off, int len) {
+        rangeCheckForArray(a.length, off, len);
+        ensureCapacityInternal(size + len);
+        System.arraycopy(a, off, elementData, size, len);
+        size += len;
+        return len != 0;
+    }
+
+    public boolean addAll(int index, double[] a, int off, int len) {
+        rangeCheckForAdd(index);
+        rangeCheckForArray(a.length, off, len);
+        ensureCapacityInternal(size + len);
+        int numMoved = size - index;
+        if (numMoved > 0)
+            System.arraycopy(elementData, index, elementData, index + len,
+                             numMoved);
+        System.arraycopy(a, off, elementData, index, len);
+        size += len;
+        return len != 0;
+    }
+
+    public boolean addAll(DoubleArrayList c) {
+        return addAll(c.elementData, 0, c.size);
+    }
+
+    public double removeAt(int index) {
+        rangeCheck(index);
+        modCount++;
+        double oldValue = elementData[index];
+        int numMoved = size - index - 1;
+        if (numMoved > 0)
+            System.arraycopy(elementData, index+1, elementData, index,
+                             numMoved);
+        --size;
+        return oldValue;
+    }
+
+    public boolean removeValue(double e) {
+        int index = indexOf(e);
+        if (index < 0)
+            return false;
+        removeAt(index);
+        return true;
+    }
+
+    public void removeRange(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex)
+            throw new IndexOutOfBoundsException(outOfBoundsMsg(fromIndex, toIndex));
+        modCount++;
+        System.arraycopy(elementData, toIndex, elementData, fromIndex,
+                         size - toIndex);
+        size -= toIndex - fromIndex;
+    }
+
+    public void clear() {
+        modCount++;
+        size = 0;
+    }
+
+    public boolean removeIf(DoublePredicate filter) {
+        Objects.requireNonNull(filter);
+        int removeCount = 0;
+        final BitSet removeSet = new BitSet(size);
+        final int expectedModCount = modCount;
+        final int size = this.size;
+        final double[] a = elementData;
+        for (int i=0; modCount == expectedModCount && i < size; i++) {
+            if (filter.test(a[i])) {
+                removeSet.set(i);
+                removeCount++;
+            }
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+
+        final boolean anyToRemove = removeCount > 0;
+        if (anyToRemove) {
+            final int newSize = size - removeCount;
+            for (int i=0, j=0; (i < size) && (j < newSize); i++, j++) {
+                i = removeSet.nextClearBit(i);
+                a[j] = a[i];
+            }
+            this.size = newSize;
+            modCount++;
+        }
+        return anyToRemove;
+    }
+
+    public void replaceAll(DoubleUnaryOperator operator) {
+        Objects.requireNonNull(operator);
+        final int expectedModCount = modCount;
+        final int size = this.size;
+        final double[] a = elementData;
+        for (int i=0; modCount == expectedModCount && i < size; i++) {
+            a[i] = operator.applyAsDouble(a[i]);
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        modCount++;
+    }
+
+    public void forEach(DoubleConsumer action) {
+        Objects.requireNonNull(action);
+        final int expectedModCount = modCount;
+        final double[] a = elementData;
+        final int size = this.size;
+        for (int i=0; modCount == expectedModCount && i < size; i++) {
+            action.accept(a[i]);
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    public void sort() {
+        final int expectedModCount = modCount;
+        DualPivotQuicksort.sort(elementData, 0, size - 1, null, 0, 0);
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        modCount++;
+    }
+
+    public void parallelSort() {
+        final int expectedModCount = modCount;
+        Arrays.parallelSort(elementData, 0, size);
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        modCount++;
+    }
+
+    // list must be sorted; same contract as Arrays.binarySearch
+    public int binarySearch(double key) {
+        return Arrays.binarySearch(elementData, 0, size, key);
+    }
+
+    public PrimitiveIterator.OfDouble iterator() {
+        return new Itr();
+    }
+
+    private class Itr implements PrimitiveIterator.OfDouble {
+        int cursor;       // index of next element to return
+        int lastRet = -1; // index of last element returned; -1 if no such
+        int expectedModCount = modCount;
+
+        public boolean hasNext() {
+            return cursor != size;
+        }
+
+        public double nextDouble() {
+            checkForComodification();
+            int i = cursor;
+            if (i >= size)
+                throw new NoSuchElementException();
+            double[] a = DoubleArrayList.this.elementData;
+            if (i >= a.length)
+                throw new ConcurrentModificationException();
+            cursor = i + 1;
+            return a[lastRet = i];
+        }
+
+        public void remove() {
+            if (lastRet < 0)
+                throw new IllegalStateException();
+            checkForComodification();
+
+            DoubleArrayList.this.removeAt(lastRet);
+            cursor = lastRet;
+            lastRet = -1;
+            expectedModCount = modCount;
+        }
+
+        final void checkForComodification() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+        }
+    }
+
+    public Spliterator.OfDouble spliterator() {
+        return new DoubleArrayListSpliterator(this, 0, -1, 0);
+    }
+
+    public DoubleStream stream() {
+        return StreamSupport.doubleStream(spliterator(), false);
+    }
+
+    public DoubleStream parallelStream() {
+        return StreamSupport.doubleStream(spliterator(), true);
+    }
+
+    static final class DoubleArrayListSpliterator implements Spliterator.OfDouble {
+        private final DoubleArrayList list;
+        private int index; // current index, modified on advance/split
+        private int fence; // -1 until used; then one past last index
+        private int expectedModCount; // initialized when fence set
+
+        DoubleArrayListSpliterator(DoubleArrayList list, int origin, int fence,
+                                int expectedModCount) {
+            this.list = list;
+            this.index = origin;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        private int getFence() { // initialize fence to size on first use
+            int hi;
+            if ((hi = fence) < 0) {
+                expectedModCount = list.modCount;
+                hi = fence = list.size;
+            }
+            return hi;
+        }
+
+        public DoubleArrayListSpliterator trySplit() {
+            int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
+            return (lo >= mid) ? null : // divide range in half unless too small
+                new DoubleArrayListSpliterator(list, lo, index = mid,
+                                            expectedModCount);
+        }
+
+        public boolean tryAdvance(DoubleConsumer action) {
+            if (action == null)
+                throw new NullPointerException();
+            int hi = getFence(), i = index;
+            if (i < hi) {
+                index = i + 1;
+                action.accept(list.elementData[i]);
+                if (list.modCount != expectedModCount)
+                    throw new ConcurrentModificationException();
+                return true;
+            }
+            return false;
+        }
+
+        public void forEachRemaining(DoubleConsumer action) {
+            int i, hi, mc; // hoist accesses and checks from loop
+            DoubleArrayList lst = list; double[] a;
+            if (action == null)
+                throw new NullPointerException();
+            if ((a = lst.elementData) != null) {
+                if ((hi = fence) < 0) {
+                    mc = lst.modCount;
+                    hi = lst.size;
+                }
+                else
+                    mc = expectedModCount;
+                if ((i = index) >= 0 && (index = hi) <= a.length) {
+                    for (; i < hi; ++i)
+                        action.accept(a[i]);
+                    if (lst.modCount == mc)
+                        return;
+                }
+            }
+            throw new ConcurrentModificationException();
+        }
+
+        public long estimateSize() {
+            return (long) (getFence() - index);
+        }
+
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+    }
+
+    public boolean equals(Object o) {
+        if (o == this)
+            return true;
+        if (!(o instanceof DoubleArrayList))
+            return false;
+        DoubleArrayList other = (DoubleArrayList) o;
+        if (other.size != size)
+            return false;
+        double[] a = elementData, b = other.elementData;
+        for (int i = 0; i < size; i++)
+            if (Double.doubleToLongBits(a[i]) != Double.doubleToLongBits(b[i]))
+                return false;
+        return true;
+    }
+
+    // same value as the hashCode of the equivalent List<Double>
+    public int hashCode() {
+        int hashCode = 1;
+        double[] a = elementData;
+        for (int i = 0; i < size; i++)
+            hashCode = 31*hashCode + Double.hashCode(a[i]);
+        return hashCode;
+    }
+
+    public String toString() {
+        if (size == 0)
+            return "[]";
+        StringBuilder sb = new StringBuilder();
+        sb.append('[');
+        double[] a = elementData;
+        for (int i = 0; ; i++) {
+            sb.append(a[i]);
+            if (i == size - 1)
+                return sb.append(']').toString();
+            sb.append(',').append(' ');
+        }
+    }
+
+    private void rangeCheck(int index) {
+        if (index >= size)
+            throw new IndexOutOfBoundsException(outOfBoundsMsg(index));
+    }
+
+    private void rangeCheckForAdd(int index) {
+        if (index > size || index < 0)
+            throw new IndexOutOfBoundsException(outOfBoundsMsg(index));
+    }
+
+    private static void rangeCheckForArray(int arrayLength, int off, int len) {
+        if (off < 0 || len < 0 || len > arrayLength - off)
+            throw new ArrayIndexOutOfBoundsException(
+                "off: " + off + ", len: " + len + ", length: " + arrayLength);
+    }
+
+    private String outOfBoundsMsg(int index) {
+        return "Index: "+index+", Size: "+size;
+    }
+
+    private String outOfBoundsMsg(int fromIndex, int toIndex) {
+        return "From Index: "+fromIndex+", To Index: "+toIndex+", Size: "+size;
+    }
+
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws java.io.IOException{
+        int expectedModCount = modCount;
+        s.defaultWriteObject();
+
+        s.writeInt(size);
+
+        for (int i=0; i<size; i++) {
+            s.writeDouble(elementData[i]);
+        }
+
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    private void readObject(java.io.ObjectInputStream s)
+        throws java.io.IOException, ClassNotFoundException {
+        elementData = EMPTY_ELEMENTDATA;
+
+        s.defaultReadObject();
+
+        s.readInt(); // ignored
+
+        if (size > 0) {
+            ensureCapacityInternal(size);
+
+            double[] a = elementData;
+            for (int i=0; i<size; i++) {
+                a[i] = s.readDouble();
+            }
+        }
+    }
+}
@@ -18,6 +18,16 @@ final class DualPivotQuicksort {
 
     private static final int COUNTING_SORT_THRESHOLD_FOR_SHORT_OR_CHAR = 3200;
 
+    // int, long, float and double arrays at least this long that show no
+    // runs worth merging are radix sorted rather than quicksorted
+    private static final int RADIX_SORT_THRESHOLD = 1 << 16;
+
+    private static final int RADIX_BITS = 8;
+
+    private static final int RADIX = 1 << RADIX_BITS;
+
+    private static final int RADIX_MASK = RADIX - 1;
+
 
     static void sort(int[] a, int left, int right,
                      int[] work, int workBase, int workLen) {
@@ -47,7 +57,11 @@ final class DualPivotQuicksort {
             }
 
             if (++count == MAX_RUN_COUNT) {
-                sort(a, left, right, true);
+                if (right - left < RADIX_SORT_THRESHOLD) {
+                    sort(a, left, right, true);
+                } else {
+                    radixSort(a, left, right, work, workBase, workLen);
+                }
                 return;
             }
         }
@@ -103,7 +117,7 @@ final class DualPivotQuicksort {
         }
     }
 
-    private static void sort(int[] a, int left, int right, boolean leftmost) {
+    static void sort(int[] a, int left, int right, boolean leftmost) {
         int length = right - left + 1;
 
         if (length < INSERTION_SORT_THRESHOLD) {
@@ -319,7 +333,11 @@ final class DualPivotQuicksort {
             }
 
             if (++count == MAX_RUN_COUNT) {
-                sort(a, left, right, true);
+                if (right - left < RADIX_SORT_THRESHOLD) {
+                    sort(a, left, right, true);
+                } else {
+                    radixSort(a, left, right, work, workBase, workLen);
+                }
                 return;
             }
         }
@@ -375,7 +393,7 @@ final class DualPivotQuicksort {
         }
     }
 
-    private static void sort(long[] a, int left, int right, boolean leftmost) {
+    static void sort(long[] a, int left, int right, boolean leftmost) {
         int length = right - left + 1;
 
         if (length < INSERTION_SORT_THRESHOLD) {
@@ -1260,7 +1278,11 @@ final class DualPivotQuicksort {
             }
 
             if (++count == MAX_RUN_COUNT) {
-                sort(a, left, right, true);
+                if (right - left < RADIX_SORT_THRESHOLD) {
+                    sort(a, left, right, true);
+                } else {
+                    radixSort(a, left, right, work, workBase, workLen);
+                }
                 return;
             }
         }
@@ -1316,7 +1338,7 @@ final class DualPivotQuicksort {
         }
     }
 
-    private static void sort(float[] a, int left, int right, boolean leftmost) {
+    static void sort(float[] a, int left, int right, boolean leftmost) {
         int length = right - left + 1;
 
         if (length < INSERTION_SORT_THRESHOLD) {
@@ -1577,7 +1599,11 @@ final class DualPivotQuicksort {
             }
 
             if (++count == MAX_RUN_COUNT) {
-                sort(a, left, right, true);
+                if (right - left < RADIX_SORT_THRESHOLD) {
+                    sort(a, left, right, true);
+                } else {
+                    radixSort(a, left, right, work, workBase, workLen);
+                }
                 return;
             }
         }
@@ -1633,7 +1659,7 @@ final class DualPivotQuicksort {
         }
     }
 
-    private static void sort(double[] a, int left, int right, boolean leftmost) {
+    static void sort(double[] a, int left, int right, boolean leftmost) {
         int length = right - left + 1;
 
         if (length < INSERTION_SORT_THRESHOLD) {
@@ -1820,4 +1846,171 @@ final class DualPivotQuicksort {
             sort(a, great + 1, right, false);
         }
     }
+
+    // LSD radix sort, one byte per pass from the least significant, moving
+    // the elements between a[left..right] and work. All byte histograms
+    // are built in one read of the array; a pass whose byte is the same in
+    // every element is skipped. Signed values have the sign bit of the top
+    // byte flipped so negatives come first; floats and doubles are sorted
+    // by a key that orders their IEEE-754 bits the same way as the values
+    // (NaNs have already been moved out by the caller).
+    private static void radixSort(int[] a, int left, int right,
+                                  int[] work, int workBase, int workLen) {
+        int n = right - left + 1;
+        if (work == null || workLen < n || workBase + n > work.length) {
+            work = new int[n];
+            workBase = 0;
+        }
+        int[] count = new int[4 * RADIX];
+        for (int i = left; i <= right; ++i) {
+            int x = a[i];
+            ++count[x & RADIX_MASK];
+            ++count[RADIX + ((x >>> 8) & RADIX_MASK)];
+            ++count[2 * RADIX + ((x >>> 16) & RADIX_MASK)];
+            ++count[3 * RADIX + ((x >>> 24) ^ 0x80)];
+        }
+        int[] src = a, dst = work;
+        int so = left, dso = workBase;
+        for (int pass = 0; pass < 4; ++pass) {
+            int base = pass * RADIX, shift = pass * RADIX_BITS;
+            int flip = (pass == 3) ? 0x80 : 0;
+            if (count[base + (((src[so] >>> shift) & RADIX_MASK) ^ flip)] == n) {
+                continue;
+            }
+            for (int d = base, sum = 0; d < base + RADIX; ++d) {
+                int c = count[d]; count[d] = sum; sum += c;
+            }
+            for (int i = so, end = so + n; i < end; ++i) {
+                int x = src[i];
+                dst[dso + count[base + (((x >>> shift) & RADIX_MASK) ^ flip)]++] = x;
+            }
+            int[] t = src; src = dst; dst = t;
+            int o = so; so = dso; dso = o;
+        }
+        if (src != a) {
+            System.arraycopy(src, so, a, left, n);
+        }
+    }
+
+    private static void radixSort(long[] a, int left, int right,
+                                  long[] work, int workBase, int workLen) {
+        int n = right - left + 1;
+        if (work == null || workLen < n || workBase + n > work.length) {
+            work = new long[n];
+            workBase = 0;
+        }
+        int[] count = new int[8 * RADIX];
+        for (int i = left; i <= right; ++i) {
+            long x = a[i];
+            for (int pass = 0; pass < 7; ++pass) {
+                ++count[pass * RADIX + (int) ((x >>> (pass * RADIX_BITS)) & RADIX_MASK)];
+            }
+            ++count[7 * RADIX + (int) ((x >>> 56) ^ 0x80)];
+        }
+        long[] src = a, dst = work;
+        int so = left, dso = workBase;
+        for (int pass = 0; pass < 8; ++pass) {
+            int base = pass * RADIX, shift = pass * RADIX_BITS;
+            int flip = (pass == 7) ? 0x80 : 0;
+            if (count[base + ((int) ((src[so] >>> shift) & RADIX_MASK) ^ flip)] == n) {
+                continue;
+            }
+            for (int d = base, sum = 0; d < base + RADIX; ++d) {
+                int c = count[d]; count[d] = sum; sum += c;
+            }
+            for (int i = so, end = so + n; i < end; ++i) {
+                long x = src[i];
+                dst[dso + count[base + ((int) ((x >>> shift) & RADIX_MASK) ^ flip)]++] = x;
+            }
+            long[] t = src; src = dst; dst = t;
+            int o = so; so = dso; dso = o;
+        }
+        if (src != a) {
+            System.arraycopy(src, so, a, left, n);
+        }
+    }
+
+    // -0.0f sorts before 0.0f, as the caller's zero fixup expects
+    private static int radixKey(float f) {
+        int bits = Float.floatToRawIntBits(f);
+        return bits ^ ((bits >> 31) | 0x80000000);
+    }
+
+    private static void radixSort(float[] a, int left, int right,
+                                  float[] work, int workBase, int workLen) {
+        int n = right - left + 1;
+        if (work == null || workLen < n || workBase + n > work.length) {
+            work = new float[n];
+            workBase = 0;
+        }
+        int[] count = new int[4 * RADIX];
+        for (int i = left; i <= right; ++i) {
+            int k = radixKey(a[i]);
+            ++count[k & RADIX_MASK];
+            ++count[RADIX + ((k >>> 8) & RADIX_MASK)];
+            ++count[2 * RADIX + ((k >>> 16) & RADIX_MASK)];
+            ++count[3 * RADIX + (k >>> 24)];
+        }
+        float[] src = a, dst = work;
+        int so = left, dso = workBase;
+        for (int pass = 0; pass < 4; ++pass) {
+            int base = pass * RADIX, shift = pass * RADIX_BITS;
+            if (count[base + ((radixKey(src[so]) >>> shift) & RADIX_MASK)] == n) {
+                continue;
+            }
+            for (int d = base, sum = 0; d < base + RADIX; ++d) {
+                int c = count[d]; count[d] = sum; sum += c;
+            }
+            for (int i = so, end = so + n; i < end; ++i) {
+                float x = src[i];
+                dst[dso + count[base + ((radixKey(x) >>> shift) & RADIX_MASK)]++] = x;
+            }
+            float[] t = src; src = dst; dst = t;
+            int o = so; so = dso; dso = o;
+        }
+        if (src != a) {
+            System.arraycopy(src, so, a, left, n);
+        }
+    }
+
+    private static long radixKey(double d) {
+        long bits = Double.doubleToRawLongBits(d);
+        return bits ^ ((bits >> 63) | Long.MIN_VALUE);
+    }
+
+    private static void radixSort(double[] a, int left, int right,
+                                  double[] work, int workBase, int workLen) {
+        int n = right - left + 1;
+        if (work == null || workLen < n || workBase + n > work.length) {
+            work = new double[n];
+            workBase = 0;
+        }
+        int[] count = new int[8 * RADIX];
+        for (int i = left; i <= right; ++i) {
+            long k = radixKey(a[i]);
+            for (int pass = 0; pass < 8; ++pass) {
+                ++count[pass * RADIX + (int) ((k >>> (pass * RADIX_BITS)) & RADIX_MASK)];
+            }
+        }
+        double[] src = a, dst = work;
+        int so = left, dso = workBase;
+        for (int pass = 0; pass < 8; ++pass) {
+            int base = pass * RADIX, shift = pass * RADIX_BITS;
+            if (count[base + (int) ((radixKey(src[so]) >>> shift) & RADIX_MASK)] == n) {
+                continue;
+            }
+            for (int d = base, sum = 0; d < base + RADIX; ++d) {
+                int c = count[d]; count[d] = sum; sum += c;
+            }
+            for (int i = so, end = so + n; i < end; ++i) {
+                double x = src[i];
+                dst[dso + count[base + (int) ((radixKey(x) >>> shift) & RADIX_MASK)]++] = x;
+            }
+            double[] t = src; src = dst; dst = t;
+            int o = so; so = dso; dso = o;
+        }
+        if (src != a) {
+            System.arraycopy(src, so, a, left, n);
+        }
+    }
 }
@@ -0,0 +1,396 @@
+package java.util;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.function.ObjLongConsumer;
+import sun.misc.SharedSecrets;
+
+// EnumMap with long values. Values live in a long[] indexed by ordinal and a
+// bit mask records which keys are mapped, so updating a counter is a plain
+// array write with no boxing. As in LongLongMap, noEntryValue is what
+// get/put/remove report for an unmapped key and the starting point of
+// addTo.
+public class EnumLongMap<K extends Enum<K>> implements Cloneable, Serializable {
+
+    private static final long serialVersionUID = 6642164934217150312L;
+
+    private final Class<K> keyType;
+
+    private final long noEntryValue;
+
+    private transient K[] keyUniverse;
+
+    private transient long[] vals;
+
+    // bit i set iff keyUniverse[i] is mapped
+    private transient long[] present;
+
+    private transient int size;
+
+    private transient Map<K,Long> mapView;
+
+    public EnumLongMap(Class<K> keyType) {
+        this(keyType, 0);
+    }
+
+    public EnumLongMap(Class<K> keyType, long noEntryValue) {
+        this.keyType = keyType;
+        this.noEntryValue = noEntryValue;
+        keyUniverse = getKeyUniverse(keyType);
+        vals = new long[keyUniverse.length];
+        present = new long[(keyUniverse.length + 63) >>> 6];
+    }
+
+    public EnumLongMap(EnumLongMap<K> m) {
+        keyType = m.keyType;
+        noEntryValue = m.noEntryValue;
+        keyUniverse = m.keyUniverse;
+        vals = m.vals.clone();
+        present = m.present.clone();
+        size = m.size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long noEntryValue() {
+        return noEntryValue;
+    }
+
+    private boolean isMapped(int i) {
+        return (present[i >>> 6] & (1L << i)) != 0;
+    }
+
+    // ordinal of key, or -1 if it is not a mapped key of this type
+    private int mappedIndex(Object key) {
+        if (!isValidKey(key))
+            return -1;
+        int i = ((Enum<?>)key).ordinal();
+        return isMapped(i) ? i : -1;
+    }
+
+    public boolean containsKey(Object key) {
+        return mappedIndex(key) >= 0;
+    }
+
+    public boolean containsValue(long value) {
+        long[] val = vals;
+        for (int i = 0; i < val.length; i++)
+            if (val[i] == value && isMapped(i))
+                return true;
+        return false;
+    }
+
+    public long get(Object key) {
+        int i = mappedIndex(key);
+        return (i < 0) ? noEntryValue : vals[i];
+    }
+
+    public long getOrDefault(Object key, long defaultValue) {
+        int i = mappedIndex(key);
+        return (i < 0) ? defaultValue : vals[i];
+    }
+
+    // marks ordinal i mapped, returning false if it already was
+    private boolean mark(int i) {
+        long bit = 1L << i;
+        long w = present[i >>> 6];
+        if ((w & bit) != 0)
+            return false;
+        present[i >>> 6] = w | bit;
+        size++;
+        return true;
+    }
+
+    public long put(K key, long value) {
+        typeCheck(key);
+        int i = key.ordinal();
+        long oldValue = mark(i) ? noEntryValue : vals[i];
+        vals[i] = value;
+        return oldValue;
+    }
+
+    public long putIfAbsent(K key, long value) {
+        typeCheck(key);
+        int i = key.ordinal();
+        if (!mark(i))
+            return vals[i];
+        vals[i] = value;
+        return noEntryValue;
+    }
+
+    // adds incr to the value for key (starting from noEntryValue when
+    // absent) and returns the previous value
+    public long addTo(K key, long incr) {
+        typeCheck(key);
+        int i = key.ordinal();
+        long oldValue = mark(i) ? noEntryValue : vals[i];
+        vals[i] = oldValue + incr;
+        return oldValue;
+    }
+
+    public long increment(K key) {
+        return addTo(key, 1);
+    }
+
+    public long remove(Object key) {
+        int i = mappedIndex(key);
+        if (i < 0)
+            return noEntryValue;
+        present[i >>> 6] &= ~(1L << i);
+        size--;
+        long oldValue = vals[i];
+        vals[i] = 0;
+        return oldValue;
+    }
+
+    public void putAll(EnumLongMap<K> m) {
+        if (m.keyType != keyType) {
+            if (m.isEmpty())
+                return;
+            throw new ClassCastException(m.keyType + " != " + keyType);
+        }
+        long[] val = m.vals;
+        for (int i = 0; i < val.length; i++) {
+            if (m.isMapped(i)) {
+                mark(i);
+                vals[i] = val[i];
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(vals, 0);
+        Arrays.fill(present, 0L);
+        size = 0;
+    }
+
+    public void forEach(ObjLongConsumer<? super K> action) {
+        if (action == null)
+            throw new NullPointerException();
+        long[] words = present;
+        for (int w = 0; w < words.length; w++) {
+            for (long bits = words[w]; bits != 0; bits &= bits - 1) {
+                int i = (w << 6) + Long.numberOfTrailingZeros(bits);
+                action.accept(keyUniverse[i], vals[i]);
+            }
+        }
+    }
+
+    // Live Map view; put and remove write through to this map.
+    public Map<K,Long> asMap() {
+        Map<K,Long> mv;
+        return (mv = mapView) == null ? (mapView = new MapView()) : mv;
+    }
+
+    final class MapView extends AbstractMap<K,Long> {
+        public int size() {
+            return size;
+        }
+        public boolean containsKey(Object key) {
+            return EnumLongMap.this.containsKey(key);
+        }
+        public Long get(Object key) {
+            int i = mappedIndex(key);
+            return (i < 0) ? null : vals[i];
+        }
+        public Long put(K key, Long value) {
+            Long old = get(key);
+            EnumLongMap.this.put(key, value);
+            return old;
+        }
+        public Long remove(Object key) {
+            Long old = get(key);
+            if (old != null)
+                EnumLongMap.this.remove(key);
+            return old;
+        }
+        public void clear() {
+            EnumLongMap.this.clear();
+        }
+        public Set<Map.Entry<K,Long>> entrySet() {
+            return new AbstractSet<Map.Entry<K,Long>>() {
+                public Iterator<Map.Entry<K,Long>> iterator() {
+                    return new EntryIterator();
+                }
+                public int size() {
+                    return size;
+                }
+            };
+        }
+    }
+
+    final class EntryIterator implements Iterator<Map.Entry<K,Long>> {
+        int next = nextMapped(0);
+        int lastReturned = -1;
+
+        private int nextMapped(int from) {
+            long[] words = present;
+            int w = from >>> 6;
+            if (w >= words.length)
+                return -1;
+            long bits = words[w] & (-1L << from);
+            for (;;) {
+                if (bits != 0)
+                    return (w << 6) + Long.numberOfTrailingZeros(bits);
+                if (++w == words.length)
+                    return -1;
+                bits = words[w];
+            }
+        }
+
+        public boolean hasNext() {
+            return next >= 0;
+        }
+
+        public Map.Entry<K,Long> next() {
+            int i = next;
+            if (i < 0)
+                throw new NoSuchElementException();
+            next = nextMapped(i + 1);
+            lastReturned = i;
+            return new Entry(i);
+        }
+
+        public void remove() {
+            if (lastReturned < 0)
+                throw new IllegalStateException();
+            if (isMapped(lastReturned))
+                EnumLongMap.this.remove(keyUniverse[lastReturned]);
+            lastReturned = -1;
+        }
+    }
+
+    final class Entry implements Map.Entry<K,Long> {
+        private final int index;
+
+        Entry(int index) {
+            this.index = index;
+        }
+
+        public K getKey() {
+            return keyUniverse[index];
+        }
+
+        public Long getValue() {
+            if (!isMapped(index))
+                throw new IllegalStateException("Entry was removed");
+            return vals[index];
+        }
+
+        public Long setValue(Long value) {
+            long v = value; // unbox before touching the map
+            Long old = getValue();
+            vals[index] = v;
+            return old;
+        }
+
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>)o;
+            return getKey() == e.getKey() && getValue().equals(e.getValue());
+        }
+
+        public int hashCode() {
+            return getKey().hashCode() ^ Long.hashCode(vals[index]);
+        }
+
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+
+    public boolean equals(Object o) {
+        if (o == this)
+            return true;
+        if (!(o instanceof EnumLongMap))
+            return false;
+        EnumLongMap<?> m = (EnumLongMap<?>)o;
+        if (m.keyType != keyType)
+            return size == 0 && m.size == 0;
+        if (m.size != size || !Arrays.equals(m.present, present))
+            return false;
+        for (int i = 0; i < vals.length; i++)
+            if (vals[i] != m.vals[i])
+                return false; // unmapped slots are always 0
+        return true;
+    }
+
+    // same value as asMap().hashCode()
+    public int hashCode() {
+        int h = 0;
+        for (int i = 0; i < vals.length; i++)
+            if (isMapped(i))
+                h += keyUniverse[i].hashCode() ^ Long.hashCode(vals[i]);
+        return h;
+    }
+
+    public String toString() {
+        return asMap().toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    public EnumLongMap<K> clone() {
+        EnumLongMap<K> result;
+        try {
+            result = (EnumLongMap<K>) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+        result.vals = vals.clone();
+        result.present = present.clone();
+        result.mapView = null;
+        return result;
+    }
+
+    private boolean isValidKey(Object key) {
+        if (key == null)
+            return false;
+
+        Class<?> keyClass = key.getClass();
+        return keyClass == keyType || keyClass.getSuperclass() == keyType;
+    }
+
+    private void typeCheck(K key) {
+        Class<?> keyClass = key.getClass();
+        if (keyClass != keyType && keyClass.getSuperclass() != keyType)
+            throw new ClassCastException(keyClass + " != " + keyType);
+    }
+
+    private static <K extends Enum<K>> K[] getKeyUniverse(Class<K> keyType) {
+        return SharedSecrets.getJavaLangAccess()
+                                        .getEnumConstantsShared(keyType);
+    }
+
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws IOException {
+        s.defaultWriteObject();
+        s.writeInt(size);
+        for (int i = 0; i < vals.length; i++) {
+            if (isMapped(i)) {
+                s.writeObject(keyUniverse[i]);
+                s.writeLong(vals[i]);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(java.io.ObjectInputStream s)
+        throws IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        keyUniverse = getKeyUniverse(keyType);
+        vals = new long[keyUniverse.length];
+        present = new long[(keyUniverse.length + 63) >>> 6];
+        int size = s.readInt();
+        for (int i = 0; i < size; i++) {
+            K key = (K) s.readObject();
+            put(key, s.readLong());
+        }
+    }
+}
@@ -0,0 +1,470 @@
+package java.util;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+// A LinkedHashMap whose entries expire a fixed time after they were last
+// written, or, in expire-after-access mode, last read or written. The TTL
+// is a map-wide default that put(key, value, ttl, unit) can override per
+// entry.
+//
+// Each entry has a Timer recording its deadline, so a lookup checks expiry
+// in O(1) and treats an expired entry as absent, removing it. Entries with
+// the same TTL expire in the order they were last renewed, so the timers
+// are kept in one FIFO queue per distinct TTL: a write or renewal moves
+// the timer to the tail of its queue in O(1), and the head of each queue
+// is its earliest deadline. Every insertion removes a few expired entries
+// from the queue heads, so memory held by stale entries is reclaimed
+// without scanning the map; that costs a look at each queue, and maps
+// normally use a handful of TTLs. scheduleSweep adds a periodic background
+// sweep for maps that are rarely written. Iteration is in insertion order.
+//
+// size(), iteration, equals and hashCode may still see expired entries that
+// have not been swept yet; call expungeExpired() first for an exact view.
+// Serialization keeps the mappings but restarts their clocks with the
+// default TTL.
+public class ExpiringMap<K,V> extends LinkedHashMap<K,V> {
+
+    private static final long serialVersionUID = 2716398815349217032L;
+
+    // TTL of entries that never expire
+    static final long NEVER = Long.MAX_VALUE;
+
+    // expired head entries removed per insertion; more than one so the
+    // backlog shrinks while the map is being written
+    static final int SWEEP_LIMIT = 4;
+
+    // The place of an entry in its queue. It outlives the node when a bin
+    // is treeified or untreeified, the replacement taking it over.
+    static final class Timer<K,V> {
+        LinkedHashMap.Entry<K,V> node;
+        TtlQueue<K,V> queue;
+        long deadline;
+        Timer<K,V> prev, next;
+        Timer(LinkedHashMap.Entry<K,V> node) {
+            this.node = node;
+        }
+    }
+
+    static final class TtlQueue<K,V> {
+        final long ttl;
+        Timer<K,V> head, tail;
+        TtlQueue(long ttl) {
+            this.ttl = ttl;
+        }
+    }
+
+    static final class TimedEntry<K,V> extends LinkedHashMap.Entry<K,V> {
+        Timer<K,V> timer;
+        TimedEntry(int hash, K key, V value, Node<K,V> next) {
+            super(hash, key, value, next);
+        }
+    }
+
+    static final class TimedTreeNode<K,V> extends HashMap.TreeNode<K,V> {
+        Timer<K,V> timer;
+        TimedTreeNode(int hash, K key, V value, Node<K,V> next) {
+            super(hash, key, value, next);
+        }
+    }
+
+    final long defaultTtl;
+
+    final boolean expireAfterAccess;
+
+    // queue of the default TTL, and of any others by TTL; created lazily
+    private transient TtlQueue<K,V> defaultQueue;
+    private transient HashMap<Long,TtlQueue<K,V>> queues;
+
+    // TTL for the node created by the put in progress, 0 for the default
+    private transient long pendingTtl;
+
+    public ExpiringMap() {
+        super();
+        defaultTtl = NEVER;
+        expireAfterAccess = false;
+    }
+
+    public ExpiringMap(long ttl, TimeUnit unit) {
+        this(16, 0.75f, ttl, unit, false);
+    }
+
+    public ExpiringMap(long ttl, TimeUnit unit, boolean expireAfterAccess) {
+        this(16, 0.75f, ttl, unit, expireAfterAccess);
+    }
+
+    public ExpiringMap(int initialCapacity, float loadFactor,
+                       long ttl, TimeUnit unit, boolean expireAfterAccess) {
+        super(initialCapacity, loadFactor);
+        this.defaultTtl = toTtl(ttl, unit);
+        this.expireAfterAccess = expireAfterAccess;
+    }
+
+    private static long toTtl(long ttl, TimeUnit unit) {
+        if (ttl <= 0)
+            throw new IllegalArgumentException("Illegal TTL: " + ttl);
+        return unit.toNanos(ttl); // saturates at NEVER
+    }
+
+
+    @SuppressWarnings("unchecked")
+    static <K,V> Timer<K,V> timerOf(Node<K,V> e) {
+        return (e instanceof TimedEntry) ? ((TimedEntry<K,V>)e).timer :
+            ((TimedTreeNode<K,V>)e).timer;
+    }
+
+    static long ttlOf(Node<?,?> e) {
+        return timerOf(e).queue.ttl;
+    }
+
+    static boolean isExpired(Node<?,?> e, long now) {
+        Timer<?,?> t = timerOf(e);
+        return t.queue.ttl != NEVER && now - t.deadline >= 0;
+    }
+
+    private TtlQueue<K,V> queueFor(long ttl) {
+        TtlQueue<K,V> q;
+        if (ttl == defaultTtl) {
+            if ((q = defaultQueue) == null)
+                defaultQueue = q = new TtlQueue<K,V>(ttl);
+        } else {
+            if (queues == null)
+                queues = new HashMap<Long,TtlQueue<K,V>>();
+            if ((q = queues.get(ttl)) == null)
+                queues.put(ttl, q = new TtlQueue<K,V>(ttl));
+        }
+        return q;
+    }
+
+    // appends t to q, due at deadline
+    static <K,V> void enqueue(TtlQueue<K,V> q, Timer<K,V> t, long deadline) {
+        Timer<K,V> last = q.tail;
+        t.queue = q;
+        t.deadline = deadline;
+        t.prev = last;
+        t.next = null;
+        q.tail = t;
+        if (last == null)
+            q.head = t;
+        else
+            last.next = t;
+    }
+
+    // leaves t.queue set, so a removed entry still knows its TTL
+    static <K,V> void dequeue(Timer<K,V> t) {
+        TtlQueue<K,V> q = t.queue;
+        Timer<K,V> b = t.prev, a = t.next;
+        t.prev = t.next = null;
+        if (b == null)
+            q.head = a;
+        else
+            b.next = a;
+        if (a == null)
+            q.tail = b;
+        else
+            a.prev = b;
+    }
+
+    // a timer for new node p, with the TTL of the put in progress
+    private Timer<K,V> newTimer(LinkedHashMap.Entry<K,V> p) {
+        Timer<K,V> t = new Timer<K,V>(p);
+        long ttl = (pendingTtl != 0) ? pendingTtl : defaultTtl;
+        enqueue(queueFor(ttl), t, System.nanoTime() + ttl);
+        return t;
+    }
+
+    // restarts the clock of e with the given TTL, moving it to the tail of
+    // the queue for that TTL; iteration order is unaffected
+    private void renew(Node<K,V> e, long ttl, long now) {
+        Timer<K,V> t = timerOf(e);
+        TtlQueue<K,V> q = (t.queue.ttl == ttl) ? t.queue : queueFor(ttl);
+        dequeue(t);
+        enqueue(q, t, now + ttl);
+    }
+
+    Node<K,V> newNode(int hash, K key, V value, Node<K,V> e) {
+        TimedEntry<K,V> p = new TimedEntry<K,V>(hash, key, value, e);
+        linkNodeLast(p);
+        p.timer = newTimer(p);
+        return p;
+    }
+
+    Node<K,V> replacementNode(Node<K,V> p, Node<K,V> next) {
+        TimedEntry<K,V> t = new TimedEntry<K,V>(p.hash, p.key, p.value, next);
+        (t.timer = timerOf(p)).node = t;
+        transferLinks((LinkedHashMap.Entry<K,V>)p, t);
+        return t;
+    }
+
+    TreeNode<K,V> newTreeNode(int hash, K key, V value, Node<K,V> next) {
+        TimedTreeNode<K,V> p = new TimedTreeNode<K,V>(hash, key, value, next);
+        linkNodeLast(p);
+        p.timer = newTimer(p);
+        return p;
+    }
+
+    TreeNode<K,V> replacementTreeNode(Node<K,V> p, Node<K,V> next) {
+        TimedTreeNode<K,V> t =
+            new TimedTreeNode<K,V>(p.hash, p.key, p.value, next);
+        (t.timer = timerOf(p)).node = t;
+        transferLinks((LinkedHashMap.Entry<K,V>)p, t);
+        return t;
+    }
+
+    // Every call reaching here writes the node, or reads it through
+    // putIfAbsent/computeIfAbsent, which only get here when the value is
+    // null and about to be replaced.
+    void afterNodeAccess(Node<K,V> e) {
+        renew(e, ttlOf(e), System.nanoTime());
+    }
+
+    void afterNodeRemoval(Node<K,V> e) {
+        super.afterNodeRemoval(e);
+        dequeue(timerOf(e));
+    }
+
+    void afterNodeInsertion(boolean evict) {
+        if (evict)
+            sweep(System.nanoTime(), SWEEP_LIMIT);
+        super.afterNodeInsertion(evict);
+    }
+
+    // Removes up to limit expired entries from the queue heads, and drops
+    // emptied queues of non-default TTLs.
+    private int sweep(long now, int limit) {
+        int removed = 0;
+        if (defaultQueue != null)
+            removed = sweep(defaultQueue, now, limit);
+        if (queues != null) {
+            for (Iterator<TtlQueue<K,V>> it = queues.values().iterator();
+                 it.hasNext(); ) {
+                TtlQueue<K,V> q = it.next();
+                if (removed < limit)
+                    removed += sweep(q, now, limit - removed);
+                if (q.head == null)
+                    it.remove();
+            }
+        }
+        return removed;
+    }
+
+    private int sweep(TtlQueue<K,V> q, long now, int limit) {
+        int removed = 0;
+        Timer<K,V> t;
+        if (q.ttl == NEVER)
+            return 0;
+        while (removed < limit && (t = q.head) != null &&
+               now - t.deadline >= 0) {
+            LinkedHashMap.Entry<K,V> e = t.node;
+            removeNode(e.hash, e.key, null, false, true);
+            removed++;
+        }
+        return removed;
+    }
+
+    public int expungeExpired() {
+        return sweep(System.nanoTime(), Integer.MAX_VALUE);
+    }
+
+    // the node for key, or null if absent or expired, in which case it
+    // is removed
+    final Node<K,V> getLiveNode(Object key) {
+        int hash = hash(key);
+        Node<K,V> e = getNode(hash, key);
+        if (e != null && isExpired(e, System.nanoTime())) {
+            removeNode(hash, key, null, false, true);
+            return null;
+        }
+        return e;
+    }
+
+    private void accessed(Node<K,V> e) {
+        if (expireAfterAccess)
+            renew(e, ttlOf(e), System.nanoTime());
+    }
+
+
+    public V get(Object key) {
+        Node<K,V> e;
+        if ((e = getLiveNode(key)) == null)
+            return null;
+        accessed(e);
+        return e.value;
+    }
+
+    public V getOrDefault(Object key, V defaultValue) {
+        Node<K,V> e;
+        if ((e = getLiveNode(key)) == null)
+            return defaultValue;
+        accessed(e);
+        return e.value;
+    }
+
+    public boolean containsKey(Object key) {
+        return getLiveNode(key) != null;
+    }
+
+    public V put(K key, V value) {
+        return putTimed(key, value, defaultTtl);
+    }
+
+    public V put(K key, V value, long ttl, TimeUnit unit) {
+        return putTimed(key, value, toTtl(ttl, unit));
+    }
+
+    private V putTimed(K key, V value, long ttl) {
+        Node<K,V> e = getLiveNode(key);
+        if (e != null) {
+            V oldValue = e.value;
+            e.value = value;
+            renew(e, ttl, System.nanoTime());
+            return oldValue;
+        }
+        pendingTtl = ttl;
+        try {
+            return super.put(key, value);
+        } finally {
+            pendingTtl = 0;
+        }
+    }
+
+    public V remove(Object key) {
+        Node<K,V> e = removeNode(hash(key), key, null, false, true);
+        return (e == null || isExpired(e, System.nanoTime())) ? null : e.value;
+    }
+
+    public V putIfAbsent(K key, V value) {
+        Node<K,V> e = getLiveNode(key);
+        if (e != null && e.value != null) {
+            accessed(e);
+            return e.value;
+        }
+        return super.putIfAbsent(key, value);
+    }
+
+    public boolean remove(Object key, Object value) {
+        getLiveNode(key);
+        return super.remove(key, value);
+    }
+
+    public boolean replace(K key, V oldValue, V newValue) {
+        getLiveNode(key);
+        return super.replace(key, oldValue, newValue);
+    }
+
+    public V replace(K key, V value) {
+        getLiveNode(key);
+        return super.replace(key, value);
+    }
+
+    public V computeIfAbsent(K key,
+                             Function<? super K, ? extends V> mappingFunction) {
+        Node<K,V> e = getLiveNode(key);
+        if (e != null && e.value != null) {
+            accessed(e);
+            return e.value;
+        }
+        return super.computeIfAbsent(key, mappingFunction);
+    }
+
+    public V computeIfPresent(K key,
+                              BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        getLiveNode(key);
+        return super.computeIfPresent(key, remappingFunction);
+    }
+
+    public V compute(K key,
+                     BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        getLiveNode(key);
+        return super.compute(key, remappingFunction);
+    }
+
+    public V merge(K key, V value,
+                   BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        getLiveNode(key);
+        return super.merge(key, value, remappingFunction);
+    }
+
+    public void clear() {
+        super.clear();
+        defaultQueue = null;
+        queues = null;
+    }
+
+    void reinitialize() {
+        super.reinitialize();
+        defaultQueue = null;
+        queues = null;
+    }
+
+    // HashMap.clone re-inserts the entries in list order with fresh clocks
+    // and the default TTL; requeue their timers in the order and with the
+    // deadlines of the original ones.
+    @SuppressWarnings("unchecked")
+    public Object clone() {
+        ExpiringMap<K,V> result = (ExpiringMap<K,V>)super.clone();
+        result.defaultQueue = null;
+        result.queues = null;
+        if (defaultQueue != null)
+            result.copyQueue(defaultQueue);
+        if (queues != null) {
+            for (TtlQueue<K,V> q : queues.values())
+                result.copyQueue(q);
+        }
+        return result;
+    }
+
+    private void copyQueue(TtlQueue<K,V> src) {
+        TtlQueue<K,V> q = queueFor(src.ttl);
+        for (Timer<K,V> t = src.head; t != null; t = t.next) {
+            Object key = t.node.key;
+            enqueue(q, timerOf(getNode(hash(key), key)), t.deadline);
+        }
+    }
+
+    // HashMap.readObject re-inserts the entries before defaultTtl has been
+    // read, so they are queued here once it is known.
+    private void readObject(java.io.ObjectInputStream s)
+        throws java.io.IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        defaultQueue = null;
+        queues = null;
+        long now = System.nanoTime();
+        TtlQueue<K,V> q = queueFor(defaultTtl);
+        for (LinkedHashMap.Entry<K,V> e = head; e != null; e = e.after)
+            enqueue(q, timerOf(e), now + defaultTtl);
+    }
+
+
+    // Periodically expunges expired entries of the map, holding its lock
+    // while doing so; code sharing the map with the sweeper must also
+    // synchronize on the map. The task refers to the map weakly and cancels
+    // itself once the map has been collected.
+    public ScheduledFuture<?> scheduleSweep(ScheduledExecutorService executor,
+                                            long period, TimeUnit unit) {
+        return executor.scheduleWithFixedDelay(new Sweeper(this),
+                                               period, period, unit);
+    }
+
+    static final class Sweeper implements Runnable {
+        private final WeakReference<ExpiringMap<?,?>> map;
+
+        Sweeper(ExpiringMap<?,?> map) {
+            this.map = new WeakReference<ExpiringMap<?,?>>(map);
+        }
+
+        public void run() {
+            ExpiringMap<?,?> m = map.get();
+            if (m == null) // suppresses subsequent executions
+                throw new CancellationException();
+            synchronized (m) {
+                m.expungeExpired();
+            }
+        }
+    }
+}
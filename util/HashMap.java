@@ -6,6 +6,7 @@ import java.io.InvalidObjectException;
 import java.io.Serializable;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
@@ -29,6 +30,15 @@ public class HashMap<K,V> extends AbstractMap<K,V>
 
     static final int MIN_TREEIFY_CAPACITY = 64;
 
+    // smallest table that is grown incrementally when incrementalResize is set
+    static final int MIN_INCREMENTAL_CAPACITY = 1 << 12;
+
+    // number of old bins moved into the new table on each update
+    static final int TRANSFER_STRIDE = 16;
+
+    // smallest input that build spreads over the common pool
+    static final int MIN_PARALLEL_BUILD = 1 << 13;
+
     static class Node<K,V> implements Map.Entry<K,V> {
         final int hash;
         final K key;
@@ -113,6 +123,14 @@ public class HashMap<K,V> extends AbstractMap<K,V>
 
     transient Node<K,V>[] table;
 
+    // While an incremental resize is in progress, the bins of the previous
+    // table that have not yet been moved into table. A key whose old bin is
+    // still non-null lives there; otherwise it lives in table.
+    transient Node<K,V>[] oldTable;
+
+    // next old bin to move in the background sweep
+    transient int transferIndex;
+
     transient Set<Map.Entry<K,V>> entrySet;
 
     transient int size;
@@ -123,8 +141,11 @@ public class HashMap<K,V> extends AbstractMap<K,V>
 
     final float loadFactor;
 
+    final boolean incrementalResize;
 
-    public HashMap(int initialCapacity, float loadFactor) {
+
+    public HashMap(int initialCapacity, float loadFactor,
+                   boolean incrementalResize) {
         if (initialCapacity < 0)
             throw new IllegalArgumentException("Illegal initial capacity: " +
                                                initialCapacity);
@@ -135,6 +156,11 @@ public class HashMap<K,V> extends AbstractMap<K,V>
                                                loadFactor);
         this.loadFactor = loadFactor;
         this.threshold = tableSizeFor(initialCapacity);
+        this.incrementalResize = incrementalResize;
+    }
+
+    public HashMap(int initialCapacity, float loadFactor) {
+        this(initialCapacity, loadFactor, false);
     }
 
     public HashMap(int initialCapacity) {
@@ -143,10 +169,12 @@ public class HashMap<K,V> extends AbstractMap<K,V>
 
     public HashMap() {
         this.loadFactor = DEFAULT_LOAD_FACTOR; // all other fields defaulted
+        this.incrementalResize = false;
     }
 
     public HashMap(Map<? extends K, ? extends V> m) {
         this.loadFactor = DEFAULT_LOAD_FACTOR;
+        this.incrementalResize = false;
         putMapEntries(m, false);
     }
 
@@ -170,6 +198,123 @@ public class HashMap<K,V> extends AbstractMap<K,V>
         }
     }
 
+    // Bulk load from parallel arrays; a later duplicate key replaces an
+    // earlier one, as with put. The table is sized for keys.length up
+    // front. For large inputs the keys are hashed in parallel, bucketed by
+    // table partition (a run of adjacent bins) with a counting pass, and
+    // then each partition is filled by its own task, so no two tasks ever
+    // touch the same bin. The bucketing costs two int arrays of scratch.
+    public static <K,V> HashMap<K,V> build(K[] keys, V[] values) {
+        int n = keys.length;
+        if (values.length != n)
+            throw new IllegalArgumentException("keys.length != values.length");
+        float ft = ((float)n / DEFAULT_LOAD_FACTOR) + 1.0F;
+        HashMap<K,V> map = new HashMap<>((ft < (float)MAXIMUM_CAPACITY) ?
+                                         (int)ft : MAXIMUM_CAPACITY);
+        int p;
+        if (n < MIN_PARALLEL_BUILD ||
+            (p = ForkJoinPool.getCommonPoolParallelism()) == 1) {
+            for (int i = 0; i < n; i++)
+                map.putVal(hash(keys[i]), keys[i], values[i], false, true);
+            return map;
+        }
+        Node<K,V>[] tab = map.resize();
+        int cap = tab.length;
+        int parts = Math.min(tableSizeFor(p << 3), cap);
+        int shift = Integer.numberOfTrailingZeros(cap / parts);
+        int chunks = p << 2, chunkSize = (n + chunks - 1) / chunks;
+        int[] hashes = new int[n], order = new int[n];
+        // counts, then next free slot in order, per chunk and partition
+        int[] slots = new int[chunks * parts];
+        int[] added = new int[parts];
+        new ArraysParallelBulkHelpers.RangeTask
+            (null, (lo, hi) -> {
+                for (int c = lo; c < hi; c++) {
+                    int base = c * parts;
+                    for (int i = c * chunkSize, e = Math.min(n, i + chunkSize);
+                         i < e; i++) {
+                        int h = hashes[i] = hash(keys[i]);
+                        slots[base + (((cap - 1) & h) >>> shift)]++;
+                    }
+                }
+                return 0;
+            }, 0, chunks, 1, ArraysParallelBulkHelpers.RangeTask.EACH, null).invoke();
+        int[] partStart = new int[parts + 1];
+        for (int q = 0, off = 0; q < parts; q++) {
+            partStart[q] = off;
+            for (int c = 0; c < chunks; c++) {
+                int k = c * parts + q, cnt = slots[k];
+                slots[k] = off;
+                off += cnt;
+            }
+        }
+        partStart[parts] = n;
+        new ArraysParallelBulkHelpers.RangeTask
+            (null, (lo, hi) -> {
+                for (int c = lo; c < hi; c++) {
+                    int base = c * parts;
+                    for (int i = c * chunkSize, e = Math.min(n, i + chunkSize);
+                         i < e; i++)
+                        order[slots[base + (((cap - 1) & hashes[i]) >>> shift)]++] = i;
+                }
+                return 0;
+            }, 0, chunks, 1, ArraysParallelBulkHelpers.RangeTask.EACH, null).invoke();
+        new ArraysParallelBulkHelpers.RangeTask
+            (null, (lo, hi) -> {
+                for (int q = lo; q < hi; q++) {
+                    int cnt = 0;
+                    for (int j = partStart[q], e = partStart[q + 1]; j < e; j++) {
+                        int i = order[j];
+                        if (map.putInBin(tab, hashes[i], keys[i], values[i]))
+                            cnt++;
+                    }
+                    added[q] = cnt;
+                }
+                return 0;
+            }, 0, parts, 1, ArraysParallelBulkHelpers.RangeTask.EACH, null).invoke();
+        int size = 0;
+        for (int cnt : added)
+            size += cnt;
+        map.size = size;
+        map.modCount++;
+        return map;
+    }
+
+    // putVal confined to the key's bin of tab, for build: never resizes
+    // and leaves size and modCount to the caller. True if the key is new.
+    final boolean putInBin(Node<K,V>[] tab, int hash, K key, V value) {
+        Node<K,V> p; int i;
+        if ((p = tab[i = (tab.length - 1) & hash]) == null) {
+            tab[i] = newNode(hash, key, value, null);
+            return true;
+        }
+        Node<K,V> e; K k;
+        if (p.hash == hash &&
+            ((k = p.key) == key || (key != null && key.equals(k))))
+            e = p;
+        else if (p instanceof TreeNode)
+            e = ((TreeNode<K,V>)p).putTreeVal(this, tab, hash, key, value);
+        else {
+            for (int binCount = 0; ; ++binCount) {
+                if ((e = p.next) == null) {
+                    p.next = newNode(hash, key, value, null);
+                    if (binCount >= TREEIFY_THRESHOLD - 1) // -1 for 1st
+                        treeifyBin(tab, hash);
+                    break;
+                }
+                if (e.hash == hash &&
+                    ((k = e.key) == key || (key != null && key.equals(k))))
+                    break;
+                p = e;
+            }
+        }
+        if (e != null) {
+            e.value = value;
+            return false;
+        }
+        return true;
+    }
+
     public int size() {
         return size;
     }
@@ -185,7 +330,10 @@ public class HashMap<K,V> extends AbstractMap<K,V>
 
     final Node<K,V> getNode(int hash, Object key) {
         Node<K,V>[] tab; Node<K,V> first, e; int n; K k;
-        if ((tab = table) != null && (n = tab.length) > 0 &&
+        if ((tab = oldTable) == null ||
+            tab[(tab.length - 1) & hash] == null)
+            tab = table;
+        if (tab != null && (n = tab.length) > 0 &&
             (first = tab[(n - 1) & hash]) != null) {
             if (first.hash == hash && // always check first node
                 ((k = first.key) == key || (key != null && key.equals(k))))
@@ -216,6 +364,8 @@ public class HashMap<K,V> extends AbstractMap<K,V>
         Node<K,V>[] tab; Node<K,V> p; int n, i;
         if ((tab = table) == null || (n = tab.length) == 0)
             n = (tab = resize()).length;
+        if (oldTable != null)
+            n = (tab = lookupTable(hash, key)).length;
         if ((p = tab[i = (n - 1) & hash]) == null)
             tab[i] = newNode(hash, key, value, null);
         else {
@@ -255,6 +405,8 @@ public class HashMap<K,V> extends AbstractMap<K,V>
     }
 
     final Node<K,V>[] resize() {
+        if (oldTable != null)
+            completeTransfer();
         Node<K,V>[] oldTab = table;
         int oldCap = (oldTab == null) ? 0 : oldTab.length;
         int oldThr = threshold;
@@ -284,48 +436,115 @@ public class HashMap<K,V> extends AbstractMap<K,V>
             Node<K,V>[] newTab = (Node<K,V>[])new Node[newCap];
         table = newTab;
         if (oldTab != null) {
-            for (int j = 0; j < oldCap; ++j) {
-                Node<K,V> e;
-                if ((e = oldTab[j]) != null) {
-                    oldTab[j] = null;
-                    if (e.next == null)
-                        newTab[e.hash & (newCap - 1)] = e;
-                    else if (e instanceof TreeNode)
-                        ((TreeNode<K,V>)e).split(this, newTab, j, oldCap);
-                    else { // preserve order
-                        Node<K,V> loHead = null, loTail = null;
-                        Node<K,V> hiHead = null, hiTail = null;
-                        Node<K,V> next;
-                        do {
-                            next = e.next;
-                            if ((e.hash & oldCap) == 0) {
-                                if (loTail == null)
-                                    loHead = e;
-                                else
-                                    loTail.next = e;
-                                loTail = e;
-                            }
-                            else {
-                                if (hiTail == null)
-                                    hiHead = e;
-                                else
-                                    hiTail.next = e;
-                                hiTail = e;
-                            }
-                        } while ((e = next) != null);
-                        if (loTail != null) {
-                            loTail.next = null;
-                            newTab[j] = loHead;
-                        }
-                        if (hiTail != null) {
-                            hiTail.next = null;
-                            newTab[j + oldCap] = hiHead;
-                        }
+            if (incrementalResize && oldCap >= MIN_INCREMENTAL_CAPACITY) {
+                oldTable = oldTab;
+                transferIndex = 0;
+            }
+            else {
+                for (int j = 0; j < oldCap; ++j)
+                    transferBin(oldTab, j, newTab);
+            }
+        }
+        return newTab;
+    }
+
+    // Moves old bin j into newTab, splitting it between j and j + oldCap.
+    final void transferBin(Node<K,V>[] oldTab, int j, Node<K,V>[] newTab) {
+        Node<K,V> e;
+        int oldCap = oldTab.length, newCap = newTab.length;
+        if ((e = oldTab[j]) != null) {
+            oldTab[j] = null;
+            if (e.next == null)
+                newTab[e.hash & (newCap - 1)] = e;
+            else if (e instanceof TreeNode)
+                ((TreeNode<K,V>)e).split(this, newTab, j, oldCap);
+            else { // preserve order
+                Node<K,V> loHead = null, loTail = null;
+                Node<K,V> hiHead = null, hiTail = null;
+                Node<K,V> next;
+                do {
+                    next = e.next;
+                    if ((e.hash & oldCap) == 0) {
+                        if (loTail == null)
+                            loHead = e;
+                        else
+                            loTail.next = e;
+                        loTail = e;
+                    }
+                    else {
+                        if (hiTail == null)
+                            hiHead = e;
+                        else
+                            hiTail.next = e;
+                        hiTail = e;
                     }
+                } while ((e = next) != null);
+                if (loTail != null) {
+                    loTail.next = null;
+                    newTab[j] = loHead;
+                }
+                if (hiTail != null) {
+                    hiTail.next = null;
+                    newTab[j + oldCap] = hiHead;
                 }
             }
         }
-        return newTab;
+    }
+
+    // Moving bins is a structural modification: only updates that may be
+    // about to insert a key do it, and it counts in modCount, so read-only
+    // operations and value replacements never move an entry under a
+    // traversal.
+    final void transferStep(int hash) {
+        Node<K,V>[] oldTab = oldTable, tab = table;
+        int oldCap = oldTab.length;
+        transferBin(oldTab, hash & (oldCap - 1), tab);
+        int i = transferIndex, end = Math.min(oldCap, i + TRANSFER_STRIDE);
+        for (; i < end; ++i)
+            transferBin(oldTab, i, tab);
+        if ((transferIndex = i) >= oldCap)
+            oldTable = null;
+        ++modCount;
+    }
+
+    // The table to search for key during an incremental resize: the one
+    // holding it if present, else table, after a transfer step has moved
+    // the key's bin there ready for an insertion.
+    final Node<K,V>[] lookupTable(int hash, Object key) {
+        Node<K,V>[] oldTab = oldTable;
+        if (getNode(hash, key) != null)
+            return (oldTab[(oldTab.length - 1) & hash] != null) ? oldTab : table;
+        transferStep(hash);
+        return table;
+    }
+
+    // Traversals walk a combined index space while an incremental resize
+    // is pending: the bins of oldTable (empty once moved) followed by
+    // those of table. Each entry is in exactly one of them, and nothing is
+    // moved, so traversals stay read-only.
+    static int binCount(Node<?,?>[] oldTab, Node<?,?>[] tab) {
+        return ((oldTab == null) ? 0 : oldTab.length) +
+            ((tab == null) ? 0 : tab.length);
+    }
+
+    static <K,V> Node<K,V> binAt(Node<K,V>[] oldTab, Node<K,V>[] tab, int i) {
+        if (oldTab != null) {
+            if (i < oldTab.length)
+                return oldTab[i];
+            i -= oldTab.length;
+        }
+        return tab[i];
+    }
+
+    // Finishes any pending incremental resize, before a full resize.
+    final Node<K,V>[] completeTransfer() {
+        Node<K,V>[] oldTab, tab = table;
+        if ((oldTab = oldTable) != null) {
+            for (int j = transferIndex; j < oldTab.length; ++j)
+                transferBin(oldTab, j, tab);
+            oldTable = null;
+        }
+        return tab;
     }
 
     final void treeifyBin(Node<K,V>[] tab, int hash) {
@@ -362,7 +581,10 @@ public class HashMap<K,V> extends AbstractMap<K,V>
     final Node<K,V> removeNode(int hash, Object key, Object value,
                                boolean matchValue, boolean movable) {
         Node<K,V>[] tab; Node<K,V> p; int n, index;
-        if ((tab = table) != null && (n = tab.length) > 0 &&
+        if ((tab = oldTable) == null ||
+            tab[(tab.length - 1) & hash] == null)
+            tab = table;
+        if (tab != null && (n = tab.length) > 0 &&
             (p = tab[index = (n - 1) & hash]) != null) {
             Node<K,V> node = null, e; K k; V v;
             if (p.hash == hash &&
@@ -403,6 +625,7 @@ public class HashMap<K,V> extends AbstractMap<K,V>
     public void clear() {
         Node<K,V>[] tab;
         modCount++;
+        oldTable = null;
         if ((tab = table) != null && size > 0) {
             size = 0;
             for (int i = 0; i < tab.length; ++i)
@@ -413,8 +636,9 @@ public class HashMap<K,V> extends AbstractMap<K,V>
     public boolean containsValue(Object value) {
         Node<K,V>[] tab; V v;
         if ((tab = table) != null && size > 0) {
-            for (int i = 0; i < tab.length; ++i) {
-                for (Node<K,V> e = tab[i]; e != null; e = e.next) {
+            Node<K,V>[] oldTab = oldTable;
+            for (int i = 0, n = binCount(oldTab, tab); i < n; ++i) {
+                for (Node<K,V> e = binAt(oldTab, tab, i); e != null; e = e.next) {
                     if ((v = e.value) == value ||
                         (value != null && value.equals(v)))
                         return true;
@@ -445,9 +669,10 @@ public class HashMap<K,V> extends AbstractMap<K,V>
             if (action == null)
                 throw new NullPointerException();
             if (size > 0 && (tab = table) != null) {
+                Node<K,V>[] oldTab = oldTable;
                 int mc = modCount;
-                for (int i = 0; i < tab.length; ++i) {
-                    for (Node<K,V> e = tab[i]; e != null; e = e.next)
+                for (int i = 0, n = binCount(oldTab, tab); i < n; ++i) {
+                    for (Node<K,V> e = binAt(oldTab, tab, i); e != null; e = e.next)
                         action.accept(e.key);
                 }
                 if (modCount != mc)
@@ -474,9 +699,10 @@ public class HashMap<K,V> extends AbstractMap<K,V>
             if (action == null)
                 throw new NullPointerException();
             if (size > 0 && (tab = table) != null) {
+                Node<K,V>[] oldTab = oldTable;
                 int mc = modCount;
-                for (int i = 0; i < tab.length; ++i) {
-                    for (Node<K,V> e = tab[i]; e != null; e = e.next)
+                for (int i = 0, n = binCount(oldTab, tab); i < n; ++i) {
+                    for (Node<K,V> e = binAt(oldTab, tab, i); e != null; e = e.next)
                         action.accept(e.value);
                 }
                 if (modCount != mc)
@@ -521,9 +747,10 @@ public class HashMap<K,V> extends AbstractMap<K,V>
             if (action == null)
                 throw new NullPointerException();
             if (size > 0 && (tab = table) != null) {
+                Node<K,V>[] oldTab = oldTable;
                 int mc = modCount;
-                for (int i = 0; i < tab.length; ++i) {
-                    for (Node<K,V> e = tab[i]; e != null; e = e.next)
+                for (int i = 0, n = binCount(oldTab, tab); i < n; ++i) {
+                    for (Node<K,V> e = binAt(oldTab, tab, i); e != null; e = e.next)
                         action.accept(e);
                 }
                 if (modCount != mc)
@@ -586,6 +813,8 @@ public class HashMap<K,V> extends AbstractMap<K,V>
         if (size > threshold || (tab = table) == null ||
             (n = tab.length) == 0)
             n = (tab = resize()).length;
+        if (oldTable != null)
+            n = (tab = lookupTable(hash, key)).length;
         if ((first = tab[i = (n - 1) & hash]) != null) {
             if (first instanceof TreeNode)
                 old = (t = (TreeNode<K,V>)first).getTreeNode(hash, key);
@@ -660,6 +889,8 @@ public class HashMap<K,V> extends AbstractMap<K,V>
         if (size > threshold || (tab = table) == null ||
             (n = tab.length) == 0)
             n = (tab = resize()).length;
+        if (oldTable != null)
+            n = (tab = lookupTable(hash, key)).length;
         if ((first = tab[i = (n - 1) & hash]) != null) {
             if (first instanceof TreeNode)
                 old = (t = (TreeNode<K,V>)first).getTreeNode(hash, key);
@@ -715,6 +946,8 @@ public class HashMap<K,V> extends AbstractMap<K,V>
         if (size > threshold || (tab = table) == null ||
             (n = tab.length) == 0)
             n = (tab = resize()).length;
+        if (oldTable != null)
+            n = (tab = lookupTable(hash, key)).length;
         if ((first = tab[i = (n - 1) & hash]) != null) {
             if (first instanceof TreeNode)
                 old = (t = (TreeNode<K,V>)first).getTreeNode(hash, key);
@@ -765,9 +998,10 @@ public class HashMap<K,V> extends AbstractMap<K,V>
         if (action == null)
             throw new NullPointerException();
         if (size > 0 && (tab = table) != null) {
+            Node<K,V>[] oldTab = oldTable;
             int mc = modCount;
-            for (int i = 0; i < tab.length; ++i) {
-                for (Node<K,V> e = tab[i]; e != null; e = e.next)
+            for (int i = 0, n = binCount(oldTab, tab); i < n; ++i) {
+                for (Node<K,V> e = binAt(oldTab, tab, i); e != null; e = e.next)
                     action.accept(e.key, e.value);
             }
             if (modCount != mc)
@@ -781,9 +1015,10 @@ public class HashMap<K,V> extends AbstractMap<K,V>
         if (function == null)
             throw new NullPointerException();
         if (size > 0 && (tab = table) != null) {
+            Node<K,V>[] oldTab = oldTable;
             int mc = modCount;
-            for (int i = 0; i < tab.length; ++i) {
-                for (Node<K,V> e = tab[i]; e != null; e = e.next) {
+            for (int i = 0, n = binCount(oldTab, tab); i < n; ++i) {
+                for (Node<K,V> e = binAt(oldTab, tab, i); e != null; e = e.next) {
                     e.value = function.apply(e.key, e.value);
                 }
             }
@@ -869,11 +1104,12 @@ public class HashMap<K,V> extends AbstractMap<K,V>
 
         HashIterator() {
             expectedModCount = modCount;
-            Node<K,V>[] t = table;
+            Node<K,V>[] t = table, ot = oldTable;
             current = next = null;
             index = 0;
             if (t != null && size > 0) { // advance to first entry
-                do {} while (index < t.length && (next = t[index++]) == null);
+                int n = binCount(ot, t);
+                do {} while (index < n && (next = binAt(ot, t, index++)) == null);
             }
         }
 
@@ -889,7 +1125,9 @@ public class HashMap<K,V> extends AbstractMap<K,V>
             if (e == null)
                 throw new NoSuchElementException();
             if ((next = (current = e).next) == null && (t = table) != null) {
-                do {} while (index < t.length && (next = t[index++]) == null);
+                Node<K,V>[] ot = oldTable;
+                int n = binCount(ot, t);
+                do {} while (index < n && (next = binAt(ot, t, index++)) == null);
             }
             return e;
         }
@@ -947,8 +1185,7 @@ public class HashMap<K,V> extends AbstractMap<K,V>
                 HashMap<K,V> m = map;
                 est = m.size;
                 expectedModCount = m.modCount;
-                Node<K,V>[] tab = m.table;
-                hi = fence = (tab == null) ? 0 : tab.length;
+                hi = fence = binCount(m.oldTable, m.table);
             }
             return hi;
         }
@@ -979,20 +1216,20 @@ public class HashMap<K,V> extends AbstractMap<K,V>
             if (action == null)
                 throw new NullPointerException();
             HashMap<K,V> m = map;
-            Node<K,V>[] tab = m.table;
+            Node<K,V>[] tab = m.table, oldTab = m.oldTable;
             if ((hi = fence) < 0) {
                 mc = expectedModCount = m.modCount;
-                hi = fence = (tab == null) ? 0 : tab.length;
+                hi = fence = binCount(oldTab, tab);
             }
             else
                 mc = expectedModCount;
-            if (tab != null && tab.length >= hi &&
+            if (tab != null && binCount(oldTab, tab) >= hi &&
                 (i = index) >= 0 && (i < (index = hi) || current != null)) {
                 Node<K,V> p = current;
                 current = null;
                 do {
                     if (p == null)
-                        p = tab[i++];
+                        p = binAt(oldTab, tab, i++);
                     else {
                         action.accept(p.key);
                         p = p.next;
@@ -1007,11 +1244,12 @@ public class HashMap<K,V> extends AbstractMap<K,V>
             int hi;
             if (action == null)
                 throw new NullPointerException();
-            Node<K,V>[] tab = map.table;
-            if (tab != null && tab.length >= (hi = getFence()) && index >= 0) {
+            Node<K,V>[] tab = map.table, oldTab = map.oldTable;
+            if (tab != null && binCount(oldTab, tab) >= (hi = getFence()) &&
+                index >= 0) {
                 while (current != null || index < hi) {
                     if (current == null)
-                        current = tab[index++];
+                        current = binAt(oldTab, tab, index++);
                     else {
                         K k = current.key;
                         current = current.next;
@@ -1051,20 +1289,20 @@ public class HashMap<K,V> extends AbstractMap<K,V>
             if (action == null)
                 throw new NullPointerException();
             HashMap<K,V> m = map;
-            Node<K,V>[] tab = m.table;
+            Node<K,V>[] tab = m.table, oldTab = m.oldTable;
             if ((hi = fence) < 0) {
                 mc = expectedModCount = m.modCount;
-                hi = fence = (tab == null) ? 0 : tab.length;
+                hi = fence = binCount(oldTab, tab);
             }
             else
                 mc = expectedModCount;
-            if (tab != null && tab.length >= hi &&
+            if (tab != null && binCount(oldTab, tab) >= hi &&
                 (i = index) >= 0 && (i < (index = hi) || current != null)) {
                 Node<K,V> p = current;
                 current = null;
                 do {
                     if (p == null)
-                        p = tab[i++];
+                        p = binAt(oldTab, tab, i++);
                     else {
                         action.accept(p.value);
                         p = p.next;
@@ -1079,11 +1317,12 @@ public class HashMap<K,V> extends AbstractMap<K,V>
             int hi;
             if (action == null)
                 throw new NullPointerException();
-            Node<K,V>[] tab = map.table;
-            if (tab != null && tab.length >= (hi = getFence()) && index >= 0) {
+            Node<K,V>[] tab = map.table, oldTab = map.oldTable;
+            if (tab != null && binCount(oldTab, tab) >= (hi = getFence()) &&
+                index >= 0) {
                 while (current != null || index < hi) {
                     if (current == null)
-                        current = tab[index++];
+                        current = binAt(oldTab, tab, index++);
                     else {
                         V v = current.value;
                         current = current.next;
@@ -1122,20 +1361,20 @@ public class HashMap<K,V> extends AbstractMap<K,V>
             if (action == null)
                 throw new NullPointerException();
             HashMap<K,V> m = map;
-            Node<K,V>[] tab = m.table;
+            Node<K,V>[] tab = m.table, oldTab = m.oldTable;
             if ((hi = fence) < 0) {
                 mc = expectedModCount = m.modCount;
-                hi = fence = (tab == null) ? 0 : tab.length;
+                hi = fence = binCount(oldTab, tab);
             }
             else
                 mc = expectedModCount;
-            if (tab != null && tab.length >= hi &&
+            if (tab != null && binCount(oldTab, tab) >= hi &&
                 (i = index) >= 0 && (i < (index = hi) || current != null)) {
                 Node<K,V> p = current;
                 current = null;
                 do {
                     if (p == null)
-                        p = tab[i++];
+                        p = binAt(oldTab, tab, i++);
                     else {
                         action.accept(p);
                         p = p.next;
@@ -1150,11 +1389,12 @@ public class HashMap<K,V> extends AbstractMap<K,V>
             int hi;
             if (action == null)
                 throw new NullPointerException();
-            Node<K,V>[] tab = map.table;
-            if (tab != null && tab.length >= (hi = getFence()) && index >= 0) {
+            Node<K,V>[] tab = map.table, oldTab = map.oldTable;
+            if (tab != null && binCount(oldTab, tab) >= (hi = getFence()) &&
+                index >= 0) {
                 while (current != null || index < hi) {
                     if (current == null)
-                        current = tab[index++];
+                        current = binAt(oldTab, tab, index++);
                     else {
                         Node<K,V> e = current;
                         current = current.next;
@@ -1195,6 +1435,8 @@ public class HashMap<K,V> extends AbstractMap<K,V>
 
     void reinitialize() {
         table = null;
+        oldTable = null;
+        transferIndex = 0;
         entrySet = null;
         keySet = null;
         values = null;
@@ -1210,8 +1452,9 @@ public class HashMap<K,V> extends AbstractMap<K,V>
     void internalWriteEntries(java.io.ObjectOutputStream s) throws IOException {
         Node<K,V>[] tab;
         if (size > 0 && (tab = table) != null) {
-            for (int i = 0; i < tab.length; ++i) {
-                for (Node<K,V> e = tab[i]; e != null; e = e.next) {
+            Node<K,V>[] oldTab = oldTable;
+            for (int i = 0, n = binCount(oldTab, tab); i < n; ++i) {
+                for (Node<K,V> e = binAt(oldTab, tab, i); e != null; e = e.next) {
                     s.writeObject(e.key);
                     s.writeObject(e.value);
                 }
@@ -1220,7 +1463,7 @@ public class HashMap<K,V> extends AbstractMap<K,V>
     }
 
 
-    static final class TreeNode<K,V> extends LinkedHashMap.Entry<K,V> {
+    static class TreeNode<K,V> extends LinkedHashMap.Entry<K,V> {
         TreeNode<K,V> parent;  // red-black tree links
         TreeNode<K,V> left;
         TreeNode<K,V> right;
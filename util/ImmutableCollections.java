@@ -0,0 +1,725 @@
+package java.util;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+// Implementations behind List.of, Set.of and Map.of and their copyOf
+// variants. Up to two elements (or mappings) are held in fields; larger
+// collections copy into one flat array with no per-element nodes: ListN
+// keeps the elements in order, SetN and MapN are linear-probing tables at
+// most half full, MapN with each key followed by its value. get, contains
+// and forEach allocate nothing.
+//
+// Null elements, keys and values are rejected, as are duplicate elements
+// or keys passed to of. All instances serialize through CollSer, so none
+// of them declares a serialVersionUID.
+final class ImmutableCollections {
+    private ImmutableCollections() { }
+
+    // SetN and MapN are sized so that probe sequences stay short
+    static final float LOAD_FACTOR = 0.5f;
+
+    static UnsupportedOperationException uoe() {
+        return new UnsupportedOperationException();
+    }
+
+    // a is not retained when it is longer than two
+    @SuppressWarnings("unchecked")
+    static <E> List<E> listFromArray(Object[] a) {
+        for (Object e : a)
+            Objects.requireNonNull(e);
+        switch (a.length) {
+        case 0:
+            return (List<E>) ListN.EMPTY;
+        case 1:
+            return new List12<>((E)a[0]);
+        case 2:
+            return new List12<>((E)a[0], (E)a[1]);
+        default:
+            return new ListN<>(Arrays.copyOf(a, a.length, Object[].class));
+        }
+    }
+
+    // Duplicates are an error for Set.of and dropped for Set.copyOf.
+    @SuppressWarnings("unchecked")
+    static <E> Set<E> setFromArray(Object[] a, boolean rejectDuplicates) {
+        for (Object e : a)
+            Objects.requireNonNull(e);
+        switch (a.length) {
+        case 0:
+            return (Set<E>) SetN.EMPTY;
+        case 1:
+            return new Set12<>((E)a[0]);
+        case 2:
+            if (!a[0].equals(a[1]))
+                return new Set12<>((E)a[0], (E)a[1]);
+            if (rejectDuplicates)
+                throw new IllegalArgumentException("duplicate element: " + a[1]);
+            return new Set12<>((E)a[0]);
+        default:
+            return new SetN<>(a, rejectDuplicates);
+        }
+    }
+
+    // kvs holds each key followed by its value; duplicate keys are an error
+    @SuppressWarnings("unchecked")
+    static <K,V> Map<K,V> mapFromArray(Object[] kvs) {
+        if ((kvs.length & 1) != 0)
+            throw new InternalError("odd number of keys and values");
+        for (Object o : kvs)
+            Objects.requireNonNull(o);
+        switch (kvs.length) {
+        case 0:
+            return (Map<K,V>) MapN.EMPTY;
+        case 2:
+            return new Map12<>((K)kvs[0], (V)kvs[1]);
+        case 4:
+            return new Map12<>((K)kvs[0], (V)kvs[1], (K)kvs[2], (V)kvs[3]);
+        default:
+            return new MapN<>(kvs);
+        }
+    }
+
+    static IndexOutOfBoundsException outOfBounds(int index, int size) {
+        return new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+
+    // ---------------- Lists --------------
+
+    @SuppressWarnings("serial")
+    static abstract class AbstractImmutableList<E> extends AbstractList<E>
+        implements RandomAccess, Serializable {
+        public boolean add(E e) { throw uoe(); }
+        public boolean addAll(Collection<? extends E> c) { throw uoe(); }
+        public boolean addAll(int index, Collection<? extends E> c) { throw uoe(); }
+        public void clear() { throw uoe(); }
+        public boolean remove(Object o) { throw uoe(); }
+        public boolean removeAll(Collection<?> c) { throw uoe(); }
+        public boolean retainAll(Collection<?> c) { throw uoe(); }
+        public boolean removeIf(Predicate<? super E> filter) { throw uoe(); }
+        public void replaceAll(UnaryOperator<E> operator) { throw uoe(); }
+        public void sort(Comparator<? super E> c) { throw uoe(); }
+
+        public boolean contains(Object o) {
+            return indexOf(o) >= 0;
+        }
+
+        Object writeReplace() {
+            return new CollSer(CollSer.LIST, toArray());
+        }
+    }
+
+    @SuppressWarnings("serial")
+    static final class List12<E> extends AbstractImmutableList<E> {
+        private final E e0;
+        private final E e1; // null in a one-element list
+
+        List12(E e0) {
+            this.e0 = Objects.requireNonNull(e0);
+            this.e1 = null;
+        }
+
+        List12(E e0, E e1) {
+            this.e0 = Objects.requireNonNull(e0);
+            this.e1 = Objects.requireNonNull(e1);
+        }
+
+        public int size() {
+            return (e1 != null) ? 2 : 1;
+        }
+
+        public E get(int index) {
+            if (index == 0)
+                return e0;
+            if (index == 1 && e1 != null)
+                return e1;
+            throw outOfBounds(index, size());
+        }
+
+        public int indexOf(Object o) {
+            if (e0.equals(o))
+                return 0;
+            return (e1 != null && e1.equals(o)) ? 1 : -1;
+        }
+
+        public int lastIndexOf(Object o) {
+            if (e1 != null && e1.equals(o))
+                return 1;
+            return e0.equals(o) ? 0 : -1;
+        }
+
+        public void forEach(Consumer<? super E> action) {
+            action.accept(e0);
+            if (e1 != null)
+                action.accept(e1);
+        }
+
+        public Object[] toArray() {
+            return (e1 != null) ? new Object[] { e0, e1 } : new Object[] { e0 };
+        }
+
+        public int hashCode() {
+            int h = 31 + e0.hashCode();
+            return (e1 != null) ? 31 * h + e1.hashCode() : h;
+        }
+
+        private void readObject(ObjectInputStream in) throws IOException {
+            throw new InvalidObjectException("not serial proxy");
+        }
+    }
+
+    @SuppressWarnings("serial")
+    static final class ListN<E> extends AbstractImmutableList<E> {
+        static final ListN<?> EMPTY = new ListN<>(new Object[0]);
+
+        private final Object[] elements;
+
+        ListN(Object[] elements) {
+            this.elements = elements;
+        }
+
+        public int size() {
+            return elements.length;
+        }
+
+        public boolean isEmpty() {
+            return elements.length == 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        public E get(int index) {
+            if (index < 0 || index >= elements.length)
+                throw outOfBounds(index, elements.length);
+            return (E) elements[index];
+        }
+
+        public int indexOf(Object o) {
+            Object[] es = elements;
+            if (o != null)
+                for (int i = 0; i < es.length; i++)
+                    if (o.equals(es[i]))
+                        return i;
+            return -1;
+        }
+
+        public int lastIndexOf(Object o) {
+            Object[] es = elements;
+            if (o != null)
+                for (int i = es.length - 1; i >= 0; i--)
+                    if (o.equals(es[i]))
+                        return i;
+            return -1;
+        }
+
+        @SuppressWarnings("unchecked")
+        public void forEach(Consumer<? super E> action) {
+            Objects.requireNonNull(action);
+            for (Object e : elements)
+                action.accept((E) e);
+        }
+
+        public Object[] toArray() {
+            return elements.clone();
+        }
+
+        public Spliterator<E> spliterator() {
+            return Spliterators.spliterator(elements, Spliterator.ORDERED |
+                                            Spliterator.IMMUTABLE | Spliterator.NONNULL);
+        }
+
+        public int hashCode() {
+            int h = 1;
+            for (Object e : elements)
+                h = 31 * h + e.hashCode();
+            return h;
+        }
+
+        private void readObject(ObjectInputStream in) throws IOException {
+            throw new InvalidObjectException("not serial proxy");
+        }
+    }
+
+    // ---------------- Sets --------------
+
+    @SuppressWarnings("serial")
+    static abstract class AbstractImmutableSet<E> extends AbstractSet<E>
+        implements Serializable {
+        public boolean add(E e) { throw uoe(); }
+        public boolean addAll(Collection<? extends E> c) { throw uoe(); }
+        public void clear() { throw uoe(); }
+        public boolean remove(Object o) { throw uoe(); }
+        public boolean removeAll(Collection<?> c) { throw uoe(); }
+        public boolean retainAll(Collection<?> c) { throw uoe(); }
+        public boolean removeIf(Predicate<? super E> filter) { throw uoe(); }
+
+        public Spliterator<E> spliterator() {
+            return Spliterators.spliterator(this, Spliterator.DISTINCT |
+                                            Spliterator.IMMUTABLE | Spliterator.NONNULL);
+        }
+
+        Object writeReplace() {
+            return new CollSer(CollSer.SET, toArray());
+        }
+    }
+
+    @SuppressWarnings("serial")
+    static final class Set12<E> extends AbstractImmutableSet<E> {
+        private final E e0;
+        private final E e1; // null in a one-element set
+
+        Set12(E e0) {
+            this.e0 = Objects.requireNonNull(e0);
+            this.e1 = null;
+        }
+
+        Set12(E e0, E e1) {
+            if (e0.equals(Objects.requireNonNull(e1)))
+                throw new IllegalArgumentException("duplicate element: " + e1);
+            this.e0 = e0;
+            this.e1 = e1;
+        }
+
+        public int size() {
+            return (e1 != null) ? 2 : 1;
+        }
+
+        public boolean contains(Object o) {
+            return e0.equals(o) || (e1 != null && e1.equals(o));
+        }
+
+        public Iterator<E> iterator() {
+            return new Iterator<E>() {
+                private int index;
+
+                public boolean hasNext() {
+                    return index < size();
+                }
+
+                public E next() {
+                    if (index == 0) {
+                        index = 1;
+                        return e0;
+                    }
+                    if (index == 1 && e1 != null) {
+                        index = 2;
+                        return e1;
+                    }
+                    throw new NoSuchElementException();
+                }
+            };
+        }
+
+        public void forEach(Consumer<? super E> action) {
+            action.accept(e0);
+            if (e1 != null)
+                action.accept(e1);
+        }
+
+        public int hashCode() {
+            return e0.hashCode() + (e1 != null ? e1.hashCode() : 0);
+        }
+
+        private void readObject(ObjectInputStream in) throws IOException {
+            throw new InvalidObjectException("not serial proxy");
+        }
+    }
+
+    @SuppressWarnings("serial")
+    static final class SetN<E> extends AbstractImmutableSet<E> {
+        static final SetN<?> EMPTY = new SetN<>(new Object[0], true);
+
+        private final Object[] table; // null marks a free slot
+        private final int size;
+
+        SetN(Object[] input, boolean rejectDuplicates) {
+            Object[] tab = new Object[OpenHashing.arraySize(input.length, LOAD_FACTOR)];
+            int n = 0;
+            for (Object e : input) {
+                int i = probe(tab, e);
+                if (i < 0) {
+                    tab[-(i + 1)] = e;
+                    n++;
+                } else if (rejectDuplicates) {
+                    throw new IllegalArgumentException("duplicate element: " + e);
+                }
+            }
+            table = tab;
+            size = n;
+        }
+
+        // slot holding o, or -(slot + 1) for the free slot ending its probe
+        private static int probe(Object[] tab, Object o) {
+            int m = tab.length - 1;
+            for (int i = OpenHashing.mix(o.hashCode()) & m; ; i = (i + 1) & m) {
+                Object e = tab[i];
+                if (e == null)
+                    return -(i + 1);
+                if (o.equals(e))
+                    return i;
+            }
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean contains(Object o) {
+            return o != null && size > 0 && probe(table, o) >= 0;
+        }
+
+        public Iterator<E> iterator() {
+            return new Iterator<E>() {
+                private int remaining = size;
+                private int index;
+
+                public boolean hasNext() {
+                    return remaining > 0;
+                }
+
+                @SuppressWarnings("unchecked")
+                public E next() {
+                    if (remaining <= 0)
+                        throw new NoSuchElementException();
+                    Object e;
+                    while ((e = table[index++]) == null)
+                        ;
+                    remaining--;
+                    return (E) e;
+                }
+            };
+        }
+
+        @SuppressWarnings("unchecked")
+        public void forEach(Consumer<? super E> action) {
+            Objects.requireNonNull(action);
+            for (Object e : table)
+                if (e != null)
+                    action.accept((E) e);
+        }
+
+        public int hashCode() {
+            int h = 0;
+            for (Object e : table)
+                if (e != null)
+                    h += e.hashCode();
+            return h;
+        }
+
+        private void readObject(ObjectInputStream in) throws IOException {
+            throw new InvalidObjectException("not serial proxy");
+        }
+    }
+
+    // ---------------- Maps --------------
+
+    @SuppressWarnings("serial")
+    static abstract class AbstractImmutableMap<K,V> extends AbstractMap<K,V>
+        implements Serializable {
+        public void clear() { throw uoe(); }
+        public V compute(K key, BiFunction<? super K,? super V,? extends V> rf) { throw uoe(); }
+        public V computeIfAbsent(K key, Function<? super K,? extends V> mf) { throw uoe(); }
+        public V computeIfPresent(K key, BiFunction<? super K,? super V,? extends V> rf) { throw uoe(); }
+        public V merge(K key, V value, BiFunction<? super V,? super V,? extends V> rf) { throw uoe(); }
+        public V put(K key, V value) { throw uoe(); }
+        public void putAll(Map<? extends K,? extends V> m) { throw uoe(); }
+        public V putIfAbsent(K key, V value) { throw uoe(); }
+        public V remove(Object key) { throw uoe(); }
+        public boolean remove(Object key, Object value) { throw uoe(); }
+        public V replace(K key, V value) { throw uoe(); }
+        public boolean replace(K key, V oldValue, V newValue) { throw uoe(); }
+        public void replaceAll(BiFunction<? super K,? super V,? extends V> f) { throw uoe(); }
+
+        public V getOrDefault(Object key, V defaultValue) {
+            V v;
+            return ((v = get(key)) != null) ? v : defaultValue;
+        }
+
+        Object writeReplace() {
+            Object[] kvs = new Object[size() << 1];
+            int[] i = new int[1];
+            forEach((k, v) -> {
+                kvs[i[0]++] = k;
+                kvs[i[0]++] = v;
+            });
+            return new CollSer(CollSer.MAP, kvs);
+        }
+    }
+
+    @SuppressWarnings("serial")
+    static final class Map12<K,V> extends AbstractImmutableMap<K,V> {
+        private final K k0;
+        private final V v0;
+        private final K k1; // null in a one-mapping map
+        private final V v1;
+
+        Map12(K k0, V v0) {
+            this.k0 = Objects.requireNonNull(k0);
+            this.v0 = Objects.requireNonNull(v0);
+            this.k1 = null;
+            this.v1 = null;
+        }
+
+        Map12(K k0, V v0, K k1, V v1) {
+            if (k0.equals(Objects.requireNonNull(k1)))
+                throw new IllegalArgumentException("duplicate key: " + k1);
+            this.k0 = k0;
+            this.v0 = Objects.requireNonNull(v0);
+            this.k1 = k1;
+            this.v1 = Objects.requireNonNull(v1);
+        }
+
+        public int size() {
+            return (k1 != null) ? 2 : 1;
+        }
+
+        public V get(Object key) {
+            if (k0.equals(key))
+                return v0;
+            return (k1 != null && k1.equals(key)) ? v1 : null;
+        }
+
+        public boolean containsKey(Object key) {
+            return k0.equals(key) || (k1 != null && k1.equals(key));
+        }
+
+        public boolean containsValue(Object value) {
+            return v0.equals(value) || (v1 != null && v1.equals(value));
+        }
+
+        public void forEach(BiConsumer<? super K, ? super V> action) {
+            action.accept(k0, v0);
+            if (k1 != null)
+                action.accept(k1, v1);
+        }
+
+        public Set<Map.Entry<K,V>> entrySet() {
+            return new AbstractImmutableSet<Map.Entry<K,V>>() {
+                public int size() {
+                    return Map12.this.size();
+                }
+
+                public Iterator<Map.Entry<K,V>> iterator() {
+                    return new Iterator<Map.Entry<K,V>>() {
+                        private int index;
+
+                        public boolean hasNext() {
+                            return index < size();
+                        }
+
+                        public Map.Entry<K,V> next() {
+                            if (index == 0) {
+                                index = 1;
+                                return new SimpleImmutableEntry<>(k0, v0);
+                            }
+                            if (index == 1 && k1 != null) {
+                                index = 2;
+                                return new SimpleImmutableEntry<>(k1, v1);
+                            }
+                            throw new NoSuchElementException();
+                        }
+                    };
+                }
+            };
+        }
+
+        public int hashCode() {
+            int h = k0.hashCode() ^ v0.hashCode();
+            return (k1 != null) ? h + (k1.hashCode() ^ v1.hashCode()) : h;
+        }
+
+        private void readObject(ObjectInputStream in) throws IOException {
+            throw new InvalidObjectException("not serial proxy");
+        }
+    }
+
+    @SuppressWarnings("serial")
+    static final class MapN<K,V> extends AbstractImmutableMap<K,V> {
+        static final MapN<?,?> EMPTY = new MapN<>(new Object[0]);
+
+        // key at 2 * slot, its value at 2 * slot + 1; null key marks a
+        // free slot
+        private final Object[] table;
+        private final int size;
+
+        MapN(Object[] kvs) {
+            int n = kvs.length >> 1;
+            Object[] tab = new Object[OpenHashing.arraySize(n, LOAD_FACTOR) << 1];
+            for (int j = 0; j < kvs.length; j += 2) {
+                Object k = kvs[j];
+                int i = probe(tab, k);
+                if (i >= 0)
+                    throw new IllegalArgumentException("duplicate key: " + k);
+                i = -(i + 1);
+                tab[i] = k;
+                tab[i + 1] = kvs[j + 1];
+            }
+            table = tab;
+            size = n;
+        }
+
+        // index of key k, or -(index + 1) for the free slot ending its probe
+        private static int probe(Object[] tab, Object k) {
+            int m = (tab.length >> 1) - 1;
+            for (int i = OpenHashing.mix(k.hashCode()) & m; ; i = (i + 1) & m) {
+                Object e = tab[i << 1];
+                if (e == null)
+                    return -((i << 1) + 1);
+                if (k.equals(e))
+                    return i << 1;
+            }
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        public V get(Object key) {
+            int i;
+            if (key == null || size == 0 || (i = probe(table, key)) < 0)
+                return null;
+            return (V) table[i + 1];
+        }
+
+        public boolean containsKey(Object key) {
+            return key != null && size > 0 && probe(table, key) >= 0;
+        }
+
+        public boolean containsValue(Object value) {
+            if (value != null) {
+                Object[] tab = table;
+                for (int i = 0; i < tab.length; i += 2)
+                    if (tab[i] != null && value.equals(tab[i + 1]))
+                        return true;
+            }
+            return false;
+        }
+
+        @SuppressWarnings("unchecked")
+        public void forEach(BiConsumer<? super K, ? super V> action) {
+            Objects.requireNonNull(action);
+            Object[] tab = table;
+            for (int i = 0; i < tab.length; i += 2)
+                if (tab[i] != null)
+                    action.accept((K) tab[i], (V) tab[i + 1]);
+        }
+
+        public Set<Map.Entry<K,V>> entrySet() {
+            return new AbstractImmutableSet<Map.Entry<K,V>>() {
+                public int size() {
+                    return size;
+                }
+
+                public Iterator<Map.Entry<K,V>> iterator() {
+                    return new Iterator<Map.Entry<K,V>>() {
+                        private int remaining = size;
+                        private int index;
+
+                        public boolean hasNext() {
+                            return remaining > 0;
+                        }
+
+                        @SuppressWarnings("unchecked")
+                        public Map.Entry<K,V> next() {
+                            if (remaining <= 0)
+                                throw new NoSuchElementException();
+                            while (table[index] == null)
+                                index += 2;
+                            remaining--;
+                            Map.Entry<K,V> e = new SimpleImmutableEntry<>(
+                                (K) table[index], (V) table[index + 1]);
+                            index += 2;
+                            return e;
+                        }
+                    };
+                }
+            };
+        }
+
+        public int hashCode() {
+            int h = 0;
+            Object[] tab = table;
+            for (int i = 0; i < tab.length; i += 2)
+                if (tab[i] != null)
+                    h += tab[i].hashCode() ^ tab[i + 1].hashCode();
+            return h;
+        }
+
+        private void readObject(ObjectInputStream in) throws IOException {
+            throw new InvalidObjectException("not serial proxy");
+        }
+    }
+
+    // Serial form of every class above: a tag and the elements, or the keys
+    // and values interleaved. readResolve rebuilds through the factories,
+    // so a stream cannot produce a collection breaking their invariants.
+    static final class CollSer implements Serializable {
+        private static final long serialVersionUID = 6309168927139932177L;
+
+        static final int LIST = 1;
+        static final int SET = 2;
+        static final int MAP = 3;
+
+        private final int tag;
+
+        private transient Object[] array;
+
+        CollSer(int tag, Object[] array) {
+            this.tag = tag;
+            this.array = array;
+        }
+
+        private void writeObject(ObjectOutputStream out) throws IOException {
+            out.defaultWriteObject();
+            out.writeInt(array.length);
+            for (Object o : array)
+                out.writeObject(o);
+        }
+
+        private void readObject(ObjectInputStream in)
+            throws IOException, ClassNotFoundException {
+            in.defaultReadObject();
+            int len = in.readInt();
+            if (len < 0)
+                throw new InvalidObjectException("negative length " + len);
+            Object[] a = new Object[len];
+            for (int i = 0; i < len; i++)
+                a[i] = in.readObject();
+            array = a;
+        }
+
+        private Object readResolve() throws ObjectStreamException {
+            try {
+                switch (tag) {
+                case LIST:
+                    return listFromArray(array);
+                case SET:
+                    return setFromArray(array, true);
+                case MAP:
+                    if ((array.length & 1) == 0)
+                        return mapFromArray(array);
+                    break;
+                }
+            } catch (NullPointerException | IllegalArgumentException e) {
+                InvalidObjectException ioe = new InvalidObjectException("invalid object");
+                ioe.initCause(e);
+                throw ioe;
+            }
+            throw new InvalidObjectException("invalid collection tag " + tag);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package java.util;
+
+// IndexedPriorityQueue with primitive long priorities. Priorities live in a
+// long[] parallel to the handle array, so sifting compares contiguous
+// longs and never dereferences the elements. Smallest priority first.
+public class IndexedLongPriorityQueue<E> {
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 11;
+
+    private static final int DEFAULT_ARITY = 4;
+
+    public static final class Handle<E> {
+        final E element;
+        int index; // slot in the heap, -1 once removed
+
+        Handle(E element) {
+            this.element = element;
+        }
+
+        public E element() {
+            return element;
+        }
+    }
+
+    private long[] priorities;
+
+    private Handle<E>[] handles;
+
+    private int size = 0;
+
+    private final int arity;
+
+    public IndexedLongPriorityQueue() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_ARITY);
+    }
+
+    public IndexedLongPriorityQueue(int initialCapacity) {
+        this(initialCapacity, DEFAULT_ARITY);
+    }
+
+    @SuppressWarnings("unchecked")
+    public IndexedLongPriorityQueue(int initialCapacity, int arity) {
+        if (initialCapacity < 1 || arity < 2)
+            throw new IllegalArgumentException();
+        this.priorities = new long[initialCapacity];
+        this.handles = (Handle<E>[]) new Handle<?>[initialCapacity];
+        this.arity = arity;
+    }
+
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private void grow(int minCapacity) {
+        int oldCapacity = handles.length;
+        int newCapacity = oldCapacity + ((oldCapacity < 64) ?
+                                         (oldCapacity + 2) :
+                                         (oldCapacity >> 1));
+        if (newCapacity - MAX_ARRAY_SIZE > 0)
+            newCapacity = hugeCapacity(minCapacity);
+        priorities = Arrays.copyOf(priorities, newCapacity);
+        handles = Arrays.copyOf(handles, newCapacity);
+    }
+
+    private static int hugeCapacity(int minCapacity) {
+        if (minCapacity < 0) // overflow
+            throw new OutOfMemoryError();
+        return (minCapacity > MAX_ARRAY_SIZE) ?
+            Integer.MAX_VALUE :
+            MAX_ARRAY_SIZE;
+    }
+
+    public Handle<E> insert(E e, long priority) {
+        int i = size;
+        if (i >= handles.length)
+            grow(i + 1);
+        size = i + 1;
+        Handle<E> h = new Handle<>(e);
+        siftUp(i, priority, h);
+        return h;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public E peek() {
+        return (size == 0) ? null : handles[0].element;
+    }
+
+    public Handle<E> peekHandle() {
+        return (size == 0) ? null : handles[0];
+    }
+
+    public long peekPriority() {
+        if (size == 0)
+            throw new NoSuchElementException();
+        return priorities[0];
+    }
+
+    public E poll() {
+        if (size == 0)
+            return null;
+        Handle<E> result = handles[0];
+        removeAt(0);
+        return result.element;
+    }
+
+    public boolean containsHandle(Handle<E> h) {
+        int i = h.index;
+        return i >= 0 && i < size && handles[i] == h;
+    }
+
+    public long priority(Handle<E> h) {
+        checkHandle(h);
+        return priorities[h.index];
+    }
+
+    public boolean removeHandle(Handle<E> h) {
+        if (!containsHandle(h))
+            return false;
+        removeAt(h.index);
+        return true;
+    }
+
+    public void decreaseKey(Handle<E> h, long priority) {
+        checkHandle(h);
+        if (priority > priorities[h.index])
+            throw new IllegalArgumentException("key increased");
+        siftUp(h.index, priority, h);
+    }
+
+    public void increaseKey(Handle<E> h, long priority) {
+        checkHandle(h);
+        if (priority < priorities[h.index])
+            throw new IllegalArgumentException("key decreased");
+        siftDown(h.index, priority, h);
+    }
+
+    public void updateKey(Handle<E> h, long priority) {
+        checkHandle(h);
+        int i = h.index;
+        if (priority < priorities[i])
+            siftUp(i, priority, h);
+        else
+            siftDown(i, priority, h);
+    }
+
+    private void checkHandle(Handle<E> h) {
+        if (!containsHandle(h))
+            throw new IllegalArgumentException("handle not in queue");
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            handles[i].index = -1;
+            handles[i] = null;
+        }
+        size = 0;
+    }
+
+    private void removeAt(int i) {
+        handles[i].index = -1;
+        int s = --size;
+        Handle<E> moved = handles[s];
+        long p = priorities[s];
+        handles[s] = null;
+        if (s != i) {
+            siftDown(i, p, moved);
+            if (handles[i] == moved)
+                siftUp(i, p, moved);
+        }
+    }
+
+    private void siftUp(int k, long p, Handle<E> x) {
+        long[] ps = priorities;
+        Handle<E>[] hs = handles;
+        int d = arity;
+        while (k > 0) {
+            int parent = (k - 1) / d;
+            long pp = ps[parent];
+            if (p >= pp)
+                break;
+            ps[k] = pp;
+            (hs[k] = hs[parent]).index = k;
+            k = parent;
+        }
+        ps[k] = p;
+        hs[k] = x;
+        x.index = k;
+    }
+
+    private void siftDown(int k, long p, Handle<E> x) {
+        long[] ps = priorities;
+        Handle<E>[] hs = handles;
+        int n = size, d = arity;
+        long first;
+        while ((first = (long) k * d + 1) < n) {
+            int child = (int) first;
+            int end = (n - child > d) ? child + d : n;
+            long cp = ps[child];
+            for (int j = child + 1; j < end; j++) {
+                if (ps[j] < cp)
+                    cp = ps[child = j];
+            }
+            if (p <= cp)
+                break;
+            ps[k] = cp;
+            (hs[k] = hs[child]).index = k;
+            k = child;
+        }
+        ps[k] = p;
+        hs[k] = x;
+        x.index = k;
+    }
+
+    public int arity() {
+        return arity;
+    }
+}
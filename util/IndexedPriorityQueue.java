@@ -0,0 +1,347 @@
+package java.util;
+
+// A d-ary min-heap whose insertions return handles. Each handle records its
+// current heap slot, so removal and priority changes through a handle are
+// O(log n) and never scan the queue. The default arity of 4 keeps the
+// heap shallower than a binary heap and puts all children of a node in
+// one or two cache lines.
+public class IndexedPriorityQueue<E> extends AbstractQueue<E> {
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 11;
+
+    private static final int DEFAULT_ARITY = 4;
+
+    public static final class Handle<E> {
+        E element;
+        int index; // slot in the heap, -1 once removed
+
+        Handle(E element) {
+            this.element = element;
+        }
+
+        public E element() {
+            return element;
+        }
+    }
+
+    transient Handle<E>[] queue; // non-private to simplify nested class access
+
+    private int size = 0;
+
+    private final int arity;
+
+    private final Comparator<? super E> comparator;
+
+    transient int modCount = 0; // non-private to simplify nested class access
+
+    public IndexedPriorityQueue() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_ARITY, null);
+    }
+
+    public IndexedPriorityQueue(int initialCapacity) {
+        this(initialCapacity, DEFAULT_ARITY, null);
+    }
+
+    public IndexedPriorityQueue(Comparator<? super E> comparator) {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_ARITY, comparator);
+    }
+
+    @SuppressWarnings("unchecked")
+    public IndexedPriorityQueue(int initialCapacity, int arity,
+                                Comparator<? super E> comparator) {
+        if (initialCapacity < 1 || arity < 2)
+            throw new IllegalArgumentException();
+        this.queue = (Handle<E>[]) new Handle<?>[initialCapacity];
+        this.arity = arity;
+        this.comparator = comparator;
+    }
+
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private void grow(int minCapacity) {
+        int oldCapacity = queue.length;
+        int newCapacity = oldCapacity + ((oldCapacity < 64) ?
+                                         (oldCapacity + 2) :
+                                         (oldCapacity >> 1));
+        if (newCapacity - MAX_ARRAY_SIZE > 0)
+            newCapacity = hugeCapacity(minCapacity);
+        queue = Arrays.copyOf(queue, newCapacity);
+    }
+
+    private static int hugeCapacity(int minCapacity) {
+        if (minCapacity < 0) // overflow
+            throw new OutOfMemoryError();
+        return (minCapacity > MAX_ARRAY_SIZE) ?
+            Integer.MAX_VALUE :
+            MAX_ARRAY_SIZE;
+    }
+
+    public Handle<E> insert(E e) {
+        if (e == null)
+            throw new NullPointerException();
+        modCount++;
+        int i = size;
+        if (i >= queue.length)
+            grow(i + 1);
+        size = i + 1;
+        Handle<E> h = new Handle<>(e);
+        siftUp(i, h);
+        return h;
+    }
+
+    public boolean add(E e) {
+        return offer(e);
+    }
+
+    public boolean offer(E e) {
+        insert(e);
+        return true;
+    }
+
+    public E peek() {
+        return (size == 0) ? null : queue[0].element;
+    }
+
+    public Handle<E> peekHandle() {
+        return (size == 0) ? null : queue[0];
+    }
+
+    public E poll() {
+        if (size == 0)
+            return null;
+        int s = --size;
+        modCount++;
+        Handle<E> result = queue[0];
+        Handle<E> x = queue[s];
+        queue[s] = null;
+        if (s != 0)
+            siftDown(0, x);
+        result.index = -1;
+        return result.element;
+    }
+
+    public boolean containsHandle(Handle<E> h) {
+        int i = h.index;
+        return i >= 0 && i < size && queue[i] == h;
+    }
+
+    public boolean removeHandle(Handle<E> h) {
+        if (!containsHandle(h))
+            return false;
+        removeAt(h.index);
+        return true;
+    }
+
+    // The new element must not order after the current one.
+    public void decreaseKey(Handle<E> h, E e) {
+        checkHandle(h, e);
+        if (compare(e, h.element) > 0)
+            throw new IllegalArgumentException("key increased");
+        modCount++;
+        h.element = e;
+        siftUp(h.index, h);
+    }
+
+    // The new element must not order before the current one.
+    public void increaseKey(Handle<E> h, E e) {
+        checkHandle(h, e);
+        if (compare(e, h.element) < 0)
+            throw new IllegalArgumentException("key decreased");
+        modCount++;
+        h.element = e;
+        siftDown(h.index, h);
+    }
+
+    public void updateKey(Handle<E> h, E e) {
+        checkHandle(h, e);
+        modCount++;
+        h.element = e;
+        int i = h.index;
+        siftUp(i, h);
+        if (queue[i] == h)
+            siftDown(i, h);
+    }
+
+    private void checkHandle(Handle<E> h, E e) {
+        if (e == null)
+            throw new NullPointerException();
+        if (!containsHandle(h))
+            throw new IllegalArgumentException("handle not in queue");
+    }
+
+    private int indexOf(Object o) {
+        if (o != null) {
+            for (int i = 0; i < size; i++)
+                if (o.equals(queue[i].element))
+                    return i;
+        }
+        return -1;
+    }
+
+    public boolean remove(Object o) {
+        int i = indexOf(o);
+        if (i == -1)
+            return false;
+        else {
+            removeAt(i);
+            return true;
+        }
+    }
+
+    public boolean contains(Object o) {
+        return indexOf(o) != -1;
+    }
+
+    public Object[] toArray() {
+        Object[] a = new Object[size];
+        for (int i = 0; i < size; i++)
+            a[i] = queue[i].element;
+        return a;
+    }
+
+    public Iterator<E> iterator() {
+        return new Itr();
+    }
+
+    private final class Itr implements Iterator<E> {
+        private int cursor = 0;
+
+        private int lastRet = -1;
+
+        private ArrayDeque<Handle<E>> forgetMeNot = null;
+
+        private Handle<E> lastRetHandle = null;
+
+        private int expectedModCount = modCount;
+
+        public boolean hasNext() {
+            return cursor < size ||
+                (forgetMeNot != null && !forgetMeNot.isEmpty());
+        }
+
+        public E next() {
+            if (expectedModCount != modCount)
+                throw new ConcurrentModificationException();
+            if (cursor < size)
+                return queue[lastRet = cursor++].element;
+            if (forgetMeNot != null) {
+                lastRet = -1;
+                lastRetHandle = forgetMeNot.poll();
+                if (lastRetHandle != null)
+                    return lastRetHandle.element;
+            }
+            throw new NoSuchElementException();
+        }
+
+        public void remove() {
+            if (expectedModCount != modCount)
+                throw new ConcurrentModificationException();
+            if (lastRet != -1) {
+                Handle<E> moved = IndexedPriorityQueue.this.removeAt(lastRet);
+                lastRet = -1;
+                if (moved == null)
+                    cursor--;
+                else {
+                    if (forgetMeNot == null)
+                        forgetMeNot = new ArrayDeque<>();
+                    forgetMeNot.add(moved);
+                }
+            } else if (lastRetHandle != null) {
+                IndexedPriorityQueue.this.removeHandle(lastRetHandle);
+                lastRetHandle = null;
+            } else {
+                throw new IllegalStateException();
+            }
+            expectedModCount = modCount;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        modCount++;
+        for (int i = 0; i < size; i++) {
+            queue[i].index = -1;
+            queue[i] = null;
+        }
+        size = 0;
+    }
+
+    // Returns the handle moved from the end of the heap if it ended up
+    // before slot i, as PriorityQueue.removeAt does for its iterator.
+    private Handle<E> removeAt(int i) {
+        modCount++;
+        queue[i].index = -1;
+        int s = --size;
+        if (s == i) // removed last element
+            queue[i] = null;
+        else {
+            Handle<E> moved = queue[s];
+            queue[s] = null;
+            siftDown(i, moved);
+            if (queue[i] == moved) {
+                siftUp(i, moved);
+                if (queue[i] != moved)
+                    return moved;
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(E a, E b) {
+        return (comparator == null) ?
+            ((Comparable<? super E>) a).compareTo(b) :
+            comparator.compare(a, b);
+    }
+
+    private void siftUp(int k, Handle<E> x) {
+        Handle<E>[] q = queue;
+        int d = arity;
+        E key = x.element;
+        while (k > 0) {
+            int parent = (k - 1) / d;
+            Handle<E> e = q[parent];
+            if (compare(key, e.element) >= 0)
+                break;
+            q[k] = e;
+            e.index = k;
+            k = parent;
+        }
+        q[k] = x;
+        x.index = k;
+    }
+
+    private void siftDown(int k, Handle<E> x) {
+        Handle<E>[] q = queue;
+        int n = size, d = arity;
+        E key = x.element;
+        long first;
+        while ((first = (long) k * d + 1) < n) {
+            int child = (int) first;
+            int end = (n - child > d) ? child + d : n;
+            Handle<E> c = q[child];
+            for (int j = child + 1; j < end; j++) {
+                if (compare(q[j].element, c.element) < 0)
+                    c = q[child = j];
+            }
+            if (compare(key, c.element) <= 0)
+                break;
+            q[k] = c;
+            c.index = k;
+            k = child;
+        }
+        q[k] = x;
+        x.index = k;
+    }
+
+    public Comparator<? super E> comparator() {
+        return comparator;
+    }
+
+    public int arity() {
+        return arity;
+    }
+}
@@ -0,0 +1,760 @@
+
+package java.util;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.Serializable;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+public class IntIntMap implements Cloneable, Serializable {
+
+    private static final long serialVersionUID = 2285716823196459802L;
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(int key, int value);
+    }
+
+    final float loadFactor;
+
+    // value reported by get/put/remove when there is no mapping
+    final int noEntryValue;
+
+    // 0 marks a free slot; key 0 itself lives in the extra slot keys[mask + 1]
+    transient int[] keys;
+
+    transient int[] vals;
+
+    transient boolean containsZero;
+
+    transient int mask;
+
+    transient int size;
+
+    transient int maxFill;
+
+    transient int modCount;
+
+    transient Map<Integer,Integer> mapView;
+
+    public IntIntMap(int initialCapacity, float loadFactor, int noEntryValue) {
+        this.loadFactor = OpenHashing.checkLoadFactor(loadFactor);
+        this.noEntryValue = noEntryValue;
+        allocate(OpenHashing.arraySize(
+            OpenHashing.checkCapacity(initialCapacity), loadFactor));
+    }
+
+    public IntIntMap(int initialCapacity, float loadFactor) {
+        this(initialCapacity, loadFactor, 0);
+    }
+
+    public IntIntMap(int initialCapacity) {
+        this(initialCapacity, OpenHashing.DEFAULT_LOAD_FACTOR, 0);
+    }
+
+    public IntIntMap() {
+        this(OpenHashing.DEFAULT_INITIAL_CAPACITY, OpenHashing.DEFAULT_LOAD_FACTOR, 0);
+    }
+
+    public IntIntMap(IntIntMap m) {
+        this(m.size, m.loadFactor, m.noEntryValue);
+        putAll(m);
+    }
+
+    private void allocate(int n) {
+        keys = new int[n + 1];
+        vals = new int[n + 1];
+        mask = n - 1;
+        maxFill = OpenHashing.maxFill(n, loadFactor);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int noEntryValue() {
+        return noEntryValue;
+    }
+
+    final int find(int k) {
+        if (k == 0)
+            return containsZero ? mask + 1 : -1;
+        int[] key = keys;
+        int m = mask, pos = OpenHashing.mix(k) & m, curr;
+        while ((curr = key[pos]) != 0) {
+            if (curr == k)
+                return pos;
+            pos = (pos + 1) & m;
+        }
+        return -1;
+    }
+
+    public boolean containsKey(int key) {
+        return find(key) >= 0;
+    }
+
+    public boolean containsValue(int value) {
+        int[] val = vals;
+        int[] key = keys;
+        if (containsZero && val[mask + 1] == value)
+            return true;
+        for (int i = mask; i >= 0; i--) {
+            if (key[i] != 0 && val[i] == value)
+                return true;
+        }
+        return false;
+    }
+
+    public int get(int key) {
+        int pos = find(key);
+        return (pos < 0) ? noEntryValue : vals[pos];
+    }
+
+    public int getOrDefault(int key, int defaultValue) {
+        int pos = find(key);
+        return (pos < 0) ? defaultValue : vals[pos];
+    }
+
+    // slot holding k, or -(insertion point + 1) when k is absent
+    final int insertionSlot(int k) {
+        if (k == 0)
+            return containsZero ? mask + 1 : -(mask + 2);
+        int[] key = keys;
+        int m = mask, pos = OpenHashing.mix(k) & m, curr;
+        while ((curr = key[pos]) != 0) {
+            if (curr == k)
+                return pos;
+            pos = (pos + 1) & m;
+        }
+        return -(pos + 1);
+    }
+
+    final void insertAt(int pos, int k, int v) {
+        if (pos == mask + 1)
+            containsZero = true;
+        else
+            keys[pos] = k;
+        vals[pos] = v;
+        ++modCount;
+        if (++size > maxFill)
+            rehash((keys.length - 1) << 1);
+    }
+
+    public int put(int key, int value) {
+        int pos = insertionSlot(key);
+        if (pos >= 0) {
+            int oldValue = vals[pos];
+            vals[pos] = value;
+            return oldValue;
+        }
+        insertAt(-pos - 1, key, value);
+        return noEntryValue;
+    }
+
+    public int putIfAbsent(int key, int value) {
+        int pos = insertionSlot(key);
+        if (pos >= 0)
+            return vals[pos];
+        insertAt(-pos - 1, key, value);
+        return noEntryValue;
+    }
+
+    // adds incr to the value for key (starting from noEntryValue when
+    // absent) and returns the previous value
+    public int addTo(int key, int incr) {
+        int pos = insertionSlot(key);
+        if (pos >= 0) {
+            int oldValue = vals[pos];
+            vals[pos] = oldValue + incr;
+            return oldValue;
+        }
+        insertAt(-pos - 1, key, noEntryValue + incr);
+        return noEntryValue;
+    }
+
+    public void putAll(IntIntMap m) {
+        if (m.size > maxFill)
+            ensureCapacity(m.size);
+        int[] key = m.keys;
+        int[] val = m.vals;
+        int n = key.length - 1;
+        if (m.containsZero)
+            put(0, val[n]);
+        for (int i = 0; i < n; i++) {
+            int k;
+            if ((k = key[i]) != 0)
+                put(k, val[i]);
+        }
+    }
+
+    public int computeIfAbsent(int key, IntUnaryOperator mappingFunction) {
+        if (mappingFunction == null)
+            throw new NullPointerException();
+        int pos = insertionSlot(key);
+        if (pos >= 0)
+            return vals[pos];
+        int mc = modCount;
+        int v = mappingFunction.applyAsInt(key);
+        if (mc != modCount)
+            throw new ConcurrentModificationException();
+        insertAt(-pos - 1, key, v);
+        return v;
+    }
+
+    public int remove(int key) {
+        int pos = find(key);
+        if (pos < 0)
+            return noEntryValue;
+        int oldValue = vals[pos];
+        removeAt(pos, null);
+        return oldValue;
+    }
+
+    final void removeAt(int pos, SlotIterator it) {
+        if (pos == mask + 1)
+            containsZero = false;
+        else
+            shiftKeys(pos, it);
+        --size;
+        ++modCount;
+    }
+
+    // Backward-shift deletion: close the gap left at pos by moving later
+    // members of the probe run down, so no tombstones are ever needed.
+    final void shiftKeys(int pos, SlotIterator it) {
+        int[] key = keys;
+        int[] val = vals;
+        int m = mask, last, slot, curr;
+        for (;;) {
+            pos = ((last = pos) + 1) & m;
+            for (;;) {
+                if ((curr = key[pos]) == 0) {
+                    key[last] = 0;
+                    return;
+                }
+                slot = OpenHashing.mix(curr) & m;
+                if (last <= pos ? last >= slot || slot > pos
+                                : last >= slot && slot > pos)
+                    break;
+                pos = (pos + 1) & m;
+            }
+            if (pos < last && it != null)
+                it.addWrapped(pos);
+            key[last] = curr;
+            val[last] = val[pos];
+        }
+    }
+
+    public void clear() {
+        if (size > 0) {
+            ++modCount;
+            size = 0;
+            containsZero = false;
+            Arrays.fill(keys, 0);
+        }
+    }
+
+    public void ensureCapacity(int expected) {
+        int n = OpenHashing.arraySize(expected, loadFactor);
+        if (n > keys.length - 1)
+            rehash(n);
+    }
+
+    public void trimToSize() {
+        int n = OpenHashing.arraySize(size, loadFactor);
+        if (n < keys.length - 1)
+            rehash(n);
+    }
+
+    final void rehash(int newN) {
+        int[] oldKeys = keys;
+        int[] oldVals = vals;
+        int oldN = oldKeys.length - 1;
+        int[] key = new int[newN + 1];
+        int[] val = new int[newN + 1];
+        int m = newN - 1;
+        for (int i = 0; i < oldN; i++) {
+            int k;
+            if ((k = oldKeys[i]) != 0) {
+                int pos = OpenHashing.mix(k) & m;
+                while (key[pos] != 0)
+                    pos = (pos + 1) & m;
+                key[pos] = k;
+                val[pos] = oldVals[i];
+            }
+        }
+        val[newN] = oldVals[oldN];
+        keys = key;
+        vals = val;
+        mask = m;
+        maxFill = OpenHashing.maxFill(newN, loadFactor);
+    }
+
+    public void forEach(EntryConsumer action) {
+        if (action == null)
+            throw new NullPointerException();
+        int[] key = keys;
+        int[] val = vals;
+        int n = key.length - 1;
+        int mc = modCount;
+        if (containsZero)
+            action.accept(0, val[n]);
+        for (int i = 0; i < n && mc == modCount; i++) {
+            int k;
+            if ((k = key[i]) != 0)
+                action.accept(k, val[i]);
+        }
+        if (mc != modCount)
+            throw new ConcurrentModificationException();
+    }
+
+    public PrimitiveIterator.OfInt keyIterator() {
+        return new KeyIterator();
+    }
+
+    public PrimitiveIterator.OfInt valueIterator() {
+        return new ValueIterator();
+    }
+
+    public Spliterator.OfInt keySpliterator() {
+        return new KeySpliterator(this, 0, -1, 0, 0);
+    }
+
+    public IntStream keyStream() {
+        return StreamSupport.intStream(keySpliterator(), false);
+    }
+
+    public int[] keysToArray() {
+        int[] a = new int[size];
+        int j = 0;
+        int[] key = keys;
+        int n = key.length - 1;
+        if (containsZero)
+            a[j++] = 0;
+        for (int i = 0; i < n; i++) {
+            if (key[i] != 0)
+                a[j++] = key[i];
+        }
+        return a;
+    }
+
+    public Map<Integer,Integer> asMap() {
+        Map<Integer,Integer> mv;
+        return (mv = mapView) == null ? (mapView = new MapView()) : mv;
+    }
+
+    public boolean equals(Object o) {
+        if (o == this)
+            return true;
+        if (!(o instanceof IntIntMap))
+            return false;
+        IntIntMap m = (IntIntMap)o;
+        if (m.size != size)
+            return false;
+        int[] key = keys;
+        int[] val = vals;
+        int n = key.length - 1;
+        if (containsZero && !m.matches(0, val[n]))
+            return false;
+        for (int i = 0; i < n; i++) {
+            if (key[i] != 0 && !m.matches(key[i], val[i]))
+                return false;
+        }
+        return true;
+    }
+
+    private boolean matches(int k, int v) {
+        int pos = find(k);
+        return pos >= 0 && vals[pos] == v;
+    }
+
+    // same value as asMap().hashCode()
+    public int hashCode() {
+        int h = 0;
+        int[] key = keys;
+        int[] val = vals;
+        int n = key.length - 1;
+        if (containsZero)
+            h += val[n];
+        for (int i = 0; i < n; i++) {
+            if (key[i] != 0)
+                h += key[i] ^ val[i];
+        }
+        return h;
+    }
+
+    public String toString() {
+        if (size == 0)
+            return "{}";
+        StringBuilder sb = new StringBuilder();
+        sb.append('{');
+        PrimitiveIterator.OfInt it = keyIterator();
+        for (;;) {
+            int k = it.nextInt();
+            sb.append(k).append('=').append(get(k));
+            if (!it.hasNext())
+                return sb.append('}').toString();
+            sb.append(',').append(' ');
+        }
+    }
+
+    public IntIntMap clone() {
+        IntIntMap result;
+        try {
+            result = (IntIntMap)super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+        result.keys = keys.clone();
+        result.vals = vals.clone();
+        result.mapView = null;
+        result.modCount = 0;
+        return result;
+    }
+
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws IOException {
+        s.defaultWriteObject();
+        s.writeInt(size);
+        int[] key = keys;
+        int[] val = vals;
+        int n = key.length - 1;
+        if (containsZero) {
+            s.writeInt(0);
+            s.writeInt(val[n]);
+        }
+        for (int i = 0; i < n; i++) {
+            if (key[i] != 0) {
+                s.writeInt(key[i]);
+                s.writeInt(val[i]);
+            }
+        }
+    }
+
+    private void readObject(java.io.ObjectInputStream s)
+        throws IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        if (!(loadFactor > 0.0f && loadFactor < 1.0f))
+            throw new InvalidObjectException("Illegal load factor: " +
+                                             loadFactor);
+        int mappings = s.readInt();
+        if (mappings < 0)
+            throw new InvalidObjectException("Illegal mappings count: " +
+                                             mappings);
+        allocate(OpenHashing.arraySize(mappings, loadFactor));
+        for (int i = 0; i < mappings; i++) {
+            int k = s.readInt();
+            put(k, s.readInt());
+        }
+    }
+
+    /* ------------------------------------------------------------ */
+    // iterators
+
+    // Walks the table from the top down. A removal that shifts an entry
+    // across the wraparound point (from an unvisited low slot into a
+    // visited high one) parks that entry in wrapped[] so it is still seen.
+    abstract class SlotIterator {
+        int pos = mask + 1;
+        int last = -1;
+        int remaining = size;
+        boolean mustReturnZero = containsZero;
+        int[] wrapped;
+        int wrappedCount;
+        int expectedModCount = modCount;
+
+        public final boolean hasNext() {
+            return remaining != 0;
+        }
+
+        // returns the slot of the next entry, or -(w + 2) for wrapped[w]
+        final int nextSlot() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (remaining == 0)
+                throw new NoSuchElementException();
+            remaining--;
+            if (mustReturnZero) {
+                mustReturnZero = false;
+                return last = mask + 1;
+            }
+            int[] key = keys;
+            for (;;) {
+                if (--pos < 0) {
+                    last = Integer.MIN_VALUE;
+                    return -(--wrappedCount + 2);
+                }
+                if (key[pos] != 0)
+                    return last = pos;
+            }
+        }
+
+        final int keyAt(int slot) {
+            return (slot >= 0) ? keys[slot] : wrapped[-slot - 2];
+        }
+
+        final int valAt(int slot) {
+            return vals[(slot >= 0) ? slot : find(wrapped[-slot - 2])];
+        }
+
+        final void addWrapped(int pos) {
+            if (wrapped == null)
+                wrapped = new int[2];
+            else if (wrappedCount == wrapped.length)
+                wrapped = Arrays.copyOf(wrapped, wrappedCount << 1);
+            wrapped[wrappedCount++] = keys[pos];
+        }
+
+        public final void remove() {
+            if (last == -1)
+                throw new IllegalStateException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (last == Integer.MIN_VALUE)
+                removeAt(find(wrapped[wrappedCount]), null);
+            else
+                removeAt(last, this);
+            last = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    final class KeyIterator extends SlotIterator
+        implements PrimitiveIterator.OfInt {
+        public int nextInt() {
+            return keyAt(nextSlot());
+        }
+    }
+
+    final class ValueIterator extends SlotIterator
+        implements PrimitiveIterator.OfInt {
+        public int nextInt() {
+            return valAt(nextSlot());
+        }
+    }
+
+    final class EntryIterator extends SlotIterator
+        implements Iterator<Map.Entry<Integer,Integer>> {
+        public Map.Entry<Integer,Integer> next() {
+            int slot = nextSlot();
+            return new MapEntry(keyAt(slot), valAt(slot));
+        }
+    }
+
+    static final class KeySpliterator implements Spliterator.OfInt {
+        final IntIntMap map;
+        int index;                  // current slot, modified on advance/split
+        int fence;                  // one past last slot
+        int est;                    // size estimate
+        int expectedModCount;       // for comodification checks
+
+        KeySpliterator(IntIntMap m, int origin, int fence, int est,
+                       int expectedModCount) {
+            this.map = m;
+            this.index = origin;
+            this.fence = fence;
+            this.est = est;
+            this.expectedModCount = expectedModCount;
+        }
+
+        final int getFence() { // initialize fence and size on first use
+            int hi;
+            if ((hi = fence) < 0) {
+                IntIntMap m = map;
+                est = m.size;
+                expectedModCount = m.modCount;
+                hi = fence = m.keys.length;
+            }
+            return hi;
+        }
+
+        public KeySpliterator trySplit() {
+            int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
+            return (lo >= mid) ? null :
+                new KeySpliterator(map, lo, index = mid, est >>>= 1,
+                                   expectedModCount);
+        }
+
+        public boolean tryAdvance(IntConsumer action) {
+            if (action == null)
+                throw new NullPointerException();
+            int hi = getFence();
+            IntIntMap m = map;
+            int[] key = m.keys;
+            int z = key.length - 1;
+            if (key.length >= hi) {
+                while (index < hi) {
+                    int i = index++, k = key[i];
+                    if (k != 0 || (i == z && m.containsZero)) {
+                        action.accept(k);
+                        if (m.modCount != expectedModCount)
+                            throw new ConcurrentModificationException();
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        public void forEachRemaining(IntConsumer action) {
+            if (action == null)
+                throw new NullPointerException();
+            int hi = getFence(), mc = expectedModCount;
+            IntIntMap m = map;
+            int[] key = m.keys;
+            int z = key.length - 1;
+            int i = index;
+            if (key.length >= hi && i >= 0 && i < (index = hi)) {
+                for (; i < hi; i++) {
+                    int k = key[i];
+                    if (k != 0 || (i == z && m.containsZero))
+                        action.accept(k);
+                }
+                if (m.modCount != mc)
+                    throw new ConcurrentModificationException();
+            }
+        }
+
+        public long estimateSize() {
+            getFence(); // force init
+            return (long) est;
+        }
+
+        public int characteristics() {
+            return (fence < 0 || est == map.size ? Spliterator.SIZED : 0) |
+                Spliterator.DISTINCT | Spliterator.NONNULL;
+        }
+    }
+
+    /* ------------------------------------------------------------ */
+    // boxed view
+
+    final class MapEntry implements Map.Entry<Integer,Integer> {
+        final int key;
+        int value;
+
+        MapEntry(int key, int value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        public Integer getKey()   { return key; }
+        public Integer getValue() { return value; }
+        public String toString()  { return key + "=" + value; }
+
+        public Integer setValue(Integer newValue) {
+            int oldValue = value;
+            put(key, value = newValue);
+            return oldValue;
+        }
+
+        public int hashCode() {
+            return key ^ value;
+        }
+
+        public boolean equals(Object o) {
+            if (o == this)
+                return true;
+            if (o instanceof Map.Entry) {
+                Map.Entry<?,?> e = (Map.Entry<?,?>)o;
+                return Integer.valueOf(key).equals(e.getKey()) &&
+                    Integer.valueOf(value).equals(e.getValue());
+            }
+            return false;
+        }
+    }
+
+    final class MapView extends AbstractMap<Integer,Integer> {
+        private transient Set<Map.Entry<Integer,Integer>> entrySet;
+
+        public int size()                     { return size; }
+        public void clear()                   { IntIntMap.this.clear(); }
+
+        public boolean containsValue(Object v) {
+            return (v instanceof Integer) &&
+                IntIntMap.this.containsValue((Integer)v);
+        }
+
+        public boolean containsKey(Object key) {
+            return (key instanceof Integer) &&
+                IntIntMap.this.containsKey((Integer)key);
+        }
+
+        public Integer get(Object key) {
+            int pos;
+            return (key instanceof Integer && (pos = find((Integer)key)) >= 0) ?
+                Integer.valueOf(vals[pos]) : null;
+        }
+
+        public Integer put(Integer key, Integer value) {
+            int pos = insertionSlot(key);
+            int v = value;
+            if (pos >= 0) {
+                int oldValue = vals[pos];
+                vals[pos] = v;
+                return oldValue;
+            }
+            insertAt(-pos - 1, key, v);
+            return null;
+        }
+
+        public Integer remove(Object key) {
+            int pos;
+            if (!(key instanceof Integer) || (pos = find((Integer)key)) < 0)
+                return null;
+            int oldValue = vals[pos];
+            removeAt(pos, null);
+            return oldValue;
+        }
+
+        public Set<Map.Entry<Integer,Integer>> entrySet() {
+            Set<Map.Entry<Integer,Integer>> es;
+            return (es = entrySet) == null ? (entrySet = new EntrySet()) : es;
+        }
+
+        public void forEach(java.util.function.BiConsumer<? super Integer, ? super Integer> action) {
+            if (action == null)
+                throw new NullPointerException();
+            IntIntMap.this.forEach(action::accept);
+        }
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<Integer,Integer>> {
+        public int size()                 { return size; }
+        public void clear()               { IntIntMap.this.clear(); }
+        public Iterator<Map.Entry<Integer,Integer>> iterator() {
+            return new EntryIterator();
+        }
+
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+            Object key = e.getKey(), value = e.getValue();
+            return (key instanceof Integer) && (value instanceof Integer) &&
+                matches((Integer)key, (Integer)value);
+        }
+
+        public boolean remove(Object o) {
+            if (contains(o)) {
+                IntIntMap.this.remove((Integer)((Map.Entry<?,?>)o).getKey());
+                return true;
+            }
+            return false;
+        }
+
+        public final void forEach(Consumer<? super Map.Entry<Integer,Integer>> action) {
+            if (action == null)
+                throw new NullPointerException();
+            IntIntMap.this.forEach((k, v) -> action.accept(new MapEntry(k, v)));
+        }
+    }
+}
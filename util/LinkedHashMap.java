@@ -28,7 +28,7 @@ public class LinkedHashMap<K,V>
     final boolean accessOrder;
 
 
-    private void linkNodeLast(LinkedHashMap.Entry<K,V> p) {
+    void linkNodeLast(LinkedHashMap.Entry<K,V> p) {
         LinkedHashMap.Entry<K,V> last = tail;
         tail = p;
         if (last == null)
@@ -39,8 +39,8 @@ public class LinkedHashMap<K,V>
         }
     }
 
-    private void transferLinks(LinkedHashMap.Entry<K,V> src,
-                               LinkedHashMap.Entry<K,V> dst) {
+    void transferLinks(LinkedHashMap.Entry<K,V> src,
+                       LinkedHashMap.Entry<K,V> dst) {
         LinkedHashMap.Entry<K,V> b = dst.before = src.before;
         LinkedHashMap.Entry<K,V> a = dst.after = src.after;
         if (b == null)
@@ -224,7 +224,8 @@ public class LinkedHashMap<K,V>
         public final Spliterator<K> spliterator()  {
             return Spliterators.spliterator(this, Spliterator.SIZED |
                                             Spliterator.ORDERED |
-                                            Spliterator.DISTINCT);
+                                            Spliterator.DISTINCT,
+                                            Spliterators.SplitPolicy.adaptive());
         }
         public final void forEach(Consumer<? super K> action) {
             if (action == null)
@@ -251,7 +252,8 @@ public class LinkedHashMap<K,V>
         public final boolean contains(Object o) { return containsValue(o); }
         public final Spliterator<V> spliterator() {
             return Spliterators.spliterator(this, Spliterator.SIZED |
-                                            Spliterator.ORDERED);
+                                            Spliterator.ORDERED,
+                                            Spliterators.SplitPolicy.adaptive());
         }
         public final void forEach(Consumer<? super V> action) {
             if (action == null)
@@ -295,7 +297,8 @@ public class LinkedHashMap<K,V>
         public final Spliterator<Map.Entry<K,V>> spliterator() {
             return Spliterators.spliterator(this, Spliterator.SIZED |
                                             Spliterator.ORDERED |
-                                            Spliterator.DISTINCT);
+                                            Spliterator.DISTINCT,
+                                            Spliterators.SplitPolicy.adaptive());
         }
         public final void forEach(Consumer<? super Map.Entry<K,V>> action) {
             if (action == null)
@@ -27,6 +27,7 @@ public class LinkedHashSet<E>
 
     @Override
     public Spliterator<E> spliterator() {
-        return Spliterators.spliterator(this, Spliterator.DISTINCT | Spliterator.ORDERED);
+        return Spliterators.spliterator(this, Spliterator.DISTINCT | Spliterator.ORDERED,
+                                        Spliterators.SplitPolicy.adaptive());
     }
 }
@@ -53,6 +53,17 @@ public interface List<E> extends Collection<E> {
         }
     }
 
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    default void sort(Comparator<? super E> c, SortContext ctx) {
+        Object[] a = this.toArray();
+        Arrays.sort(a, (Comparator) c, ctx);
+        ListIterator<E> i = this.listIterator();
+        for (Object e : a) {
+            i.next();
+            i.set((E) e);
+        }
+    }
+
     void clear();
 
 
@@ -87,6 +98,36 @@ public interface List<E> extends Collection<E> {
 
     @Override
     default Spliterator<E> spliterator() {
-        return Spliterators.spliterator(this, Spliterator.ORDERED);
+        return Spliterators.spliterator(this, Spliterator.ORDERED,
+                                        Spliterators.SplitPolicy.adaptive());
+    }
+
+    // Immutable lists backed by fields or one flat array; see
+    // ImmutableCollections. Nulls are rejected.
+    @SuppressWarnings("unchecked")
+    static <E> List<E> of() {
+        return (List<E>) ImmutableCollections.ListN.EMPTY;
+    }
+
+    static <E> List<E> of(E e1) {
+        return new ImmutableCollections.List12<>(e1);
+    }
+
+    static <E> List<E> of(E e1, E e2) {
+        return new ImmutableCollections.List12<>(e1, e2);
+    }
+
+    @SafeVarargs
+    @SuppressWarnings("varargs")
+    static <E> List<E> of(E... elements) {
+        return ImmutableCollections.listFromArray(elements);
+    }
+
+    // returns coll itself when it is already one of these lists
+    @SuppressWarnings("unchecked")
+    static <E> List<E> copyOf(Collection<? extends E> coll) {
+        if (coll instanceof ImmutableCollections.AbstractImmutableList)
+            return (List<E>) coll;
+        return ImmutableCollections.listFromArray(coll.toArray());
     }
 }
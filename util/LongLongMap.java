@@ -0,0 +1,764 @@
+
+package java.util;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.Serializable;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.LongUnaryOperator;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+public class LongLongMap implements Cloneable, Serializable {
+
+    private static final long serialVersionUID = -3528015772983362870L;
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long key, long value);
+    }
+
+    final float loadFactor;
+
+    // value reported by get/put/remove when there is no mapping
+    final long noEntryValue;
+
+    // 0 marks a free slot; key 0 itself lives in the extra slot keys[mask + 1]
+    transient long[] keys;
+
+    transient long[] vals;
+
+    transient boolean containsZero;
+
+    transient int mask;
+
+    transient int size;
+
+    transient int maxFill;
+
+    transient int modCount;
+
+    transient Map<Long,Long> mapView;
+
+    public LongLongMap(int initialCapacity, float loadFactor, long noEntryValue) {
+        this.loadFactor = OpenHashing.checkLoadFactor(loadFactor);
+        this.noEntryValue = noEntryValue;
+        allocate(OpenHashing.arraySize(
+            OpenHashing.checkCapacity(initialCapacity), loadFactor));
+    }
+
+    public LongLongMap(int initialCapacity, float loadFactor) {
+        this(initialCapacity, loadFactor, 0L);
+    }
+
+    public LongLongMap(int initialCapacity) {
+        this(initialCapacity, OpenHashing.DEFAULT_LOAD_FACTOR, 0L);
+    }
+
+    public LongLongMap() {
+        this(OpenHashing.DEFAULT_INITIAL_CAPACITY, OpenHashing.DEFAULT_LOAD_FACTOR, 0L);
+    }
+
+    public LongLongMap(LongLongMap m) {
+        this(m.size, m.loadFactor, m.noEntryValue);
+        putAll(m);
+    }
+
+    private void allocate(int n) {
+        keys = new long[n + 1];
+        vals = new long[n + 1];
+        mask = n - 1;
+        maxFill = OpenHashing.maxFill(n, loadFactor);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long noEntryValue() {
+        return noEntryValue;
+    }
+
+    final int find(long k) {
+        if (k == 0)
+            return containsZero ? mask + 1 : -1;
+        long[] key = keys;
+        int m = mask, pos = OpenHashing.mix(k) & m;
+        long curr;
+        while ((curr = key[pos]) != 0) {
+            if (curr == k)
+                return pos;
+            pos = (pos + 1) & m;
+        }
+        return -1;
+    }
+
+    public boolean containsKey(long key) {
+        return find(key) >= 0;
+    }
+
+    public boolean containsValue(long value) {
+        long[] val = vals;
+        long[] key = keys;
+        if (containsZero && val[mask + 1] == value)
+            return true;
+        for (int i = mask; i >= 0; i--) {
+            if (key[i] != 0 && val[i] == value)
+                return true;
+        }
+        return false;
+    }
+
+    public long get(long key) {
+        int pos = find(key);
+        return (pos < 0) ? noEntryValue : vals[pos];
+    }
+
+    public long getOrDefault(long key, long defaultValue) {
+        int pos = find(key);
+        return (pos < 0) ? defaultValue : vals[pos];
+    }
+
+    // slot holding k, or -(insertion point + 1) when k is absent
+    final int insertionSlot(long k) {
+        if (k == 0)
+            return containsZero ? mask + 1 : -(mask + 2);
+        long[] key = keys;
+        int m = mask, pos = OpenHashing.mix(k) & m;
+        long curr;
+        while ((curr = key[pos]) != 0) {
+            if (curr == k)
+                return pos;
+            pos = (pos + 1) & m;
+        }
+        return -(pos + 1);
+    }
+
+    final void insertAt(int pos, long k, long v) {
+        if (pos == mask + 1)
+            containsZero = true;
+        else
+            keys[pos] = k;
+        vals[pos] = v;
+        ++modCount;
+        if (++size > maxFill)
+            rehash((keys.length - 1) << 1);
+    }
+
+    public long put(long key, long value) {
+        int pos = insertionSlot(key);
+        if (pos >= 0) {
+            long oldValue = vals[pos];
+            vals[pos] = value;
+            return oldValue;
+        }
+        insertAt(-pos - 1, key, value);
+        return noEntryValue;
+    }
+
+    public long putIfAbsent(long key, long value) {
+        int pos = insertionSlot(key);
+        if (pos >= 0)
+            return vals[pos];
+        insertAt(-pos - 1, key, value);
+        return noEntryValue;
+    }
+
+    // adds incr to the value for key (starting from noEntryValue when
+    // absent) and returns the previous value
+    public long addTo(long key, long incr) {
+        int pos = insertionSlot(key);
+        if (pos >= 0) {
+            long oldValue = vals[pos];
+            vals[pos] = oldValue + incr;
+            return oldValue;
+        }
+        insertAt(-pos - 1, key, noEntryValue + incr);
+        return noEntryValue;
+    }
+
+    public void putAll(LongLongMap m) {
+        if (m.size > maxFill)
+            ensureCapacity(m.size);
+        long[] key = m.keys;
+        long[] val = m.vals;
+        int n = key.length - 1;
+        if (m.containsZero)
+            put(0, val[n]);
+        for (int i = 0; i < n; i++) {
+            long k;
+            if ((k = key[i]) != 0)
+                put(k, val[i]);
+        }
+    }
+
+    public long computeIfAbsent(long key, LongUnaryOperator mappingFunction) {
+        if (mappingFunction == null)
+            throw new NullPointerException();
+        int pos = insertionSlot(key);
+        if (pos >= 0)
+            return vals[pos];
+        int mc = modCount;
+        long v = mappingFunction.applyAsLong(key);
+        if (mc != modCount)
+            throw new ConcurrentModificationException();
+        insertAt(-pos - 1, key, v);
+        return v;
+    }
+
+    public long remove(long key) {
+        int pos = find(key);
+        if (pos < 0)
+            return noEntryValue;
+        long oldValue = vals[pos];
+        removeAt(pos, null);
+        return oldValue;
+    }
+
+    final void removeAt(int pos, SlotIterator it) {
+        if (pos == mask + 1)
+            containsZero = false;
+        else
+            shiftKeys(pos, it);
+        --size;
+        ++modCount;
+    }
+
+    // Backward-shift deletion: close the gap left at pos by moving later
+    // members of the probe run down, so no tombstones are ever needed.
+    final void shiftKeys(int pos, SlotIterator it) {
+        long[] key = keys;
+        long[] val = vals;
+        int m = mask, last, slot;
+        long curr;
+        for (;;) {
+            pos = ((last = pos) + 1) & m;
+            for (;;) {
+                if ((curr = key[pos]) == 0) {
+                    key[last] = 0;
+                    return;
+                }
+                slot = OpenHashing.mix(curr) & m;
+                if (last <= pos ? last >= slot || slot > pos
+                                : last >= slot && slot > pos)
+                    break;
+                pos = (pos + 1) & m;
+            }
+            if (pos < last && it != null)
+                it.addWrapped(pos);
+            key[last] = curr;
+            val[last] = val[pos];
+        }
+    }
+
+    public void clear() {
+        if (size > 0) {
+            ++modCount;
+            size = 0;
+            containsZero = false;
+            Arrays.fill(keys, 0);
+        }
+    }
+
+    public void ensureCapacity(int expected) {
+        int n = OpenHashing.arraySize(expected, loadFactor);
+        if (n > keys.length - 1)
+            rehash(n);
+    }
+
+    public void trimToSize() {
+        int n = OpenHashing.arraySize(size, loadFactor);
+        if (n < keys.length - 1)
+            rehash(n);
+    }
+
+    final void rehash(int newN) {
+        long[] oldKeys = keys;
+        long[] oldVals = vals;
+        int oldN = oldKeys.length - 1;
+        long[] key = new long[newN + 1];
+        long[] val = new long[newN + 1];
+        int m = newN - 1;
+        for (int i = 0; i < oldN; i++) {
+            long k;
+            if ((k = oldKeys[i]) != 0) {
+                int pos = OpenHashing.mix(k) & m;
+                while (key[pos] != 0)
+                    pos = (pos + 1) & m;
+                key[pos] = k;
+                val[pos] = oldVals[i];
+            }
+        }
+        val[newN] = oldVals[oldN];
+        keys = key;
+        vals = val;
+        mask = m;
+        maxFill = OpenHashing.maxFill(newN, loadFactor);
+    }
+
+    public void forEach(EntryConsumer action) {
+        if (action == null)
+            throw new NullPointerException();
+        long[] key = keys;
+        long[] val = vals;
+        int n = key.length - 1;
+        int mc = modCount;
+        if (containsZero)
+            action.accept(0, val[n]);
+        for (int i = 0; i < n && mc == modCount; i++) {
+            long k;
+            if ((k = key[i]) != 0)
+                action.accept(k, val[i]);
+        }
+        if (mc != modCount)
+            throw new ConcurrentModificationException();
+    }
+
+    public PrimitiveIterator.OfLong keyIterator() {
+        return new KeyIterator();
+    }
+
+    public PrimitiveIterator.OfLong valueIterator() {
+        return new ValueIterator();
+    }
+
+    public Spliterator.OfLong keySpliterator() {
+        return new KeySpliterator(this, 0, -1, 0, 0);
+    }
+
+    public LongStream keyStream() {
+        return StreamSupport.longStream(keySpliterator(), false);
+    }
+
+    public long[] keysToArray() {
+        long[] a = new long[size];
+        int j = 0;
+        long[] key = keys;
+        int n = key.length - 1;
+        if (containsZero)
+            a[j++] = 0;
+        for (int i = 0; i < n; i++) {
+            if (key[i] != 0)
+                a[j++] = key[i];
+        }
+        return a;
+    }
+
+    public Map<Long,Long> asMap() {
+        Map<Long,Long> mv;
+        return (mv = mapView) == null ? (mapView = new MapView()) : mv;
+    }
+
+    public boolean equals(Object o) {
+        if (o == this)
+            return true;
+        if (!(o instanceof LongLongMap))
+            return false;
+        LongLongMap m = (LongLongMap)o;
+        if (m.size != size)
+            return false;
+        long[] key = keys;
+        long[] val = vals;
+        int n = key.length - 1;
+        if (containsZero && !m.matches(0, val[n]))
+            return false;
+        for (int i = 0; i < n; i++) {
+            if (key[i] != 0 && !m.matches(key[i], val[i]))
+                return false;
+        }
+        return true;
+    }
+
+    private boolean matches(long k, long v) {
+        int pos = find(k);
+        return pos >= 0 && vals[pos] == v;
+    }
+
+    // same value as asMap().hashCode()
+    public int hashCode() {
+        int h = 0;
+        long[] key = keys;
+        long[] val = vals;
+        int n = key.length - 1;
+        if (containsZero)
+            h += Long.hashCode(val[n]);
+        for (int i = 0; i < n; i++) {
+            if (key[i] != 0)
+                h += Long.hashCode(key[i]) ^ Long.hashCode(val[i]);
+        }
+        return h;
+    }
+
+    public String toString() {
+        if (size == 0)
+            return "{}";
+        StringBuilder sb = new StringBuilder();
+        sb.append('{');
+        PrimitiveIterator.OfLong it = keyIterator();
+        for (;;) {
+            long k = it.nextLong();
+            sb.append(k).append('=').append(get(k));
+            if (!it.hasNext())
+                return sb.append('}').toString();
+            sb.append(',').append(' ');
+        }
+    }
+
+    public LongLongMap clone() {
+        LongLongMap result;
+        try {
+            result = (LongLongMap)super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+        result.keys = keys.clone();
+        result.vals = vals.clone();
+        result.mapView = null;
+        result.modCount = 0;
+        return result;
+    }
+
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws IOException {
+        s.defaultWriteObject();
+        s.writeInt(size);
+        long[] key = keys;
+        long[] val = vals;
+        int n = key.length - 1;
+        if (containsZero) {
+            s.writeLong(0L);
+            s.writeLong(val[n]);
+        }
+        for (int i = 0; i < n; i++) {
+            if (key[i] != 0) {
+                s.writeLong(key[i]);
+                s.writeLong(val[i]);
+            }
+        }
+    }
+
+    private void readObject(java.io.ObjectInputStream s)
+        throws IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        if (!(loadFactor > 0.0f && loadFactor < 1.0f))
+            throw new InvalidObjectException("Illegal load factor: " +
+                                             loadFactor);
+        int mappings = s.readInt();
+        if (mappings < 0)
+            throw new InvalidObjectException("Illegal mappings count: " +
+                                             mappings);
+        allocate(OpenHashing.arraySize(mappings, loadFactor));
+        for (int i = 0; i < mappings; i++) {
+            long k = s.readLong();
+            put(k, s.readLong());
+        }
+    }
+
+    /* ------------------------------------------------------------ */
+    // iterators
+
+    // Walks the table from the top down. A removal that shifts an entry
+    // across the wraparound point (from an unvisited low slot into a
+    // visited high one) parks that entry in wrapped[] so it is still seen.
+    abstract class SlotIterator {
+        int pos = mask + 1;
+        int last = -1;
+        int remaining = size;
+        boolean mustReturnZero = containsZero;
+        long[] wrapped;
+        int wrappedCount;
+        int expectedModCount = modCount;
+
+        public final boolean hasNext() {
+            return remaining != 0;
+        }
+
+        // returns the slot of the next entry, or -(w + 2) for wrapped[w]
+        final int nextSlot() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (remaining == 0)
+                throw new NoSuchElementException();
+            remaining--;
+            if (mustReturnZero) {
+                mustReturnZero = false;
+                return last = mask + 1;
+            }
+            long[] key = keys;
+            for (;;) {
+                if (--pos < 0) {
+                    last = Integer.MIN_VALUE;
+                    return -(--wrappedCount + 2);
+                }
+                if (key[pos] != 0)
+                    return last = pos;
+            }
+        }
+
+        final long keyAt(int slot) {
+            return (slot >= 0) ? keys[slot] : wrapped[-slot - 2];
+        }
+
+        final long valAt(int slot) {
+            return vals[(slot >= 0) ? slot : find(wrapped[-slot - 2])];
+        }
+
+        final void addWrapped(int pos) {
+            if (wrapped == null)
+                wrapped = new long[2];
+            else if (wrappedCount == wrapped.length)
+                wrapped = Arrays.copyOf(wrapped, wrappedCount << 1);
+            wrapped[wrappedCount++] = keys[pos];
+        }
+
+        public final void remove() {
+            if (last == -1)
+                throw new IllegalStateException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (last == Integer.MIN_VALUE)
+                removeAt(find(wrapped[wrappedCount]), null);
+            else
+                removeAt(last, this);
+            last = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    final class KeyIterator extends SlotIterator
+        implements PrimitiveIterator.OfLong {
+        public long nextLong() {
+            return keyAt(nextSlot());
+        }
+    }
+
+    final class ValueIterator extends SlotIterator
+        implements PrimitiveIterator.OfLong {
+        public long nextLong() {
+            return valAt(nextSlot());
+        }
+    }
+
+    final class EntryIterator extends SlotIterator
+        implements Iterator<Map.Entry<Long,Long>> {
+        public Map.Entry<Long,Long> next() {
+            int slot = nextSlot();
+            return new MapEntry(keyAt(slot), valAt(slot));
+        }
+    }
+
+    static final class KeySpliterator implements Spliterator.OfLong {
+        final LongLongMap map;
+        int index;                  // current slot, modified on advance/split
+        int fence;                  // one past last slot
+        int est;                    // size estimate
+        int expectedModCount;       // for comodification checks
+
+        KeySpliterator(LongLongMap m, int origin, int fence, int est,
+                       int expectedModCount) {
+            this.map = m;
+            this.index = origin;
+            this.fence = fence;
+            this.est = est;
+            this.expectedModCount = expectedModCount;
+        }
+
+        final int getFence() { // initialize fence and size on first use
+            int hi;
+            if ((hi = fence) < 0) {
+                LongLongMap m = map;
+                est = m.size;
+                expectedModCount = m.modCount;
+                hi = fence = m.keys.length;
+            }
+            return hi;
+        }
+
+        public KeySpliterator trySplit() {
+            int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
+            return (lo >= mid) ? null :
+                new KeySpliterator(map, lo, index = mid, est >>>= 1,
+                                   expectedModCount);
+        }
+
+        public boolean tryAdvance(LongConsumer action) {
+            if (action == null)
+                throw new NullPointerException();
+            int hi = getFence();
+            LongLongMap m = map;
+            long[] key = m.keys;
+            int z = key.length - 1;
+            if (key.length >= hi) {
+                while (index < hi) {
+                    int i = index++;
+                    long k = key[i];
+                    if (k != 0 || (i == z && m.containsZero)) {
+                        action.accept(k);
+                        if (m.modCount != expectedModCount)
+                            throw new ConcurrentModificationException();
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        public void forEachRemaining(LongConsumer action) {
+            if (action == null)
+                throw new NullPointerException();
+            int hi = getFence(), mc = expectedModCount;
+            LongLongMap m = map;
+            long[] key = m.keys;
+            int z = key.length - 1;
+            int i = index;
+            if (key.length >= hi && i >= 0 && i < (index = hi)) {
+                for (; i < hi; i++) {
+                    long k = key[i];
+                    if (k != 0 || (i == z && m.containsZero))
+                        action.accept(k);
+                }
+                if (m.modCount != mc)
+                    throw new ConcurrentModificationException();
+            }
+        }
+
+        public long estimateSize() {
+            getFence(); // force init
+            return (long) est;
+        }
+
+        public int characteristics() {
+            return (fence < 0 || est == map.size ? Spliterator.SIZED : 0) |
+                Spliterator.DISTINCT | Spliterator.NONNULL;
+        }
+    }
+
+    /* ------------------------------------------------------------ */
+    // boxed view
+
+    final class MapEntry implements Map.Entry<Long,Long> {
+        final long key;
+        long value;
+
+        MapEntry(long key, long value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        public Long getKey()      { return key; }
+        public Long getValue()    { return value; }
+        public String toString()  { return key + "=" + value; }
+
+        public Long setValue(Long newValue) {
+            long oldValue = value;
+            put(key, value = newValue);
+            return oldValue;
+        }
+
+        public int hashCode() {
+            return Long.hashCode(key) ^ Long.hashCode(value);
+        }
+
+        public boolean equals(Object o) {
+            if (o == this)
+                return true;
+            if (o instanceof Map.Entry) {
+                Map.Entry<?,?> e = (Map.Entry<?,?>)o;
+                return Long.valueOf(key).equals(e.getKey()) &&
+                    Long.valueOf(value).equals(e.getValue());
+            }
+            return false;
+        }
+    }
+
+    final class MapView extends AbstractMap<Long,Long> {
+        private transient Set<Map.Entry<Long,Long>> entrySet;
+
+        public int size()                     { return size; }
+        public void clear()                   { LongLongMap.this.clear(); }
+
+        public boolean containsValue(Object v) {
+            return (v instanceof Long) &&
+                LongLongMap.this.containsValue((Long)v);
+        }
+
+        public boolean containsKey(Object key) {
+            return (key instanceof Long) &&
+                LongLongMap.this.containsKey((Long)key);
+        }
+
+        public Long get(Object key) {
+            int pos;
+            return (key instanceof Long && (pos = find((Long)key)) >= 0) ?
+                Long.valueOf(vals[pos]) : null;
+        }
+
+        public Long put(Long key, Long value) {
+            int pos = insertionSlot(key);
+            long v = value;
+            if (pos >= 0) {
+                long oldValue = vals[pos];
+                vals[pos] = v;
+                return oldValue;
+            }
+            insertAt(-pos - 1, key, v);
+            return null;
+        }
+
+        public Long remove(Object key) {
+            int pos;
+            if (!(key instanceof Long) || (pos = find((Long)key)) < 0)
+                return null;
+            long oldValue = vals[pos];
+            removeAt(pos, null);
+            return oldValue;
+        }
+
+        public Set<Map.Entry<Long,Long>> entrySet() {
+            Set<Map.Entry<Long,Long>> es;
+            return (es = entrySet) == null ? (entrySet = new EntrySet()) : es;
+        }
+
+        public void forEach(java.util.function.BiConsumer<? super Long, ? super Long> action) {
+            if (action == null)
+                throw new NullPointerException();
+            LongLongMap.this.forEach(action::accept);
+        }
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<Long,Long>> {
+        public int size()                 { return size; }
+        public void clear()               { LongLongMap.this.clear(); }
+        public Iterator<Map.Entry<Long,Long>> iterator() {
+            return new EntryIterator();
+        }
+
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+            Object key = e.getKey(), value = e.getValue();
+            return (key instanceof Long) && (value instanceof Long) &&
+                matches((Long)key, (Long)value);
+        }
+
+        public boolean remove(Object o) {
+            if (contains(o)) {
+                LongLongMap.this.remove((Long)((Map.Entry<?,?>)o).getKey());
+                return true;
+            }
+            return false;
+        }
+
+        public final void forEach(Consumer<? super Map.Entry<Long,Long>> action) {
+            if (action == null)
+                throw new NullPointerException();
+            LongLongMap.this.forEach((k, v) -> action.accept(new MapEntry(k, v)));
+        }
+    }
+}
@@ -0,0 +1,758 @@
+
+package java.util;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.Serializable;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.LongFunction;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+public class LongObjectMap<V> implements Cloneable, Serializable {
+
+    private static final long serialVersionUID = 6723390471855612837L;
+
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+        void accept(long key, V value);
+    }
+
+    final float loadFactor;
+
+    // 0 marks a free slot; key 0 itself lives in the extra slot keys[mask + 1]
+    transient long[] keys;
+
+    transient Object[] vals;
+
+    transient boolean containsZero;
+
+    transient int mask;
+
+    transient int size;
+
+    transient int maxFill;
+
+    transient int modCount;
+
+    transient Map<Long,V> mapView;
+
+    public LongObjectMap(int initialCapacity, float loadFactor) {
+        this.loadFactor = OpenHashing.checkLoadFactor(loadFactor);
+        allocate(OpenHashing.arraySize(
+            OpenHashing.checkCapacity(initialCapacity), loadFactor));
+    }
+
+    public LongObjectMap(int initialCapacity) {
+        this(initialCapacity, OpenHashing.DEFAULT_LOAD_FACTOR);
+    }
+
+    public LongObjectMap() {
+        this(OpenHashing.DEFAULT_INITIAL_CAPACITY, OpenHashing.DEFAULT_LOAD_FACTOR);
+    }
+
+    public LongObjectMap(LongObjectMap<? extends V> m) {
+        this(m.size, m.loadFactor);
+        putAll(m);
+    }
+
+    private void allocate(int n) {
+        keys = new long[n + 1];
+        vals = new Object[n + 1];
+        mask = n - 1;
+        maxFill = OpenHashing.maxFill(n, loadFactor);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    final int find(long k) {
+        if (k == 0)
+            return containsZero ? mask + 1 : -1;
+        long[] key = keys;
+        int m = mask, pos = OpenHashing.mix(k) & m;
+        long curr;
+        while ((curr = key[pos]) != 0) {
+            if (curr == k)
+                return pos;
+            pos = (pos + 1) & m;
+        }
+        return -1;
+    }
+
+    public boolean containsKey(long key) {
+        return find(key) >= 0;
+    }
+
+    public boolean containsValue(Object value) {
+        Object[] val = vals;
+        long[] key = keys;
+        if (containsZero && Objects.equals(val[mask + 1], value))
+            return true;
+        for (int i = mask; i >= 0; i--) {
+            if (key[i] != 0 && Objects.equals(val[i], value))
+                return true;
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int pos = find(key);
+        return (pos < 0) ? null : (V)vals[pos];
+    }
+
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(long key, V defaultValue) {
+        int pos = find(key);
+        return (pos < 0) ? defaultValue : (V)vals[pos];
+    }
+
+    // slot holding k, or -(insertion point + 1) when k is absent
+    final int insertionSlot(long k) {
+        if (k == 0)
+            return containsZero ? mask + 1 : -(mask + 2);
+        long[] key = keys;
+        int m = mask, pos = OpenHashing.mix(k) & m;
+        long curr;
+        while ((curr = key[pos]) != 0) {
+            if (curr == k)
+                return pos;
+            pos = (pos + 1) & m;
+        }
+        return -(pos + 1);
+    }
+
+    final void insertAt(int pos, long k, V v) {
+        if (pos == mask + 1)
+            containsZero = true;
+        else
+            keys[pos] = k;
+        vals[pos] = v;
+        ++modCount;
+        if (++size > maxFill)
+            rehash((keys.length - 1) << 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        int pos = insertionSlot(key);
+        if (pos >= 0) {
+            V oldValue = (V)vals[pos];
+            vals[pos] = value;
+            return oldValue;
+        }
+        insertAt(-pos - 1, key, value);
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V putIfAbsent(long key, V value) {
+        int pos = insertionSlot(key);
+        if (pos >= 0) {
+            V oldValue = (V)vals[pos];
+            if (oldValue != null)
+                return oldValue;
+            vals[pos] = value;
+            return null;
+        }
+        insertAt(-pos - 1, key, value);
+        return null;
+    }
+
+    public void putAll(LongObjectMap<? extends V> m) {
+        if (m.size > maxFill)
+            ensureCapacity(m.size);
+        long[] key = m.keys;
+        int n = key.length - 1;
+        if (m.containsZero)
+            put(0, m.valueAt(n));
+        for (int i = 0; i < n; i++) {
+            long k;
+            if ((k = key[i]) != 0)
+                put(k, m.valueAt(i));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    final V valueAt(int pos) {
+        return (V)vals[pos];
+    }
+
+    @SuppressWarnings("unchecked")
+    public V computeIfAbsent(long key,
+                             LongFunction<? extends V> mappingFunction) {
+        if (mappingFunction == null)
+            throw new NullPointerException();
+        int pos = insertionSlot(key);
+        V v;
+        if (pos >= 0 && (v = (V)vals[pos]) != null)
+            return v;
+        int mc = modCount;
+        v = mappingFunction.apply(key);
+        if (mc != modCount)
+            throw new ConcurrentModificationException();
+        if (v == null)
+            return null;
+        if (pos >= 0)
+            vals[pos] = v;
+        else
+            insertAt(-pos - 1, key, v);
+        return v;
+    }
+
+    public V remove(long key) {
+        int pos = find(key);
+        if (pos < 0)
+            return null;
+        V oldValue = valueAt(pos);
+        removeAt(pos, null);
+        return oldValue;
+    }
+
+    final void removeAt(int pos, SlotIterator it) {
+        if (pos == mask + 1) {
+            containsZero = false;
+            vals[pos] = null;
+        } else
+            shiftKeys(pos, it);
+        --size;
+        ++modCount;
+    }
+
+    // Backward-shift deletion: close the gap left at pos by moving later
+    // members of the probe run down, so no tombstones are ever needed.
+    final void shiftKeys(int pos, SlotIterator it) {
+        long[] key = keys;
+        Object[] val = vals;
+        int m = mask, last, slot;
+        long curr;
+        for (;;) {
+            pos = ((last = pos) + 1) & m;
+            for (;;) {
+                if ((curr = key[pos]) == 0) {
+                    key[last] = 0;
+                    val[last] = null;
+                    return;
+                }
+                slot = OpenHashing.mix(curr) & m;
+                if (last <= pos ? last >= slot || slot > pos
+                                : last >= slot && slot > pos)
+                    break;
+                pos = (pos + 1) & m;
+            }
+            if (pos < last && it != null)
+                it.addWrapped(pos);
+            key[last] = curr;
+            val[last] = val[pos];
+        }
+    }
+
+    public void clear() {
+        if (size > 0) {
+            ++modCount;
+            size = 0;
+            containsZero = false;
+            Arrays.fill(keys, 0);
+            Arrays.fill(vals, null);
+        }
+    }
+
+    public void ensureCapacity(int expected) {
+        int n = OpenHashing.arraySize(expected, loadFactor);
+        if (n > keys.length - 1)
+            rehash(n);
+    }
+
+    public void trimToSize() {
+        int n = OpenHashing.arraySize(size, loadFactor);
+        if (n < keys.length - 1)
+            rehash(n);
+    }
+
+    final void rehash(int newN) {
+        long[] oldKeys = keys;
+        Object[] oldVals = vals;
+        int oldN = oldKeys.length - 1;
+        long[] key = new long[newN + 1];
+        Object[] val = new Object[newN + 1];
+        int m = newN - 1;
+        for (int i = 0; i < oldN; i++) {
+            long k;
+            if ((k = oldKeys[i]) != 0) {
+                int pos = OpenHashing.mix(k) & m;
+                while (key[pos] != 0)
+                    pos = (pos + 1) & m;
+                key[pos] = k;
+                val[pos] = oldVals[i];
+            }
+        }
+        val[newN] = oldVals[oldN];
+        keys = key;
+        vals = val;
+        mask = m;
+        maxFill = OpenHashing.maxFill(newN, loadFactor);
+    }
+
+    public void forEach(EntryConsumer<? super V> action) {
+        if (action == null)
+            throw new NullPointerException();
+        long[] key = keys;
+        int n = key.length - 1;
+        int mc = modCount;
+        if (containsZero)
+            action.accept(0, valueAt(n));
+        for (int i = 0; i < n && mc == modCount; i++) {
+            long k;
+            if ((k = key[i]) != 0)
+                action.accept(k, valueAt(i));
+        }
+        if (mc != modCount)
+            throw new ConcurrentModificationException();
+    }
+
+    public PrimitiveIterator.OfLong keyIterator() {
+        return new KeyIterator();
+    }
+
+    public Spliterator.OfLong keySpliterator() {
+        return new KeySpliterator(this, 0, -1, 0, 0);
+    }
+
+    public LongStream keyStream() {
+        return StreamSupport.longStream(keySpliterator(), false);
+    }
+
+    public long[] keysToArray() {
+        long[] a = new long[size];
+        int j = 0;
+        long[] key = keys;
+        int n = key.length - 1;
+        if (containsZero)
+            a[j++] = 0;
+        for (int i = 0; i < n; i++) {
+            if (key[i] != 0)
+                a[j++] = key[i];
+        }
+        return a;
+    }
+
+    public Map<Long,V> asMap() {
+        Map<Long,V> mv;
+        return (mv = mapView) == null ? (mapView = new MapView()) : mv;
+    }
+
+    public boolean equals(Object o) {
+        if (o == this)
+            return true;
+        if (!(o instanceof LongObjectMap))
+            return false;
+        LongObjectMap<?> m = (LongObjectMap<?>)o;
+        if (m.size != size)
+            return false;
+        long[] key = keys;
+        int n = key.length - 1;
+        if (containsZero && !m.matches(0, vals[n]))
+            return false;
+        for (int i = 0; i < n; i++) {
+            if (key[i] != 0 && !m.matches(key[i], vals[i]))
+                return false;
+        }
+        return true;
+    }
+
+    private boolean matches(long k, Object v) {
+        int pos = find(k);
+        return pos >= 0 && Objects.equals(vals[pos], v);
+    }
+
+    // same value as asMap().hashCode()
+    public int hashCode() {
+        int h = 0;
+        long[] key = keys;
+        int n = key.length - 1;
+        if (containsZero)
+            h += Objects.hashCode(vals[n]);
+        for (int i = 0; i < n; i++) {
+            if (key[i] != 0)
+                h += Long.hashCode(key[i]) ^ Objects.hashCode(vals[i]);
+        }
+        return h;
+    }
+
+    public String toString() {
+        if (size == 0)
+            return "{}";
+        StringBuilder sb = new StringBuilder();
+        sb.append('{');
+        PrimitiveIterator.OfLong it = keyIterator();
+        for (;;) {
+            long k = it.nextLong();
+            Object v = get(k);
+            sb.append(k).append('=').append(v == this ? "(this Map)" : v);
+            if (!it.hasNext())
+                return sb.append('}').toString();
+            sb.append(',').append(' ');
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public LongObjectMap<V> clone() {
+        LongObjectMap<V> result;
+        try {
+            result = (LongObjectMap<V>)super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+        result.keys = keys.clone();
+        result.vals = vals.clone();
+        result.mapView = null;
+        result.modCount = 0;
+        return result;
+    }
+
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws IOException {
+        s.defaultWriteObject();
+        s.writeInt(size);
+        long[] key = keys;
+        int n = key.length - 1;
+        if (containsZero) {
+            s.writeLong(0L);
+            s.writeObject(vals[n]);
+        }
+        for (int i = 0; i < n; i++) {
+            if (key[i] != 0) {
+                s.writeLong(key[i]);
+                s.writeObject(vals[i]);
+            }
+        }
+    }
+
+    private void readObject(java.io.ObjectInputStream s)
+        throws IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        if (!(loadFactor > 0.0f && loadFactor < 1.0f))
+            throw new InvalidObjectException("Illegal load factor: " +
+                                             loadFactor);
+        int mappings = s.readInt();
+        if (mappings < 0)
+            throw new InvalidObjectException("Illegal mappings count: " +
+                                             mappings);
+        allocate(OpenHashing.arraySize(mappings, loadFactor));
+        for (int i = 0; i < mappings; i++) {
+            long k = s.readLong();
+            @SuppressWarnings("unchecked")
+                V v = (V) s.readObject();
+            put(k, v);
+        }
+    }
+
+    /* ------------------------------------------------------------ */
+    // iterators
+
+    // Walks the table from the top down. A removal that shifts an entry
+    // across the wraparound point (from an unvisited low slot into a
+    // visited high one) parks that entry in wrapped[] so it is still seen.
+    abstract class SlotIterator {
+        int pos = mask + 1;
+        int last = -1;
+        int remaining = size;
+        boolean mustReturnZero = containsZero;
+        long[] wrapped;
+        int wrappedCount;
+        int expectedModCount = modCount;
+
+        public final boolean hasNext() {
+            return remaining != 0;
+        }
+
+        // returns the slot of the next entry, or -(w + 2) for wrapped[w]
+        final int nextSlot() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (remaining == 0)
+                throw new NoSuchElementException();
+            remaining--;
+            if (mustReturnZero) {
+                mustReturnZero = false;
+                return last = mask + 1;
+            }
+            long[] key = keys;
+            for (;;) {
+                if (--pos < 0) {
+                    last = Integer.MIN_VALUE;
+                    return -(--wrappedCount + 2);
+                }
+                if (key[pos] != 0)
+                    return last = pos;
+            }
+        }
+
+        final long keyAt(int slot) {
+            return (slot >= 0) ? keys[slot] : wrapped[-slot - 2];
+        }
+
+        final V valAt(int slot) {
+            return valueAt((slot >= 0) ? slot : find(wrapped[-slot - 2]));
+        }
+
+        final void addWrapped(int pos) {
+            if (wrapped == null)
+                wrapped = new long[2];
+            else if (wrappedCount == wrapped.length)
+                wrapped = Arrays.copyOf(wrapped, wrappedCount << 1);
+            wrapped[wrappedCount++] = keys[pos];
+        }
+
+        public final void remove() {
+            if (last == -1)
+                throw new IllegalStateException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (last == Integer.MIN_VALUE)
+                removeAt(find(wrapped[wrappedCount]), null);
+            else
+                removeAt(last, this);
+            last = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    final class KeyIterator extends SlotIterator
+        implements PrimitiveIterator.OfLong {
+        public long nextLong() {
+            return keyAt(nextSlot());
+        }
+    }
+
+    final class EntryIterator extends SlotIterator
+        implements Iterator<Map.Entry<Long,V>> {
+        public Map.Entry<Long,V> next() {
+            int slot = nextSlot();
+            return new MapEntry(keyAt(slot), valAt(slot));
+        }
+    }
+
+    final class ValueIterator extends SlotIterator implements Iterator<V> {
+        public V next() {
+            return valAt(nextSlot());
+        }
+    }
+
+    static final class KeySpliterator implements Spliterator.OfLong {
+        final LongObjectMap<?> map;
+        int index;                  // current slot, modified on advance/split
+        int fence;                  // one past last slot
+        int est;                    // size estimate
+        int expectedModCount;       // for comodification checks
+
+        KeySpliterator(LongObjectMap<?> m, int origin, int fence, int est,
+                       int expectedModCount) {
+            this.map = m;
+            this.index = origin;
+            this.fence = fence;
+            this.est = est;
+            this.expectedModCount = expectedModCount;
+        }
+
+        final int getFence() { // initialize fence and size on first use
+            int hi;
+            if ((hi = fence) < 0) {
+                LongObjectMap<?> m = map;
+                est = m.size;
+                expectedModCount = m.modCount;
+                hi = fence = m.keys.length;
+            }
+            return hi;
+        }
+
+        public KeySpliterator trySplit() {
+            int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
+            return (lo >= mid) ? null :
+                new KeySpliterator(map, lo, index = mid, est >>>= 1,
+                                   expectedModCount);
+        }
+
+        public boolean tryAdvance(LongConsumer action) {
+            if (action == null)
+                throw new NullPointerException();
+            int hi = getFence();
+            LongObjectMap<?> m = map;
+            long[] key = m.keys;
+            int z = key.length - 1;
+            if (key.length >= hi) {
+                while (index < hi) {
+                    int i = index++;
+                    long k = key[i];
+                    if (k != 0 || (i == z && m.containsZero)) {
+                        action.accept(k);
+                        if (m.modCount != expectedModCount)
+                            throw new ConcurrentModificationException();
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        public void forEachRemaining(LongConsumer action) {
+            if (action == null)
+                throw new NullPointerException();
+            int hi = getFence(), mc = expectedModCount;
+            LongObjectMap<?> m = map;
+            long[] key = m.keys;
+            int z = key.length - 1;
+            int i = index;
+            if (key.length >= hi && i >= 0 && i < (index = hi)) {
+                for (; i < hi; i++) {
+                    long k = key[i];
+                    if (k != 0 || (i == z && m.containsZero))
+                        action.accept(k);
+                }
+                if (m.modCount != mc)
+                    throw new ConcurrentModificationException();
+            }
+        }
+
+        public long estimateSize() {
+            getFence(); // force init
+            return (long) est;
+        }
+
+        public int characteristics() {
+            return (fence < 0 || est == map.size ? Spliterator.SIZED : 0) |
+                Spliterator.DISTINCT | Spliterator.NONNULL;
+        }
+    }
+
+    /* ------------------------------------------------------------ */
+    // boxed view
+
+    final class MapEntry implements Map.Entry<Long,V> {
+        final long key;
+        V value;
+
+        MapEntry(long key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        public Long getKey()   { return key; }
+        public V getValue()       { return value; }
+        public String toString()  { return key + "=" + value; }
+
+        public V setValue(V newValue) {
+            V oldValue = value;
+            put(key, value = newValue);
+            return oldValue;
+        }
+
+        public int hashCode() {
+            return Long.hashCode(key) ^ Objects.hashCode(value);
+        }
+
+        public boolean equals(Object o) {
+            if (o == this)
+                return true;
+            if (o instanceof Map.Entry) {
+                Map.Entry<?,?> e = (Map.Entry<?,?>)o;
+                return Long.valueOf(key).equals(e.getKey()) &&
+                    Objects.equals(value, e.getValue());
+            }
+            return false;
+        }
+    }
+
+    final class MapView extends AbstractMap<Long,V> {
+        private transient Set<Map.Entry<Long,V>> entrySet;
+
+        public int size()                     { return size; }
+        public void clear()                   { LongObjectMap.this.clear(); }
+        public boolean containsValue(Object v) {
+            return LongObjectMap.this.containsValue(v);
+        }
+
+        public boolean containsKey(Object key) {
+            return (key instanceof Long) &&
+                LongObjectMap.this.containsKey((Long)key);
+        }
+
+        public V get(Object key) {
+            return (key instanceof Long) ?
+                LongObjectMap.this.get((Long)key) : null;
+        }
+
+        public V getOrDefault(Object key, V defaultValue) {
+            return (key instanceof Long) ?
+                LongObjectMap.this.getOrDefault((Long)key, defaultValue) :
+                defaultValue;
+        }
+
+        public V put(Long key, V value) {
+            return LongObjectMap.this.put(key, value);
+        }
+
+        public V remove(Object key) {
+            return (key instanceof Long) ?
+                LongObjectMap.this.remove((Long)key) : null;
+        }
+
+        public Set<Map.Entry<Long,V>> entrySet() {
+            Set<Map.Entry<Long,V>> es;
+            return (es = entrySet) == null ? (entrySet = new EntrySet()) : es;
+        }
+
+        public Collection<V> values() {
+            return new AbstractCollection<V>() {
+                public int size()                 { return size; }
+                public void clear()               { LongObjectMap.this.clear(); }
+                public Iterator<V> iterator()     { return new ValueIterator(); }
+                public boolean contains(Object o) { return containsValue(o); }
+            };
+        }
+
+        public void forEach(java.util.function.BiConsumer<? super Long, ? super V> action) {
+            if (action == null)
+                throw new NullPointerException();
+            LongObjectMap.this.forEach(action::accept);
+        }
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<Long,V>> {
+        public int size()                 { return size; }
+        public void clear()               { LongObjectMap.this.clear(); }
+        public Iterator<Map.Entry<Long,V>> iterator() {
+            return new EntryIterator();
+        }
+
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+            Object key = e.getKey();
+            return (key instanceof Long) &&
+                matches((Long)key, e.getValue());
+        }
+
+        public boolean remove(Object o) {
+            if (contains(o)) {
+                LongObjectMap.this.remove((Long)((Map.Entry<?,?>)o).getKey());
+                return true;
+            }
+            return false;
+        }
+
+        public final void forEach(Consumer<? super Map.Entry<Long,V>> action) {
+            if (action == null)
+                throw new NullPointerException();
+            LongObjectMap.this.forEach((k, v) -> action.accept(new MapEntry(k, v)));
+        }
+    }
+}
@@ -224,4 +224,101 @@ public interface Map<K,V> {
         }
         return newValue;
     }
+
+    // Immutable maps backed by fields or one open-addressing array of keys
+    // and values; see ImmutableCollections. Null keys or values and
+    // duplicate keys are rejected.
+    @SuppressWarnings("unchecked")
+    static <K, V> Map<K, V> of() {
+        return (Map<K,V>) ImmutableCollections.MapN.EMPTY;
+    }
+
+    static <K, V> Map<K, V> of(K k1, V v1) {
+        return new ImmutableCollections.Map12<>(k1, v1);
+    }
+
+    static <K, V> Map<K, V> of(K k1, V v1, K k2, V v2) {
+        return new ImmutableCollections.Map12<>(k1, v1, k2, v2);
+    }
+
+    static <K, V> Map<K, V> of(K k1, V v1, K k2, V v2, K k3, V v3) {
+        return ImmutableCollections.mapFromArray(new Object[] { k1, v1, k2, v2, k3, v3 });
+    }
+
+    static <K, V> Map<K, V> of(K k1, V v1, K k2, V v2, K k3, V v3, K k4, V v4) {
+        return ImmutableCollections.mapFromArray(new Object[] {
+            k1, v1, k2, v2, k3, v3, k4, v4 });
+    }
+
+    static <K, V> Map<K, V> of(K k1, V v1, K k2, V v2, K k3, V v3, K k4, V v4,
+                               K k5, V v5) {
+        return ImmutableCollections.mapFromArray(new Object[] {
+            k1, v1, k2, v2, k3, v3, k4, v4, k5, v5 });
+    }
+
+    static <K, V> Map<K, V> of(K k1, V v1, K k2, V v2, K k3, V v3, K k4, V v4,
+                               K k5, V v5, K k6, V v6) {
+        return ImmutableCollections.mapFromArray(new Object[] {
+            k1, v1, k2, v2, k3, v3, k4, v4, k5, v5, k6, v6 });
+    }
+
+    static <K, V> Map<K, V> of(K k1, V v1, K k2, V v2, K k3, V v3, K k4, V v4,
+                               K k5, V v5, K k6, V v6, K k7, V v7) {
+        return ImmutableCollections.mapFromArray(new Object[] {
+            k1, v1, k2, v2, k3, v3, k4, v4, k5, v5, k6, v6, k7, v7 });
+    }
+
+    static <K, V> Map<K, V> of(K k1, V v1, K k2, V v2, K k3, V v3, K k4, V v4,
+                               K k5, V v5, K k6, V v6, K k7, V v7, K k8, V v8) {
+        return ImmutableCollections.mapFromArray(new Object[] {
+            k1, v1, k2, v2, k3, v3, k4, v4, k5, v5, k6, v6, k7, v7, k8, v8 });
+    }
+
+    static <K, V> Map<K, V> of(K k1, V v1, K k2, V v2, K k3, V v3, K k4, V v4,
+                               K k5, V v5, K k6, V v6, K k7, V v7, K k8, V v8,
+                               K k9, V v9) {
+        return ImmutableCollections.mapFromArray(new Object[] {
+            k1, v1, k2, v2, k3, v3, k4, v4, k5, v5, k6, v6, k7, v7, k8, v8,
+            k9, v9 });
+    }
+
+    static <K, V> Map<K, V> of(K k1, V v1, K k2, V v2, K k3, V v3, K k4, V v4,
+                               K k5, V v5, K k6, V v6, K k7, V v7, K k8, V v8,
+                               K k9, V v9, K k10, V v10) {
+        return ImmutableCollections.mapFromArray(new Object[] {
+            k1, v1, k2, v2, k3, v3, k4, v4, k5, v5, k6, v6, k7, v7, k8, v8,
+            k9, v9, k10, v10 });
+    }
+
+    @SafeVarargs
+    static <K, V> Map<K, V> ofEntries(Entry<? extends K, ? extends V>... entries) {
+        Object[] kvs = new Object[entries.length << 1];
+        int i = 0;
+        for (Entry<? extends K, ? extends V> e : entries) {
+            kvs[i++] = e.getKey();
+            kvs[i++] = e.getValue();
+        }
+        return ImmutableCollections.mapFromArray(kvs);
+    }
+
+    static <K, V> Entry<K, V> entry(K k, V v) {
+        return new AbstractMap.SimpleImmutableEntry<>(Objects.requireNonNull(k),
+                                                      Objects.requireNonNull(v));
+    }
+
+    // returns map itself when it is already one of these maps
+    @SuppressWarnings("unchecked")
+    static <K, V> Map<K, V> copyOf(Map<? extends K, ? extends V> map) {
+        if (map instanceof ImmutableCollections.AbstractImmutableMap)
+            return (Map<K,V>) map;
+        Object[] es = map.entrySet().toArray();
+        Object[] kvs = new Object[es.length << 1];
+        int i = 0;
+        for (Object o : es) {
+            Entry<?,?> e = (Entry<?,?>) o;
+            kvs[i++] = e.getKey();
+            kvs[i++] = e.getValue();
+        }
+        return ImmutableCollections.mapFromArray(kvs);
+    }
 }
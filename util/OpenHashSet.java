@@ -0,0 +1,524 @@
+package java.util;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.Serializable;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+// A HashSet without the HashMap underneath: elements sit in one flat
+// array probed linearly, next to an int array caching each element's
+// mixed hash, so there is no Node and no PRESENT value per element. The
+// cached hash is compared before equals is called and lets resize and
+// deletion move elements without calling hashCode again. Deletion shifts
+// the rest of the probe run back (as in IntObjectMap), so no tombstones
+// build up under churn. Per element this costs one reference and one int
+// over the load factor, against a 32-byte Node plus a table slot.
+public class OpenHashSet<E> extends AbstractSet<E>
+    implements Set<E>, Cloneable, Serializable {
+
+    private static final long serialVersionUID = 3581274626081294817L;
+
+    final float loadFactor;
+
+    // null marks a free slot; the extra slot elems[mask + 1] stands for the
+    // null element when containsNull is set
+    transient Object[] elems;
+
+    transient int[] hashes;
+
+    transient boolean containsNull;
+
+    transient int mask;
+
+    transient int size;
+
+    transient int maxFill;
+
+    transient int modCount;
+
+    public OpenHashSet(int initialCapacity, float loadFactor) {
+        this.loadFactor = OpenHashing.checkLoadFactor(loadFactor);
+        allocate(OpenHashing.arraySize(
+            OpenHashing.checkCapacity(initialCapacity), loadFactor));
+    }
+
+    public OpenHashSet(int initialCapacity) {
+        this(initialCapacity, OpenHashing.DEFAULT_LOAD_FACTOR);
+    }
+
+    public OpenHashSet() {
+        this(OpenHashing.DEFAULT_INITIAL_CAPACITY, OpenHashing.DEFAULT_LOAD_FACTOR);
+    }
+
+    public OpenHashSet(Collection<? extends E> c) {
+        this(c.size(), OpenHashing.DEFAULT_LOAD_FACTOR);
+        addAll(c);
+    }
+
+    private void allocate(int n) {
+        elems = new Object[n + 1];
+        hashes = new int[n];
+        mask = n - 1;
+        maxFill = OpenHashing.maxFill(n, loadFactor);
+    }
+
+    static int hash(Object o) {
+        return OpenHashing.mix(o.hashCode());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // slot holding o, or -(insertion point + 1) when o is absent
+    final int slot(Object o, int h) {
+        Object[] elem = elems;
+        int[] hs = hashes;
+        int m = mask, pos = h & m;
+        Object curr;
+        while ((curr = elem[pos]) != null) {
+            if (hs[pos] == h && (curr == o || o.equals(curr)))
+                return pos;
+            pos = (pos + 1) & m;
+        }
+        return -(pos + 1);
+    }
+
+    public boolean contains(Object o) {
+        return (o == null) ? containsNull : slot(o, hash(o)) >= 0;
+    }
+
+    public boolean add(E e) {
+        if (e == null) {
+            if (containsNull)
+                return false;
+            containsNull = true;
+        } else {
+            int h = hash(e), pos = slot(e, h);
+            if (pos >= 0)
+                return false;
+            if (size >= maxFill) {
+                grow();
+                addNew(e, h);
+            } else {
+                elems[pos = -pos - 1] = e;
+                hashes[pos] = h;
+            }
+        }
+        ++modCount;
+        ++size;
+        return true;
+    }
+
+    // Inserts an element known to be absent, using its cached hash.
+    private void addNew(Object o, int h) {
+        Object[] elem = elems;
+        int m = mask, pos = h & m;
+        while (elem[pos] != null)
+            pos = (pos + 1) & m;
+        elem[pos] = o;
+        hashes[pos] = h;
+    }
+
+    // Presizes for every element of c being new, so a large batch costs at
+    // most one rehash; duplicates in c can leave the table up to twice the
+    // size it needs, which trimToSize gives back. Elements of another
+    // OpenHashSet are probed with their cached hashes.
+    public boolean addAll(Collection<? extends E> c) {
+        int n = c.size();
+        if (n == 0)
+            return false;
+        ensureCapacity((int)Math.min((long)size + n, Integer.MAX_VALUE));
+        if (!(c instanceof OpenHashSet))
+            return super.addAll(c);
+        OpenHashSet<?> s = (OpenHashSet<?>)c;
+        boolean modified = false;
+        if (s.containsNull && !containsNull) {
+            containsNull = true;
+            ++size;
+            modified = true;
+        }
+        Object[] elem = s.elems;
+        int[] hs = s.hashes;
+        for (int i = 0; i < hs.length; i++) {
+            Object o;
+            if ((o = elem[i]) != null) {
+                int h = hs[i];
+                if (slot(o, h) < 0) {
+                    if (size >= maxFill)
+                        grow();
+                    addNew(o, h);
+                    ++size;
+                    modified = true;
+                }
+            }
+        }
+        if (modified)
+            ++modCount;
+        return modified;
+    }
+
+    // Called before an insertion that would pass maxFill. At the maximum
+    // table size the load factor gives way, up to the one slot that must
+    // stay free to end probe runs.
+    private void grow() {
+        int n = hashes.length;
+        if (n < OpenHashing.MAXIMUM_CAPACITY)
+            rehash(n << 1);
+        else if ((containsNull ? size - 1 : size) >= n - 1)
+            throw new IllegalStateException("Set too large");
+        else
+            maxFill = n - 1;
+    }
+
+    public boolean remove(Object o) {
+        if (o == null) {
+            if (!containsNull)
+                return false;
+            containsNull = false;
+        } else {
+            int pos = slot(o, hash(o));
+            if (pos < 0)
+                return false;
+            shiftKeys(pos, null);
+        }
+        --size;
+        ++modCount;
+        return true;
+    }
+
+    // Backward-shift deletion, as in IntObjectMap.shiftKeys; home slots come
+    // from the cached hashes.
+    final void shiftKeys(int pos, SlotIterator it) {
+        Object[] elem = elems;
+        int[] hs = hashes;
+        int m = mask, last, slot;
+        Object curr;
+        for (;;) {
+            pos = ((last = pos) + 1) & m;
+            for (;;) {
+                if ((curr = elem[pos]) == null) {
+                    elem[last] = null;
+                    return;
+                }
+                slot = hs[pos] & m;
+                if (last <= pos ? last >= slot || slot > pos
+                                : last >= slot && slot > pos)
+                    break;
+                pos = (pos + 1) & m;
+            }
+            if (pos < last && it != null)
+                it.addWrapped(pos);
+            elem[last] = curr;
+            hs[last] = hs[pos];
+        }
+    }
+
+    public void clear() {
+        if (size > 0) {
+            ++modCount;
+            size = 0;
+            containsNull = false;
+            Arrays.fill(elems, null);
+        }
+    }
+
+    public void ensureCapacity(int expected) {
+        int n = OpenHashing.arraySize(expected, loadFactor);
+        if (n > hashes.length)
+            rehash(n);
+    }
+
+    public void trimToSize() {
+        int n = OpenHashing.arraySize(size, loadFactor);
+        if (n < hashes.length)
+            rehash(n);
+    }
+
+    final void rehash(int newN) {
+        Object[] oldElems = elems;
+        int[] oldHashes = hashes;
+        int oldN = oldHashes.length;
+        Object[] elem = new Object[newN + 1];
+        int[] hs = new int[newN];
+        int m = newN - 1;
+        for (int i = 0; i < oldN; i++) {
+            Object o;
+            if ((o = oldElems[i]) != null) {
+                int h = oldHashes[i], pos = h & m;
+                while (elem[pos] != null)
+                    pos = (pos + 1) & m;
+                elem[pos] = o;
+                hs[pos] = h;
+            }
+        }
+        elems = elem;
+        hashes = hs;
+        mask = m;
+        maxFill = OpenHashing.maxFill(newN, loadFactor);
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(Consumer<? super E> action) {
+        if (action == null)
+            throw new NullPointerException();
+        Object[] elem = elems;
+        int n = hashes.length;
+        int mc = modCount;
+        if (containsNull)
+            action.accept(null);
+        for (int i = 0; i < n && mc == modCount; i++) {
+            Object o;
+            if ((o = elem[i]) != null)
+                action.accept((E)o);
+        }
+        if (mc != modCount)
+            throw new ConcurrentModificationException();
+    }
+
+    public boolean removeIf(Predicate<? super E> filter) {
+        if (filter == null)
+            throw new NullPointerException();
+        boolean removed = false;
+        for (SlotIterator it = new SlotIterator(); it.hasNext(); ) {
+            if (filter.test(it.next())) {
+                it.remove();
+                removed = true;
+            }
+        }
+        return removed;
+    }
+
+    public Object[] toArray() {
+        Object[] a = new Object[size];
+        int j = 0;
+        Object[] elem = elems;
+        int n = hashes.length;
+        if (containsNull)
+            a[j++] = null;
+        for (int i = 0; i < n; i++) {
+            if (elem[i] != null)
+                a[j++] = elem[i];
+        }
+        return a;
+    }
+
+    public Iterator<E> iterator() {
+        return new SlotIterator();
+    }
+
+    public Spliterator<E> spliterator() {
+        return new SlotSpliterator<>(this, 0, -1, 0, 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    public OpenHashSet<E> clone() {
+        OpenHashSet<E> result;
+        try {
+            result = (OpenHashSet<E>)super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+        result.elems = elems.clone();
+        result.hashes = hashes.clone();
+        result.modCount = 0;
+        return result;
+    }
+
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws IOException {
+        s.defaultWriteObject();
+        s.writeInt(size);
+        Object[] elem = elems;
+        int n = hashes.length;
+        if (containsNull)
+            s.writeObject(null);
+        for (int i = 0; i < n; i++) {
+            if (elem[i] != null)
+                s.writeObject(elem[i]);
+        }
+    }
+
+    private void readObject(java.io.ObjectInputStream s)
+        throws IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        if (!(loadFactor > 0.0f && loadFactor < 1.0f))
+            throw new InvalidObjectException("Illegal load factor: " +
+                                             loadFactor);
+        int count = s.readInt();
+        if (count < 0)
+            throw new InvalidObjectException("Illegal size: " + count);
+        allocate(OpenHashing.arraySize(count, loadFactor));
+        for (int i = 0; i < count; i++) {
+            @SuppressWarnings("unchecked")
+                E e = (E) s.readObject();
+            add(e);
+        }
+    }
+
+    /* ------------------------------------------------------------ */
+    // iterators
+
+    // Walks the table from the top down, as IntObjectMap.SlotIterator does:
+    // an element shifted across the wraparound point by a removal is parked
+    // in wrapped[] so it is still seen.
+    final class SlotIterator implements Iterator<E> {
+        int pos = hashes.length;
+        int last = -1;
+        int remaining = size;
+        boolean mustReturnNull = containsNull;
+        Object[] wrapped;
+        int wrappedCount;
+        int expectedModCount = modCount;
+
+        public boolean hasNext() {
+            return remaining != 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (remaining == 0)
+                throw new NoSuchElementException();
+            remaining--;
+            if (mustReturnNull) {
+                mustReturnNull = false;
+                last = mask + 1;
+                return null;
+            }
+            Object[] elem = elems;
+            for (;;) {
+                if (--pos < 0) {
+                    last = Integer.MIN_VALUE;
+                    return (E)wrapped[--wrappedCount];
+                }
+                if (elem[pos] != null) {
+                    last = pos;
+                    return (E)elem[pos];
+                }
+            }
+        }
+
+        void addWrapped(int pos) {
+            if (wrapped == null)
+                wrapped = new Object[2];
+            else if (wrappedCount == wrapped.length)
+                wrapped = Arrays.copyOf(wrapped, wrappedCount << 1);
+            wrapped[wrappedCount++] = elems[pos];
+        }
+
+        public void remove() {
+            if (last == -1)
+                throw new IllegalStateException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (last == Integer.MIN_VALUE) {
+                Object o = wrapped[wrappedCount];
+                wrapped[wrappedCount] = null;
+                OpenHashSet.this.remove(o);
+            } else if (last == mask + 1) {
+                OpenHashSet.this.remove(null);
+            } else {
+                shiftKeys(last, this);
+                --size;
+                ++modCount;
+            }
+            last = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    static final class SlotSpliterator<E> implements Spliterator<E> {
+        final OpenHashSet<E> set;
+        int index;                  // current slot, modified on advance/split
+        int fence;                  // one past last slot
+        int est;                    // size estimate
+        int expectedModCount;       // for comodification checks
+
+        SlotSpliterator(OpenHashSet<E> s, int origin, int fence, int est,
+                        int expectedModCount) {
+            this.set = s;
+            this.index = origin;
+            this.fence = fence;
+            this.est = est;
+            this.expectedModCount = expectedModCount;
+        }
+
+        final int getFence() { // initialize fence and size on first use
+            int hi;
+            if ((hi = fence) < 0) {
+                OpenHashSet<E> s = set;
+                est = s.size;
+                expectedModCount = s.modCount;
+                hi = fence = s.elems.length;
+            }
+            return hi;
+        }
+
+        public SlotSpliterator<E> trySplit() {
+            int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
+            return (lo >= mid) ? null :
+                new SlotSpliterator<>(set, lo, index = mid, est >>>= 1,
+                                      expectedModCount);
+        }
+
+        @SuppressWarnings("unchecked")
+        public boolean tryAdvance(Consumer<? super E> action) {
+            if (action == null)
+                throw new NullPointerException();
+            int hi = getFence();
+            OpenHashSet<E> s = set;
+            Object[] elem = s.elems;
+            int z = elem.length - 1;
+            if (elem.length >= hi) {
+                while (index < hi) {
+                    int i = index++;
+                    Object o = elem[i];
+                    if (o != null || (i == z && s.containsNull)) {
+                        action.accept((E)o);
+                        if (s.modCount != expectedModCount)
+                            throw new ConcurrentModificationException();
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        @SuppressWarnings("unchecked")
+        public void forEachRemaining(Consumer<? super E> action) {
+            if (action == null)
+                throw new NullPointerException();
+            int hi = getFence(), mc = expectedModCount;
+            OpenHashSet<E> s = set;
+            Object[] elem = s.elems;
+            int z = elem.length - 1;
+            int i = index;
+            if (elem.length >= hi && i >= 0 && i < (index = hi)) {
+                for (; i < hi; i++) {
+                    Object o = elem[i];
+                    if (o != null || (i == z && s.containsNull))
+                        action.accept((E)o);
+                }
+                if (s.modCount != mc)
+                    throw new ConcurrentModificationException();
+            }
+        }
+
+        public long estimateSize() {
+            getFence(); // force init
+            return (long) est;
+        }
+
+        public int characteristics() {
+            return (fence < 0 || est == set.size ? Spliterator.SIZED : 0) |
+                Spliterator.DISTINCT;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+
+package java.util;
+
+final class OpenHashing {
+    private OpenHashing() { }
+
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    private static final int INT_PHI = 0x9E3779B9;
+
+    private static final long LONG_PHI = 0x9E3779B97F4A7C15L;
+
+    // Fibonacci hashing: keys that differ only in their high bits (or are
+    // sequential ids) still spread over the low bits used as the slot index
+    static int mix(int x) {
+        int h = x * INT_PHI;
+        return h ^ (h >>> 16);
+    }
+
+    static int mix(long x) {
+        long h = x * LONG_PHI;
+        h ^= (h >>> 32);
+        return (int)(h ^ (h >>> 16));
+    }
+
+    static int tableSizeFor(int cap) {
+        int n = -1 >>> Integer.numberOfLeadingZeros(Math.max(cap, 2) - 1);
+        return (n >= MAXIMUM_CAPACITY) ? MAXIMUM_CAPACITY : n + 1;
+    }
+
+    // smallest power of two table able to hold expected entries at loadFactor
+    static int arraySize(int expected, float loadFactor) {
+        long s = (long)Math.ceil(expected / (double)loadFactor);
+        if (s > MAXIMUM_CAPACITY)
+            s = MAXIMUM_CAPACITY;
+        return tableSizeFor((int)Math.max(2L, s));
+    }
+
+    // maximum number of entries before resize; always leaves one free slot
+    static int maxFill(int n, float loadFactor) {
+        return Math.min((int)Math.ceil(n * (double)loadFactor), n - 1);
+    }
+
+    static float checkLoadFactor(float loadFactor) {
+        if (!(loadFactor > 0.0f && loadFactor < 1.0f))
+            throw new IllegalArgumentException("Illegal load factor: " +
+                                               loadFactor);
+        return loadFactor;
+    }
+
+    static int checkCapacity(int initialCapacity) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal initial capacity: " +
+                                               initialCapacity);
+        return initialCapacity;
+    }
+}
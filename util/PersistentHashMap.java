@@ -0,0 +1,626 @@
+package java.util;
+
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+// An immutable hash map whose updates return new versions sharing all but
+// the O(log32 n) nodes on the path to the changed key: a hash array mapped
+// trie in the CHAMP layout. Each node consumes five bits of the hash and
+// keeps two bitmaps, one for mappings stored inline and one for subnodes;
+// its array holds the inline keys and values first, then the subnodes.
+// Keys whose 32-bit hashes are equal end up in a collision node below the
+// last level. Removal keeps the trie canonical by inlining a subnode left
+// with one mapping into its parent, so equal maps have equal tries.
+//
+// The Map mutators throw UnsupportedOperationException; use with and
+// without, or asTransient() for a batch of updates. A Transient edits the
+// nodes it has already copied in place until persistent() is called.
+public class PersistentHashMap<K,V> extends AbstractMap<K,V>
+    implements java.io.Serializable {
+
+    private static final long serialVersionUID = 2406211519146730417L;
+
+    static final int BITS = 5;
+
+    static final int MASK = (1 << BITS) - 1;
+
+    // nodes at this shift or deeper are collision nodes
+    static final int HASH_BITS = 32;
+
+    // deepest possible node below the root
+    static final int MAX_DEPTH = (HASH_BITS + BITS - 1) / BITS + 1;
+
+    static final Object NOT_FOUND = new Object();
+
+    private static final Node EMPTY_NODE = new Node(null, 0, 0, new Object[0]);
+
+    private static final PersistentHashMap<?,?> EMPTY =
+        new PersistentHashMap<>(EMPTY_NODE, 0);
+
+    final Node root;
+
+    final int size;
+
+    private transient Set<Map.Entry<K,V>> entrySet;
+
+    PersistentHashMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K,V> PersistentHashMap<K,V> empty() {
+        return (PersistentHashMap<K,V>) EMPTY;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K,V> PersistentHashMap<K,V> copyOf(Map<? extends K, ? extends V> m) {
+        if (m instanceof PersistentHashMap)
+            return (PersistentHashMap<K,V>) m;
+        Transient<K,V> t = PersistentHashMap.<K,V>empty().asTransient();
+        t.putAll(m);
+        return t.persistent();
+    }
+
+    static final class Node {
+        int dataMap;      // hash chunks mapped inline
+        int nodeMap;      // hash chunks mapped to a subnode
+        Object[] content; // keys and values in dataMap order, then subnodes
+        final Object owner; // token of the Transient that may edit in place
+
+        Node(Object owner, int dataMap, int nodeMap, Object[] content) {
+            this.owner = owner;
+            this.dataMap = dataMap;
+            this.nodeMap = nodeMap;
+            this.content = content;
+        }
+
+        // content index of the first subnode; collision nodes have no
+        // bitmaps and hold only mappings
+        int dataLength() {
+            return ((dataMap | nodeMap) == 0) ? content.length :
+                Integer.bitCount(dataMap) << 1;
+        }
+
+        int dataIndex(int bit) {
+            return Integer.bitCount(dataMap & (bit - 1)) << 1;
+        }
+
+        int nodeIndex(int bit) {
+            return (Integer.bitCount(dataMap) << 1) +
+                Integer.bitCount(nodeMap & (bit - 1));
+        }
+
+        Node editable(Object owner) {
+            return (owner != null && this.owner == owner) ? this :
+                new Node(owner, dataMap, nodeMap, content.clone());
+        }
+
+        Node put(Object owner, Object key, Object value, int hash, int shift,
+                 Change ch) {
+            if (shift >= HASH_BITS)
+                return putCollision(owner, key, value, ch);
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((dataMap & bit) != 0) {
+                int i = dataIndex(bit);
+                Object k = content[i];
+                if (Objects.equals(key, k)) {
+                    Object old = content[i + 1];
+                    ch.oldValue = old;
+                    if (old == value)
+                        return this;
+                    Node n = editable(owner);
+                    n.content[i + 1] = value;
+                    return n;
+                }
+                ch.sizeChanged = true;
+                Node sub = merge(owner, k, content[i + 1], HashMap.hash(k),
+                                 key, value, hash, shift + BITS);
+                return migrateToNode(owner, bit, i, sub);
+            }
+            if ((nodeMap & bit) != 0) {
+                int j = nodeIndex(bit);
+                Node sub = (Node) content[j];
+                Node nsub = sub.put(owner, key, value, hash, shift + BITS, ch);
+                if (nsub == sub)
+                    return this;
+                Node n = editable(owner);
+                n.content[j] = nsub;
+                return n;
+            }
+            ch.sizeChanged = true;
+            int i = dataIndex(bit);
+            Object[] dst = new Object[content.length + 2];
+            System.arraycopy(content, 0, dst, 0, i);
+            dst[i] = key;
+            dst[i + 1] = value;
+            System.arraycopy(content, i, dst, i + 2, content.length - i);
+            return new Node(owner, dataMap | bit, nodeMap, dst);
+        }
+
+        private Node putCollision(Object owner, Object key, Object value,
+                                  Change ch) {
+            Object[] c = content;
+            for (int i = 0; i < c.length; i += 2) {
+                if (Objects.equals(key, c[i])) {
+                    ch.oldValue = c[i + 1];
+                    if (c[i + 1] == value)
+                        return this;
+                    Node n = editable(owner);
+                    n.content[i + 1] = value;
+                    return n;
+                }
+            }
+            ch.sizeChanged = true;
+            Object[] dst = Arrays.copyOf(c, c.length + 2);
+            dst[c.length] = key;
+            dst[c.length + 1] = value;
+            return new Node(owner, 0, 0, dst);
+        }
+
+        // the smallest trie below shift holding both mappings
+        static Node merge(Object owner, Object k0, Object v0, int h0,
+                          Object k1, Object v1, int h1, int shift) {
+            if (shift >= HASH_BITS)
+                return new Node(owner, 0, 0, new Object[] { k0, v0, k1, v1 });
+            int m0 = (h0 >>> shift) & MASK, m1 = (h1 >>> shift) & MASK;
+            if (m0 != m1) {
+                Object[] c = (m0 < m1) ?
+                    new Object[] { k0, v0, k1, v1 } :
+                    new Object[] { k1, v1, k0, v0 };
+                return new Node(owner, (1 << m0) | (1 << m1), 0, c);
+            }
+            Node sub = merge(owner, k0, v0, h0, k1, v1, h1, shift + BITS);
+            return new Node(owner, 0, 1 << m0, new Object[] { sub });
+        }
+
+        // replaces the mapping at data index i by subnode sub
+        private Node migrateToNode(Object owner, int bit, int i, Node sub) {
+            Object[] src = content;
+            int j = (Integer.bitCount(dataMap) << 1) - 2 +
+                Integer.bitCount(nodeMap & (bit - 1));
+            Object[] dst = new Object[src.length - 1];
+            System.arraycopy(src, 0, dst, 0, i);
+            System.arraycopy(src, i + 2, dst, i, j - i);
+            dst[j] = sub;
+            System.arraycopy(src, j + 2, dst, j + 1, src.length - j - 2);
+            return new Node(owner, dataMap ^ bit, nodeMap | bit, dst);
+        }
+
+        // replaces the subnode at index j by its single mapping
+        private Node migrateToData(Object owner, int bit, int j,
+                                   Object key, Object value) {
+            Object[] src = content;
+            int i = dataIndex(bit);
+            Object[] dst = new Object[src.length + 1];
+            System.arraycopy(src, 0, dst, 0, i);
+            dst[i] = key;
+            dst[i + 1] = value;
+            System.arraycopy(src, i, dst, i + 2, j - i);
+            System.arraycopy(src, j + 1, dst, j + 2, src.length - j - 1);
+            return new Node(owner, dataMap | bit, nodeMap ^ bit, dst);
+        }
+
+        private static Object[] removePair(Object[] src, int i) {
+            Object[] dst = new Object[src.length - 2];
+            System.arraycopy(src, 0, dst, 0, i);
+            System.arraycopy(src, i + 2, dst, i, src.length - i - 2);
+            return dst;
+        }
+
+        Node remove(Object owner, Object key, int hash, int shift, Change ch) {
+            if (shift >= HASH_BITS) {
+                Object[] c = content;
+                for (int i = 0; i < c.length; i += 2) {
+                    if (Objects.equals(key, c[i])) {
+                        ch.sizeChanged = true;
+                        ch.oldValue = c[i + 1];
+                        return new Node(owner, 0, 0, removePair(c, i));
+                    }
+                }
+                return this;
+            }
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((dataMap & bit) != 0) {
+                int i = dataIndex(bit);
+                if (!Objects.equals(key, content[i]))
+                    return this;
+                ch.sizeChanged = true;
+                ch.oldValue = content[i + 1];
+                return new Node(owner, dataMap ^ bit, nodeMap,
+                                removePair(content, i));
+            }
+            if ((nodeMap & bit) != 0) {
+                int j = nodeIndex(bit);
+                Node sub = (Node) content[j];
+                Node nsub = sub.remove(owner, key, hash, shift + BITS, ch);
+                if (nsub == sub)
+                    return this;
+                if (nsub.nodeMap == 0 && nsub.content.length == 2)
+                    return migrateToData(owner, bit, j,
+                                         nsub.content[0], nsub.content[1]);
+                Node n = editable(owner);
+                n.content[j] = nsub;
+                return n;
+            }
+            return this;
+        }
+
+        void forEach(BiConsumer<Object,Object> action) {
+            Object[] c = content;
+            int d = dataLength();
+            for (int i = 0; i < d; i += 2)
+                action.accept(c[i], c[i + 1]);
+            for (int j = d; j < c.length; j++)
+                ((Node) c[j]).forEach(action);
+        }
+    }
+
+    // what an update did: whether it added or removed a mapping, and the
+    // value it replaced or removed
+    static final class Change {
+        boolean sizeChanged;
+        Object oldValue = NOT_FOUND;
+    }
+
+    static Object find(Node root, Object key) {
+        int hash = HashMap.hash(key);
+        Node n = root;
+        for (int shift = 0; ; shift += BITS) {
+            Object[] c = n.content;
+            if (shift >= HASH_BITS) {
+                for (int i = 0; i < c.length; i += 2)
+                    if (Objects.equals(key, c[i]))
+                        return c[i + 1];
+                return NOT_FOUND;
+            }
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((n.dataMap & bit) != 0) {
+                int i = n.dataIndex(bit);
+                return Objects.equals(key, c[i]) ? c[i + 1] : NOT_FOUND;
+            }
+            if ((n.nodeMap & bit) == 0)
+                return NOT_FOUND;
+            n = (Node) c[n.nodeIndex(bit)];
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        Object v = find(root, key);
+        return (v == NOT_FOUND) ? null : (V) v;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(Object key, V defaultValue) {
+        Object v = find(root, key);
+        return (v == NOT_FOUND) ? defaultValue : (V) v;
+    }
+
+    public boolean containsKey(Object key) {
+        return find(root, key) != NOT_FOUND;
+    }
+
+    // this map with key mapped to value; this map itself if it already was
+    public PersistentHashMap<K,V> with(K key, V value) {
+        Change ch = new Change();
+        Node r = root.put(null, key, value, HashMap.hash(key), 0, ch);
+        if (r == root)
+            return this;
+        return new PersistentHashMap<>(r, ch.sizeChanged ? size + 1 : size);
+    }
+
+    // this map without key; this map itself if key was not mapped
+    public PersistentHashMap<K,V> without(Object key) {
+        Change ch = new Change();
+        Node r = root.remove(null, key, HashMap.hash(key), 0, ch);
+        if (r == root)
+            return this;
+        return (size == 1) ? empty() : new PersistentHashMap<>(r, size - 1);
+    }
+
+    public Transient<K,V> asTransient() {
+        return new Transient<>(root, size);
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(action);
+        root.forEach((BiConsumer<Object,Object>) action);
+    }
+
+    public Set<Map.Entry<K,V>> entrySet() {
+        Set<Map.Entry<K,V>> es;
+        return (es = entrySet) == null ? (entrySet = new EntrySet()) : es;
+    }
+
+    public Set<K> keySet() {
+        Set<K> ks;
+        return (ks = keySet) == null ? (keySet = new KeySet()) : ks;
+    }
+
+    public Collection<V> values() {
+        Collection<V> vs;
+        return (vs = values) == null ? (values = new Values()) : vs;
+    }
+
+    static final int KEYS = 0, VALUES = 1, ENTRIES = 2;
+
+    final class KeySet extends AbstractSet<K> {
+        public int size()                  { return size; }
+        public boolean contains(Object o)  { return containsKey(o); }
+        public Iterator<K> iterator()      { return Spliterators.iterator(spliterator()); }
+        public Spliterator<K> spliterator() {
+            return new TrieSpliterator<>(root, size, KEYS);
+        }
+    }
+
+    final class Values extends AbstractCollection<V> {
+        public int size()                  { return size; }
+        public boolean contains(Object o)  { return containsValue(o); }
+        public Iterator<V> iterator()      { return Spliterators.iterator(spliterator()); }
+        public Spliterator<V> spliterator() {
+            return new TrieSpliterator<>(root, size, VALUES);
+        }
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<K,V>> {
+        public int size()                  { return size; }
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+            Object v = find(root, e.getKey());
+            return v != NOT_FOUND && Objects.equals(v, e.getValue());
+        }
+        public Iterator<Map.Entry<K,V>> iterator() {
+            return Spliterators.iterator(spliterator());
+        }
+        public Spliterator<Map.Entry<K,V>> spliterator() {
+            return new TrieSpliterator<>(root, size, ENTRIES);
+        }
+    }
+
+    // Walks the mappings inline in node, then the subtries of its subnodes,
+    // depth first. trySplit hands off half of the remaining subnodes of the
+    // top node, descending first while a single subnode is all that is
+    // left, so splits follow the trie and share no nodes.
+    static final class TrieSpliterator<T> implements Spliterator<T> {
+        private final int kind;
+        private Node node;
+        private int dataIndex, dataFence; // inline mappings left in node
+        private int nodeIndex, nodeFence; // subnodes left in node
+        private long est;
+        private boolean exact;
+        // the subtrie being walked
+        private final Node[] stack = new Node[MAX_DEPTH];
+        private final int[] pos = new int[MAX_DEPTH];
+        private int depth = -1;
+        // where advance() found the next mapping
+        private Object[] cur;
+        private int curIndex;
+
+        TrieSpliterator(Node root, int size, int kind) {
+            this(root, 0, root.dataLength(), root.dataLength(),
+                 root.content.length, size, kind);
+            exact = true;
+        }
+
+        private TrieSpliterator(Node node, int dataIndex, int dataFence,
+                                int nodeIndex, int nodeFence, long est, int kind) {
+            this.node = node;
+            this.dataIndex = dataIndex;
+            this.dataFence = dataFence;
+            this.nodeIndex = nodeIndex;
+            this.nodeFence = nodeFence;
+            this.est = est;
+            this.kind = kind;
+        }
+
+        private boolean advance() {
+            if (dataIndex < dataFence) {
+                cur = node.content;
+                curIndex = dataIndex;
+                dataIndex += 2;
+                return true;
+            }
+            for (;;) {
+                if (depth >= 0) {
+                    Node n = stack[depth];
+                    Object[] c = n.content;
+                    int p = pos[depth];
+                    if (p < n.dataLength()) {
+                        pos[depth] = p + 2;
+                        cur = c;
+                        curIndex = p;
+                        return true;
+                    }
+                    if (p < c.length) {
+                        pos[depth] = p + 1;
+                        stack[++depth] = (Node) c[p];
+                        pos[depth] = 0;
+                    } else {
+                        stack[depth--] = null;
+                    }
+                } else if (nodeIndex < nodeFence) {
+                    stack[depth = 0] = (Node) node.content[nodeIndex++];
+                    pos[0] = 0;
+                } else {
+                    return false;
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private T current() {
+            Object[] c = cur;
+            int i = curIndex;
+            switch (kind) {
+            case KEYS:   return (T) c[i];
+            case VALUES: return (T) c[i + 1];
+            default:     return (T) new SimpleImmutableEntry<>(c[i], c[i + 1]);
+            }
+        }
+
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (action == null)
+                throw new NullPointerException();
+            if (!advance())
+                return false;
+            action.accept(current());
+            return true;
+        }
+
+        public void forEachRemaining(Consumer<? super T> action) {
+            if (action == null)
+                throw new NullPointerException();
+            while (advance())
+                action.accept(current());
+        }
+
+        public Spliterator<T> trySplit() {
+            while (depth < 0 && dataIndex == dataFence &&
+                   nodeFence - nodeIndex == 1) {
+                Node n = (Node) node.content[nodeIndex];
+                node = n;
+                dataIndex = 0;
+                nodeIndex = dataFence = n.dataLength();
+                nodeFence = n.content.length;
+            }
+            int nodes = nodeFence - nodeIndex;
+            TrieSpliterator<T> prefix;
+            if (nodes >= 2) {
+                int mid = nodeIndex + (nodes >>> 1);
+                prefix = new TrieSpliterator<>(node, dataIndex, dataFence,
+                                               nodeIndex, mid, est >>>= 1, kind);
+                nodeIndex = mid;
+            } else if (nodes == 1 && dataIndex < dataFence) {
+                long n = (dataFence - dataIndex) >>> 1;
+                prefix = new TrieSpliterator<>(node, dataIndex, dataFence,
+                                               nodeIndex, nodeIndex, n, kind);
+                est = Math.max(est - n, 1L);
+            } else {
+                return null;
+            }
+            dataIndex = dataFence;
+            exact = false;
+            return prefix;
+        }
+
+        public long estimateSize() {
+            return est;
+        }
+
+        public int characteristics() {
+            return (exact ? Spliterator.SIZED : 0) | Spliterator.IMMUTABLE |
+                (kind == VALUES ? 0 : Spliterator.DISTINCT);
+        }
+    }
+
+    // A mutable view for building a new version with many updates. It
+    // copies each node on first write and edits its own copies in place
+    // afterwards, so a batch allocates about one node per touched path
+    // rather than one path per update. Not thread-safe; unusable once
+    // persistent() has been called.
+    public static final class Transient<K,V> {
+        private Object owner = new Object();
+        private Node root;
+        private int size;
+
+        Transient(Node root, int size) {
+            this.root = root;
+            this.size = size;
+        }
+
+        private Object owner() {
+            Object o = owner;
+            if (o == null)
+                throw new IllegalStateException("Transient used after persistent()");
+            return o;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        @SuppressWarnings("unchecked")
+        public V get(Object key) {
+            Object v = find(root, key);
+            return (v == NOT_FOUND) ? null : (V) v;
+        }
+
+        public boolean containsKey(Object key) {
+            return find(root, key) != NOT_FOUND;
+        }
+
+        public Transient<K,V> put(K key, V value) {
+            Change ch = new Change();
+            root = root.put(owner(), key, value, HashMap.hash(key), 0, ch);
+            if (ch.sizeChanged)
+                size++;
+            return this;
+        }
+
+        public Transient<K,V> putAll(Map<? extends K, ? extends V> m) {
+            for (Map.Entry<? extends K, ? extends V> e : m.entrySet())
+                put(e.getKey(), e.getValue());
+            return this;
+        }
+
+        public Transient<K,V> remove(Object key) {
+            Change ch = new Change();
+            root = root.remove(owner(), key, HashMap.hash(key), 0, ch);
+            if (ch.sizeChanged)
+                size--;
+            return this;
+        }
+
+        public PersistentHashMap<K,V> persistent() {
+            owner();
+            owner = null;
+            return (size == 0) ? empty() : new PersistentHashMap<>(root, size);
+        }
+    }
+
+    private static class SerializationProxy<K,V> implements java.io.Serializable {
+        private static final long serialVersionUID = -4628131742930372215L;
+
+        // keys and values interleaved
+        private final Object[] kvs;
+
+        SerializationProxy(PersistentHashMap<K,V> m) {
+            Object[] a = new Object[m.size << 1];
+            int[] i = new int[1];
+            m.forEach((k, v) -> {
+                a[i[0]++] = k;
+                a[i[0]++] = v;
+            });
+            kvs = a;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Object readResolve() {
+            Transient<K,V> t = PersistentHashMap.<K,V>empty().asTransient();
+            for (int i = 0; i < kvs.length; i += 2)
+                t.put((K) kvs[i], (V) kvs[i + 1]);
+            return t.persistent();
+        }
+    }
+
+    Object writeReplace() {
+        return new SerializationProxy<>(this);
+    }
+
+    private void readObject(java.io.ObjectInputStream stream)
+        throws java.io.InvalidObjectException {
+        throw new java.io.InvalidObjectException("Proxy required");
+    }
+}
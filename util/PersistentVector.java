@@ -0,0 +1,445 @@
+package java.util;
+
+import java.util.function.Consumer;
+
+// An immutable list whose updates return new versions sharing structure: a
+// 32-way bit-partitioned trie of leaf arrays plus a tail array holding the
+// last 1 to 32 elements. get, with and withoutLast walk one path of
+// log32(n) nodes, copying it for updates; append usually only copies the
+// tail and pushes it into the trie once it is full.
+//
+// The List mutators throw UnsupportedOperationException; use append, with
+// and withoutLast, or asTransient() for a batch of updates. A Transient
+// edits the nodes and the tail it has already copied in place until
+// persistent() is called.
+public class PersistentVector<E> extends AbstractList<E>
+    implements RandomAccess, java.io.Serializable {
+
+    private static final long serialVersionUID = -2313874936478210955L;
+
+    static final int BITS = 5;
+
+    static final int WIDTH = 1 << BITS;
+
+    static final int MASK = WIDTH - 1;
+
+    static final class Node {
+        final Object owner; // token of the Transient that may edit in place
+        final Object[] array; // subnodes, or elements in a leaf
+
+        Node(Object owner, Object[] array) {
+            this.owner = owner;
+            this.array = array;
+        }
+
+        Node(Object owner) {
+            this(owner, new Object[WIDTH]);
+        }
+
+        Node editable(Object owner) {
+            return (owner != null && this.owner == owner) ? this :
+                new Node(owner, array.clone());
+        }
+    }
+
+    private static final Node EMPTY_NODE = new Node(null);
+
+    private static final Object[] EMPTY_TAIL = new Object[0];
+
+    private static final PersistentVector<?> EMPTY =
+        new PersistentVector<>(0, BITS, EMPTY_NODE, EMPTY_TAIL);
+
+    final int size;
+
+    // bits of the index consumed at the root
+    final int shift;
+
+    final Node root;
+
+    final Object[] tail;
+
+    PersistentVector(int size, int shift, Node root, Object[] tail) {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentVector<E> empty() {
+        return (PersistentVector<E>) EMPTY;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentVector<E> copyOf(Collection<? extends E> c) {
+        if (c instanceof PersistentVector)
+            return (PersistentVector<E>) c;
+        Transient<E> t = PersistentVector.<E>empty().asTransient();
+        for (E e : c)
+            t.add(e);
+        return t.persistent();
+    }
+
+    // index of the first element in the tail of a vector of the given size
+    static int tailOffset(int size) {
+        return (size < WIDTH) ? 0 : ((size - 1) >>> BITS) << BITS;
+    }
+
+    // the leaf array, or tail, holding index i
+    static Object[] arrayFor(Node root, int shift, Object[] tail, int size, int i) {
+        if (i >= tailOffset(size))
+            return tail;
+        Node n = root;
+        for (int level = shift; level > 0; level -= BITS)
+            n = (Node) n.array[(i >>> level) & MASK];
+        return n.array;
+    }
+
+    // A copy of the path to the last leaf with tailNode added as the leaf
+    // after it; size counts the elements before tailNode's.
+    static Node pushTail(Object owner, int size, int level, Node parent, Node tailNode) {
+        int sub = ((size - 1) >>> level) & MASK;
+        Node n = parent.editable(owner);
+        Node insert;
+        if (level == BITS) {
+            insert = tailNode;
+        } else {
+            Node child = (Node) parent.array[sub];
+            insert = (child != null) ?
+                pushTail(owner, size, level - BITS, child, tailNode) :
+                newPath(owner, level - BITS, tailNode);
+        }
+        n.array[sub] = insert;
+        return n;
+    }
+
+    static Node newPath(Object owner, int level, Node node) {
+        if (level == 0)
+            return node;
+        Node n = new Node(owner);
+        n.array[0] = newPath(owner, level - BITS, node);
+        return n;
+    }
+
+    // A copy of the path to the last leaf without that leaf, or null if
+    // nothing is left below this level; size counts elements in the trie
+    // and in the tail being dropped.
+    static Node popTail(Object owner, int size, int level, Node node) {
+        int sub = ((size - 2) >>> level) & MASK;
+        if (level > BITS) {
+            Node child = popTail(owner, size, level - BITS, (Node) node.array[sub]);
+            if (child == null && sub == 0)
+                return null;
+            Node n = node.editable(owner);
+            n.array[sub] = child;
+            return n;
+        }
+        if (sub == 0)
+            return null;
+        Node n = node.editable(owner);
+        n.array[sub] = null;
+        return n;
+    }
+
+    static Node doAssoc(Object owner, int level, Node node, int i, Object e) {
+        Node n = node.editable(owner);
+        if (level == 0) {
+            n.array[i & MASK] = e;
+        } else {
+            int sub = (i >>> level) & MASK;
+            n.array[sub] = doAssoc(owner, level - BITS, (Node) node.array[sub], i, e);
+        }
+        return n;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        checkIndex(index);
+        return (E) arrayFor(root, shift, tail, size, index)[index & MASK];
+    }
+
+    public PersistentVector<E> append(E e) {
+        int n = size - tailOffset(size);
+        if (n < WIDTH) {
+            Object[] t = Arrays.copyOf(tail, n + 1);
+            t[n] = e;
+            return new PersistentVector<>(size + 1, shift, root, t);
+        }
+        Node tailNode = new Node(null, tail);
+        Node r;
+        int s = shift;
+        if ((size >>> BITS) > (1 << shift)) {
+            r = new Node(null);
+            r.array[0] = root;
+            r.array[1] = newPath(null, shift, tailNode);
+            s += BITS;
+        } else {
+            r = pushTail(null, size, shift, root, tailNode);
+        }
+        return new PersistentVector<>(size + 1, s, r, new Object[] { e });
+    }
+
+    // this vector with element index replaced by e
+    public PersistentVector<E> with(int index, E e) {
+        checkIndex(index);
+        if (index >= tailOffset(size)) {
+            Object[] t = tail.clone();
+            t[index & MASK] = e;
+            return new PersistentVector<>(size, shift, root, t);
+        }
+        return new PersistentVector<>(size, shift,
+                                      doAssoc(null, shift, root, index, e), tail);
+    }
+
+    public PersistentVector<E> withoutLast() {
+        if (size == 0)
+            throw new NoSuchElementException();
+        if (size == 1)
+            return empty();
+        int n = size - tailOffset(size);
+        if (n > 1)
+            return new PersistentVector<>(size - 1, shift, root,
+                                          Arrays.copyOf(tail, n - 1));
+        Object[] t = arrayFor(root, shift, tail, size, size - 2);
+        Node r = popTail(null, size, shift, root);
+        int s = shift;
+        if (r == null)
+            r = EMPTY_NODE;
+        if (shift > BITS && r.array[1] == null) {
+            r = (Node) r.array[0];
+            s -= BITS;
+        }
+        return new PersistentVector<>(size - 1, s, r, t);
+    }
+
+    public Transient<E> asTransient() {
+        return new Transient<>(this);
+    }
+
+    public Iterator<E> iterator() {
+        return Spliterators.iterator(spliterator());
+    }
+
+    public void forEach(Consumer<? super E> action) {
+        spliterator().forEachRemaining(action);
+    }
+
+    public Spliterator<E> spliterator() {
+        return new VectorSpliterator<>(this, 0, size);
+    }
+
+    // Splits at leaf boundaries, so each half walks whole leaves and looks
+    // each one up once.
+    static final class VectorSpliterator<E> implements Spliterator<E> {
+        private final PersistentVector<E> vec;
+        private int index;
+        private final int fence;
+        private Object[] leaf;   // holds index when leafBase <= index
+        private int leafBase = Integer.MAX_VALUE;
+
+        VectorSpliterator(PersistentVector<E> vec, int origin, int fence) {
+            this.vec = vec;
+            this.index = origin;
+            this.fence = fence;
+        }
+
+        public Spliterator<E> trySplit() {
+            int lo = index, mid = ((lo + fence) >>> 1) & ~MASK;
+            if (mid <= lo)
+                return null;
+            index = mid;
+            return new VectorSpliterator<>(vec, lo, mid);
+        }
+
+        private Object[] leafFor(int i) {
+            int base = i & ~MASK;
+            if (base != leafBase) {
+                PersistentVector<E> v = vec;
+                leaf = arrayFor(v.root, v.shift, v.tail, v.size, i);
+                leafBase = base;
+            }
+            return leaf;
+        }
+
+        @SuppressWarnings("unchecked")
+        public boolean tryAdvance(Consumer<? super E> action) {
+            if (action == null)
+                throw new NullPointerException();
+            int i = index;
+            if (i >= fence)
+                return false;
+            index = i + 1;
+            action.accept((E) leafFor(i)[i & MASK]);
+            return true;
+        }
+
+        @SuppressWarnings("unchecked")
+        public void forEachRemaining(Consumer<? super E> action) {
+            if (action == null)
+                throw new NullPointerException();
+            int i = index, hi = fence;
+            index = hi;
+            while (i < hi) {
+                Object[] a = leafFor(i);
+                int end = Math.min(hi, (i & ~MASK) + WIDTH);
+                for (; i < end; i++)
+                    action.accept((E) a[i & MASK]);
+            }
+        }
+
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED |
+                Spliterator.SUBSIZED | Spliterator.IMMUTABLE;
+        }
+    }
+
+    // A mutable view for building a new version with many updates. Its
+    // tail always has room for WIDTH elements and it edits the trie nodes
+    // it has copied in place, so appending n elements costs about one
+    // array per 32 of them. Not thread-safe; unusable once persistent()
+    // has been called.
+    public static final class Transient<E> {
+        private Object owner = new Object();
+        private int size;
+        private int shift;
+        private Node root;
+        private Object[] tail;
+
+        Transient(PersistentVector<E> v) {
+            size = v.size;
+            shift = v.shift;
+            root = v.root;
+            tail = Arrays.copyOf(v.tail, WIDTH);
+        }
+
+        private Object owner() {
+            Object o = owner;
+            if (o == null)
+                throw new IllegalStateException("Transient used after persistent()");
+            return o;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        @SuppressWarnings("unchecked")
+        public E get(int index) {
+            if (index < 0 || index >= size)
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            return (E) arrayFor(root, shift, tail, size, index)[index & MASK];
+        }
+
+        public Transient<E> add(E e) {
+            Object o = owner();
+            int n = size - tailOffset(size);
+            if (n < WIDTH) {
+                tail[n] = e;
+                size++;
+                return this;
+            }
+            Node tailNode = new Node(o, tail);
+            tail = new Object[WIDTH];
+            tail[0] = e;
+            if ((size >>> BITS) > (1 << shift)) {
+                Node r = new Node(o);
+                r.array[0] = root;
+                r.array[1] = newPath(o, shift, tailNode);
+                root = r;
+                shift += BITS;
+            } else {
+                root = pushTail(o, size, shift, root, tailNode);
+            }
+            size++;
+            return this;
+        }
+
+        public Transient<E> set(int index, E e) {
+            Object o = owner();
+            if (index < 0 || index >= size)
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            if (index >= tailOffset(size))
+                tail[index & MASK] = e;
+            else
+                root = doAssoc(o, shift, root, index, e);
+            return this;
+        }
+
+        public Transient<E> removeLast() {
+            Object o = owner();
+            if (size == 0)
+                throw new NoSuchElementException();
+            int n = size - tailOffset(size);
+            if (n > 1 || size == 1) {
+                tail[n - 1] = null;
+                size--;
+                return this;
+            }
+            Object[] t = arrayFor(root, shift, tail, size, size - 2).clone();
+            Node r = popTail(o, size, shift, root);
+            if (r == null)
+                r = EMPTY_NODE;
+            if (shift > BITS && r.array[1] == null) {
+                r = (Node) r.array[0];
+                shift -= BITS;
+            }
+            root = r;
+            tail = t;
+            size--;
+            return this;
+        }
+
+        public PersistentVector<E> persistent() {
+            owner();
+            owner = null;
+            if (size == 0)
+                return empty();
+            return new PersistentVector<>(size, shift, root,
+                                          Arrays.copyOf(tail, size - tailOffset(size)));
+        }
+    }
+
+    private static class SerializationProxy<E> implements java.io.Serializable {
+        private static final long serialVersionUID = 7591256284627413150L;
+
+        private final Object[] elements;
+
+        SerializationProxy(PersistentVector<E> v) {
+            elements = v.toArray();
+        }
+
+        @SuppressWarnings("unchecked")
+        private Object readResolve() {
+            Transient<E> t = PersistentVector.<E>empty().asTransient();
+            for (Object e : elements)
+                t.add((E) e);
+            return t.persistent();
+        }
+    }
+
+    Object writeReplace() {
+        return new SerializationProxy<>(this);
+    }
+
+    private void readObject(java.io.ObjectInputStream stream)
+        throws java.io.InvalidObjectException {
+        throw new java.io.InvalidObjectException("Proxy required");
+    }
+}
@@ -0,0 +1,1668 @@
+
+package java.util;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+// A compressed bit set with the BitSet API. Bit indices are split into a
+// 16-bit high half, which selects a chunk, and a 16-bit low half stored in a
+// per-chunk container: a sorted char array for sparse chunks (at most
+// ARRAY_MAX values), a 1024-word bitmap for dense ones, or sorted runs of
+// consecutive values. Only chunks holding at least one bit are allocated.
+//
+// toByteArray/serialize write the portable Roaring layout (little-endian
+// cookie, key/cardinality header, offsets, containers), so indices can be
+// written once and read back from a mapped buffer with valueOf(ByteBuffer).
+public class RoaringBitSet implements Cloneable, java.io.Serializable {
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int LOW_MASK = CHUNK_SIZE - 1;
+
+    private static final int ARRAY_MAX = 4096;
+    private static final int BITMAP_WORDS = CHUNK_SIZE / 64;
+    private static final int BITMAP_BYTES = BITMAP_WORDS * 8;
+
+    private static final long WORD_MASK = 0xffffffffffffffffL;
+
+    private static final int SERIAL_COOKIE_NO_RUNCONTAINER = 12346;
+    private static final int SERIAL_COOKIE = 12347;
+    private static final int NO_OFFSET_THRESHOLD = 4;
+
+    private static final int AND = 0, OR = 1, XOR = 2, ANDNOT = 3;
+
+    private transient char[] keys;
+
+    private transient Container[] containers;
+
+    private transient int size;
+
+    private static final long serialVersionUID = -3712592372651397434L;
+
+    public RoaringBitSet() {
+        keys = new char[4];
+        containers = new Container[4];
+    }
+
+    private RoaringBitSet(char[] keys, Container[] containers, int size) {
+        this.keys = keys;
+        this.containers = containers;
+        this.size = size;
+    }
+
+    public static RoaringBitSet valueOf(BitSet set) {
+        RoaringBitSet result = new RoaringBitSet();
+        for (int i = set.nextSetBit(0); i >= 0; i = set.nextSetBit(i+1)) {
+            int endOfRun = set.nextClearBit(i);
+            result.set(i, endOfRun);
+            if (endOfRun < 0)
+                break;
+            i = endOfRun;
+        }
+        return result;
+    }
+
+    public BitSet toBitSet() {
+        BitSet result = new BitSet(length());
+        for (int i = 0; i < size; i++) {
+            Container c = containers[i];
+            int base = keys[i] << CHUNK_BITS;
+            for (int x = c.nextSetBit(0); x >= 0; ) {
+                int e = c.nextClearBit(x);
+                result.set(base + x, base + e);
+                x = (e < CHUNK_SIZE) ? c.nextSetBit(e) : -1;
+            }
+        }
+        return result;
+    }
+
+    private static void checkRange(int fromIndex, int toIndex) {
+        if (fromIndex < 0)
+            throw new IndexOutOfBoundsException("fromIndex < 0: " + fromIndex);
+        if (toIndex < 0)
+            throw new IndexOutOfBoundsException("toIndex < 0: " + toIndex);
+        if (fromIndex > toIndex)
+            throw new IndexOutOfBoundsException("fromIndex: " + fromIndex +
+                                                " > toIndex: " + toIndex);
+    }
+
+    private int keyIndex(int hb) {
+        return Arrays.binarySearch(keys, 0, size, (char) hb);
+    }
+
+    private void insertAt(int i, int hb, Container c) {
+        if (size == keys.length) {
+            int newCapacity = (size < 64) ? size * 2 + 2 : size + (size >> 1);
+            keys = Arrays.copyOf(keys, newCapacity);
+            containers = Arrays.copyOf(containers, newCapacity);
+        }
+        System.arraycopy(keys, i, keys, i + 1, size - i);
+        System.arraycopy(containers, i, containers, i + 1, size - i);
+        keys[i] = (char) hb;
+        containers[i] = c;
+        size++;
+    }
+
+    private void removeAt(int i) {
+        System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+        System.arraycopy(containers, i + 1, containers, i, size - i - 1);
+        containers[--size] = null;
+    }
+
+    private void setContainerAt(int i, Container c) {
+        if (c.isEmpty())
+            removeAt(i);
+        else
+            containers[i] = c;
+    }
+
+    public void flip(int bitIndex) {
+        if (bitIndex < 0)
+            throw new IndexOutOfBoundsException("bitIndex < 0: " + bitIndex);
+
+        if (get(bitIndex))
+            clear(bitIndex);
+        else
+            set(bitIndex);
+    }
+
+    public void flip(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+
+        if (fromIndex == toIndex)
+            return;
+
+        int firstKey = fromIndex >>> CHUNK_BITS;
+        int lastKey = (toIndex - 1) >>> CHUNK_BITS;
+        for (int hb = firstKey; hb <= lastKey; hb++) {
+            int lo = (hb == firstKey) ? fromIndex & LOW_MASK : 0;
+            int hi = (hb == lastKey) ? ((toIndex - 1) & LOW_MASK) + 1 : CHUNK_SIZE;
+            int i = keyIndex(hb);
+            if (i >= 0)
+                setContainerAt(i, containers[i].flipRange(lo, hi));
+            else
+                insertAt(-i - 1, hb, RunContainer.range(lo, hi));
+        }
+    }
+
+    public void set(int bitIndex) {
+        if (bitIndex < 0)
+            throw new IndexOutOfBoundsException("bitIndex < 0: " + bitIndex);
+
+        int hb = bitIndex >>> CHUNK_BITS;
+        int i = keyIndex(hb);
+        if (i >= 0)
+            containers[i] = containers[i].add(bitIndex & LOW_MASK);
+        else
+            insertAt(-i - 1, hb, new ArrayContainer(bitIndex & LOW_MASK));
+    }
+
+    public void set(int bitIndex, boolean value) {
+        if (value)
+            set(bitIndex);
+        else
+            clear(bitIndex);
+    }
+
+    public void set(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+
+        if (fromIndex == toIndex)
+            return;
+
+        int firstKey = fromIndex >>> CHUNK_BITS;
+        int lastKey = (toIndex - 1) >>> CHUNK_BITS;
+        for (int hb = firstKey; hb <= lastKey; hb++) {
+            int lo = (hb == firstKey) ? fromIndex & LOW_MASK : 0;
+            int hi = (hb == lastKey) ? ((toIndex - 1) & LOW_MASK) + 1 : CHUNK_SIZE;
+            int i = keyIndex(hb);
+            if (i >= 0 && lo == 0 && hi == CHUNK_SIZE)
+                containers[i] = RunContainer.range(lo, hi);
+            else if (i >= 0)
+                containers[i] = containers[i].addRange(lo, hi);
+            else
+                insertAt(-i - 1, hb, RunContainer.range(lo, hi));
+        }
+    }
+
+    public void set(int fromIndex, int toIndex, boolean value) {
+        if (value)
+            set(fromIndex, toIndex);
+        else
+            clear(fromIndex, toIndex);
+    }
+
+    public void clear(int bitIndex) {
+        if (bitIndex < 0)
+            throw new IndexOutOfBoundsException("bitIndex < 0: " + bitIndex);
+
+        int i = keyIndex(bitIndex >>> CHUNK_BITS);
+        if (i >= 0)
+            setContainerAt(i, containers[i].remove(bitIndex & LOW_MASK));
+    }
+
+    public void clear(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+
+        if (fromIndex == toIndex)
+            return;
+
+        int firstKey = fromIndex >>> CHUNK_BITS;
+        int lastKey = (toIndex - 1) >>> CHUNK_BITS;
+        int i = keyIndex(firstKey);
+        if (i < 0)
+            i = -i - 1;
+        while (i < size && keys[i] <= lastKey) {
+            int hb = keys[i];
+            int lo = (hb == firstKey) ? fromIndex & LOW_MASK : 0;
+            int hi = (hb == lastKey) ? ((toIndex - 1) & LOW_MASK) + 1 : CHUNK_SIZE;
+            Container c = (lo == 0 && hi == CHUNK_SIZE) ?
+                null : containers[i].removeRange(lo, hi);
+            if (c == null || c.isEmpty())
+                removeAt(i);
+            else
+                containers[i++] = c;
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(containers, 0, size, null);
+        size = 0;
+    }
+
+    public boolean get(int bitIndex) {
+        if (bitIndex < 0)
+            throw new IndexOutOfBoundsException("bitIndex < 0: " + bitIndex);
+
+        int i = keyIndex(bitIndex >>> CHUNK_BITS);
+        return i >= 0 && containers[i].contains(bitIndex & LOW_MASK);
+    }
+
+    public RoaringBitSet get(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+
+        RoaringBitSet result = new RoaringBitSet();
+        for (int i = nextSetBit(fromIndex); i >= 0 && i < toIndex; ) {
+            int endOfRun = nextClearBit(i);
+            int end = (endOfRun < 0 || endOfRun > toIndex) ? toIndex : endOfRun;
+            result.set(i - fromIndex, end - fromIndex);
+            if (end == toIndex)
+                break;
+            i = nextSetBit(end);
+        }
+        return result;
+    }
+
+    public int nextSetBit(int fromIndex) {
+        if (fromIndex < 0)
+            throw new IndexOutOfBoundsException("fromIndex < 0: " + fromIndex);
+
+        int hb = fromIndex >>> CHUNK_BITS;
+        int i = keyIndex(hb);
+        if (i >= 0) {
+            int x = containers[i].nextSetBit(fromIndex & LOW_MASK);
+            if (x >= 0)
+                return (hb << CHUNK_BITS) | x;
+            i++;
+        } else {
+            i = -i - 1;
+        }
+        return (i < size) ? (keys[i] << CHUNK_BITS) | containers[i].first() : -1;
+    }
+
+    public int nextClearBit(int fromIndex) {
+        if (fromIndex < 0)
+            throw new IndexOutOfBoundsException("fromIndex < 0: " + fromIndex);
+
+        int hb = fromIndex >>> CHUNK_BITS;
+        int i = keyIndex(hb);
+        if (i < 0)
+            return fromIndex;
+
+        int lb = fromIndex & LOW_MASK;
+        while (true) {
+            int x = containers[i].nextClearBit(lb);
+            if (x < CHUNK_SIZE)
+                return (hb << CHUNK_BITS) | x;
+            hb++;
+            if (++i == size || keys[i] != hb)
+                return hb << CHUNK_BITS;
+            lb = 0;
+        }
+    }
+
+    public int previousSetBit(int fromIndex) {
+        if (fromIndex < 0) {
+            if (fromIndex == -1)
+                return -1;
+            throw new IndexOutOfBoundsException(
+                "fromIndex < -1: " + fromIndex);
+        }
+
+        int hb = fromIndex >>> CHUNK_BITS;
+        int i = keyIndex(hb);
+        if (i >= 0) {
+            int x = containers[i].previousSetBit(fromIndex & LOW_MASK);
+            if (x >= 0)
+                return (hb << CHUNK_BITS) | x;
+            i--;
+        } else {
+            i = -i - 2;
+        }
+        return (i >= 0) ? (keys[i] << CHUNK_BITS) | containers[i].last() : -1;
+    }
+
+    public int previousClearBit(int fromIndex) {
+        if (fromIndex < 0) {
+            if (fromIndex == -1)
+                return -1;
+            throw new IndexOutOfBoundsException(
+                "fromIndex < -1: " + fromIndex);
+        }
+
+        int hb = fromIndex >>> CHUNK_BITS;
+        int i = keyIndex(hb);
+        if (i < 0)
+            return fromIndex;
+
+        int lb = fromIndex & LOW_MASK;
+        while (true) {
+            int x = containers[i].previousClearBit(lb);
+            if (x >= 0)
+                return (hb << CHUNK_BITS) | x;
+            if (hb-- == 0)
+                return -1;
+            if (i-- == 0 || keys[i] != hb)
+                return (hb << CHUNK_BITS) | LOW_MASK;
+            lb = LOW_MASK;
+        }
+    }
+
+    public int length() {
+        if (size == 0)
+            return 0;
+
+        return ((keys[size - 1] << CHUNK_BITS) | containers[size - 1].last()) + 1;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean intersects(RoaringBitSet set) {
+        int i = 0, j = 0;
+        while (i < size && j < set.size) {
+            if (keys[i] < set.keys[j]) {
+                i++;
+            } else if (keys[i] > set.keys[j]) {
+                j++;
+            } else {
+                if (Container.intersects(containers[i], set.containers[j]))
+                    return true;
+                i++;
+                j++;
+            }
+        }
+        return false;
+    }
+
+    public int cardinality() {
+        int sum = 0;
+        for (int i = 0; i < size; i++)
+            sum += containers[i].cardinality();
+        return sum;
+    }
+
+    public void and(RoaringBitSet set) {
+        if (this == set)
+            return;
+
+        int n = 0, i = 0, j = 0;
+        while (i < size && j < set.size) {
+            if (keys[i] < set.keys[j]) {
+                i++;
+            } else if (keys[i] > set.keys[j]) {
+                j++;
+            } else {
+                Container c = Container.and(containers[i], set.containers[j]);
+                if (!c.isEmpty()) {
+                    keys[n] = keys[i];
+                    containers[n++] = c;
+                }
+                i++;
+                j++;
+            }
+        }
+        Arrays.fill(containers, n, size, null);
+        size = n;
+    }
+
+    public void or(RoaringBitSet set) {
+        if (this == set)
+            return;
+
+        merge(set, OR);
+    }
+
+    public void xor(RoaringBitSet set) {
+        merge(set, XOR);
+    }
+
+    public void andNot(RoaringBitSet set) {
+        int n = 0, i = 0, j = 0;
+        while (i < size) {
+            while (j < set.size && set.keys[j] < keys[i])
+                j++;
+            Container c = containers[i];
+            if (j < set.size && set.keys[j] == keys[i])
+                c = Container.andNot(c, set.containers[j]);
+            if (!c.isEmpty()) {
+                keys[n] = keys[i];
+                containers[n++] = c;
+            }
+            i++;
+        }
+        Arrays.fill(containers, n, size, null);
+        size = n;
+    }
+
+    // union or symmetric difference; chunks present on one side only are
+    // kept as they are (copied when they come from set)
+    private void merge(RoaringBitSet set, int op) {
+        int capacity = Math.max(size + set.size, 4);
+        char[] newKeys = new char[capacity];
+        Container[] newContainers = new Container[capacity];
+        int n = 0, i = 0, j = 0;
+        while (i < size || j < set.size) {
+            Container c;
+            char key;
+            if (j == set.size || (i < size && keys[i] < set.keys[j])) {
+                key = keys[i];
+                c = containers[i++];
+            } else if (i == size || keys[i] > set.keys[j]) {
+                key = set.keys[j];
+                c = set.containers[j++].copy();
+            } else {
+                key = keys[i];
+                c = (op == OR) ?
+                    Container.or(containers[i++], set.containers[j++]) :
+                    Container.xor(containers[i++], set.containers[j++]);
+            }
+            if (!c.isEmpty()) {
+                newKeys[n] = key;
+                newContainers[n++] = c;
+            }
+        }
+        keys = newKeys;
+        containers = newContainers;
+        size = n;
+    }
+
+    // Switches every container to its smallest representation, using run
+    // containers where they are smaller. Returns true if any changed.
+    public boolean runOptimize() {
+        boolean changed = false;
+        for (int i = 0; i < size; i++) {
+            Container c = containers[i].optimize();
+            if (c != containers[i]) {
+                containers[i] = c;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    // Same value as BitSet.hashCode() for the same bits.
+    public int hashCode() {
+        long h = 1234;
+        for (int i = 0; i < size; i++)
+            h = containers[i].hashWords(h, keys[i] * BITMAP_WORDS);
+
+        return (int)((h >> 32) ^ h);
+    }
+
+    public boolean equals(Object obj) {
+        if (!(obj instanceof RoaringBitSet))
+            return false;
+        if (this == obj)
+            return true;
+
+        RoaringBitSet set = (RoaringBitSet) obj;
+
+        if (size != set.size)
+            return false;
+
+        for (int i = 0; i < size; i++)
+            if (keys[i] != set.keys[i] ||
+                !Container.equal(containers[i], set.containers[i]))
+                return false;
+
+        return true;
+    }
+
+    public Object clone() {
+        try {
+            RoaringBitSet result = (RoaringBitSet) super.clone();
+            result.keys = Arrays.copyOf(keys, size);
+            result.containers = new Container[size];
+            for (int i = 0; i < size; i++)
+                result.containers[i] = containers[i].copy();
+            return result;
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+    }
+
+    // ----- portable serialization -----
+
+    private boolean hasRunContainer() {
+        for (int i = 0; i < size; i++)
+            if (containers[i] instanceof RunContainer)
+                return true;
+        return false;
+    }
+
+    private int headerSize(boolean hasRun) {
+        if (hasRun) {
+            int n = 4 + (size + 7) / 8 + 4 * size;
+            return (size >= NO_OFFSET_THRESHOLD) ? n + 4 * size : n;
+        }
+        return 8 + 8 * size;
+    }
+
+    public int serializedSizeInBytes() {
+        int n = headerSize(hasRunContainer());
+        for (int i = 0; i < size; i++)
+            n += containers[i].serializedSize();
+        return n;
+    }
+
+    // Writes the portable layout at the buffer's position and advances it.
+    public void serialize(ByteBuffer bb) {
+        ByteBuffer out = bb.slice().order(ByteOrder.LITTLE_ENDIAN);
+        boolean hasRun = hasRunContainer();
+        if (hasRun) {
+            out.putInt(SERIAL_COOKIE | ((size - 1) << 16));
+            byte[] runFlags = new byte[(size + 7) / 8];
+            for (int i = 0; i < size; i++)
+                if (containers[i] instanceof RunContainer)
+                    runFlags[i >>> 3] |= (byte) (1 << (i & 7));
+            out.put(runFlags);
+        } else {
+            out.putInt(SERIAL_COOKIE_NO_RUNCONTAINER);
+            out.putInt(size);
+        }
+        for (int i = 0; i < size; i++) {
+            out.putChar(keys[i]);
+            out.putChar((char) (containers[i].cardinality() - 1));
+        }
+        if (!hasRun || size >= NO_OFFSET_THRESHOLD) {
+            int offset = headerSize(hasRun);
+            for (int i = 0; i < size; i++) {
+                out.putInt(offset);
+                offset += containers[i].serializedSize();
+            }
+        }
+        for (int i = 0; i < size; i++)
+            containers[i].writeTo(out);
+        bb.position(bb.position() + out.position());
+    }
+
+    public byte[] toByteArray() {
+        byte[] bytes = new byte[serializedSizeInBytes()];
+        serialize(ByteBuffer.wrap(bytes));
+        return bytes;
+    }
+
+    public static RoaringBitSet valueOf(byte[] bytes) {
+        return RoaringBitSet.valueOf(ByteBuffer.wrap(bytes));
+    }
+
+    // Reads the portable layout starting at the buffer's position; the
+    // buffer itself is not modified. The number of bytes consumed is
+    // serializedSizeInBytes() of the result.
+    public static RoaringBitSet valueOf(ByteBuffer bb) {
+        bb = bb.slice().order(ByteOrder.LITTLE_ENDIAN);
+        int cookie = bb.getInt();
+        boolean hasRun = (cookie & 0xFFFF) == SERIAL_COOKIE;
+        int n;
+        byte[] runFlags = null;
+        if (hasRun) {
+            n = (cookie >>> 16) + 1;
+            runFlags = new byte[(n + 7) / 8];
+            bb.get(runFlags);
+        } else if (cookie == SERIAL_COOKIE_NO_RUNCONTAINER) {
+            n = bb.getInt();
+            if (n < 0 || n > CHUNK_SIZE)
+                throw new IllegalArgumentException("Illegal size: " + n);
+        } else {
+            throw new IllegalArgumentException("Unknown cookie: " + cookie);
+        }
+
+        char[] keys = new char[n];
+        int[] cards = new int[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = bb.getChar();
+            cards[i] = bb.getChar() + 1;
+            if (keys[i] > (Integer.MAX_VALUE >>> CHUNK_BITS))
+                throw new IllegalArgumentException(
+                    "Bit index out of range in chunk " + (int) keys[i]);
+            if (i > 0 && keys[i] <= keys[i - 1])
+                throw new IllegalArgumentException("Keys out of order");
+        }
+        if (!hasRun || n >= NO_OFFSET_THRESHOLD)
+            bb.position(bb.position() + 4 * n);
+
+        Container[] containers = new Container[Math.max(n, 4)];
+        for (int i = 0; i < n; i++) {
+            if (hasRun && (runFlags[i >>> 3] & (1 << (i & 7))) != 0) {
+                char[] runs = new char[2 * bb.getChar()];
+                bb.asCharBuffer().get(runs);
+                bb.position(bb.position() + 2 * runs.length);
+                containers[i] = new RunContainer(runs, runs.length / 2);
+            } else if (cards[i] <= ARRAY_MAX) {
+                char[] content = new char[cards[i]];
+                bb.asCharBuffer().get(content);
+                bb.position(bb.position() + 2 * content.length);
+                containers[i] = new ArrayContainer(content, content.length);
+            } else {
+                long[] words = new long[BITMAP_WORDS];
+                bb.asLongBuffer().get(words);
+                bb.position(bb.position() + BITMAP_BYTES);
+                containers[i] = new BitmapContainer(words, cards[i]);
+            }
+        }
+        return new RoaringBitSet(Arrays.copyOf(keys, Math.max(n, 4)),
+                                 containers, n);
+    }
+
+    private void writeObject(ObjectOutputStream s)
+        throws IOException {
+
+        s.defaultWriteObject();
+        byte[] bytes = toByteArray();
+        s.writeInt(bytes.length);
+        s.write(bytes);
+    }
+
+    private void readObject(ObjectInputStream s)
+        throws IOException, ClassNotFoundException {
+
+        s.defaultReadObject();
+        int len = s.readInt();
+        if (len < 0)
+            throw new InvalidObjectException("Illegal length: " + len);
+        byte[] bytes = new byte[len];
+        s.readFully(bytes);
+        RoaringBitSet set;
+        try {
+            set = valueOf(bytes);
+        } catch (IllegalArgumentException | BufferUnderflowException e) {
+            throw new InvalidObjectException(e.toString());
+        }
+        keys = set.keys;
+        containers = set.containers;
+        size = set.size;
+    }
+
+    public String toString() {
+        StringBuilder b = new StringBuilder(8 * Math.min(cardinality(), 1024) + 2);
+        b.append('{');
+        stream().forEachOrdered(i -> {
+            if (b.length() > 1)
+                b.append(", ");
+            b.append(i);
+        });
+        b.append('}');
+        return b.toString();
+    }
+
+    public IntStream stream() {
+        class RoaringBitSetIterator implements PrimitiveIterator.OfInt {
+            int index;
+            int next = (size == 0) ? -1 : containers[0].first();
+
+            @Override
+            public boolean hasNext() {
+                return next != -1;
+            }
+
+            @Override
+            public int nextInt() {
+                if (next != -1) {
+                    int ret = (keys[index] << CHUNK_BITS) | next;
+                    next = (next == LOW_MASK) ? -1 :
+                        containers[index].nextSetBit(next + 1);
+                    if (next == -1 && ++index < size)
+                        next = containers[index].first();
+                    return ret;
+                } else {
+                    throw new NoSuchElementException();
+                }
+            }
+        }
+
+        return StreamSupport.intStream(
+                () -> Spliterators.spliterator(
+                        new RoaringBitSetIterator(), cardinality(),
+                        Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED),
+                Spliterator.SIZED | Spliterator.SUBSIZED |
+                        Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED,
+                false);
+    }
+
+    // ----- word helpers, ranges are [lo, hi) with lo < hi -----
+
+    private static void setBits(long[] words, int lo, int hi) {
+        int u = lo >>> 6, v = (hi - 1) >>> 6;
+        long firstWordMask = WORD_MASK << lo;
+        long lastWordMask  = WORD_MASK >>> -hi;
+        if (u == v) {
+            words[u] |= (firstWordMask & lastWordMask);
+        } else {
+            words[u] |= firstWordMask;
+            for (int i = u+1; i < v; i++)
+                words[i] = WORD_MASK;
+            words[v] |= lastWordMask;
+        }
+    }
+
+    private static void clearBits(long[] words, int lo, int hi) {
+        int u = lo >>> 6, v = (hi - 1) >>> 6;
+        long firstWordMask = WORD_MASK << lo;
+        long lastWordMask  = WORD_MASK >>> -hi;
+        if (u == v) {
+            words[u] &= ~(firstWordMask & lastWordMask);
+        } else {
+            words[u] &= ~firstWordMask;
+            for (int i = u+1; i < v; i++)
+                words[i] = 0;
+            words[v] &= ~lastWordMask;
+        }
+    }
+
+    private static void flipBits(long[] words, int lo, int hi) {
+        int u = lo >>> 6, v = (hi - 1) >>> 6;
+        long firstWordMask = WORD_MASK << lo;
+        long lastWordMask  = WORD_MASK >>> -hi;
+        if (u == v) {
+            words[u] ^= (firstWordMask & lastWordMask);
+        } else {
+            words[u] ^= firstWordMask;
+            for (int i = u+1; i < v; i++)
+                words[i] ^= WORD_MASK;
+            words[v] ^= lastWordMask;
+        }
+    }
+
+    private static int bitCount(long[] words) {
+        int sum = 0;
+        for (long w : words)
+            sum += Long.bitCount(w);
+        return sum;
+    }
+
+    // ----- containers -----
+
+    // Holds the low 16 bits of the indices in one chunk. Mutators return
+    // the container that now holds the chunk, which may be a converted
+    // one. Binary operations never return or modify their second operand.
+    private static abstract class Container {
+        abstract int cardinality();
+
+        boolean isEmpty() {
+            return cardinality() == 0;
+        }
+
+        abstract boolean contains(int x);
+
+        abstract Container add(int x);
+
+        abstract Container remove(int x);
+
+        abstract Container addRange(int lo, int hi);
+
+        abstract Container removeRange(int lo, int hi);
+
+        Container flipRange(int lo, int hi) {
+            BitmapContainer b = toBitmap();
+            flipBits(b.words, lo, hi);
+            b.card = bitCount(b.words);
+            return b.repair();
+        }
+
+        abstract int first();
+
+        abstract int last();
+
+        abstract int nextSetBit(int x);
+
+        // returns CHUNK_SIZE if every bit from x on is set
+        abstract int nextClearBit(int x);
+
+        abstract int previousSetBit(int x);
+
+        abstract int previousClearBit(int x);
+
+        abstract void orInto(long[] words);
+
+        abstract int numberOfRuns();
+
+        abstract ArrayContainer toArray();
+
+        abstract BitmapContainer toBitmap();
+
+        abstract RunContainer toRun();
+
+        abstract Container copy();
+
+        abstract long hashWords(long h, int base);
+
+        // the smallest of the array, bitmap and run forms
+        Container optimize() {
+            int card = cardinality();
+            if (card == 0)
+                return this;
+            int runBytes = 2 + 4 * numberOfRuns();
+            int otherBytes = (card <= ARRAY_MAX) ? 2 * card : BITMAP_BYTES;
+            if (runBytes < otherBytes)
+                return toRun();
+            return (card <= ARRAY_MAX) ? toArray() : toBitmap();
+        }
+
+        // array or bitmap by cardinality, as the portable format expects
+        int serializedSize() {
+            int card = cardinality();
+            return (card <= ARRAY_MAX) ? 2 * card : BITMAP_BYTES;
+        }
+
+        void writeTo(ByteBuffer out) {
+            if (cardinality() <= ARRAY_MAX) {
+                ArrayContainer a = toArray();
+                for (int i = 0; i < a.card; i++)
+                    out.putChar(a.content[i]);
+            } else {
+                long[] words = toBitmap().words;
+                for (int i = 0; i < BITMAP_WORDS; i++)
+                    out.putLong(words[i]);
+            }
+        }
+
+        static Container and(Container a, Container b) {
+            if (a instanceof ArrayContainer)
+                return ((ArrayContainer) a).and(b);
+            if (b instanceof ArrayContainer)
+                return ((ArrayContainer) b).and(a);
+            if (a instanceof RunContainer && b instanceof RunContainer)
+                return RunContainer.and((RunContainer) a,
+                                        (RunContainer) b).optimize();
+            return wordOp(a, b, AND);
+        }
+
+        static Container or(Container a, Container b) {
+            if (a instanceof ArrayContainer && b instanceof ArrayContainer)
+                return ArrayContainer.or((ArrayContainer) a, (ArrayContainer) b);
+            if (a instanceof RunContainer && b instanceof RunContainer)
+                return RunContainer.or((RunContainer) a,
+                                       (RunContainer) b).optimize();
+            return wordOp(a, b, OR);
+        }
+
+        static Container xor(Container a, Container b) {
+            if (a instanceof ArrayContainer && b instanceof ArrayContainer)
+                return ArrayContainer.xor((ArrayContainer) a, (ArrayContainer) b);
+            return wordOp(a, b, XOR);
+        }
+
+        static Container andNot(Container a, Container b) {
+            if (a instanceof ArrayContainer)
+                return ((ArrayContainer) a).andNot(b);
+            if (a instanceof RunContainer && b instanceof RunContainer)
+                return RunContainer.andNot((RunContainer) a,
+                                           (RunContainer) b).optimize();
+            return wordOp(a, b, ANDNOT);
+        }
+
+        static Container wordOp(Container a, Container b, int op) {
+            long[] w = new long[BITMAP_WORDS];
+            a.orInto(w);
+            long[] v = (b instanceof BitmapContainer) ?
+                ((BitmapContainer) b).words : b.toBitmap().words;
+            int card = 0;
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                long x;
+                switch (op) {
+                case AND: x = w[i] & v[i];  break;
+                case OR:  x = w[i] | v[i];  break;
+                case XOR: x = w[i] ^ v[i];  break;
+                default:  x = w[i] & ~v[i]; break;
+                }
+                w[i] = x;
+                card += Long.bitCount(x);
+            }
+            return new BitmapContainer(w, card).repair();
+        }
+
+        static boolean intersects(Container a, Container b) {
+            if (b instanceof ArrayContainer) {
+                Container t = a; a = b; b = t;
+            }
+            if (a instanceof ArrayContainer) {
+                ArrayContainer x = (ArrayContainer) a;
+                for (int i = 0; i < x.card; i++)
+                    if (b.contains(x.content[i]))
+                        return true;
+                return false;
+            }
+            if (a instanceof BitmapContainer && b instanceof BitmapContainer) {
+                long[] u = ((BitmapContainer) a).words;
+                long[] v = ((BitmapContainer) b).words;
+                for (int i = 0; i < BITMAP_WORDS; i++)
+                    if ((u[i] & v[i]) != 0)
+                        return true;
+                return false;
+            }
+            return !and(a, b).isEmpty();
+        }
+
+        static boolean equal(Container a, Container b) {
+            if (a.cardinality() != b.cardinality())
+                return false;
+            if (a instanceof ArrayContainer && b instanceof ArrayContainer) {
+                ArrayContainer x = (ArrayContainer) a, y = (ArrayContainer) b;
+                for (int i = 0; i < x.card; i++)
+                    if (x.content[i] != y.content[i])
+                        return false;
+                return true;
+            }
+            if (a instanceof BitmapContainer && b instanceof BitmapContainer)
+                return Arrays.equals(((BitmapContainer) a).words,
+                                     ((BitmapContainer) b).words);
+            for (int x = a.first(); x >= 0;
+                 x = (x == LOW_MASK) ? -1 : a.nextSetBit(x + 1))
+                if (!b.contains(x))
+                    return false;
+            return true;
+        }
+    }
+
+    private static final class ArrayContainer extends Container {
+        char[] content;
+        int card;
+
+        ArrayContainer(int x) {
+            content = new char[4];
+            content[0] = (char) x;
+            card = 1;
+        }
+
+        ArrayContainer(char[] content, int card) {
+            this.content = content;
+            this.card = card;
+        }
+
+        int cardinality() {
+            return card;
+        }
+
+        private int search(int x) {
+            return Arrays.binarySearch(content, 0, card, (char) x);
+        }
+
+        // index of the first value >= x
+        private int lowerBound(int x) {
+            if (x > LOW_MASK)
+                return card;
+            int i = search(x);
+            return (i < 0) ? -i - 1 : i;
+        }
+
+        boolean contains(int x) {
+            return search(x) >= 0;
+        }
+
+        Container add(int x) {
+            int i = search(x);
+            if (i >= 0)
+                return this;
+            if (card == ARRAY_MAX)
+                return toBitmap().add(x);
+            i = -i - 1;
+            if (card == content.length) {
+                int newCapacity = (card < 64) ? Math.max(card * 2, 4) :
+                    (card < 1024) ? card + (card >> 1) : card + (card >> 2);
+                content = Arrays.copyOf(content, Math.min(newCapacity, ARRAY_MAX));
+            }
+            System.arraycopy(content, i, content, i + 1, card - i);
+            content[i] = (char) x;
+            card++;
+            return this;
+        }
+
+        Container remove(int x) {
+            int i = search(x);
+            if (i >= 0) {
+                System.arraycopy(content, i + 1, content, i, card - i - 1);
+                card--;
+            }
+            return this;
+        }
+
+        Container addRange(int lo, int hi) {
+            int i = lowerBound(lo), j = lowerBound(hi);
+            int newCard = card - (j - i) + (hi - lo);
+            if (newCard > ARRAY_MAX) {
+                BitmapContainer b = toBitmap();
+                setBits(b.words, lo, hi);
+                b.card = newCard;
+                return b;
+            }
+            char[] out = new char[newCard];
+            System.arraycopy(content, 0, out, 0, i);
+            for (int v = lo; v < hi; v++)
+                out[i + v - lo] = (char) v;
+            System.arraycopy(content, j, out, i + hi - lo, card - j);
+            content = out;
+            card = newCard;
+            return this;
+        }
+
+        Container removeRange(int lo, int hi) {
+            int i = lowerBound(lo), j = lowerBound(hi);
+            System.arraycopy(content, j, content, i, card - j);
+            card -= j - i;
+            return this;
+        }
+
+        int first() {
+            return (card == 0) ? -1 : content[0];
+        }
+
+        int last() {
+            return (card == 0) ? -1 : content[card - 1];
+        }
+
+        int nextSetBit(int x) {
+            int i = lowerBound(x);
+            return (i < card) ? content[i] : -1;
+        }
+
+        int nextClearBit(int x) {
+            int i = search(x);
+            if (i < 0)
+                return x;
+            while (i < card && content[i] == x) {
+                i++;
+                x++;
+            }
+            return x;
+        }
+
+        int previousSetBit(int x) {
+            int i = search(x);
+            if (i >= 0)
+                return x;
+            i = -i - 2;
+            return (i >= 0) ? content[i] : -1;
+        }
+
+        int previousClearBit(int x) {
+            int i = search(x);
+            if (i < 0)
+                return x;
+            while (i >= 0 && content[i] == x) {
+                i--;
+                x--;
+            }
+            return x;
+        }
+
+        void orInto(long[] words) {
+            for (int i = 0; i < card; i++)
+                words[content[i] >>> 6] |= 1L << content[i];
+        }
+
+        int numberOfRuns() {
+            if (card == 0)
+                return 0;
+            int n = 1;
+            for (int i = 1; i < card; i++)
+                if (content[i] != content[i - 1] + 1)
+                    n++;
+            return n;
+        }
+
+        ArrayContainer toArray() {
+            return this;
+        }
+
+        BitmapContainer toBitmap() {
+            long[] words = new long[BITMAP_WORDS];
+            orInto(words);
+            return new BitmapContainer(words, card);
+        }
+
+        RunContainer toRun() {
+            char[] runs = new char[2 * numberOfRuns()];
+            int n = 0;
+            for (int i = 0; i < card; i++) {
+                if (n > 0 && content[i] == runs[2*n - 2] + runs[2*n - 1] + 1) {
+                    runs[2*n - 1]++;
+                } else {
+                    runs[2*n] = content[i];
+                    runs[2*n + 1] = 0;
+                    n++;
+                }
+            }
+            return new RunContainer(runs, n);
+        }
+
+        Container and(Container other) {
+            char[] out = new char[card];
+            int n = 0;
+            if (other instanceof ArrayContainer) {
+                ArrayContainer b = (ArrayContainer) other;
+                int i = 0, j = 0;
+                while (i < card && j < b.card) {
+                    char x = content[i], y = b.content[j];
+                    if (x < y) {
+                        i++;
+                    } else if (x > y) {
+                        j++;
+                    } else {
+                        out[n++] = x;
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < card; i++)
+                    if (other.contains(content[i]))
+                        out[n++] = content[i];
+            }
+            return new ArrayContainer(out, n);
+        }
+
+        Container andNot(Container other) {
+            char[] out = new char[card];
+            int n = 0;
+            for (int i = 0; i < card; i++)
+                if (!other.contains(content[i]))
+                    out[n++] = content[i];
+            return new ArrayContainer(out, n);
+        }
+
+        static Container or(ArrayContainer a, ArrayContainer b) {
+            if (a.card + b.card > ARRAY_MAX)
+                return wordOp(a, b, OR);
+            char[] out = new char[a.card + b.card];
+            int n = 0, i = 0, j = 0;
+            while (i < a.card && j < b.card) {
+                char x = a.content[i], y = b.content[j];
+                if (x < y) {
+                    out[n++] = x;
+                    i++;
+                } else if (x > y) {
+                    out[n++] = y;
+                    j++;
+                } else {
+                    out[n++] = x;
+                    i++;
+                    j++;
+                }
+            }
+            while (i < a.card)
+                out[n++] = a.content[i++];
+            while (j < b.card)
+                out[n++] = b.content[j++];
+            return new ArrayContainer(out, n);
+        }
+
+        static Container xor(ArrayContainer a, ArrayContainer b) {
+            if (a.card + b.card > ARRAY_MAX)
+                return wordOp(a, b, XOR);
+            char[] out = new char[a.card + b.card];
+            int n = 0, i = 0, j = 0;
+            while (i < a.card && j < b.card) {
+                char x = a.content[i], y = b.content[j];
+                if (x < y) {
+                    out[n++] = x;
+                    i++;
+                } else if (x > y) {
+                    out[n++] = y;
+                    j++;
+                } else {
+                    i++;
+                    j++;
+                }
+            }
+            while (i < a.card)
+                out[n++] = a.content[i++];
+            while (j < b.card)
+                out[n++] = b.content[j++];
+            return new ArrayContainer(out, n);
+        }
+
+        ArrayContainer copy() {
+            return new ArrayContainer(Arrays.copyOf(content, card), card);
+        }
+
+        long hashWords(long h, int base) {
+            for (int i = 0; i < card; ) {
+                int u = content[i] >>> 6;
+                long word = 0;
+                while (i < card && content[i] >>> 6 == u)
+                    word |= 1L << content[i++];
+                h ^= word * (base + u + 1);
+            }
+            return h;
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        final long[] words;
+        int card;
+
+        BitmapContainer(long[] words, int card) {
+            this.words = words;
+            this.card = card;
+        }
+
+        int cardinality() {
+            return card;
+        }
+
+        // back to an array once sparse enough
+        Container repair() {
+            return (card <= ARRAY_MAX) ? toArray() : this;
+        }
+
+        boolean contains(int x) {
+            return (words[x >>> 6] & (1L << x)) != 0;
+        }
+
+        Container add(int x) {
+            long bit = 1L << x;
+            if ((words[x >>> 6] & bit) == 0) {
+                words[x >>> 6] |= bit;
+                card++;
+            }
+            return this;
+        }
+
+        Container remove(int x) {
+            long bit = 1L << x;
+            if ((words[x >>> 6] & bit) != 0) {
+                words[x >>> 6] &= ~bit;
+                card--;
+                return repair();
+            }
+            return this;
+        }
+
+        Container addRange(int lo, int hi) {
+            setBits(words, lo, hi);
+            card = bitCount(words);
+            return this;
+        }
+
+        Container removeRange(int lo, int hi) {
+            clearBits(words, lo, hi);
+            card = bitCount(words);
+            return repair();
+        }
+
+        int first() {
+            return nextSetBit(0);
+        }
+
+        int last() {
+            return previousSetBit(LOW_MASK);
+        }
+
+        int nextSetBit(int x) {
+            int u = x >>> 6;
+            long word = words[u] & (WORD_MASK << x);
+
+            while (true) {
+                if (word != 0)
+                    return (u * 64) + Long.numberOfTrailingZeros(word);
+                if (++u == BITMAP_WORDS)
+                    return -1;
+                word = words[u];
+            }
+        }
+
+        int nextClearBit(int x) {
+            int u = x >>> 6;
+            long word = ~words[u] & (WORD_MASK << x);
+
+            while (true) {
+                if (word != 0)
+                    return (u * 64) + Long.numberOfTrailingZeros(word);
+                if (++u == BITMAP_WORDS)
+                    return CHUNK_SIZE;
+                word = ~words[u];
+            }
+        }
+
+        int previousSetBit(int x) {
+            int u = x >>> 6;
+            long word = words[u] & (WORD_MASK >>> -(x+1));
+
+            while (true) {
+                if (word != 0)
+                    return (u+1) * 64 - 1 - Long.numberOfLeadingZeros(word);
+                if (u-- == 0)
+                    return -1;
+                word = words[u];
+            }
+        }
+
+        int previousClearBit(int x) {
+            int u = x >>> 6;
+            long word = ~words[u] & (WORD_MASK >>> -(x+1));
+
+            while (true) {
+                if (word != 0)
+                    return (u+1) * 64 - 1 - Long.numberOfLeadingZeros(word);
+                if (u-- == 0)
+                    return -1;
+                word = ~words[u];
+            }
+        }
+
+        void orInto(long[] w) {
+            for (int i = 0; i < BITMAP_WORDS; i++)
+                w[i] |= words[i];
+        }
+
+        // a run starts at every set bit whose lower neighbour is clear
+        int numberOfRuns() {
+            int n = 0;
+            long prev = 0;
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                long w = words[i];
+                n += Long.bitCount(w & ~((w << 1) | (prev >>> 63)));
+                prev = w;
+            }
+            return n;
+        }
+
+        ArrayContainer toArray() {
+            char[] content = new char[card];
+            int n = 0;
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                for (long w = words[i]; w != 0; w &= w - 1)
+                    content[n++] = (char) (i * 64 + Long.numberOfTrailingZeros(w));
+            }
+            return new ArrayContainer(content, n);
+        }
+
+        BitmapContainer toBitmap() {
+            return this;
+        }
+
+        RunContainer toRun() {
+            char[] runs = new char[2 * numberOfRuns()];
+            int n = 0;
+            for (int x = nextSetBit(0); x >= 0; ) {
+                int e = nextClearBit(x);
+                runs[2*n] = (char) x;
+                runs[2*n + 1] = (char) (e - x - 1);
+                n++;
+                x = (e < CHUNK_SIZE) ? nextSetBit(e) : -1;
+            }
+            return new RunContainer(runs, n);
+        }
+
+        BitmapContainer copy() {
+            return new BitmapContainer(words.clone(), card);
+        }
+
+        long hashWords(long h, int base) {
+            for (int i = 0; i < BITMAP_WORDS; i++)
+                if (words[i] != 0)
+                    h ^= words[i] * (base + i + 1);
+            return h;
+        }
+    }
+
+    // Runs are stored as (start, length - 1) pairs, sorted, with at least
+    // one clear bit between consecutive runs.
+    private static final class RunContainer extends Container {
+        char[] runs;
+        int nruns;
+
+        RunContainer(char[] runs, int nruns) {
+            this.runs = runs;
+            this.nruns = nruns;
+        }
+
+        static RunContainer range(int lo, int hi) {
+            return new RunContainer(new char[] { (char) lo, (char) (hi - lo - 1) }, 1);
+        }
+
+        private int start(int i) {
+            return runs[2 * i];
+        }
+
+        private int end(int i) {
+            return runs[2 * i] + runs[2 * i + 1];
+        }
+
+        // index of the last run starting at or before x, or -1
+        private int findRun(int x) {
+            int lo = 0, hi = nruns - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                int s = runs[2 * mid];
+                if (s < x)
+                    lo = mid + 1;
+                else if (s > x)
+                    hi = mid - 1;
+                else
+                    return mid;
+            }
+            return lo - 1;
+        }
+
+        private void insertRun(int i, int s, int e) {
+            if (2 * nruns + 2 > runs.length)
+                runs = Arrays.copyOf(runs, Math.max(4, runs.length * 2));
+            System.arraycopy(runs, 2 * i, runs, 2 * i + 2, 2 * (nruns - i));
+            runs[2 * i] = (char) s;
+            runs[2 * i + 1] = (char) (e - s);
+            nruns++;
+        }
+
+        private void removeRun(int i) {
+            System.arraycopy(runs, 2 * i + 2, runs, 2 * i, 2 * (nruns - i - 1));
+            nruns--;
+        }
+
+        // called after the run count grew
+        private Container checkSize() {
+            int card = cardinality();
+            int otherBytes = (card <= ARRAY_MAX) ? 2 * card : BITMAP_BYTES;
+            return (2 + 4 * nruns > otherBytes) ? optimize() : this;
+        }
+
+        int cardinality() {
+            int sum = nruns;
+            for (int i = 0; i < nruns; i++)
+                sum += runs[2 * i + 1];
+            return sum;
+        }
+
+        boolean isEmpty() {
+            return nruns == 0;
+        }
+
+        boolean contains(int x) {
+            int i = findRun(x);
+            return i >= 0 && x <= end(i);
+        }
+
+        Container add(int x) {
+            int i = findRun(x);
+            if (i >= 0 && x <= end(i))
+                return this;
+            boolean joinPrev = i >= 0 && end(i) + 1 == x;
+            boolean joinNext = i + 1 < nruns && start(i + 1) == x + 1;
+            if (joinPrev && joinNext) {
+                runs[2 * i + 1] = (char) (end(i + 1) - start(i));
+                removeRun(i + 1);
+            } else if (joinPrev) {
+                runs[2 * i + 1]++;
+            } else if (joinNext) {
+                runs[2 * i + 2] = (char) x;
+                runs[2 * i + 3]++;
+            } else {
+                insertRun(i + 1, x, x);
+                return checkSize();
+            }
+            return this;
+        }
+
+        Container remove(int x) {
+            int i = findRun(x);
+            if (i < 0 || x > end(i))
+                return this;
+            int s = start(i), e = end(i);
+            if (s == e) {
+                removeRun(i);
+            } else if (x == s) {
+                runs[2 * i] = (char) (s + 1);
+                runs[2 * i + 1]--;
+            } else if (x == e) {
+                runs[2 * i + 1]--;
+            } else {
+                runs[2 * i + 1] = (char) (x - 1 - s);
+                insertRun(i + 1, x + 1, e);
+                return checkSize();
+            }
+            return this;
+        }
+
+        Container addRange(int lo, int hi) {
+            return or(this, range(lo, hi)).optimize();
+        }
+
+        Container removeRange(int lo, int hi) {
+            return andNot(this, range(lo, hi)).optimize();
+        }
+
+        int first() {
+            return (nruns == 0) ? -1 : start(0);
+        }
+
+        int last() {
+            return (nruns == 0) ? -1 : end(nruns - 1);
+        }
+
+        int nextSetBit(int x) {
+            int i = findRun(x);
+            if (i >= 0 && x <= end(i))
+                return x;
+            return (++i < nruns) ? start(i) : -1;
+        }
+
+        int nextClearBit(int x) {
+            int i = findRun(x);
+            return (i >= 0 && x <= end(i)) ? end(i) + 1 : x;
+        }
+
+        int previousSetBit(int x) {
+            int i = findRun(x);
+            return (i < 0) ? -1 : Math.min(x, end(i));
+        }
+
+        int previousClearBit(int x) {
+            int i = findRun(x);
+            return (i >= 0 && x <= end(i)) ? start(i) - 1 : x;
+        }
+
+        void orInto(long[] words) {
+            for (int i = 0; i < nruns; i++)
+                setBits(words, start(i), end(i) + 1);
+        }
+
+        int numberOfRuns() {
+            return nruns;
+        }
+
+        ArrayContainer toArray() {
+            char[] content = new char[cardinality()];
+            int n = 0;
+            for (int i = 0; i < nruns; i++)
+                for (int x = start(i), e = end(i); x <= e; x++)
+                    content[n++] = (char) x;
+            return new ArrayContainer(content, n);
+        }
+
+        BitmapContainer toBitmap() {
+            long[] words = new long[BITMAP_WORDS];
+            orInto(words);
+            return new BitmapContainer(words, cardinality());
+        }
+
+        RunContainer toRun() {
+            return this;
+        }
+
+        int serializedSize() {
+            return 2 + 4 * nruns;
+        }
+
+        void writeTo(ByteBuffer out) {
+            out.putChar((char) nruns);
+            for (int i = 0; i < 2 * nruns; i++)
+                out.putChar(runs[i]);
+        }
+
+        private static int append(char[] out, int n, int s, int e) {
+            out[2 * n] = (char) s;
+            out[2 * n + 1] = (char) (e - s);
+            return n + 1;
+        }
+
+        static RunContainer or(RunContainer a, RunContainer b) {
+            char[] out = new char[2 * (a.nruns + b.nruns)];
+            int n = 0, i = 0, j = 0;
+            int curStart = -1, curEnd = -2;
+            while (i < a.nruns || j < b.nruns) {
+                int s, e;
+                if (j == b.nruns || (i < a.nruns && a.start(i) <= b.start(j))) {
+                    s = a.start(i);
+                    e = a.end(i++);
+                } else {
+                    s = b.start(j);
+                    e = b.end(j++);
+                }
+                if (s <= curEnd + 1) {
+                    if (e > curEnd)
+                        curEnd = e;
+                } else {
+                    if (curStart >= 0)
+                        n = append(out, n, curStart, curEnd);
+                    curStart = s;
+                    curEnd = e;
+                }
+            }
+            if (curStart >= 0)
+                n = append(out, n, curStart, curEnd);
+            return new RunContainer(out, n);
+        }
+
+        static RunContainer and(RunContainer a, RunContainer b) {
+            char[] out = new char[2 * (a.nruns + b.nruns)];
+            int n = 0, i = 0, j = 0;
+            while (i < a.nruns && j < b.nruns) {
+                int s = Math.max(a.start(i), b.start(j));
+                int e = Math.min(a.end(i), b.end(j));
+                if (s <= e)
+                    n = append(out, n, s, e);
+                if (a.end(i) < b.end(j))
+                    i++;
+                else
+                    j++;
+            }
+            return new RunContainer(out, n);
+        }
+
+        static RunContainer andNot(RunContainer a, RunContainer b) {
+            char[] out = new char[2 * (a.nruns + b.nruns)];
+            int n = 0, j = 0;
+            for (int i = 0; i < a.nruns; i++) {
+                int cur = a.start(i), e = a.end(i);
+                while (j < b.nruns && b.end(j) < cur)
+                    j++;
+                int k = j;
+                while (k < b.nruns && b.start(k) <= e) {
+                    if (b.start(k) > cur)
+                        n = append(out, n, cur, b.start(k) - 1);
+                    cur = Math.max(cur, b.end(k) + 1);
+                    if (b.end(k) > e)
+                        break;
+                    k++;
+                }
+                if (cur <= e)
+                    n = append(out, n, cur, e);
+                j = k;
+            }
+            return new RunContainer(out, n);
+        }
+
+        RunContainer copy() {
+            return new RunContainer(Arrays.copyOf(runs, 2 * nruns), nruns);
+        }
+
+        long hashWords(long h, int base) {
+            return toBitmap().hashWords(h, base);
+        }
+    }
+}
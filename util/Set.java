@@ -43,6 +43,37 @@ public interface Set<E> extends Collection<E> {
 
     @Override
     default Spliterator<E> spliterator() {
-        return Spliterators.spliterator(this, Spliterator.DISTINCT);
+        return Spliterators.spliterator(this, Spliterator.DISTINCT,
+                                        Spliterators.SplitPolicy.adaptive());
+    }
+
+    // Immutable sets backed by fields or one open-addressing array; see
+    // ImmutableCollections. Nulls and duplicate elements are rejected.
+    @SuppressWarnings("unchecked")
+    static <E> Set<E> of() {
+        return (Set<E>) ImmutableCollections.SetN.EMPTY;
+    }
+
+    static <E> Set<E> of(E e1) {
+        return new ImmutableCollections.Set12<>(e1);
+    }
+
+    static <E> Set<E> of(E e1, E e2) {
+        return new ImmutableCollections.Set12<>(e1, e2);
+    }
+
+    @SafeVarargs
+    @SuppressWarnings("varargs")
+    static <E> Set<E> of(E... elements) {
+        return ImmutableCollections.setFromArray(elements, true);
+    }
+
+    // duplicates in coll are dropped; returns coll itself when it is
+    // already one of these sets
+    @SuppressWarnings("unchecked")
+    static <E> Set<E> copyOf(Collection<? extends E> coll) {
+        if (coll instanceof ImmutableCollections.AbstractImmutableSet)
+            return (Set<E>) coll;
+        return ImmutableCollections.setFromArray(coll.toArray(), false);
     }
 }
@@ -0,0 +1,40 @@
+package java.util;
+
+// Scratch space for sorting object arrays, kept between calls: the merge
+// buffer and run stack of TimSort and ComparableTimSort, so that sorting
+// many small batches does not allocate them every time. A context is not
+// thread-safe; forCurrentThread gives each thread one of its own. Nothing
+// sorted stays reachable from a context once the sort returns.
+public final class SortContext {
+
+    // merge buffers longer than this are dropped after the sort that grew
+    // them rather than kept for the next
+    static final int DEFAULT_MAX_RETAINED_LENGTH = 1 << 16;
+
+    private static final ThreadLocal<SortContext> perThread =
+        ThreadLocal.withInitial(SortContext::new);
+
+    final int maxRetainedLength;
+
+    // created on first use
+    TimSort<?> timSort;
+    ComparableTimSort comparableTimSort;
+
+    // set while a sort holds the buffers
+    boolean inUse;
+
+    public SortContext() {
+        this(DEFAULT_MAX_RETAINED_LENGTH);
+    }
+
+    public SortContext(int maxRetainedLength) {
+        if (maxRetainedLength < 0)
+            throw new IllegalArgumentException("Illegal max retained length: " +
+                                               maxRetainedLength);
+        this.maxRetainedLength = maxRetainedLength;
+    }
+
+    public static SortContext forCurrentThread() {
+        return perThread.get();
+    }
+}
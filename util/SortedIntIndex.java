@@ -0,0 +1,160 @@
+package java.util;
+
+// A read-only index over a sorted int[], for lookups on arrays too large
+// for the cache. The elements are stored in Eytzinger order, the breadth
+// first layout of the implicit search tree: node k has children 2k and
+// 2k+1, so the first levels share a few cache lines and every step of a
+// search reads at a position computable before the comparison resolves.
+// The descent has no data-dependent branch; the last comparison's path is
+// undone with a bit trick. Positions are converted back to ranks in the
+// sorted array arithmetically, so the index holds nothing but the tree.
+//
+// The batch queries descend a group of keys in lockstep, level by level,
+// so the cache misses of different keys overlap instead of following
+// one another.
+public final class SortedIntIndex {
+
+    // keys descended together by the batch queries
+    private static final int BATCH = 16;
+
+    // largest size for which 2k + 1 cannot overflow during a descent
+    static final int MAX_SIZE = (1 << 30) - 1;
+
+    // tree[1..size] in Eytzinger order; tree[0] is unused
+    private final int[] tree;
+
+    private final int size;
+
+    // levels of the smallest perfect tree holding size nodes
+    private final int height;
+
+    // nodes present on the last level of that tree
+    private final int leaves;
+
+    private SortedIntIndex(int[] a, int fromIndex, int toIndex) {
+        int n = toIndex - fromIndex;
+        if (n > MAX_SIZE)
+            throw new IllegalArgumentException("Too many elements: " + n);
+        size = n;
+        height = 32 - Integer.numberOfLeadingZeros(n);
+        leaves = n == 0 ? 0 : n - (1 << (height - 1)) + 1;
+        tree = new int[n + 1];
+        for (int k = 1; k <= n; k++)
+            tree[k] = a[fromIndex + rankOfNode(k)];
+    }
+
+    public static SortedIntIndex of(int[] a) {
+        return of(a, 0, a.length);
+    }
+
+    public static SortedIntIndex of(int[] a, int fromIndex, int toIndex) {
+        Arrays.rangeCheck(a.length, fromIndex, toIndex);
+        for (int i = fromIndex + 1; i < toIndex; i++)
+            if (a[i - 1] > a[i])
+                throw new IllegalArgumentException("Not sorted at index " + i);
+        return new SortedIntIndex(a, fromIndex, toIndex);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // rank of the first element >= x, size if there is none
+    public int lowerBound(int x) {
+        return rankOf(descend(x));
+    }
+
+    // rank of the first element > x, size if there is none
+    public int upperBound(int x) {
+        return x == Integer.MAX_VALUE ? size : lowerBound(x + 1);
+    }
+
+    // as Arrays.binarySearch: the index of an element equal to x, the first
+    // if there are several, else (-(insertion point) - 1)
+    public int binarySearch(int x) {
+        int k = descend(x);
+        int r = rankOf(k);
+        return (k != 0 && tree[k] == x) ? r : -(r + 1);
+    }
+
+    public boolean contains(int x) {
+        int k = descend(x);
+        return k != 0 && tree[k] == x;
+    }
+
+    // ranks[i] = lowerBound(keys[i])
+    public void lowerBounds(int[] keys, int[] ranks) {
+        if (ranks.length < keys.length)
+            throw new IllegalArgumentException("ranks shorter than keys");
+        int[] t = tree;
+        int n = size, h = height;
+        int[] ks = new int[BATCH];
+        for (int base = 0; base < keys.length; base += BATCH) {
+            int g = Math.min(BATCH, keys.length - base);
+            Arrays.fill(ks, 0, g, 1);
+            for (int level = 0; level < h; level++) {
+                for (int j = 0; j < g; j++) {
+                    int k = ks[j];
+                    if (k <= n)
+                        ks[j] = (k << 1) + (t[k] < keys[base + j] ? 1 : 0);
+                }
+            }
+            for (int j = 0; j < g; j++)
+                ranks[base + j] = rankOf(undo(ks[j]));
+        }
+    }
+
+    // ranks[i] = upperBound(keys[i])
+    public void upperBounds(int[] keys, int[] ranks) {
+        if (ranks.length < keys.length)
+            throw new IllegalArgumentException("ranks shorter than keys");
+        int[] t = tree;
+        int n = size, h = height;
+        int[] ks = new int[BATCH];
+        for (int base = 0; base < keys.length; base += BATCH) {
+            int g = Math.min(BATCH, keys.length - base);
+            Arrays.fill(ks, 0, g, 1);
+            for (int level = 0; level < h; level++) {
+                for (int j = 0; j < g; j++) {
+                    int k = ks[j];
+                    if (k <= n)
+                        ks[j] = (k << 1) + (t[k] <= keys[base + j] ? 1 : 0);
+                }
+            }
+            for (int j = 0; j < g; j++)
+                ranks[base + j] = rankOf(undo(ks[j]));
+        }
+    }
+
+    // node holding the first element >= x, 0 if there is none
+    private int descend(int x) {
+        int[] t = tree;
+        int n = size, k = 1;
+        while (k <= n)
+            k = (k << 1) + (t[k] < x ? 1 : 0);
+        return undo(k);
+    }
+
+    // The descent ends below a leaf; the answer is the last node where it
+    // went left. Going right appended 1 bits, so drop the trailing ones
+    // and then the 0 of that left turn.
+    private static int undo(int k) {
+        return k >>> (Integer.numberOfTrailingZeros(~k) + 1);
+    }
+
+    private int rankOf(int k) {
+        return k == 0 ? size : rankOfNode(k);
+    }
+
+    // In-order position of node k: its position in the perfect tree of the
+    // same height, less the absent last-level nodes that would precede it.
+    // Those come after every present one, and last-level node t sits at
+    // perfect position 2t.
+    private int rankOfNode(int k) {
+        int d = 31 - Integer.numberOfLeadingZeros(k);
+        int s = height - d;
+        int r = ((k - (1 << d)) << s) + (1 << (s - 1)) - 1;
+        int absent = ((r + 1) >> 1) - leaves;
+        return absent > 0 ? r - absent : r;
+    }
+}
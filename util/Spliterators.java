@@ -1,5 +1,6 @@
 package java.util;
 
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.DoubleConsumer;
 import java.util.function.IntConsumer;
@@ -105,6 +106,14 @@ public final class Spliterators {
                                          characteristics);
     }
 
+    public static <T> Spliterator<T> spliterator(Collection<? extends T> c,
+                                                 int characteristics,
+                                                 SplitPolicy policy) {
+        return new IteratorSpliterator<>(Objects.requireNonNull(c),
+                                         characteristics,
+                                         Objects.requireNonNull(policy));
+    }
+
     public static <T> Spliterator<T> spliterator(Iterator<? extends T> iterator,
                                                  long size,
                                                  int characteristics) {
@@ -117,6 +126,13 @@ public final class Spliterators {
         return new IteratorSpliterator<>(Objects.requireNonNull(iterator), characteristics);
     }
 
+    public static <T> Spliterator<T> spliteratorUnknownSize(Iterator<? extends T> iterator,
+                                                            int characteristics,
+                                                            SplitPolicy policy) {
+        return new IteratorSpliterator<>(Objects.requireNonNull(iterator), characteristics,
+                                         Objects.requireNonNull(policy));
+    }
+
     public static Spliterator.OfInt spliterator(PrimitiveIterator.OfInt iterator,
                                                 long size,
                                                 int characteristics) {
@@ -814,6 +830,159 @@ public final class Spliterators {
     }
 
 
+    // Chooses the sizes of the batches that an iterator-backed spliterator
+    // copies into arrays in trySplit. A policy may keep state, so each
+    // spliterator should get its own instance.
+    public static abstract class SplitPolicy {
+        static final int BATCH_UNIT = IteratorSpliterator.BATCH_UNIT;
+        static final int MAX_BATCH = IteratorSpliterator.MAX_BATCH;
+
+        // previous is the size of the last batch, 0 before the first split;
+        // remaining is the estimate of elements left, Long.MAX_VALUE if
+        // unknown. The spliterator clamps the result to [1, remaining].
+        public abstract int nextBatchSize(int previous, long remaining);
+
+        // Whether batches should be timed and reported to batchTraversed.
+        public boolean timesTraversal() {
+            return false;
+        }
+
+        // Called once a batch of n elements has been traversed by
+        // forEachRemaining, which took nanos.
+        public void batchTraversed(int n, long nanos) {
+        }
+
+        // Batches growing by a fixed 1024 elements each split, as the
+        // spliterators here do by default.
+        public static SplitPolicy fixed() {
+            return FixedSplitPolicy.INSTANCE;
+        }
+
+        public static SplitPolicy adaptive() {
+            return new AdaptiveSplitPolicy(AdaptiveSplitPolicy.DEFAULT_TARGET_NANOS);
+        }
+
+        // Aims for batches that take about targetBatchNanos to traverse.
+        public static SplitPolicy adaptive(long targetBatchNanos) {
+            if (targetBatchNanos <= 0)
+                throw new IllegalArgumentException("Illegal target: " + targetBatchNanos);
+            return new AdaptiveSplitPolicy(targetBatchNanos);
+        }
+    }
+
+    static final class FixedSplitPolicy extends SplitPolicy {
+        static final FixedSplitPolicy INSTANCE = new FixedSplitPolicy();
+
+        @Override
+        public int nextBatchSize(int previous, long remaining) {
+            int n = previous + BATCH_UNIT;
+            return (n > MAX_BATCH) ? MAX_BATCH : n;
+        }
+    }
+
+    // Sizes batches from the measured cost of traversing earlier ones.
+    // Until some time has been measured it starts small, for the case where
+    // each element is expensive and workers should start early, and
+    // doubles, so that cheap elements soon get large batches; a clock too
+    // coarse to see a batch leaves it doubling. After that a batch holds as
+    // many elements as take targetNanos at the average cost so far. Reports
+    // come from the workers, and the element count and time are replaced
+    // together so a reader never sees one without the other.
+    static final class AdaptiveSplitPolicy extends SplitPolicy {
+        static final long DEFAULT_TARGET_NANOS = 1L << 20; // about 1ms
+        static final int INITIAL_BATCH = 1 << 4;
+
+        static final class Stats {
+            final long elements;
+            final long nanos;
+
+            Stats(long elements, long nanos) {
+                this.elements = elements;
+                this.nanos = nanos;
+            }
+        }
+
+        final long targetNanos;
+        final AtomicReference<Stats> stats =
+            new AtomicReference<>(new Stats(0L, 0L));
+
+        AdaptiveSplitPolicy(long targetNanos) {
+            this.targetNanos = targetNanos;
+        }
+
+        @Override
+        public int nextBatchSize(int previous, long remaining) {
+            Stats s = stats.get();
+            long n = s.elements, t = s.nanos;
+            if (n <= 0 || t <= 0)
+                return (previous == 0) ? INITIAL_BATCH :
+                       (previous >= MAX_BATCH >>> 1) ? MAX_BATCH : previous << 1;
+            double b = (double) targetNanos * n / t;
+            return (b >= MAX_BATCH) ? MAX_BATCH : (b < 1.0) ? 1 : (int) b;
+        }
+
+        @Override
+        public boolean timesTraversal() {
+            return true;
+        }
+
+        @Override
+        public void batchTraversed(int n, long nanos) {
+            if (n > 0 && nanos >= 0) {
+                Stats s, u;
+                do {
+                    s = stats.get();
+                    u = new Stats(s.elements + n, s.nanos + nanos);
+                } while (!stats.compareAndSet(s, u));
+            }
+        }
+    }
+
+    // A batch split off by an iterator spliterator whose policy times
+    // traversals; halves split from it again are not timed.
+    static final class TimedBatchSpliterator<T> implements Spliterator<T> {
+        private final Spliterator<T> batch;
+        private final SplitPolicy policy;
+
+        TimedBatchSpliterator(Spliterator<T> batch, SplitPolicy policy) {
+            this.batch = batch;
+            this.policy = policy;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            return batch.trySplit();
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            int n = (int) batch.estimateSize();
+            long start = System.nanoTime();
+            batch.forEachRemaining(action);
+            policy.batchTraversed(n, System.nanoTime() - start);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            return batch.tryAdvance(action);
+        }
+
+        @Override
+        public long estimateSize() {
+            return batch.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            return batch.characteristics();
+        }
+
+        @Override
+        public Comparator<? super T> getComparator() {
+            return batch.getComparator();
+        }
+    }
+
     static class IteratorSpliterator<T> implements Spliterator<T> {
         static final int BATCH_UNIT = 1 << 10;  // batch array size increment
         static final int MAX_BATCH = 1 << 25;  // max batch array size;
@@ -822,13 +991,20 @@ public final class Spliterators {
         private final int characteristics;
         private long est;             // size estimate
         private int batch;            // batch size for splits
+        private final SplitPolicy policy; // null for fixed growth
 
         public IteratorSpliterator(Collection<? extends T> collection, int characteristics) {
+            this(collection, characteristics, null);
+        }
+
+        public IteratorSpliterator(Collection<? extends T> collection, int characteristics,
+                                   SplitPolicy policy) {
             this.collection = collection;
             this.it = null;
             this.characteristics = (characteristics & Spliterator.CONCURRENT) == 0
                                    ? characteristics | Spliterator.SIZED | Spliterator.SUBSIZED
                                    : characteristics;
+            this.policy = policy;
         }
 
         public IteratorSpliterator(Iterator<? extends T> iterator, long size, int characteristics) {
@@ -838,13 +1014,20 @@ public final class Spliterators {
             this.characteristics = (characteristics & Spliterator.CONCURRENT) == 0
                                    ? characteristics | Spliterator.SIZED | Spliterator.SUBSIZED
                                    : characteristics;
+            this.policy = null;
         }
 
         public IteratorSpliterator(Iterator<? extends T> iterator, int characteristics) {
+            this(iterator, characteristics, null);
+        }
+
+        public IteratorSpliterator(Iterator<? extends T> iterator, int characteristics,
+                                   SplitPolicy policy) {
             this.collection = null;
             this.it = iterator;
             this.est = Long.MAX_VALUE;
             this.characteristics = characteristics & ~(Spliterator.SIZED | Spliterator.SUBSIZED);
+            this.policy = policy;
         }
 
         @Override
@@ -858,7 +1041,10 @@ public final class Spliterators {
             else
                 s = est;
             if (s > 1 && i.hasNext()) {
-                int n = batch + BATCH_UNIT;
+                SplitPolicy p = policy;
+                int n = (p == null) ? batch + BATCH_UNIT : p.nextBatchSize(batch, s);
+                if (n < 1)
+                    n = 1;
                 if (n > s)
                     n = (int) s;
                 if (n > MAX_BATCH)
@@ -869,7 +1055,9 @@ public final class Spliterators {
                 batch = j;
                 if (est != Long.MAX_VALUE)
                     est -= j;
-                return new ArraySpliterator<>(a, 0, j, characteristics);
+                Spliterator<T> b = new ArraySpliterator<>(a, 0, j, characteristics);
+                return (p != null && p.timesTraversal()) ?
+                    new TimedBatchSpliterator<>(b, p) : b;
             }
             return null;
         }
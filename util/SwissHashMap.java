@@ -0,0 +1,657 @@
+
+package java.util;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.Serializable;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// Open-addressing map in the Swiss-table layout: keys and values sit in
+// flat arrays, and a separate control array holds one byte per slot
+// (EMPTY, DELETED, or the top 7 bits of the hash when full). Control bytes
+// are packed eight to a long, so one word load inspects a whole group and
+// candidate slots are found with SWAR byte-compare tricks before any key
+// is touched. Per entry this costs two array references plus one control
+// byte, against a 32-byte Node and a table reference for HashMap.
+public class SwissHashMap<K,V> extends AbstractMap<K,V>
+    implements Map<K,V>, Cloneable, Serializable {
+
+    private static final long serialVersionUID = -6121342389716528034L;
+
+    static final int GROUP_SHIFT = 3;
+
+    static final int GROUP_WIDTH = 1 << GROUP_SHIFT;
+
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    static final byte EMPTY = (byte)0x80;
+
+    static final byte DELETED = (byte)0xFE;
+
+    static final long LSB = 0x0101010101010101L;
+
+    static final long MSB = 0x8080808080808080L;
+
+    static final long ALL_EMPTY = LSB * (EMPTY & 0xFF);
+
+    transient long[] ctrl;
+
+    transient Object[] keys;
+
+    transient Object[] vals;
+
+    transient int size;
+
+    // number of EMPTY slots that may still be filled before a rehash
+    transient int growthLeft;
+
+    transient int modCount;
+
+    transient Set<Map.Entry<K,V>> entrySet;
+
+    public SwissHashMap(int initialCapacity) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal initial capacity: " +
+                                               initialCapacity);
+        allocate(capacityFor(initialCapacity));
+    }
+
+    public SwissHashMap() {
+        allocate(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public SwissHashMap(Map<? extends K, ? extends V> m) {
+        allocate(capacityFor(m.size()));
+        putAll(m);
+    }
+
+    // table capacity for n entries at the 7/8 maximum load
+    static int capacityFor(int n) {
+        long c = (long)n + (n >>> 3) + 1;
+        if (c >= MAXIMUM_CAPACITY)
+            return MAXIMUM_CAPACITY;
+        return Math.max(GROUP_WIDTH, OpenHashing.tableSizeFor((int)c));
+    }
+
+    static int maxLoad(int capacity) {
+        return capacity - (capacity >>> 3);
+    }
+
+    private void allocate(int capacity) {
+        long[] c = new long[capacity >>> GROUP_SHIFT];
+        Arrays.fill(c, ALL_EMPTY);
+        ctrl = c;
+        keys = new Object[capacity];
+        vals = new Object[capacity];
+        growthLeft = maxLoad(capacity);
+    }
+
+    static int hash(Object key) {
+        return (key == null) ? 0 : OpenHashing.mix(key.hashCode());
+    }
+
+    // the 7 hash bits stored in the control byte
+    static int h2(int h) {
+        return h >>> 25;
+    }
+
+    /* ------------------------------------------------------------ */
+    // group operations; byte i of a control word describes slot 8*g + i
+
+    static long matchByte(long word, int b) {
+        long x = word ^ (LSB * b);
+        return (x - LSB) & ~x & MSB;
+    }
+
+    static long matchEmpty(long word) {
+        return word & (~word << 6) & MSB;
+    }
+
+    static long matchEmptyOrDeleted(long word) {
+        return word & MSB;
+    }
+
+    static int lowestByte(long match) {
+        return Long.numberOfTrailingZeros(match) >>> 3;
+    }
+
+    final byte ctrlAt(int slot) {
+        return (byte)(ctrl[slot >>> GROUP_SHIFT] >>> ((slot & 7) << 3));
+    }
+
+    final void setCtrl(int slot, int b) {
+        int g = slot >>> GROUP_SHIFT, shift = (slot & 7) << 3;
+        ctrl[g] = (ctrl[g] & ~(0xFFL << shift)) | ((b & 0xFFL) << shift);
+    }
+
+    final boolean isFull(int slot) {
+        return ctrlAt(slot) >= 0;
+    }
+
+    // slot holding key, or -1; probes group by group using triangular steps
+    final int findSlot(Object key, int h) {
+        long[] c = ctrl;
+        Object[] ks = keys;
+        int groupMask = c.length - 1, g = h & groupMask, b = h2(h);
+        for (int step = 1; ; step++) {
+            long w = c[g];
+            for (long m = matchByte(w, b); m != 0; m &= m - 1) {
+                int i = (g << GROUP_SHIFT) + lowestByte(m);
+                Object k;
+                if ((k = ks[i]) == key || (key != null && key.equals(k)))
+                    return i;
+            }
+            if (matchEmpty(w) != 0)
+                return -1;
+            g = (g + step) & groupMask;
+        }
+    }
+
+    final int findInsertSlot(int h) {
+        long[] c = ctrl;
+        int groupMask = c.length - 1, g = h & groupMask;
+        for (int step = 1; ; step++) {
+            long m = matchEmptyOrDeleted(c[g]);
+            if (m != 0)
+                return (g << GROUP_SHIFT) + lowestByte(m);
+            g = (g + step) & groupMask;
+        }
+    }
+
+    // inserts a key known to be absent and returns its slot
+    final int insertNew(int h, K key, V value) {
+        int i = findInsertSlot(h);
+        if (growthLeft == 0 && ctrlAt(i) == EMPTY) {
+            int cap = keys.length;
+            // reclaim tombstones in place when they, not live entries,
+            // exhausted the free slots
+            rehash(size < (maxLoad(cap) >>> 1) || cap == MAXIMUM_CAPACITY ?
+                   cap : cap << 1);
+            i = findInsertSlot(h);
+        }
+        if (ctrlAt(i) == EMPTY)
+            --growthLeft;
+        setCtrl(i, h2(h));
+        keys[i] = key;
+        vals[i] = value;
+        ++size;
+        ++modCount;
+        return i;
+    }
+
+    final void eraseAt(int i) {
+        // a group that still has an EMPTY slot never caused a probe to
+        // continue past it, so the slot can go straight back to EMPTY
+        if (matchEmpty(ctrl[i >>> GROUP_SHIFT]) != 0) {
+            setCtrl(i, EMPTY);
+            ++growthLeft;
+        } else
+            setCtrl(i, DELETED);
+        keys[i] = null;
+        vals[i] = null;
+        --size;
+        ++modCount;
+    }
+
+    final void rehash(int newCapacity) {
+        long[] oldCtrl = ctrl;
+        Object[] oldKeys = keys, oldVals = vals;
+        allocate(newCapacity);
+        for (int g = 0; g < oldCtrl.length; g++) {
+            long full = ~oldCtrl[g] & MSB;
+            for (; full != 0; full &= full - 1) {
+                int j = (g << GROUP_SHIFT) + lowestByte(full);
+                Object k = oldKeys[j];
+                int h = hash(k);
+                int i = findInsertSlot(h);
+                setCtrl(i, h2(h));
+                keys[i] = k;
+                vals[i] = oldVals[j];
+            }
+        }
+        growthLeft -= size;
+    }
+
+    /* ------------------------------------------------------------ */
+    // Map operations
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        int i = findSlot(key, hash(key));
+        return (i < 0) ? null : (V)vals[i];
+    }
+
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(Object key, V defaultValue) {
+        int i = findSlot(key, hash(key));
+        return (i < 0) ? defaultValue : (V)vals[i];
+    }
+
+    public boolean containsKey(Object key) {
+        return findSlot(key, hash(key)) >= 0;
+    }
+
+    public boolean containsValue(Object value) {
+        Object[] vs = vals;
+        for (int i = 0; i < vs.length; i++) {
+            if (isFull(i) && Objects.equals(vs[i], value))
+                return true;
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(K key, V value) {
+        int h = hash(key), i = findSlot(key, h);
+        if (i >= 0) {
+            V oldValue = (V)vals[i];
+            vals[i] = value;
+            return oldValue;
+        }
+        insertNew(h, key, value);
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V putIfAbsent(K key, V value) {
+        int h = hash(key), i = findSlot(key, h);
+        if (i >= 0) {
+            V oldValue = (V)vals[i];
+            if (oldValue == null)
+                vals[i] = value;
+            return oldValue;
+        }
+        insertNew(h, key, value);
+        return null;
+    }
+
+    public void putAll(Map<? extends K, ? extends V> m) {
+        int s = m.size();
+        if (s > size + growthLeft)
+            rehash(capacityFor(Math.max(s, size)));
+        for (Map.Entry<? extends K, ? extends V> e : m.entrySet())
+            put(e.getKey(), e.getValue());
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        int i = findSlot(key, hash(key));
+        if (i < 0)
+            return null;
+        V oldValue = (V)vals[i];
+        eraseAt(i);
+        return oldValue;
+    }
+
+    public boolean remove(Object key, Object value) {
+        int i = findSlot(key, hash(key));
+        if (i >= 0 && Objects.equals(vals[i], value)) {
+            eraseAt(i);
+            return true;
+        }
+        return false;
+    }
+
+    public boolean replace(K key, V oldValue, V newValue) {
+        int i = findSlot(key, hash(key));
+        if (i >= 0 && Objects.equals(vals[i], oldValue)) {
+            vals[i] = newValue;
+            return true;
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V replace(K key, V value) {
+        int i = findSlot(key, hash(key));
+        if (i >= 0) {
+            V oldValue = (V)vals[i];
+            vals[i] = value;
+            return oldValue;
+        }
+        return null;
+    }
+
+    public void clear() {
+        if (size > 0) {
+            ++modCount;
+            size = 0;
+            Arrays.fill(ctrl, ALL_EMPTY);
+            Arrays.fill(keys, null);
+            Arrays.fill(vals, null);
+            growthLeft = maxLoad(keys.length);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public V computeIfAbsent(K key,
+                             Function<? super K, ? extends V> mappingFunction) {
+        if (mappingFunction == null)
+            throw new NullPointerException();
+        int h = hash(key), i = findSlot(key, h);
+        V oldValue;
+        if (i >= 0 && (oldValue = (V)vals[i]) != null)
+            return oldValue;
+        int mc = modCount;
+        V v = mappingFunction.apply(key);
+        if (mc != modCount)
+            throw new ConcurrentModificationException();
+        if (v == null)
+            return null;
+        if (i >= 0)
+            vals[i] = v;
+        else
+            insertNew(h, key, v);
+        return v;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V computeIfPresent(K key,
+                              BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        if (remappingFunction == null)
+            throw new NullPointerException();
+        int i = findSlot(key, hash(key));
+        V oldValue;
+        if (i >= 0 && (oldValue = (V)vals[i]) != null) {
+            int mc = modCount;
+            V v = remappingFunction.apply(key, oldValue);
+            if (mc != modCount)
+                throw new ConcurrentModificationException();
+            if (v != null) {
+                vals[i] = v;
+                return v;
+            }
+            eraseAt(i);
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V compute(K key,
+                     BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        if (remappingFunction == null)
+            throw new NullPointerException();
+        int h = hash(key), i = findSlot(key, h);
+        V oldValue = (i >= 0) ? (V)vals[i] : null;
+        int mc = modCount;
+        V v = remappingFunction.apply(key, oldValue);
+        if (mc != modCount)
+            throw new ConcurrentModificationException();
+        if (i >= 0) {
+            if (v != null)
+                vals[i] = v;
+            else
+                eraseAt(i);
+        }
+        else if (v != null)
+            insertNew(h, key, v);
+        return v;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V merge(K key, V value,
+                   BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        if (value == null)
+            throw new NullPointerException();
+        if (remappingFunction == null)
+            throw new NullPointerException();
+        int h = hash(key), i = findSlot(key, h);
+        if (i < 0) {
+            insertNew(h, key, value);
+            return value;
+        }
+        V oldValue = (V)vals[i], v;
+        if (oldValue == null)
+            v = value;
+        else {
+            int mc = modCount;
+            v = remappingFunction.apply(oldValue, value);
+            if (mc != modCount)
+                throw new ConcurrentModificationException();
+        }
+        if (v != null)
+            vals[i] = v;
+        else
+            eraseAt(i);
+        return v;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        if (action == null)
+            throw new NullPointerException();
+        long[] c = ctrl;
+        Object[] ks = keys, vs = vals;
+        int mc = modCount;
+        for (int g = 0; g < c.length && mc == modCount; g++) {
+            for (long full = ~c[g] & MSB; full != 0; full &= full - 1) {
+                int i = (g << GROUP_SHIFT) + lowestByte(full);
+                action.accept((K)ks[i], (V)vs[i]);
+            }
+        }
+        if (mc != modCount)
+            throw new ConcurrentModificationException();
+    }
+
+    @SuppressWarnings("unchecked")
+    public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+        if (function == null)
+            throw new NullPointerException();
+        long[] c = ctrl;
+        Object[] ks = keys, vs = vals;
+        int mc = modCount;
+        for (int g = 0; g < c.length && mc == modCount; g++) {
+            for (long full = ~c[g] & MSB; full != 0; full &= full - 1) {
+                int i = (g << GROUP_SHIFT) + lowestByte(full);
+                vs[i] = function.apply((K)ks[i], (V)vs[i]);
+            }
+        }
+        if (mc != modCount)
+            throw new ConcurrentModificationException();
+    }
+
+    public Set<K> keySet() {
+        Set<K> ks;
+        return (ks = keySet) == null ? (keySet = new KeySet()) : ks;
+    }
+
+    public Collection<V> values() {
+        Collection<V> vs;
+        return (vs = values) == null ? (values = new Values()) : vs;
+    }
+
+    public Set<Map.Entry<K,V>> entrySet() {
+        Set<Map.Entry<K,V>> es;
+        return (es = entrySet) == null ? (entrySet = new EntrySet()) : es;
+    }
+
+    final class KeySet extends AbstractSet<K> {
+        public final int size()                 { return size; }
+        public final void clear()               { SwissHashMap.this.clear(); }
+        public final Iterator<K> iterator()     { return new KeyIterator(); }
+        public final boolean contains(Object o) { return containsKey(o); }
+        public final boolean remove(Object key) {
+            int i = findSlot(key, hash(key));
+            if (i < 0)
+                return false;
+            eraseAt(i);
+            return true;
+        }
+        public final void forEach(Consumer<? super K> action) {
+            if (action == null)
+                throw new NullPointerException();
+            SwissHashMap.this.forEach((k, v) -> action.accept(k));
+        }
+    }
+
+    final class Values extends AbstractCollection<V> {
+        public final int size()                 { return size; }
+        public final void clear()               { SwissHashMap.this.clear(); }
+        public final Iterator<V> iterator()     { return new ValueIterator(); }
+        public final boolean contains(Object o) { return containsValue(o); }
+        public final void forEach(Consumer<? super V> action) {
+            if (action == null)
+                throw new NullPointerException();
+            SwissHashMap.this.forEach((k, v) -> action.accept(v));
+        }
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<K,V>> {
+        public final int size()                 { return size; }
+        public final void clear()               { SwissHashMap.this.clear(); }
+        public final Iterator<Map.Entry<K,V>> iterator() {
+            return new EntryIterator();
+        }
+        public final boolean contains(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+            Object key = e.getKey();
+            int i = findSlot(key, hash(key));
+            return i >= 0 && Objects.equals(vals[i], e.getValue());
+        }
+        public final boolean remove(Object o) {
+            if (o instanceof Map.Entry) {
+                Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+                return SwissHashMap.this.remove(e.getKey(), e.getValue());
+            }
+            return false;
+        }
+    }
+
+    // Removal only rewrites control bytes and never moves entries, so
+    // iterators simply walk the full-slot bitmap group by group.
+    abstract class SlotIterator {
+        int group = -1;
+        long pending;          // full slots of the current group not yet returned
+        int current = -1;      // slot of last returned entry
+        int expectedModCount = modCount;
+
+        SlotIterator() {
+            advance();
+        }
+
+        private void advance() {
+            long[] c = ctrl;
+            while (pending == 0 && ++group < c.length)
+                pending = ~c[group] & MSB;
+        }
+
+        public final boolean hasNext() {
+            return pending != 0;
+        }
+
+        final int nextSlot() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (pending == 0)
+                throw new NoSuchElementException();
+            int i = (group << GROUP_SHIFT) + lowestByte(pending);
+            pending &= pending - 1;
+            advance();
+            return current = i;
+        }
+
+        public final void remove() {
+            if (current < 0)
+                throw new IllegalStateException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            eraseAt(current);
+            current = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    final class KeyIterator extends SlotIterator implements Iterator<K> {
+        @SuppressWarnings("unchecked")
+        public final K next() { return (K)keys[nextSlot()]; }
+    }
+
+    final class ValueIterator extends SlotIterator implements Iterator<V> {
+        @SuppressWarnings("unchecked")
+        public final V next() { return (V)vals[nextSlot()]; }
+    }
+
+    final class EntryIterator extends SlotIterator
+        implements Iterator<Map.Entry<K,V>> {
+        @SuppressWarnings("unchecked")
+        public final Map.Entry<K,V> next() {
+            int i = nextSlot();
+            return new MapEntry((K)keys[i], (V)vals[i]);
+        }
+    }
+
+    final class MapEntry extends AbstractMap.SimpleEntry<K,V> {
+        private static final long serialVersionUID = 5420196728335214617L;
+
+        MapEntry(K key, V value) {
+            super(key, value);
+        }
+
+        public V setValue(V value) {
+            put(getKey(), value);
+            return super.setValue(value);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public Object clone() {
+        SwissHashMap<K,V> result;
+        try {
+            result = (SwissHashMap<K,V>)super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+        result.ctrl = ctrl.clone();
+        result.keys = keys.clone();
+        result.vals = vals.clone();
+        result.entrySet = null;
+        result.modCount = 0;
+        return result;
+    }
+
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws IOException {
+        s.defaultWriteObject();
+        s.writeInt(size);
+        long[] c = ctrl;
+        for (int g = 0; g < c.length; g++) {
+            for (long full = ~c[g] & MSB; full != 0; full &= full - 1) {
+                int i = (g << GROUP_SHIFT) + lowestByte(full);
+                s.writeObject(keys[i]);
+                s.writeObject(vals[i]);
+            }
+        }
+    }
+
+    private void readObject(java.io.ObjectInputStream s)
+        throws IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        int mappings = s.readInt();
+        if (mappings < 0)
+            throw new InvalidObjectException("Illegal mappings count: " +
+                                             mappings);
+        allocate(capacityFor(mappings));
+        for (int i = 0; i < mappings; i++) {
+            @SuppressWarnings("unchecked")
+                K key = (K) s.readObject();
+            @SuppressWarnings("unchecked")
+                V value = (V) s.readObject();
+            put(key, value);
+        }
+    }
+}
@@ -4,9 +4,9 @@ package java.util;
 class TimSort<T> {
     private static final int MIN_MERGE = 32;
 
-    private final T[] a;
+    private T[] a;
 
-    private final Comparator<? super T> c;
+    private Comparator<? super T> c;
 
     private static final int  MIN_GALLOP = 7;
 
@@ -17,6 +17,11 @@ class TimSort<T> {
     private T[] tmp;
     private int tmpBase; // base of tmp array slice
     private int tmpLen;  // length of tmp array slice
+    private int tmpUsed; // high-water mark of tmp, for release
+
+    // set when owned by a SortContext: tmp is then an Object[] whatever
+    // the type of the arrays sorted
+    private final boolean reusable;
 
     private int stackSize = 0;  // Number of pending runs on stack
     private final int[] runBase;
@@ -25,6 +30,7 @@ class TimSort<T> {
     private TimSort(T[] a, Comparator<? super T> c, T[] work, int workBase, int workLen) {
         this.a = a;
         this.c = c;
+        this.reusable = false;
 
         int len = a.length;
         int tlen = (len < 2 * INITIAL_TMP_STORAGE_LENGTH) ?
@@ -50,6 +56,17 @@ class TimSort<T> {
         runLen = new int[stackLen];
     }
 
+    // The instance kept by a SortContext, with a run stack deep enough for
+    // any array length.
+    @SuppressWarnings("unchecked")
+    private TimSort() {
+        this.reusable = true;
+        tmp = (T[]) new Object[INITIAL_TMP_STORAGE_LENGTH];
+        tmpLen = INITIAL_TMP_STORAGE_LENGTH;
+        runBase = new int[40];
+        runLen = new int[40];
+    }
+
 
     static <T> void sort(T[] a, int lo, int hi, Comparator<? super T> c,
                          T[] work, int workBase, int workLen) {
@@ -66,6 +83,51 @@ class TimSort<T> {
         }
 
         TimSort<T> ts = new TimSort<>(a, c, work, workBase, workLen);
+        ts.sortRuns(lo, hi);
+    }
+
+    // As sort above, with the merge buffer and run stack kept in ctx. A
+    // context still busy with an enclosing sort, as when a comparator sorts
+    // with it, is left alone and this sort allocates its own.
+    static <T> void sort(T[] a, int lo, int hi, Comparator<? super T> c,
+                         SortContext ctx) {
+        assert c != null && a != null && lo >= 0 && lo <= hi && hi <= a.length;
+
+        int nRemaining  = hi - lo;
+        if (nRemaining < 2)
+            return;
+
+        if (nRemaining < MIN_MERGE) {
+            int initRunLen = countRunAndMakeAscending(a, lo, hi, c);
+            binarySort(a, lo, hi, lo + initRunLen, c);
+            return;
+        }
+
+        if (ctx.inUse) {
+            sort(a, lo, hi, c, null, 0, 0);
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        TimSort<T> ts = (TimSort<T>) ctx.timSort;
+        if (ts == null)
+            ctx.timSort = ts = new TimSort<>();
+        ctx.inUse = true;
+        ts.a = a;
+        ts.c = c;
+        ts.minGallop = MIN_GALLOP;
+        try {
+            ts.sortRuns(lo, hi);
+        } finally {
+            ts.release(ctx.maxRetainedLength);
+            ctx.inUse = false;
+        }
+    }
+
+    private void sortRuns(int lo, int hi) {
+        T[] a = this.a;
+        Comparator<? super T> c = this.c;
+        int nRemaining = hi - lo;
+        stackSize = 0;
         int minRun = minRunLength(nRemaining);
         do {
             int runLen = countRunAndMakeAscending(a, lo, hi, c);
@@ -76,16 +138,32 @@ class TimSort<T> {
                 runLen = force;
             }
 
-            ts.pushRun(lo, runLen);
-            ts.mergeCollapse();
+            pushRun(lo, runLen);
+            mergeCollapse();
 
             lo += runLen;
             nRemaining -= runLen;
         } while (nRemaining != 0);
 
         assert lo == hi;
-        ts.mergeForceCollapse();
-        assert ts.stackSize == 1;
+        mergeForceCollapse();
+        assert stackSize == 1;
+    }
+
+    // Drops what a reused instance would otherwise keep reachable: the
+    // array, the comparator, and the elements left in the merge buffer. A
+    // buffer grown past maxRetainedLength is not kept at all.
+    @SuppressWarnings("unchecked")
+    private void release(int maxRetainedLength) {
+        a = null;
+        c = null;
+        if (tmpLen > maxRetainedLength) {
+            tmp = (T[]) new Object[INITIAL_TMP_STORAGE_LENGTH];
+            tmpLen = INITIAL_TMP_STORAGE_LENGTH;
+        } else {
+            Arrays.fill(tmp, 0, tmpUsed, null);
+        }
+        tmpUsed = 0;
     }
 
     @SuppressWarnings("fallthrough")
@@ -517,6 +595,8 @@ class TimSort<T> {
     }
 
     private T[] ensureCapacity(int minCapacity) {
+        if (minCapacity > tmpUsed)
+            tmpUsed = minCapacity;
         if (tmpLen < minCapacity) {
             int newSize = minCapacity;
             newSize |= newSize >> 1;
@@ -532,7 +612,8 @@ class TimSort<T> {
                 newSize = Math.min(newSize, a.length >>> 1);
 
             @SuppressWarnings({"unchecked", "UnnecessaryLocalVariable"})
-            T[] newArray = (T[])java.lang.reflect.Array.newInstance
+            T[] newArray = reusable ? (T[]) new Object[newSize] :
+                (T[])java.lang.reflect.Array.newInstance
                 (a.getClass().getComponentType(), newSize);
             tmp = newArray;
             tmpLen = newSize;
@@ -41,6 +41,55 @@ public class TreeMap<K,V>
         }
     }
 
+    // Bulk loads: keys must already be in strictly ascending order (this is
+    // checked), and the tree is then built bottom-up in linear time by
+    // buildFromSorted instead of n descents and rebalances.
+
+    public static <K,V> TreeMap<K,V> fromSorted(K[] keys, V[] values) {
+        return fromSorted(keys, values, null);
+    }
+
+    public static <K,V> TreeMap<K,V> fromSorted(K[] keys, V[] values,
+                                                Comparator<? super K> comparator) {
+        int n = keys.length;
+        if (values.length != n)
+            throw new IllegalArgumentException("keys.length != values.length");
+        TreeMap<K,V> map = new TreeMap<>(comparator);
+        map.buildFromSortedArrays(keys, values, n);
+        return map;
+    }
+
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    public static <K,V> TreeMap<K,V> fromSortedIterator(
+        Iterator<? extends Map.Entry<? extends K, ? extends V>> it) {
+        return fromSortedIterator(it, null);
+    }
+
+    // The entries are gathered into arrays first, so the size need not be
+    // known in advance.
+    public static <K,V> TreeMap<K,V> fromSortedIterator(
+        Iterator<? extends Map.Entry<? extends K, ? extends V>> it,
+        Comparator<? super K> comparator) {
+        Object[] keys = new Object[16], vals = new Object[16];
+        int n = 0;
+        while (it.hasNext()) {
+            Map.Entry<? extends K, ? extends V> e = it.next();
+            if (n == keys.length) {
+                if (n == MAX_ARRAY_SIZE)
+                    throw new OutOfMemoryError("Required array size too large");
+                int newLength = (n < MAX_ARRAY_SIZE >>> 1) ? n << 1 : MAX_ARRAY_SIZE;
+                keys = Arrays.copyOf(keys, newLength);
+                vals = Arrays.copyOf(vals, newLength);
+            }
+            keys[n] = e.getKey();
+            vals[n++] = e.getValue();
+        }
+        TreeMap<K,V> map = new TreeMap<>(comparator);
+        map.buildFromSortedArrays(keys, vals, n);
+        return map;
+    }
+
 
 
     public int size() {
@@ -285,6 +334,8 @@ public class TreeMap<K,V>
             parent.left = e;
         else
             parent.right = e;
+        for (Entry<K,V> q = parent; q != null; q = q.parent)
+            q.count++;
         fixAfterInsertion(e);
         size++;
         modCount++;
@@ -388,6 +439,64 @@ public class TreeMap<K,V>
         return keyOrNull(getHigherEntry(key));
     }
 
+    // Order statistics. Every Entry counts the nodes of its subtree, so
+    // these are a single root-to-leaf walk.
+
+    // number of keys less than key
+    public int rank(K key) {
+        return countBelow(key, false);
+    }
+
+    public Map.Entry<K,V> select(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: "+index+", Size: "+size);
+        return exportEntry(getEntryAt(index));
+    }
+
+    public int countInRange(K fromKey, boolean fromInclusive,
+                            K toKey,   boolean toInclusive) {
+        if (compare(fromKey, toKey) > 0)
+            throw new IllegalArgumentException("fromKey > toKey");
+        return Math.max(0, countBelow(toKey, toInclusive) -
+                           countBelow(fromKey, !fromInclusive));
+    }
+
+    public int countInRange(K fromKey, K toKey) {
+        return countInRange(fromKey, true, toKey, false);
+    }
+
+    // number of keys less than key, or not greater than it if inclusive
+    final int countBelow(Object key, boolean inclusive) {
+        int n = 0;
+        Entry<K,V> p = root;
+        while (p != null) {
+            int cmp = compare(key, p.key);
+            if (cmp < 0)
+                p = p.left;
+            else if (cmp > 0) {
+                n += countOf(p.left) + 1;
+                p = p.right;
+            } else
+                return n + countOf(p.left) + (inclusive ? 1 : 0);
+        }
+        return n;
+    }
+
+    final Entry<K,V> getEntryAt(int index) {
+        Entry<K,V> p = root;
+        while (p != null) {
+            int l = countOf(p.left);
+            if (index < l)
+                p = p.left;
+            else if (index > l) {
+                index -= l + 1;
+                p = p.right;
+            } else
+                break;
+        }
+        return p;
+    }
+
 
     private transient EntrySet entrySet;
     private transient KeySet<K> navigableKeySet;
@@ -921,7 +1030,12 @@ public class TreeMap<K,V>
         }
 
         public int size() {
-            return (fromStart && toEnd) ? m.size() : entrySet().size();
+            if (fromStart && toEnd)
+                return m.size();
+            int n = toEnd ? m.size() : m.countBelow(hi, hiInclusive);
+            if (!fromStart)
+                n -= m.countBelow(lo, !loInclusive);
+            return Math.max(n, 0); // lo == hi with both ends exclusive
         }
 
         public final boolean containsKey(Object key) {
@@ -1038,21 +1152,8 @@ public class TreeMap<K,V>
 
 
         abstract class EntrySetView extends AbstractSet<Map.Entry<K,V>> {
-            private transient int size = -1, sizeModCount;
-
             public int size() {
-                if (fromStart && toEnd)
-                    return m.size();
-                if (size == -1 || sizeModCount != m.modCount) {
-                    sizeModCount = m.modCount;
-                    size = 0;
-                    Iterator<?> i = iterator();
-                    while (i.hasNext()) {
-                        size++;
-                        i.next();
-                    }
-                }
-                return size;
+                return NavigableSubMap.this.size();
             }
 
             public boolean isEmpty() {
@@ -1446,6 +1547,7 @@ public class TreeMap<K,V>
         Entry<K,V> left;
         Entry<K,V> right;
         Entry<K,V> parent;
+        int count = 1;              // nodes in this subtree
         boolean color = BLACK;
 
         Entry(K key, V value, Entry<K,V> parent) {
@@ -1546,6 +1648,10 @@ public class TreeMap<K,V>
         return (p == null ? BLACK : p.color);
     }
 
+    private static <K,V> int countOf(Entry<K,V> p) {
+        return (p == null ? 0 : p.count);
+    }
+
     private static <K,V> Entry<K,V> parentOf(Entry<K,V> p) {
         return (p == null ? null: p.parent);
     }
@@ -1578,6 +1684,8 @@ public class TreeMap<K,V>
                 p.parent.right = r;
             r.left = p;
             p.parent = r;
+            r.count = p.count;
+            p.count = countOf(p.left) + countOf(p.right) + 1;
         }
     }
 
@@ -1594,6 +1702,8 @@ public class TreeMap<K,V>
             else p.parent.left = l;
             l.right = p;
             p.parent = l;
+            l.count = p.count;
+            p.count = countOf(p.left) + countOf(p.right) + 1;
         }
     }
 
@@ -1649,6 +1759,9 @@ public class TreeMap<K,V>
             p = s;
         } // p has 2 children
 
+        for (Entry<K,V> q = p.parent; q != null; q = q.parent)
+            q.count--;
+
         Entry<K,V> replacement = (p.left != null ? p.left : p.right);
 
         if (replacement != null) {
@@ -1667,6 +1780,7 @@ public class TreeMap<K,V>
         } else if (p.parent == null) { // return if we are the only node.
             root = null;
         } else { //  No children. Use self as phantom replacement and unlink.
+            p.count = 0; // its ancestors no longer count it
             if (p.color == BLACK)
                 fixAfterDeletion(p);
 
@@ -1823,6 +1937,7 @@ public class TreeMap<K,V>
         }
 
         Entry<K,V> middle =  new Entry<>(key, value, null);
+        middle.count = hi - lo + 1;
 
         if (level == redLevel)
             middle.color = RED;
@@ -1842,6 +1957,39 @@ public class TreeMap<K,V>
         return middle;
     }
 
+    // Checks the order of keys[0, n) and builds the tree from them through
+    // buildFromSorted, reading the arrays as a stream of entries.
+    private void buildFromSortedArrays(final Object[] keys, final Object[] vals,
+                                       final int n) {
+        if (n > 0)
+            compare(keys[0], keys[0]); // type (and possibly null) check
+        for (int i = 1; i < n; i++) {
+            if (compare(keys[i - 1], keys[i]) >= 0)
+                throw new IllegalArgumentException(
+                    "keys not in ascending order at index " + i);
+        }
+        modCount++;
+        Iterator<Map.Entry<Object,Object>> it =
+            new Iterator<Map.Entry<Object,Object>>() {
+                int i;
+                public boolean hasNext() {
+                    return i < n;
+                }
+                public Map.Entry<Object,Object> next() {
+                    if (i >= n)
+                        throw new NoSuchElementException();
+                    int j = i++;
+                    return new AbstractMap.SimpleImmutableEntry<>(keys[j],
+                                                                  vals[j]);
+                }
+            };
+        try {
+            buildFromSorted(n, it, null, null);
+        } catch (java.io.IOException cannotHappen) {
+        } catch (ClassNotFoundException cannotHappen) {
+        }
+    }
+
     private static int computeRedLevel(int sz) {
         int level = 0;
         for (int m = sz - 1; m >= 0; m = m / 2 - 1)
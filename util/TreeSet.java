@@ -138,6 +138,34 @@ public class TreeSet<E> extends AbstractSet<E>
         return m.higherKey(e);
     }
 
+    // Order statistics, answered by the backing TreeMap. Sets obtained
+    // from subSet, headSet, tailSet or descendingSet are views over a
+    // range and do not support them.
+
+    public int rank(E e) {
+        return tree().rank(e);
+    }
+
+    public E select(int index) {
+        return tree().select(index).getKey();
+    }
+
+    public int countInRange(E fromElement, boolean fromInclusive,
+                            E toElement,   boolean toInclusive) {
+        return tree().countInRange(fromElement, fromInclusive,
+                                   toElement,   toInclusive);
+    }
+
+    public int countInRange(E fromElement, E toElement) {
+        return countInRange(fromElement, true, toElement, false);
+    }
+
+    private TreeMap<E,Object> tree() {
+        if (!(m instanceof TreeMap))
+            throw new UnsupportedOperationException();
+        return (TreeMap<E,Object>) m;
+    }
+
     public E pollFirst() {
         Map.Entry<E,?> e = m.pollFirstEntry();
         return (e == null) ? null : e.getKey();
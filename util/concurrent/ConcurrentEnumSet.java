@@ -0,0 +1,211 @@
+package java.util.concurrent;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import sun.misc.SharedSecrets;
+
+// A lock-free set of enum constants. Membership is a bit vector, as in
+// RegularEnumSet and JumboEnumSet, held in an AtomicLongArray; add and
+// remove are a CAS on the word holding the element's bit, so enums of up
+// to 64 constants take a single word. Bulk operations and iteration are
+// weakly consistent: they visit the words in order, each read once.
+public class ConcurrentEnumSet<E extends Enum<E>> extends AbstractSet<E>
+    implements java.io.Serializable {
+
+    private static final long serialVersionUID = 2917654530243891834L;
+
+    private final Class<E> elementType;
+
+    private transient E[] universe;
+
+    private final AtomicLongArray elements;
+
+    private ConcurrentEnumSet(Class<E> elementType) {
+        this.elementType = elementType;
+        this.universe = getUniverse(elementType);
+        if (universe == null)
+            throw new ClassCastException(elementType + " not an enum");
+        this.elements = new AtomicLongArray((universe.length + 63) >>> 6);
+    }
+
+    public static <E extends Enum<E>> ConcurrentEnumSet<E> noneOf(Class<E> elementType) {
+        return new ConcurrentEnumSet<>(elementType);
+    }
+
+    public static <E extends Enum<E>> ConcurrentEnumSet<E> allOf(Class<E> elementType) {
+        ConcurrentEnumSet<E> result = new ConcurrentEnumSet<>(elementType);
+        int n = result.universe.length;
+        for (int w = 0; w < result.elements.length(); w++) {
+            int bits = Math.min(64, n - (w << 6));
+            result.elements.set(w, -1L >>> (64 - bits));
+        }
+        return result;
+    }
+
+    // The element type is taken from an element of s or, when s is empty,
+    // of its complement; only an enum without constants has neither.
+    public static <E extends Enum<E>> ConcurrentEnumSet<E> copyOf(EnumSet<E> s) {
+        Iterator<E> it = s.iterator();
+        if (!it.hasNext())
+            it = EnumSet.complementOf(s).iterator();
+        if (!it.hasNext())
+            throw new IllegalArgumentException("Enum has no constants");
+        ConcurrentEnumSet<E> result =
+            new ConcurrentEnumSet<>(it.next().getDeclaringClass());
+        for (E e : s)
+            result.add(e);
+        return result;
+    }
+
+    public int size() {
+        int size = 0;
+        for (int w = 0; w < elements.length(); w++)
+            size += Long.bitCount(elements.get(w));
+        return size;
+    }
+
+    public boolean isEmpty() {
+        for (int w = 0; w < elements.length(); w++)
+            if (elements.get(w) != 0)
+                return false;
+        return true;
+    }
+
+    public boolean contains(Object e) {
+        if (!isValid(e))
+            return false;
+        int i = ((Enum<?>)e).ordinal();
+        return (elements.get(i >>> 6) & (1L << i)) != 0;
+    }
+
+    public boolean add(E e) {
+        typeCheck(e);
+        int i = e.ordinal(), w = i >>> 6;
+        long bit = 1L << i;
+        for (;;) {
+            long v = elements.get(w);
+            if ((v & bit) != 0)
+                return false;
+            if (elements.compareAndSet(w, v, v | bit))
+                return true;
+        }
+    }
+
+    public boolean remove(Object e) {
+        if (!isValid(e))
+            return false;
+        int i = ((Enum<?>)e).ordinal(), w = i >>> 6;
+        long bit = 1L << i;
+        for (;;) {
+            long v = elements.get(w);
+            if ((v & bit) == 0)
+                return false;
+            if (elements.compareAndSet(w, v, v & ~bit))
+                return true;
+        }
+    }
+
+    // Word at a time when c is a ConcurrentEnumSet of the same type; each
+    // word is updated atomically, the whole set is not.
+    public boolean addAll(Collection<? extends E> c) {
+        if (!(c instanceof ConcurrentEnumSet))
+            return super.addAll(c);
+        ConcurrentEnumSet<?> s = (ConcurrentEnumSet<?>)c;
+        if (s.elementType != elementType) {
+            if (s.isEmpty())
+                return false;
+            throw new ClassCastException(s.elementType + " != " + elementType);
+        }
+        boolean changed = false;
+        for (int w = 0; w < elements.length(); w++) {
+            long bits = s.elements.get(w), old;
+            if (bits != 0 &&
+                ((old = elements.getAndAccumulate(w, bits, (a, b) -> a | b)) | bits) != old)
+                changed = true;
+        }
+        return changed;
+    }
+
+    public void clear() {
+        for (int w = 0; w < elements.length(); w++)
+            elements.set(w, 0L);
+    }
+
+    // a snapshot, word by word
+    public EnumSet<E> toEnumSet() {
+        EnumSet<E> result = EnumSet.noneOf(elementType);
+        for (E e : this)
+            result.add(e);
+        return result;
+    }
+
+    public Iterator<E> iterator() {
+        return new Itr();
+    }
+
+    final class Itr implements Iterator<E> {
+        int word = -1;
+        long unseen;
+        int lastReturned = -1;
+
+        Itr() {
+            advance();
+        }
+
+        private void advance() {
+            while (unseen == 0 && ++word < elements.length())
+                unseen = elements.get(word);
+        }
+
+        public boolean hasNext() {
+            return unseen != 0;
+        }
+
+        public E next() {
+            if (unseen == 0)
+                throw new NoSuchElementException();
+            long bit = unseen & -unseen;
+            unseen -= bit;
+            lastReturned = (word << 6) + Long.numberOfTrailingZeros(bit);
+            advance();
+            return universe[lastReturned];
+        }
+
+        public void remove() {
+            if (lastReturned < 0)
+                throw new IllegalStateException();
+            ConcurrentEnumSet.this.remove(universe[lastReturned]);
+            lastReturned = -1;
+        }
+    }
+
+    private boolean isValid(Object e) {
+        if (e == null)
+            return false;
+        Class<?> eClass = e.getClass();
+        return eClass == elementType || eClass.getSuperclass() == elementType;
+    }
+
+    private void typeCheck(E e) {
+        Class<?> eClass = e.getClass();
+        if (eClass != elementType && eClass.getSuperclass() != elementType)
+            throw new ClassCastException(eClass + " != " + elementType);
+    }
+
+    private static <E extends Enum<E>> E[] getUniverse(Class<E> elementType) {
+        return SharedSecrets.getJavaLangAccess()
+                                        .getEnumConstantsShared(elementType);
+    }
+
+    private void readObject(java.io.ObjectInputStream s)
+        throws java.io.IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        universe = getUniverse(elementType);
+        if (universe == null || elements.length() != (universe.length + 63) >>> 6)
+            throw new java.io.InvalidObjectException("Enum type changed");
+    }
+}
@@ -0,0 +1,400 @@
+package java.util.concurrent;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+// A concurrent map with weakly referenced keys and, optionally, weakly or
+// softly referenced values: WeakHashMap semantics with ConcurrentHashMap
+// concurrency. Mappings live in a ConcurrentHashMap keyed by WeakKey
+// references, so reads are lock-free and writes lock a single bin.
+//
+// Cleared references are drained from the reference queue by writers, at
+// most DRAIN_BATCH per write, so no operation pays for a full sweep and
+// reads never touch the queue. size() and expungeStaleEntries() drain it
+// completely. Like ConcurrentHashMap, null keys and values are not allowed;
+// keys are compared with equals, as in WeakHashMap.
+public class ConcurrentWeakHashMap<K,V> extends AbstractMap<K,V>
+    implements ConcurrentMap<K,V> {
+
+    // how values are held; keys are always weak
+    public enum Strength { STRONG, WEAK, SOFT }
+
+    static final int DRAIN_BATCH = 32;
+
+    // WeakKey -> V, or ValueRef when values are not strong
+    private final ConcurrentHashMap<Object,Object> map;
+
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<Object>();
+
+    private final Strength valueStrength;
+
+    private transient EntrySet entrySet;
+
+    public ConcurrentWeakHashMap() {
+        this(16, Strength.STRONG);
+    }
+
+    public ConcurrentWeakHashMap(int initialCapacity) {
+        this(initialCapacity, Strength.STRONG);
+    }
+
+    public ConcurrentWeakHashMap(int initialCapacity, Strength valueStrength) {
+        this.map = new ConcurrentHashMap<Object,Object>(initialCapacity);
+        this.valueStrength = Objects.requireNonNull(valueStrength);
+    }
+
+
+    // Equal to another WeakKey or a LookupKey when the referents are equal.
+    // Once cleared it is only equal to itself, which is how the drained
+    // reference finds its own mapping.
+    static final class WeakKey<K> extends WeakReference<K> {
+        final int hash;
+
+        WeakKey(K key, ReferenceQueue<Object> queue) {
+            super(key, queue);
+            this.hash = key.hashCode();
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+
+        public boolean equals(Object o) {
+            if (o == this)
+                return true;
+            Object k, ok;
+            if ((k = get()) == null)
+                return false;
+            if (o instanceof WeakKey)
+                ok = ((WeakKey<?>)o).get();
+            else if (o instanceof LookupKey)
+                ok = ((LookupKey)o).key;
+            else
+                return false;
+            return ok != null && (k == ok || ok.equals(k));
+        }
+    }
+
+    // probe for lookups, saving a WeakKey allocation on reads
+    static final class LookupKey {
+        final Object key;
+        final int hash;
+
+        LookupKey(Object key) {
+            this.key = key;
+            this.hash = key.hashCode();
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+
+        public boolean equals(Object o) {
+            if (o instanceof WeakKey) {
+                Object k = ((WeakKey<?>)o).get();
+                return k != null && (k == key || key.equals(k));
+            }
+            return o instanceof LookupKey && key.equals(((LookupKey)o).key);
+        }
+    }
+
+    // A weak or soft value. It remembers a weak reference to its key so the
+    // mapping can be removed once the value is cleared. That key reference
+    // is not queued, since the mapping's own WeakKey covers the key.
+    interface ValueRef<V> {
+        V get();
+        WeakKey<?> keyRef();
+    }
+
+    static final class WeakValue<V> extends WeakReference<V>
+        implements ValueRef<V> {
+        final WeakKey<?> keyRef;
+        WeakValue(V value, WeakKey<?> keyRef, ReferenceQueue<Object> queue) {
+            super(value, queue);
+            this.keyRef = keyRef;
+        }
+        public WeakKey<?> keyRef() { return keyRef; }
+    }
+
+    static final class SoftValue<V> extends SoftReference<V>
+        implements ValueRef<V> {
+        final WeakKey<?> keyRef;
+        SoftValue(V value, WeakKey<?> keyRef, ReferenceQueue<Object> queue) {
+            super(value, queue);
+            this.keyRef = keyRef;
+        }
+        public WeakKey<?> keyRef() { return keyRef; }
+    }
+
+    private Object wrap(K key, V value) {
+        if (value == null)
+            throw new NullPointerException();
+        switch (valueStrength) {
+        case WEAK:
+            return new WeakValue<V>(value, new WeakKey<K>(key, null), queue);
+        case SOFT:
+            return new SoftValue<V>(value, new WeakKey<K>(key, null), queue);
+        default:
+            return value;
+        }
+    }
+
+    // the value held by v, or null if it has been cleared
+    @SuppressWarnings("unchecked")
+    private V unwrap(Object v) {
+        if (v == null)
+            return null;
+        return (valueStrength == Strength.STRONG) ? (V)v : ((ValueRef<V>)v).get();
+    }
+
+    private int drain(int max) {
+        int n = 0;
+        Reference<?> r;
+        while (n < max && (r = queue.poll()) != null) {
+            if (r instanceof WeakKey)
+                map.remove(r);
+            else
+                map.remove(((ValueRef<?>)r).keyRef(), r);
+            n++;
+        }
+        return n;
+    }
+
+    public int expungeStaleEntries() {
+        return drain(Integer.MAX_VALUE);
+    }
+
+
+    public int size() {
+        drain(Integer.MAX_VALUE);
+        return map.size();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public V get(Object key) {
+        return unwrap(map.get(new LookupKey(key)));
+    }
+
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    public V put(K key, V value) {
+        drain(DRAIN_BATCH);
+        Object v = wrap(key, value);
+        return unwrap(map.put(new WeakKey<K>(key, queue), v));
+    }
+
+    // A mapping whose value has been cleared counts as absent and is
+    // replaced.
+    public V putIfAbsent(K key, V value) {
+        drain(DRAIN_BATCH);
+        Object v = wrap(key, value);
+        WeakKey<K> wk = new WeakKey<K>(key, queue);
+        for (;;) {
+            Object old = map.putIfAbsent(wk, v);
+            V ov;
+            if (old == null)
+                return null;
+            if ((ov = unwrap(old)) != null)
+                return ov;
+            if (map.replace(wk, old, v))
+                return null;
+        }
+    }
+
+    public V remove(Object key) {
+        drain(DRAIN_BATCH);
+        return unwrap(map.remove(new LookupKey(key)));
+    }
+
+    public boolean remove(Object key, Object value) {
+        if (value == null)
+            return false;
+        drain(DRAIN_BATCH);
+        LookupKey lk = new LookupKey(key);
+        for (Object cur; (cur = map.get(lk)) != null; ) {
+            V v = unwrap(cur);
+            if (v == null || !value.equals(v))
+                return false;
+            if (map.remove(lk, cur))
+                return true;
+        }
+        return false;
+    }
+
+    public boolean replace(K key, V oldValue, V newValue) {
+        if (oldValue == null)
+            throw new NullPointerException();
+        drain(DRAIN_BATCH);
+        LookupKey lk = new LookupKey(key);
+        Object nv = wrap(key, newValue);
+        for (Object cur; (cur = map.get(lk)) != null; ) {
+            V v = unwrap(cur);
+            if (v == null || !oldValue.equals(v))
+                return false;
+            if (map.replace(lk, cur, nv))
+                return true;
+        }
+        return false;
+    }
+
+    public V replace(K key, V value) {
+        drain(DRAIN_BATCH);
+        LookupKey lk = new LookupKey(key);
+        Object nv = wrap(key, value);
+        for (Object cur; (cur = map.get(lk)) != null; ) {
+            V v = unwrap(cur);
+            if (v == null)
+                return null;
+            if (map.replace(lk, cur, nv))
+                return v;
+        }
+        return null;
+    }
+
+    // Atomic like ConcurrentHashMap.computeIfAbsent; a hit is a plain
+    // lock-free read.
+    public V computeIfAbsent(K key,
+                             Function<? super K, ? extends V> mappingFunction) {
+        Objects.requireNonNull(mappingFunction);
+        V v;
+        if ((v = get(key)) != null)
+            return v;
+        drain(DRAIN_BATCH);
+        @SuppressWarnings("unchecked")
+        V[] result = (V[]) new Object[1];
+        map.compute(new WeakKey<K>(key, queue), (k, old) -> {
+            V ov = unwrap(old);
+            if (ov != null) {
+                result[0] = ov;
+                return old;
+            }
+            V nv = mappingFunction.apply(key);
+            result[0] = nv;
+            return (nv == null) ? null : wrap(key, nv);
+        });
+        return result[0];
+    }
+
+    public void clear() {
+        map.clear();
+        while (queue.poll() != null)
+            ;
+    }
+
+    public Set<Map.Entry<K,V>> entrySet() {
+        EntrySet es = entrySet;
+        return (es != null) ? es : (entrySet = new EntrySet());
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<K,V>> {
+        public Iterator<Map.Entry<K,V>> iterator() {
+            return new EntryIterator();
+        }
+        public int size() {
+            return ConcurrentWeakHashMap.this.size();
+        }
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>)o;
+            Object k, v;
+            return (k = e.getKey()) != null && (v = e.getValue()) != null &&
+                v.equals(get(k));
+        }
+        public boolean remove(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>)o;
+            Object k;
+            return (k = e.getKey()) != null &&
+                ConcurrentWeakHashMap.this.remove(k, e.getValue());
+        }
+        public void clear() {
+            ConcurrentWeakHashMap.this.clear();
+        }
+    }
+
+    // Weakly consistent, as the underlying map's iterators. Mappings whose
+    // key or value has been cleared are skipped; the next key and value are
+    // held strongly until they have been returned.
+    final class EntryIterator implements Iterator<Map.Entry<K,V>> {
+        final Iterator<Map.Entry<Object,Object>> it = map.entrySet().iterator();
+        K nextKey;
+        V nextValue;
+        K lastKey;
+
+        EntryIterator() {
+            advance();
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            nextKey = null;
+            nextValue = null;
+            while (it.hasNext()) {
+                Map.Entry<Object,Object> e = it.next();
+                K k = ((WeakKey<K>)e.getKey()).get();
+                V v = unwrap(e.getValue());
+                if (k != null && v != null) {
+                    nextKey = k;
+                    nextValue = v;
+                    return;
+                }
+            }
+        }
+
+        public boolean hasNext() {
+            return nextKey != null;
+        }
+
+        public Map.Entry<K,V> next() {
+            K k = nextKey;
+            V v = nextValue;
+            if (k == null)
+                throw new NoSuchElementException();
+            advance();
+            lastKey = k;
+            return new WriteThroughEntry(k, v);
+        }
+
+        // the underlying iterator has already moved on, so remove by key
+        public void remove() {
+            K k = lastKey;
+            if (k == null)
+                throw new IllegalStateException();
+            lastKey = null;
+            ConcurrentWeakHashMap.this.remove(k);
+        }
+    }
+
+    final class WriteThroughEntry extends AbstractMap.SimpleEntry<K,V> {
+        private static final long serialVersionUID = -7042287412745512427L;
+
+        WriteThroughEntry(K k, V v) {
+            super(k, v);
+        }
+
+        public V setValue(V value) {
+            if (value == null)
+                throw new NullPointerException();
+            V v = super.setValue(value);
+            ConcurrentWeakHashMap.this.put(getKey(), value);
+            return v;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package java.util.concurrent.atomic;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.EnumLongMap;
+import java.util.concurrent.ThreadLocalRandom;
+import sun.misc.SharedSecrets;
+
+// One LongAdder per constant of an enum, for concurrently updated per-key
+// counters. Counts are kept in rows of an AtomicLongArray indexed by
+// ordinal. Threads pick a row by their Striped64 probe; a thread whose CAS
+// fails moves to another row and, while there are fewer rows than CPUs,
+// doubles the number of rows. Each row is padded at its end so that
+// counters of adjacent rows do not share a cache line.
+public class EnumLongAdder<K extends Enum<K>> implements Serializable {
+    private static final long serialVersionUID = -4187325413604218457L;
+
+    // longs of padding after each row: one 64-byte cache line
+    static final int PAD = 8;
+
+    private static final int MAX_ROWS = maxRows(Striped64.NCPU);
+
+    private final Class<K> keyType;
+
+    private transient K[] keyUniverse;
+
+    private transient volatile AtomicLongArray[] rows;
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<EnumLongAdder, AtomicLongArray[]>
+        ROWS = AtomicReferenceFieldUpdater.newUpdater
+        (EnumLongAdder.class, AtomicLongArray[].class, "rows");
+
+    public EnumLongAdder(Class<K> keyType) {
+        this.keyType = keyType;
+        keyUniverse = getKeyUniverse(keyType);
+        rows = new AtomicLongArray[] { newRow() };
+    }
+
+    private static int maxRows(int ncpu) {
+        int n = 1;
+        while (n < ncpu)
+            n <<= 1;
+        return n;
+    }
+
+    private AtomicLongArray newRow() {
+        return new AtomicLongArray(keyUniverse.length + PAD);
+    }
+
+    public void add(K key, long x) {
+        int i = index(key);
+        AtomicLongArray[] rs = rows;
+        AtomicLongArray r = rs[Striped64.getProbe() & (rs.length - 1)];
+        long v = r.get(i);
+        if (!r.compareAndSet(i, v, v + x))
+            contendedAdd(i, x);
+    }
+
+    public void increment(K key) {
+        add(key, 1L);
+    }
+
+    public void decrement(K key) {
+        add(key, -1L);
+    }
+
+    // Grows the rows if allowed, moves the thread to another row and adds
+    // there unconditionally. Growth copies the row references, so adds
+    // racing with it still land in rows of the new table.
+    private void contendedAdd(int i, long x) {
+        int h;
+        if ((h = Striped64.getProbe()) == 0) {
+            ThreadLocalRandom.current(); // force initialization
+            h = Striped64.getProbe();
+        }
+        AtomicLongArray[] rs = rows;
+        int n = rs.length;
+        if (n < MAX_ROWS) {
+            AtomicLongArray[] grown = new AtomicLongArray[n << 1];
+            System.arraycopy(rs, 0, grown, 0, n);
+            for (int j = n; j < grown.length; j++)
+                grown[j] = newRow();
+            ROWS.compareAndSet(this, rs, grown);
+        }
+        h = Striped64.advanceProbe(h);
+        rs = rows;
+        rs[h & (rs.length - 1)].getAndAdd(i, x);
+    }
+
+    // Like LongAdder.sum, not an atomic snapshot when updates are
+    // concurrent.
+    public long sum(K key) {
+        int i = index(key);
+        long sum = 0L;
+        for (AtomicLongArray r : rows)
+            sum += r.get(i);
+        return sum;
+    }
+
+    public void reset(K key) {
+        int i = index(key);
+        for (AtomicLongArray r : rows)
+            r.set(i, 0L);
+    }
+
+    public long sumThenReset(K key) {
+        int i = index(key);
+        long sum = 0L;
+        for (AtomicLongArray r : rows)
+            sum += r.getAndSet(i, 0L);
+        return sum;
+    }
+
+    public void reset() {
+        int n = keyUniverse.length;
+        for (AtomicLongArray r : rows)
+            for (int i = 0; i < n; i++)
+                r.set(i, 0L);
+    }
+
+    // current sums of all keys, every key mapped
+    public EnumLongMap<K> snapshot() {
+        EnumLongMap<K> m = new EnumLongMap<>(keyType);
+        long[] sums = sums();
+        for (int i = 0; i < sums.length; i++)
+            m.put(keyUniverse[i], sums[i]);
+        return m;
+    }
+
+    private long[] sums() {
+        int n = keyUniverse.length;
+        long[] sums = new long[n];
+        for (AtomicLongArray r : rows)
+            for (int i = 0; i < n; i++)
+                sums[i] += r.get(i);
+        return sums;
+    }
+
+    public String toString() {
+        return snapshot().toString();
+    }
+
+    private int index(K key) {
+        Class<?> keyClass = key.getClass();
+        if (keyClass != keyType && keyClass.getSuperclass() != keyType)
+            throw new ClassCastException(keyClass + " != " + keyType);
+        return key.ordinal();
+    }
+
+    private static <K extends Enum<K>> K[] getKeyUniverse(Class<K> keyType) {
+        return SharedSecrets.getJavaLangAccess()
+                                        .getEnumConstantsShared(keyType);
+    }
+
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws IOException {
+        s.defaultWriteObject();
+        long[] sums = sums();
+        s.writeInt(sums.length);
+        for (int i = 0; i < sums.length; i++) {
+            s.writeObject(keyUniverse[i]);
+            s.writeLong(sums[i]);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(java.io.ObjectInputStream s)
+        throws IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        keyUniverse = getKeyUniverse(keyType);
+        AtomicLongArray r = newRow();
+        int n = s.readInt();
+        for (int i = 0; i < n; i++) {
+            K key = (K) s.readObject();
+            r.set(index(key), s.readLong());
+        }
+        rows = new AtomicLongArray[] { r };
+    }
+}